@@ -0,0 +1,135 @@
+package com.example.seatmanager.bench;
+
+import com.example.seatmanager.dao.SeatDAO;
+import com.example.seatmanager.entity.Seat;
+import com.example.seatmanager.server.ApiServer;
+import com.example.seatmanager.service.LifecycleService;
+import com.example.seatmanager.service.SessionService;
+import com.example.seatmanager.util.DBUtil;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ApiServerLoadTest：在同一进程内启动 ApiServer，用若干并发客户端（虚拟线程）压测，输出单节点每秒请求数。
+ *
+ * 请求构成：80% 查看示意图（GET /api/rooms/{id}/map），20% 区间预约（POST /api/reservations）。
+ * 运行：java -cp SeatManager.jar com.example.seatmanager.bench.ApiServerLoadTest [并发客户端数] [持续秒数]
+ * 基准数据写在 2099-01-04，结束后删除。
+ * 测的是单节点处理能力，所有请求来自同一地址与学号，默认关闭准入控制（AdmissionService）。
+ */
+public class ApiServerLoadTest {
+
+    private static final LocalDate BENCH_DATE = LocalDate.of(2099, 1, 4);
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+
+        if (System.getProperty("seatmanager.admission") == null) {
+            System.setProperty("seatmanager.admission", "false");
+        }
+        LifecycleService lifecycle = new LifecycleService();
+        lifecycle.startUp();
+        ApiServer server = new ApiServer(0);
+        server.start();
+        String base = "http://localhost:" + server.getPort();
+        // 同进程内直接签发会话，省去 /api/login
+        String auth = "Bearer " + SessionService.getInstance().open("1001");
+
+        SeatDAO seatDAO = new SeatDAO();
+        long[] seatIds = seatDAO.findAllIds();
+        int[] roomIds = new int[seatIds.length];
+        for (int i = 0; i < seatIds.length; i++) {
+            roomIds[i] = seatDAO.findById(seatIds[i]).getRoomId();
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        Histogram mapLatency = new ConcurrentHistogram(TimeUnit.SECONDS.toMicros(60), 3);
+        Histogram reserveLatency = new ConcurrentHistogram(TimeUnit.SECONDS.toMicros(60), 3);
+        LongAdder failures = new LongAdder();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        long begin = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                executor.submit(() -> {
+                    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        int i = rnd.nextInt(seatIds.length);
+                        HttpRequest request;
+                        Histogram histogram;
+                        if (rnd.nextInt(5) != 0) {
+                            request = HttpRequest.newBuilder(URI.create(
+                                    base + "/api/rooms/" + roomIds[i] + "/map?date=" + BENCH_DATE))
+                                    .header("Authorization", auth).GET().build();
+                            histogram = mapLatency;
+                        } else {
+                            int start = rnd.nextInt(180);
+                            String json = "{\"seatId\":" + seatIds[i]
+                                    + ",\"date\":\"" + BENCH_DATE + "\",\"startSlot\":" + start + ",\"endSlot\":" + (start + 12) + "}";
+                            request = HttpRequest.newBuilder(URI.create(base + "/api/reservations"))
+                                    .header("Content-Type", "application/json")
+                                    .header("Authorization", auth)
+                                    .POST(HttpRequest.BodyPublishers.ofString(json)).build();
+                            histogram = reserveLatency;
+                        }
+                        long t0 = System.nanoTime();
+                        try {
+                            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            // 409 为正常的预约冲突
+                            if (status != 200 && status != 409) {
+                                failures.increment();
+                            }
+                        } catch (Exception e) {
+                            failures.increment();
+                        }
+                        histogram.recordValue(Math.min((System.nanoTime() - t0) / 1000, TimeUnit.SECONDS.toMicros(60)));
+                    }
+                    return null;
+                });
+            }
+        }
+        double elapsed = (System.nanoTime() - begin) / 1e9;
+
+        long total = mapLatency.getTotalCount() + reserveLatency.getTotalCount();
+        System.out.printf("clients=%d, %.1f s, %d requests, %.0f req/s, %d failures%n",
+                clients, elapsed, total, total / elapsed, failures.sum());
+        print("map", mapLatency, elapsed);
+        print("reserve", reserveLatency, elapsed);
+
+        server.stop();
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement("DELETE FROM usage_record WHERE record_date = ?")) {
+            ps.setDate(1, Date.valueOf(BENCH_DATE));
+            ps.executeUpdate();
+        }
+        lifecycle.shutDown();
+    }
+
+    private static void print(String name, Histogram h, double seconds) {
+        if (h.getTotalCount() == 0) {
+            return;
+        }
+        System.out.printf("%-8s %8d req, %8.0f req/s, p50 %7d us, p99 %8d us, p999 %8d us%n",
+                name, h.getTotalCount(), h.getTotalCount() / seconds,
+                h.getValueAtPercentile(50), h.getValueAtPercentile(99), h.getValueAtPercentile(99.9));
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.seatmanager.bench;
+
+import com.example.seatmanager.controller.AuthController;
+import com.example.seatmanager.controller.MapController;
+import com.example.seatmanager.controller.RecommendController;
+import com.example.seatmanager.controller.ReserveController;
+import com.example.seatmanager.dao.SeatDAO;
+import com.example.seatmanager.entity.Seat;
+import com.example.seatmanager.service.AdmissionRejectedException;
+import com.example.seatmanager.service.AdmissionService;
+import com.example.seatmanager.service.IntervalMigrationService;
+import com.example.seatmanager.util.DBUtil;
+import com.example.seatmanager.util.SlotCalendar;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * BookingRushLoadGenerator：无界面的压测工具，模拟 08:00 开放预约时大量学生同时抢座。
+ *
+ * 每个虚拟用户（一个虚拟线程）依次执行：
+ * 1. 登录（AuthController）
+ * 2. 按 Zipf 热度挑一个自习室并打开示意图（MapController）
+ * 3. 按一定比例先请求推荐（RecommendController），否则按 Zipf 热度在该自习室内挑座位
+ * 4. 预约一段热门时段（ReserveController）；冲突则换座位重试，最多 retries 次
+ * 两步之间按指数分布停顿（平均 think 毫秒）。运行结束后按操作输出吞吐量、冲突率与延迟分布。
+ *
+ * 运行（参数均为 key=value，可省略）：
+ * java -cp SeatManager.jar com.example.seatmanager.bench.BookingRushLoadGenerator
+ *      users=2000 rounds=3 think=300 zipf=1.1 recommend=0.3 retries=3 date=2099-01-03
+ * 准入控制（AdmissionService）照常生效，被拒绝的请求单独计数；加 -Dseatmanager.admission=false 可测无保护时的表现。
+ * 压测使用 DBUtil 启动的嵌入式 MariaDB4j；虚拟学生学号以 LG 开头，结束后连同其预约一并删除。
+ */
+public class BookingRushLoadGenerator {
+
+    private static final String[] OPS = {"login", "map", "recommend", "reserve"};
+    // 延迟统计上限 60 秒，3 位有效数字（单位：微秒）
+    private static final long MAX_LATENCY_US = TimeUnit.SECONDS.toMicros(60);
+
+    private final int users;
+    private final int rounds;
+    private final double thinkMillis;
+    private final double recommendRatio;
+    private final int retries;
+    private final String dateStr;
+
+    private final AuthController authController = new AuthController();
+    private final MapController mapController = new MapController();
+    private final RecommendController recommendController = new RecommendController();
+    private final ReserveController reserveController = new ReserveController();
+
+    private final int[] roomIds;
+    private final long[][] roomSeats;
+    private final ZipfSampler roomSampler;
+    private final ZipfSampler[] seatSamplers;
+    private final ZipfSampler startSampler;
+
+    private final Map<String, Histogram> histograms = new LinkedHashMap<>();
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder booked = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("expected key=value, got " + arg);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        DBUtil.initDatabase();
+        new IntervalMigrationService().migrate();
+
+        BookingRushLoadGenerator generator = new BookingRushLoadGenerator(options);
+        try {
+            generator.registerUsers();
+            generator.run();
+        } finally {
+            generator.cleanUp();
+        }
+    }
+
+    private BookingRushLoadGenerator(Map<String, String> options) throws Exception {
+        users = Integer.parseInt(options.getOrDefault("users", "2000"));
+        rounds = Integer.parseInt(options.getOrDefault("rounds", "3"));
+        thinkMillis = Double.parseDouble(options.getOrDefault("think", "300"));
+        recommendRatio = Double.parseDouble(options.getOrDefault("recommend", "0.3"));
+        retries = Integer.parseInt(options.getOrDefault("retries", "3"));
+        dateStr = LocalDate.parse(options.getOrDefault("date", "2099-01-03")).toString();
+        double skew = Double.parseDouble(options.getOrDefault("zipf", "1.1"));
+
+        // 按自习室分组所有座位；自习室与座位的热度顺序即 ID 顺序
+        SeatDAO seatDAO = new SeatDAO();
+        Map<Integer, List<Long>> byRoom = new LinkedHashMap<>();
+        for (long seatId : seatDAO.findAllIds()) {
+            Seat seat = seatDAO.findById(seatId);
+            byRoom.computeIfAbsent(seat.getRoomId(), k -> new ArrayList<>()).add(seatId);
+        }
+        roomIds = new int[byRoom.size()];
+        roomSeats = new long[byRoom.size()][];
+        seatSamplers = new ZipfSampler[byRoom.size()];
+        int i = 0;
+        for (Map.Entry<Integer, List<Long>> e : byRoom.entrySet()) {
+            roomIds[i] = e.getKey();
+            roomSeats[i] = e.getValue().stream().mapToLong(Long::longValue).toArray();
+            seatSamplers[i] = new ZipfSampler(roomSeats[i].length, skew);
+            i++;
+        }
+        roomSampler = new ZipfSampler(roomIds.length, skew);
+        // 起始时段同样偏向上午：以 08:00 附近为最热
+        startSampler = new ZipfSampler(SlotCalendar.getDefault().getSlotCount() - 24, skew);
+
+        for (String op : OPS) {
+            histograms.put(op, new ConcurrentHistogram(MAX_LATENCY_US, 3));
+        }
+    }
+
+    private static String studentId(int user) {
+        return "LG" + user;
+    }
+
+    private static String studentName(int user) {
+        return "压测用户" + user;
+    }
+
+    private void registerUsers() {
+        for (int u = 0; u < users; u++) {
+            authController.handleRegister(studentId(u), studentName(u), "photos/default.jpg", "lg" + u + "@example.com");
+        }
+    }
+
+    private void run() throws InterruptedException {
+        long begin = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int u = 0; u < users; u++) {
+                int user = u;
+                executor.submit(() -> simulateUser(user));
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+        report(elapsed);
+    }
+
+    private void simulateUser(int user) {
+        try {
+            String sid = studentId(user);
+            if (timed("login", () -> authController.handleLogin(sid, studentName(user))) == null) {
+                errors.increment();
+                return;
+            }
+            for (int round = 0; round < rounds; round++) {
+                think();
+                int room = roomSampler.next();
+                timed("map", () -> mapController.handleGetSeatAvailability(sid, String.valueOf(roomIds[room]), dateStr));
+                think();
+
+                int length = 12 + ThreadLocalRandom.current().nextInt(13);  // 1–2 小时
+                int start = 12 + startSampler.next() % (SlotCalendar.getDefault().getSlotCount() - 12 - length);
+                for (int attempt = 0; attempt <= retries; attempt++) {
+                    long seatId = pickSeat(room);
+                    attempts.increment();
+                    Boolean ok;
+                    try {
+                        ok = timed("reserve", () -> reserveController.handleCreateIntervalReservation(
+                                sid, seatId, roomIds[room], dateStr, start, start + length));
+                    } catch (AdmissionRejectedException e) {
+                        rejected.increment();
+                        break;
+                    }
+                    if (Boolean.TRUE.equals(ok)) {
+                        booked.increment();
+                        break;
+                    }
+                    conflicts.increment();
+                }
+            }
+        } catch (AdmissionRejectedException e) {
+            rejected.increment();
+        } catch (RuntimeException e) {
+            errors.increment();
+        }
+    }
+
+    /** 按比例走推荐接口（取第一条），否则按热度随机挑选 */
+    private long pickSeat(int room) {
+        if (ThreadLocalRandom.current().nextDouble() < recommendRatio) {
+            List<Seat> seats = timed("recommend", () ->
+                    recommendController.handleGetRecommendations(dateStr, roomIds[room], false, false, false, 5));
+            if (seats != null && !seats.isEmpty()) {
+                return seats.get(ThreadLocalRandom.current().nextInt(seats.size())).getSeatId();
+            }
+        }
+        return roomSeats[room][seatSamplers[room].next()];
+    }
+
+    private void think() {
+        if (thinkMillis <= 0) {
+            return;
+        }
+        double pause = -thinkMillis * Math.log(1 - ThreadLocalRandom.current().nextDouble());
+        try {
+            Thread.sleep((long) pause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> T timed(String op, Supplier<T> call) {
+        long t0 = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            long micros = (System.nanoTime() - t0) / 1000;
+            histograms.get(op).recordValue(Math.min(micros, MAX_LATENCY_US));
+        }
+    }
+
+    private void report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("users=%d rounds=%d think=%.0fms recommend=%.2f date=%s, wall time %.1f s%n",
+                users, rounds, thinkMillis, recommendRatio, dateStr, seconds);
+        System.out.printf("%-10s %9s %9s %10s %10s %10s %10s%n",
+                "op", "count", "ops/s", "p50(us)", "p99(us)", "p999(us)", "max(us)");
+        for (Map.Entry<String, Histogram> e : histograms.entrySet()) {
+            Histogram h = e.getValue();
+            long count = h.getTotalCount();
+            if (count == 0) {
+                continue;
+            }
+            System.out.printf("%-10s %9d %9.1f %10d %10d %10d %10d%n", e.getKey(), count, count / seconds,
+                    h.getValueAtPercentile(50), h.getValueAtPercentile(99), h.getValueAtPercentile(99.9), h.getMaxValue());
+        }
+        long tries = attempts.sum();
+        System.out.printf("reserve attempts %d, booked %d, conflict rate %.1f%%, rejected %d, errors %d%n",
+                tries, booked.sum(), tries == 0 ? 0.0 : 100.0 * conflicts.sum() / tries, rejected.sum(), errors.sum());
+        AdmissionService.getInstance().stats().forEach((op, stats) -> System.out.println("admission " + op + ": " + stats));
+        if (Boolean.getBoolean("seatmanager.bench.histogram")) {
+            System.out.println("reserve latency distribution (ms):");
+            histograms.get("reserve").outputPercentileDistribution(System.out, 1000.0);
+        }
+    }
+
+    private void cleanUp() throws Exception {
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement records = conn.prepareStatement("DELETE FROM usage_record WHERE record_date = ?");
+             PreparedStatement students = conn.prepareStatement("DELETE FROM student WHERE student_id LIKE 'LG%'")) {
+            records.setDate(1, Date.valueOf(LocalDate.parse(dateStr)));
+            records.executeUpdate();
+            students.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.seatmanager.bench;
+
+import com.example.seatmanager.dao.UsageRecordDAO;
+import com.example.seatmanager.entity.UsageRecord;
+import com.example.seatmanager.service.IntervalMigrationService;
+import com.example.seatmanager.util.BitmapUtil;
+import com.example.seatmanager.util.DBUtil;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+
+/**
+ * IntervalOverlapBenchmark：比较两种冲突检测路径在“单个座位当天有大量预约”时的耗时。
+ *
+ * 1. 位图路径：取回该座位当天所有 time_bitmap，在 Java 中合并后与目标区间按位与
+ * 2. 区间路径：UsageRecordDAO.existsOverlap，在库内用 (seat_id, record_date, start_slot) 索引做范围判断
+ *
+ * 运行：java -cp SeatManager.jar com.example.seatmanager.bench.IntervalOverlapBenchmark [座位数] [每座位预约数] [迭代次数]
+ * 基准数据写在 2099-01-01，结束后删除。
+ */
+public class IntervalOverlapBenchmark {
+
+    private static final LocalDate BENCH_DATE = LocalDate.of(2099, 1, 1);
+
+    public static void main(String[] args) throws Exception {
+        int seats = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int perSeat = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        if (perSeat > 64) {
+            throw new IllegalArgumentException("at most 64 reservations per seat-day (3 slots each)");
+        }
+
+        DBUtil.initDatabase();
+        new IntervalMigrationService().migrate();
+        UsageRecordDAO dao = new UsageRecordDAO();
+
+        // 每个座位当天插入 perSeat 条 2 段长的预约：[3k, 3k+2)，第 3k+2 段保持空闲
+        for (long seatId = 1; seatId <= seats; seatId++) {
+            for (int k = 0; k < perSeat; k++) {
+                UsageRecord r = new UsageRecord();
+                r.setStudentId("1001");
+                r.setSeatId(seatId);
+                r.setRecordDate(BENCH_DATE);
+                r.setStartSlot(3 * k);
+                r.setEndSlot(3 * k + 2);
+                r.setTimeBitmap(BitmapUtil.fromOccupiedMask(BitmapUtil.rangeMask(3 * k, 3 * k + 2)));
+                dao.insert(r);
+            }
+        }
+
+        try {
+            // 预热
+            run(dao, seats, perSeat, iterations / 4, true);
+            run(dao, seats, perSeat, iterations / 4, false);
+
+            long bitmapNanos = run(dao, seats, perSeat, iterations, true);
+            long intervalNanos = run(dao, seats, perSeat, iterations, false);
+
+            System.out.printf("seat-days=%d, reservations per seat-day=%d, checks=%d%n", seats, perSeat, iterations);
+            System.out.printf("bitmap path  : %8.1f us/check%n", bitmapNanos / 1000.0 / iterations);
+            System.out.printf("interval path: %8.1f us/check%n", intervalNanos / 1000.0 / iterations);
+        } finally {
+            try (Connection conn = DBUtil.getConnection();
+                 PreparedStatement ps = conn.prepareStatement("DELETE FROM usage_record WHERE record_date = ?")) {
+                ps.setDate(1, Date.valueOf(BENCH_DATE));
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    /** 交替检查空闲区间与冲突区间，返回总耗时（纳秒） */
+    private static long run(UsageRecordDAO dao, int seats, int perSeat, int iterations, boolean bitmapPath) throws Exception {
+        int conflicts = 0;
+        long begin = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long seatId = 1 + (i % seats);
+            int k = (i / seats) % perSeat;
+            // 偶数次检查空闲的第 3k+2 段，奇数次检查与 [3k, 3k+2) 冲突的第 3k 段
+            int start = (i & 1) == 0 ? 3 * k + 2 : 3 * k;
+            int end = start + 1;
+            boolean conflict;
+            if (bitmapPath) {
+                long[] occupied = new long[BitmapUtil.MASK_WORDS];
+                for (UsageRecord r : dao.findBySeatAndDate(seatId, BENCH_DATE)) {
+                    long[] mask = BitmapUtil.toOccupiedMask(r.getTimeBitmap());
+                    for (int w = 0; w < BitmapUtil.MASK_WORDS; w++) {
+                        occupied[w] |= mask[w];
+                    }
+                }
+                conflict = BitmapUtil.intersects(occupied, BitmapUtil.rangeMask(start, end));
+            } else {
+                conflict = dao.existsOverlap(seatId, BENCH_DATE, start, end);
+            }
+            if (conflict) conflicts++;
+        }
+        long elapsed = System.nanoTime() - begin;
+        if (conflicts != iterations / 2) {  // 奇数次检查必然冲突
+            throw new IllegalStateException("unexpected conflict count " + conflicts);
+        }
+        return elapsed;
+    }
+}
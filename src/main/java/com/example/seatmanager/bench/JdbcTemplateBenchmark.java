@@ -0,0 +1,163 @@
+package com.example.seatmanager.bench;
+
+import com.example.seatmanager.dao.SeatDAO;
+import com.example.seatmanager.dao.UsageRecordDAO;
+import com.example.seatmanager.entity.Seat;
+import com.example.seatmanager.entity.UsageRecord;
+import com.example.seatmanager.util.DBUtil;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JdbcTemplateBenchmark：对比 DAO 迁移到 JdbcTemplate 前后每次查询的 CPU 时间与分配字节数。
+ *
+ * 1. 旧路径：每次调用 conn.prepareStatement、按列名映射、关闭语句（连接同样来自连接池，只比较语句与映射）
+ * 2. 模板路径：SeatDAO / UsageRecordDAO 现有方法（缓存的服务器端预编译语句、按列序号映射、fetchSize 提示）
+ *
+ * 查询覆盖单行（座位按 ID）、几十行（自习室全部座位）与学生历史记录三类，单线程执行，
+ * CPU 时间取自 ThreadMXBean.getCurrentThreadCpuTime，分配量取自 com.sun.management.ThreadMXBean。
+ *
+ * 运行：java -cp SeatManager.jar com.example.seatmanager.bench.JdbcTemplateBenchmark [每类查询次数]
+ * 只读，不写入基准数据；为保证两条路径访问同一个库，运行期间关闭只读副本路由。
+ */
+public class JdbcTemplateBenchmark {
+
+    private static final String SEAT_COLUMNS =
+            "SELECT seat_id, room_id, x_coord, y_coord, near_window, near_door, near_socket FROM seat";
+    private static final String RECORD_COLUMNS =
+            "SELECT record_id, student_id, seat_id, record_date, signed, time_bitmap, start_slot, end_slot FROM usage_record";
+
+    @FunctionalInterface
+    private interface Query {
+        int run(int i) throws SQLException;
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+
+        DBUtil.initDatabase();
+        DBUtil.setReadRouting(false);
+        SeatDAO seatDAO = new SeatDAO();
+        UsageRecordDAO usageRecordDAO = new UsageRecordDAO();
+        long[] seatIds = seatDAO.findAllIds();
+        int[] roomIds = seatDAO.findAll().stream().mapToInt(Seat::getRoomId).distinct().toArray();
+
+        Query legacySeat = i -> legacySeatById(seatIds[i % seatIds.length]) != null ? 1 : 0;
+        Query templateSeat = i -> seatDAO.findById(seatIds[i % seatIds.length]) != null ? 1 : 0;
+        Query legacyRoom = i -> legacySeatsByRoom(roomIds[i % roomIds.length]).size();
+        Query templateRoom = i -> seatDAO.findByRoomId(roomIds[i % roomIds.length]).size();
+        Query legacyHistory = i -> legacyRecordsByStudent(String.valueOf(1001 + i % 27)).size();
+        Query templateHistory = i -> usageRecordDAO.findByStudent(String.valueOf(1001 + i % 27)).size();
+
+        try {
+            // 预热：让 JIT 编译两条路径，并把模板路径的语句放进缓存
+            for (Query q : new Query[] {legacySeat, templateSeat, legacyRoom, templateRoom, legacyHistory, templateHistory}) {
+                measure(q, iterations / 4);
+            }
+
+            System.out.printf("iterations per query=%d%n", iterations);
+            System.out.printf("%-22s %12s %12s %12s%n", "", "cpu ns/op", "alloc B/op", "rows/op");
+            report("seat by id   legacy", legacySeat, iterations);
+            report("seat by id   template", templateSeat, iterations);
+            report("room seats   legacy", legacyRoom, iterations);
+            report("room seats   template", templateRoom, iterations);
+            report("history      legacy", legacyHistory, iterations);
+            report("history      template", templateHistory, iterations);
+        } finally {
+            DBUtil.shutdownReplica();
+        }
+    }
+
+    private static void report(String label, Query query, int iterations) throws SQLException {
+        long[] r = measure(query, iterations);
+        System.out.printf("%-22s %12.0f %12.0f %12.1f%n", label,
+                r[0] / (double) iterations, r[1] / (double) iterations, r[2] / (double) iterations);
+    }
+
+    /** @return {CPU 纳秒, 分配字节, 行数} */
+    private static long[] measure(Query query, int iterations) throws SQLException {
+        long tid = Thread.currentThread().threadId();
+        long rows = 0;
+        long cpu0 = THREADS.getCurrentThreadCpuTime();
+        long alloc0 = THREADS.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < iterations; i++) {
+            rows += query.run(i);
+        }
+        long alloc = THREADS.getThreadAllocatedBytes(tid) - alloc0;
+        long cpu = THREADS.getCurrentThreadCpuTime() - cpu0;
+        return new long[] {cpu, alloc, rows};
+    }
+
+    // ---------------------------------------------------------------- 迁移前的写法
+
+    private static Seat legacySeatById(long seatId) throws SQLException {
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SEAT_COLUMNS + " WHERE seat_id = ?")) {
+            ps.setLong(1, seatId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? mapSeatByName(rs) : null;
+            }
+        }
+    }
+
+    private static List<Seat> legacySeatsByRoom(int roomId) throws SQLException {
+        List<Seat> list = new ArrayList<>();
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SEAT_COLUMNS + " WHERE room_id = ? ORDER BY seat_id")) {
+            ps.setInt(1, roomId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapSeatByName(rs));
+                }
+            }
+        }
+        return list;
+    }
+
+    private static List<UsageRecord> legacyRecordsByStudent(String studentId) throws SQLException {
+        List<UsageRecord> list = new ArrayList<>();
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     RECORD_COLUMNS + " WHERE student_id = ? ORDER BY record_date DESC, record_id DESC")) {
+            ps.setString(1, studentId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    UsageRecord r = new UsageRecord();
+                    r.setRecordId(rs.getLong("record_id"));
+                    r.setStudentId(rs.getString("student_id"));
+                    r.setSeatId(rs.getLong("seat_id"));
+                    r.setRecordDate(rs.getDate("record_date").toLocalDate());
+                    r.setSigned(rs.getBoolean("signed"));
+                    r.setTimeBitmap(rs.getBytes("time_bitmap"));
+                    int startSlot = rs.getInt("start_slot");
+                    r.setStartSlot(rs.wasNull() ? -1 : startSlot);
+                    int endSlot = rs.getInt("end_slot");
+                    r.setEndSlot(rs.wasNull() ? -1 : endSlot);
+                    list.add(r);
+                }
+            }
+        }
+        return list;
+    }
+
+    private static Seat mapSeatByName(ResultSet rs) throws SQLException {
+        Seat s = new Seat();
+        s.setSeatId(rs.getLong("seat_id"));
+        s.setRoomId(rs.getInt("room_id"));
+        s.setXCoord(rs.getInt("x_coord"));
+        s.setYCoord(rs.getInt("y_coord"));
+        s.setNearWindow(rs.getBoolean("near_window"));
+        s.setNearDoor(rs.getBoolean("near_door"));
+        s.setNearSocket(rs.getBoolean("near_socket"));
+        return s;
+    }
+}
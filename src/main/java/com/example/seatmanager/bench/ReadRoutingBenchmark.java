@@ -0,0 +1,142 @@
+package com.example.seatmanager.bench;
+
+import com.example.seatmanager.dao.SeatDAO;
+import com.example.seatmanager.dao.UsageRecordDAO;
+import com.example.seatmanager.service.ExportService;
+import com.example.seatmanager.service.IntervalMigrationService;
+import com.example.seatmanager.service.ReserveService;
+import com.example.seatmanager.util.DBUtil;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ReadRoutingBenchmark：重读负载下的预约延迟，对比只读查询走主库与走只读副本两种情况。
+ *
+ * 读线程循环执行历史记录查询、按属性筛选座位与整年流式导出；写线程循环发起区间预约并记录延迟。
+ * 同一进程内先关闭路由（DBUtil.setReadRouting(false)）跑一轮，再打开路由跑一轮。
+ *
+ * 运行：java -Dseatmanager.replica=true -cp SeatManager.jar com.example.seatmanager.bench.ReadRoutingBenchmark
+ *      [读线程数] [写线程数] [每轮秒数]
+ * 未加 -Dseatmanager.replica=true 时两轮都走主库，可作为对照。基准数据写在 2099-01-05，结束后删除。
+ */
+public class ReadRoutingBenchmark {
+
+    private static final LocalDate BENCH_DATE = LocalDate.of(2099, 1, 5);
+    private static final long MAX_LATENCY_US = TimeUnit.SECONDS.toMicros(60);
+
+    public static void main(String[] args) throws Exception {
+        int readers = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int writers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        DBUtil.initDatabase();
+        new IntervalMigrationService().migrate();
+        SeatDAO seatDAO = new SeatDAO();
+        long[] seatIds = seatDAO.findAllIds();
+        int[] roomIds = new int[seatIds.length];
+        for (int i = 0; i < seatIds.length; i++) {
+            roomIds[i] = seatDAO.findById(seatIds[i]).getRoomId();
+        }
+
+        try {
+            DBUtil.setReadRouting(false);
+            run("primary only", readers, writers, seconds, seatIds, roomIds);
+            clear();
+            DBUtil.setReadRouting(true);
+            run("read routing", readers, writers, seconds, seatIds, roomIds);
+            long[] counts = DBUtil.readRoutingCounts();
+            System.out.printf("read connections: replica %d, primary %d; replica lag %d ms%n",
+                    counts[0], counts[1], DBUtil.getReplicaLagMillis());
+        } finally {
+            clear();
+            DBUtil.shutdownReplica();
+        }
+    }
+
+    private static void run(String label, int readers, int writers, int seconds,
+                            long[] seatIds, int[] roomIds) {
+        Histogram reserveLatency = new ConcurrentHistogram(MAX_LATENCY_US, 3);
+        LongAdder reads = new LongAdder();
+        LongAdder errors = new LongAdder();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        // 关闭执行器时等待所有任务结束
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < readers; i++) {
+                executor.submit(() -> {
+                    UsageRecordDAO usageRecordDAO = new UsageRecordDAO();
+                    SeatDAO seatDAO = new SeatDAO();
+                    ExportService exportService = new ExportService();
+                    WritableByteChannel sink = Channels.newChannel(OutputStream.nullOutputStream());
+                    while (System.nanoTime() < deadline) {
+                        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                        try {
+                            switch (rnd.nextInt(3)) {
+                                case 0:
+                                    usageRecordDAO.findByStudent(String.valueOf(1001 + rnd.nextInt(27)));
+                                    break;
+                                case 1:
+                                    seatDAO.findByAttributes(roomIds[rnd.nextInt(roomIds.length)],
+                                            rnd.nextBoolean(), rnd.nextBoolean(), rnd.nextBoolean());
+                                    break;
+                                default:
+                                    exportService.export(LocalDate.now().minusDays(365), LocalDate.now(),
+                                            ExportService.Format.CSV, sink);
+                                    break;
+                            }
+                            reads.increment();
+                        } catch (Exception e) {
+                            errors.increment();
+                        }
+                    }
+                });
+            }
+            for (int i = 0; i < writers; i++) {
+                executor.submit(() -> {
+                    ReserveService reserveService = new ReserveService();
+                    while (System.nanoTime() < deadline) {
+                        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                        int seat = rnd.nextInt(seatIds.length);
+                        int start = rnd.nextInt(180);
+                        int end = start + 1 + rnd.nextInt(4);
+                        long t0 = System.nanoTime();
+                        try {
+                            reserveService.createIntervalReservation("1001", seatIds[seat], roomIds[seat], BENCH_DATE, start, end);
+                        } catch (RuntimeException e) {
+                            errors.increment();
+                        }
+                        reserveLatency.recordValue(Math.min((System.nanoTime() - t0) / 1000, MAX_LATENCY_US));
+                    }
+                });
+            }
+        }
+
+        System.out.printf("%-13s readers=%d writers=%d %ds: reads %.1f/s, reserves %.1f/s, errors %d%n",
+                label, readers, writers, seconds, reads.sum() / (double) seconds,
+                reserveLatency.getTotalCount() / (double) seconds, errors.sum());
+        System.out.printf("%-13s reserve latency us: p50 %d, p99 %d, p999 %d, max %d%n", label,
+                reserveLatency.getValueAtPercentile(50), reserveLatency.getValueAtPercentile(99),
+                reserveLatency.getValueAtPercentile(99.9), reserveLatency.getMaxValue());
+    }
+
+    private static void clear() throws Exception {
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement("DELETE FROM usage_record WHERE record_date = ?")) {
+            ps.setDate(1, Date.valueOf(BENCH_DATE));
+            ps.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.seatmanager.bench;
+
+import com.example.seatmanager.dao.SeatDAO;
+import com.example.seatmanager.entity.UsageRecord;
+import com.example.seatmanager.service.IntervalMigrationService;
+import com.example.seatmanager.service.ReservationEngine;
+import com.example.seatmanager.service.ReserveService;
+import com.example.seatmanager.util.BitmapUtil;
+import com.example.seatmanager.util.DBUtil;
+import com.example.seatmanager.util.SlotCalendar;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ReservationEngineBenchmark：模拟“某天刚开放预约”时的并发抢座，比较两条预约路径。
+ *
+ * 1. 同步路径：ReserveService.createIntervalReservation，每次预约都在库内加锁检测并插入
+ * 2. 引擎路径：ReservationEngine.reserve，内存 CAS 判定 + 日志组提交，异步批量落库
+ *
+ * 每个线程随机挑选座位和 1–4 段长的区间发起预约，统计吞吐量、接受数与延迟分位数；
+ * 引擎路径另外给出“全部落库”所需的总时间。
+ *
+ * 运行：java -cp SeatManager.jar com.example.seatmanager.bench.ReservationEngineBenchmark [线程数] [每线程预约数] [座位数]
+ * 基准数据写在 2099-01-02，结束后删除。
+ */
+public class ReservationEngineBenchmark {
+
+    private static final LocalDate BENCH_DATE = LocalDate.of(2099, 1, 2);
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int seats = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+
+        DBUtil.initDatabase();
+        new IntervalMigrationService().migrate();
+        SeatDAO seatDAO = new SeatDAO();
+        long[] seatIds = Arrays.copyOf(seatDAO.findAllIds(), seats);
+        int[] roomIds = new int[seats];
+        for (int i = 0; i < seats; i++) {
+            roomIds[i] = seatDAO.findById(seatIds[i]).getRoomId();
+        }
+
+        try {
+            ReserveService reserveService = new ReserveService();
+            Result sync = run("sync  ", threads, perThread, seatIds, (seat, start, end) ->
+                    reserveService.createIntervalReservation("1001", seatIds[seat], roomIds[seat], BENCH_DATE, start, end));
+            sync.print(0);
+            clear();
+
+            Path journal = Files.createTempFile("reservation-bench", ".journal");
+            ReservationEngine engine = new ReservationEngine(journal);
+            engine.start();
+            long begin = System.nanoTime();
+            Result async = run("engine", threads, perThread, seatIds, (seat, start, end) -> {
+                UsageRecord r = new UsageRecord();
+                r.setStudentId("1001");
+                r.setSeatId(seatIds[seat]);
+                r.setRecordDate(BENCH_DATE);
+                r.setStartSlot(start);
+                r.setEndSlot(end);
+                r.setTimeBitmap(BitmapUtil.fromOccupiedMask(BitmapUtil.rangeMask(start, end)));
+                return engine.reserve(r, roomIds[seat]);
+            });
+            engine.stop();
+            async.print(System.nanoTime() - begin);
+            Files.deleteIfExists(journal);
+        } finally {
+            clear();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Booking {
+        boolean reserve(int seatIndex, int startSlot, int endSlot);
+    }
+
+    private static final class Result {
+        final String name;
+        final long[] latencies;
+        final int accepted;
+        final long elapsedNanos;
+
+        Result(String name, long[] latencies, int accepted, long elapsedNanos) {
+            this.name = name;
+            this.latencies = latencies;
+            this.accepted = accepted;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        void print(long drainedNanos) {
+            Arrays.sort(latencies);
+            int n = latencies.length;
+            System.out.printf("%s: %8.0f ops/s, accepted %d/%d, p50 %7.1f us, p99 %8.1f us, max %9.1f us%s%n",
+                    name, n * 1e9 / elapsedNanos, accepted, n,
+                    latencies[n / 2] / 1000.0, latencies[(int) (n * 0.99)] / 1000.0, latencies[n - 1] / 1000.0,
+                    drainedNanos > 0 ? String.format(", all persisted after %.0f ms", drainedNanos / 1e6) : "");
+        }
+    }
+
+    private static Result run(String name, int threads, int perThread, long[] seatIds, Booking booking)
+            throws InterruptedException {
+        int slots = SlotCalendar.getDefault().getSlotCount();
+        long[] latencies = new long[threads * perThread];
+        AtomicInteger accepted = new AtomicInteger();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int base = t * perThread;
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                for (int i = 0; i < perThread; i++) {
+                    int seat = rnd.nextInt(seatIds.length);
+                    int length = 1 + rnd.nextInt(4);
+                    int start = rnd.nextInt(slots - length + 1);
+                    long t0 = System.nanoTime();
+                    if (booking.reserve(seat, start, start + length)) {
+                        accepted.incrementAndGet();
+                    }
+                    latencies[base + i] = System.nanoTime() - t0;
+                }
+            });
+        }
+        long begin = System.nanoTime();
+        for (Thread w : workers) {
+            w.start();
+        }
+        for (Thread w : workers) {
+            w.join();
+        }
+        return new Result(name, latencies, accepted.get(), System.nanoTime() - begin);
+    }
+
+    private static void clear() throws Exception {
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement("DELETE FROM usage_record WHERE record_date = ?")) {
+            ps.setDate(1, Date.valueOf(BENCH_DATE));
+            ps.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.seatmanager.bench;
+
+import com.example.seatmanager.util.BitmapUtil;
+import com.example.seatmanager.util.DateUtil;
+import com.example.seatmanager.util.ManualClock;
+import com.example.seatmanager.util.SlotCalendar;
+import com.example.seatmanager.util.SlotClock;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SlotClockCheck：用 ManualClock 拨动 SlotClock，逐步核对过期时段掩码、边界通知与跨日行为，不依赖真实时间与数据库。
+ * 任一检查不通过即抛出 IllegalStateException，全部通过时打印 OK。
+ *
+ * 运行：java -cp SeatManager.jar com.example.seatmanager.bench.SlotClockCheck
+ */
+public class SlotClockCheck {
+
+    private static final LocalDate DAY = LocalDate.of(2099, 1, 1);
+
+    public static void main(String[] args) {
+        SlotClock slotClock = SlotClock.getInstance();
+        SlotCalendar calendar = SlotCalendar.getDefault();
+        int slotMinutes = calendar.getSlotMinutes();
+        LocalDateTime opening = DAY.atTime(calendar.getOpeningTime());
+        ManualClock clock = new ManualClock(opening.minusMinutes(1), ZoneId.systemDefault());
+        AtomicInteger boundaries = new AtomicInteger();
+        SlotClock.Listener listener = (today, pastMask) -> boundaries.incrementAndGet();
+
+        Clock original = slotClock.getClock();
+        slotClock.subscribe(listener);
+        try {
+            slotClock.setClock(clock);
+            boundaries.set(0);
+
+            // 开馆前：没有过期时段
+            check(slotClock.today().equals(DAY), "today follows the manual clock");
+            check(passed(slotClock.pastMask(DAY)) == 0, "no slot has ended before opening");
+            check(!DateUtil.isTimeSlotExpired(calendar.rangeLabel(0, 1)), "first slot not expired before opening");
+
+            // 拨到第一段结束：恰好一个时段过期，订阅方收到一次通知
+            clock.set(opening.plusMinutes(slotMinutes));
+            check(slotClock.tick(), "tick reports the boundary");
+            check(boundaries.get() == 1, "listener notified once per boundary");
+            check(passed(slotClock.pastMask(DAY)) == 1, "exactly one slot ended");
+            check(DateUtil.isTimeSlotExpired(calendar.rangeLabel(0, 1)), "first slot expired at its end");
+            check(!DateUtil.isSlotExpired(1), "second slot still open");
+
+            // 同一时段内再次 tick：掩码不变，不通知
+            clock.advance(Duration.ofMinutes(slotMinutes - 1));
+            check(!slotClock.tick(), "no change within a slot");
+            check(boundaries.get() == 1, "no notification within a slot");
+
+            // 前进一小时：多个边界合并为一次变化
+            clock.set(opening.plusHours(1));
+            check(slotClock.tick(), "tick after an hour");
+            check(passed(slotClock.pastMask(DAY)) == 60 / slotMinutes, "an hour of slots ended");
+
+            // 闭馆后：全天过期，将来的日期不受影响
+            clock.set(DAY.atTime(23, 59));
+            slotClock.tick();
+            check(passed(slotClock.pastMask(DAY)) == calendar.getSlotCount(), "whole day expired after closing");
+            check(passed(slotClock.pastMask(DAY.plusDays(1))) == 0, "tomorrow untouched");
+
+            // 跨日：昨天整体过期，今天从零开始
+            clock.advance(Duration.ofMinutes(2));
+            check(slotClock.tick(), "tick reports the day rollover");
+            check(slotClock.today().equals(DAY.plusDays(1)), "today advanced");
+            check(slotClock.isPast(DAY, calendar.getSlotCount() - 1), "yesterday fully past");
+            check(passed(slotClock.pastMask(DAY.plusDays(1))) == 0, "new day starts empty");
+        } finally {
+            slotClock.unsubscribe(listener);
+            slotClock.setClock(original);
+        }
+        System.out.println("SlotClockCheck OK");
+    }
+
+    private static int passed(long[] mask) {
+        int n = 0;
+        for (int[] run : BitmapUtil.occupiedRuns(mask)) {
+            n += run[1] - run[0];
+        }
+        return n;
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new IllegalStateException("check failed: " + what);
+        }
+    }
+}
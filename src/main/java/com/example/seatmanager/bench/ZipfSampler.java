@@ -0,0 +1,37 @@
+package com.example.seatmanager.bench;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * ZipfSampler：按 Zipf 分布抽取下标，第 k 个（从 0 开始）被抽中的概率正比于 1 / (k + 1)^s。
+ * 预先计算累积分布，每次抽样为一次二分查找。
+ */
+class ZipfSampler {
+    private final double[] cdf;
+
+    /**
+     * @param n        下标个数
+     * @param exponent 偏斜指数 s；0 为均匀分布，越大越集中在前几个下标
+     */
+    ZipfSampler(int n, double exponent) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be positive");
+        }
+        cdf = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cdf[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cdf[k] /= sum;
+        }
+    }
+
+    int next() {
+        double u = ThreadLocalRandom.current().nextDouble();
+        int i = Arrays.binarySearch(cdf, u);
+        return Math.min(cdf.length - 1, i >= 0 ? i : -i - 1);
+    }
+}
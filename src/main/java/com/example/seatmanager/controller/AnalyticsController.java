@@ -0,0 +1,54 @@
+package com.example.seatmanager.controller;
+
+import com.example.seatmanager.entity.RoomStats;
+import com.example.seatmanager.service.AdmissionService;
+import com.example.seatmanager.service.AnalyticsService;
+import com.example.seatmanager.service.RollupService;
+import com.example.seatmanager.service.UtilizationReport;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * AnalyticsController：处理座位利用率统计请求，供管理端与 HTTP 接口调用
+ */
+public class AnalyticsController {
+
+    private final AnalyticsService analyticsService = new AnalyticsService();
+    private final AdmissionService admission = AdmissionService.getInstance();
+
+    /**
+     * 统计日期区间内的利用率
+     *
+     * @param studentId 发起请求的学号，用于准入控制
+     * @param fromStr 起始日期 "yyyy-MM-dd"（包含）
+     * @param toStr   结束日期 "yyyy-MM-dd"（包含）
+     * @return 可按自习室、楼层、楼栋、小时、星期汇总的统计结果
+     * @throws IllegalArgumentException 如果区间颠倒或超过 AnalyticsService.MAX_SPAN_DAYS 天
+     * @throws com.example.seatmanager.service.AdmissionRejectedException 如果统计请求过于频繁或已有统计在进行
+     * @throws RuntimeException 如果底层出现数据访问异常
+     */
+    public UtilizationReport handleGetUtilization(String studentId, String fromStr, String toStr) {
+        LocalDate from = LocalDate.parse(fromStr);
+        LocalDate to = LocalDate.parse(toStr);
+        AdmissionService.Permit permit = admission.acquire(AdmissionService.Operation.ANALYTICS, studentId);
+        try {
+            return analyticsService.computeUtilization(from, to);
+        } finally {
+            permit.close();
+        }
+    }
+
+    /**
+     * 仪表盘：读取汇总表中各自习室的每日统计，不扫描原始预约
+     *
+     * @param hourly 为 true 时按小时返回，否则返回整天汇总
+     * @throws RuntimeException 如果底层出现数据访问异常
+     */
+    public List<RoomStats> handleGetRoomStats(String fromStr, String toStr, boolean hourly) {
+        LocalDate from = LocalDate.parse(fromStr);
+        LocalDate to = LocalDate.parse(toStr);
+        RollupService rollup = RollupService.getInstance();
+        return hourly ? rollup.getHourlyStats(from, to) : rollup.getDailyStats(from, to);
+    }
+}
@@ -3,6 +3,7 @@ package com.example.seatmanager.controller;
 import com.example.seatmanager.entity.Student;
 import com.example.seatmanager.service.AuthService;
 import com.example.seatmanager.service.DataAccessException;
+import com.example.seatmanager.service.SessionService;
 
 /**
  * AuthController：处理与用户认证相关的请求，供 UI 层调用
@@ -46,6 +47,32 @@ public class AuthController {
         }
     }
 
+    /**
+     * 为登录成功的学生开启 HTTP 会话
+     *
+     * @param studentId 已通过 handleLogin 校验的学号
+     * @return 会话令牌
+     */
+    public String handleOpenSession(String studentId) {
+        return SessionService.getInstance().open(studentId);
+    }
+
+    /**
+     * 根据会话令牌确定请求者
+     *
+     * @return 学号；令牌无效或已过期时返回 null
+     */
+    public String handleResolveSession(String token) {
+        return SessionService.getInstance().resolve(token);
+    }
+
+    /**
+     * 注销会话令牌
+     */
+    public void handleCloseSession(String token) {
+        SessionService.getInstance().close(token);
+    }
+
     /**
      * 更新用户违规次数（可由其他模块调用，如“签到超时”场景下）
      *
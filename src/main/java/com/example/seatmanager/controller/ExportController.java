@@ -0,0 +1,67 @@
+package com.example.seatmanager.controller;
+
+import com.example.seatmanager.service.ExportService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * ExportController：处理占用数据导出请求，供管理端与 HTTP 接口调用
+ */
+public class ExportController {
+
+    private final ExportService exportService = new ExportService();
+
+    /**
+     * 将日期区间内的预约与事件导出到文件（覆盖已有文件）
+     *
+     * @param fromStr 起始日期 "yyyy-MM-dd"（包含）
+     * @param toStr   结束日期 "yyyy-MM-dd"（包含）
+     * @param format  "csv" 或 "json"
+     * @param file    目标文件
+     * @return 导出的行数
+     * @throws RuntimeException 如果底层出现数据访问异常或写文件失败
+     */
+    public long handleExportToFile(String fromStr, String toStr, String format, Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return handleExport(fromStr, toStr, format, channel);
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入导出文件失败: " + file, e);
+        }
+    }
+
+    /**
+     * 将日期区间内的预约与事件导出到任意通道（不关闭通道）
+     *
+     * @return 导出的行数
+     * @throws IOException 如果写入通道失败
+     * @throws RuntimeException 如果底层出现数据访问异常
+     */
+    public long handleExport(String fromStr, String toStr, String format, WritableByteChannel channel) throws IOException {
+        LocalDate from = LocalDate.parse(fromStr);
+        LocalDate to = LocalDate.parse(toStr);
+        return exportService.export(from, to, parseFormat(format), channel);
+    }
+
+    /**
+     * 校验导出参数（日期格式、先后顺序与跨度），HTTP 接口在发出响应头之前调用
+     *
+     * @throws IllegalArgumentException 如果区间颠倒或超过 ExportService.MAX_SPAN_DAYS 天
+     * @throws java.time.format.DateTimeParseException 如果日期格式错误
+     */
+    public static void checkRange(String fromStr, String toStr) {
+        ExportService.checkRange(LocalDate.parse(fromStr), LocalDate.parse(toStr));
+    }
+
+    /** "csv" / "json"（不区分大小写） */
+    public static ExportService.Format parseFormat(String format) {
+        return ExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+    }
+}
@@ -1,11 +1,12 @@
 package com.example.seatmanager.controller;
 
-import com.example.seatmanager.entity.Seat;
-import com.example.seatmanager.service.DataAccessException;
+import com.example.seatmanager.entity.Facility;
+import com.example.seatmanager.service.AdmissionService;
 import com.example.seatmanager.service.MapService;
+import com.example.seatmanager.service.RoomAvailability;
 
 import java.time.LocalDate;
-import java.util.Map;
+import java.util.List;
 
 /**
  * MapController：处理自习室示意图相关的请求，供 UI 层调用
@@ -13,22 +14,52 @@ import java.util.Map;
 public class MapController {
 
     private final MapService mapService = new MapService();
+    private final AdmissionService admission = AdmissionService.getInstance();
 
     /**
-     * 获取某个自习室在指定日期下，每个座位的可用位图（boolean[192]）
+     * 获取某个自习室在指定日期下所有座位的占用情况
      *
-     * @param roomId  自习室 ID
-     * @param dateStr 预约日期字符串，格式 "yyyy-MM-dd"
-     * @return Map：key = Seat，value = boolean[192]（true = 可用，false = 不可用）
+     * @param studentId 发起请求的学号，用于准入控制（按学生限速）
+     * @param roomId    自习室 ID
+     * @param dateStr   预约日期字符串，格式 "yyyy-MM-dd"
+     * @return 按坐标排序的座位、占用掩码、空闲时段数与状态
+     * @throws com.example.seatmanager.service.AdmissionRejectedException 如果刷新过于频繁或系统繁忙
      * @throws RuntimeException 如果底层出现数据访问异常
      */
-    public Map<Seat, boolean[]> handleGetSeatAvailability(String roomId, String dateStr) {
+    public RoomAvailability handleGetSeatAvailability(String studentId, String roomId, String dateStr) {
+        int rid = Integer.parseInt(roomId);
+        LocalDate date = LocalDate.parse(dateStr);
+        AdmissionService.Permit permit = admission.acquire(AdmissionService.Operation.MAP, studentId);
         try {
-            int rid = Integer.parseInt(roomId);
-            LocalDate date = LocalDate.parse(dateStr);
-            return mapService.getSeatAvailabilityMap(rid, date);
-        } catch (DataAccessException dae) {
-            throw dae;
+            return mapService.getRoomAvailability(rid, date);
+        } finally {
+            permit.close();
         }
     }
+
+    /**
+     * 获取某个自习室内的所有设施，供示意图按实际坐标绘制门、窗、插座
+     *
+     * @param roomId 自习室 ID
+     * @return 设施列表
+     * @throws RuntimeException 如果底层出现数据访问异常
+     */
+    public List<Facility> handleGetFacilities(String roomId) {
+        int rid = Integer.parseInt(roomId);
+        return mapService.getFacilities(rid);
+    }
+
+    /**
+     * 获取单个座位在指定日期下的占用掩码（long[3]），用于示意图增量更新
+     *
+     * @param roomId  自习室 ID
+     * @param seatId  座位 ID
+     * @param dateStr 日期字符串，格式 "yyyy-MM-dd"
+     * @return long[3]（1 = 被预约或事件占用）
+     * @throws RuntimeException 如果底层出现数据访问异常
+     */
+    public long[] handleGetSingleSeatOccupancy(int roomId, long seatId, String dateStr) {
+        LocalDate date = LocalDate.parse(dateStr);
+        return mapService.getSeatOccupancy(roomId, seatId, date);
+    }
 }
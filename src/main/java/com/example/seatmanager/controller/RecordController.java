@@ -28,6 +28,30 @@ public class RecordController {
         }
     }
 
+    /**
+     * 统计某学生的预约记录条数
+     *
+     * @param studentId 学号
+     * @return 记录条数
+     * @throws RuntimeException 如果底层出现数据访问异常
+     */
+    public int handleCountRecordsByStudent(String studentId) {
+        return recordService.countRecordsByStudent(studentId);
+    }
+
+    /**
+     * 分页获取某学生的预约记录（按日期倒序）
+     *
+     * @param studentId 学号
+     * @param offset    跳过的行数
+     * @param limit     本页最多返回的行数
+     * @return 本页的 UsageRecord 列表
+     * @throws RuntimeException 如果底层出现数据访问异常
+     */
+    public List<UsageRecord> handleGetRecordPage(String studentId, int offset, int limit) {
+        return recordService.getRecordPage(studentId, offset, limit);
+    }
+
     /**
      * 取消一条预约记录
      *
@@ -43,6 +67,18 @@ public class RecordController {
         }
     }
 
+    /**
+     * 取消请求者自己的一条预约记录
+     *
+     * @param studentId 请求者学号
+     * @param recordId  记录 ID
+     * @return 取消成功返回 true；记录不存在或不属于该学生返回 false
+     * @throws RuntimeException 如果底层出现数据访问异常
+     */
+    public boolean handleCancelRecord(String studentId, long recordId) {
+        return recordService.cancelRecord(studentId, recordId);
+    }
+
     /**
      * 签到某条预约记录
      *
@@ -57,4 +93,16 @@ public class RecordController {
             throw dae;
         }
     }
+
+    /**
+     * 请求者对自己的一条预约记录签到
+     *
+     * @param studentId 请求者学号
+     * @param recordId  记录 ID
+     * @return 签到成功返回 true；记录不存在或不属于该学生返回 false
+     * @throws RuntimeException 如果底层出现数据访问异常
+     */
+    public boolean handleSignInRecord(String studentId, long recordId) {
+        return recordService.signInRecord(studentId, recordId);
+    }
 }
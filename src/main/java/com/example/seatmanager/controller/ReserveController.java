@@ -1,10 +1,17 @@
 package com.example.seatmanager.controller;
 
+import com.example.seatmanager.entity.Seat;
 import com.example.seatmanager.entity.UsageRecord;
+import com.example.seatmanager.service.AdmissionService;
 import com.example.seatmanager.service.DataAccessException;
+import com.example.seatmanager.service.RecurringReservationReport;
 import com.example.seatmanager.service.ReserveService;
+import com.example.seatmanager.service.WaitlistService;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
 
 /**
  * ReserveController：处理手动预约相关的请求，供 UI 层调用
@@ -12,6 +19,7 @@ import java.time.LocalDate;
 public class ReserveController {
 
     private final ReserveService reserveService = new ReserveService();
+    private final AdmissionService admission = AdmissionService.getInstance();
 
     /**
      * 检查某个座位在指定日期是否可用（传入用于预约的时间位图 binaryData）
@@ -32,23 +40,106 @@ public class ReserveController {
     }
 
     /**
-     * 创建预约：插入一条新的 UsageRecord，并更新自习室空座位数（前端需先设置好 UsageRecord 中的 seatId、studentId、recordDate、timeBitmap）
+     * 创建预约：插入一条新的 UsageRecord 并通知座位占用变化（前端需先设置好 UsageRecord 中的 seatId、studentId、recordDate、timeBitmap）
      *
      * @param record       UsageRecord 对象（不含 recordId，含 seatId、studentId、recordDate、timeBitmap）
-     * @param roomId       自习室 ID（用于更新空座位数时调用）
+     * @param roomId       自习室 ID（用于发布座位占用变化）
      * @return 创建成功返回 true，否则 false
+     * @throws IllegalArgumentException 如果 timeBitmap 中的占用时段不连续
+     * @throws com.example.seatmanager.service.AdmissionRejectedException 如果预约过于频繁或系统繁忙
      * @throws RuntimeException 如果底层出现数据访问异常
      */
     public boolean handleCreateReservation(UsageRecord record, int roomId) {
+        AdmissionService.Permit permit = admission.acquire(AdmissionService.Operation.RESERVE, record.getStudentId());
         try {
-            return reserveService.createReservation(record);
-        } catch (DataAccessException dae) {
-            throw dae;
+            return reserveService.createReservation(record, roomId);
+        } finally {
+            permit.close();
+        }
+    }
+
+    /**
+     * 区间预约：一次预约 [startSlot, endSlot) 内的连续时段，整段只生成一条 UsageRecord
+     *
+     * @param studentId 学号
+     * @param seatId    座位 ID
+     * @param roomId    座位所属自习室 ID
+     * @param dateStr   预约日期字符串，格式 "yyyy-MM-dd"
+     * @param startSlot 起始时段下标（包含）
+     * @param endSlot   结束时段下标（不包含）
+     * @return 预约成功返回 true；存在时间冲突返回 false
+     * @throws com.example.seatmanager.service.AdmissionRejectedException 如果预约过于频繁或系统繁忙
+     * @throws RuntimeException 如果底层出现数据访问异常
+     */
+    public boolean handleCreateIntervalReservation(String studentId, long seatId, int roomId,
+                                                   String dateStr, int startSlot, int endSlot) {
+        LocalDate date = LocalDate.parse(dateStr);
+        AdmissionService.Permit permit = admission.acquire(AdmissionService.Operation.RESERVE, studentId);
+        try {
+            return reserveService.createIntervalReservation(studentId, seatId, roomId, date, startSlot, endSlot);
+        } finally {
+            permit.close();
+        }
+    }
+
+    /**
+     * 小组预约：在自习室内找出 groupSize 个在该区间都空闲且彼此相邻的座位，整组一次性预约
+     *
+     * @param studentId 发起预约的学号（所有座位记在该学生名下）
+     * @param roomId    自习室 ID
+     * @param dateStr   预约日期字符串，格式 "yyyy-MM-dd"
+     * @param startSlot 起始时段下标（包含）
+     * @param endSlot   结束时段下标（不包含）
+     * @param groupSize 需要的座位数
+     * @return 预约到的座位；没有足够的相邻空座时返回空列表
+     * @throws IllegalArgumentException 如果区间或人数不合法
+     * @throws com.example.seatmanager.service.AdmissionRejectedException 如果预约过于频繁或系统繁忙
+     * @throws RuntimeException 如果底层出现数据访问异常
+     */
+    public List<Seat> handleCreateGroupReservation(String studentId, int roomId, String dateStr,
+                                                   int startSlot, int endSlot, int groupSize) {
+        LocalDate date = LocalDate.parse(dateStr);
+        AdmissionService.Permit permit = admission.acquire(AdmissionService.Operation.RESERVE, studentId);
+        try {
+            return reserveService.createGroupReservation(studentId, roomId, date, startSlot, endSlot, groupSize);
+        } finally {
+            permit.close();
+        }
+    }
+
+    /**
+     * 周期预约：在日期区间内每周的指定星期预约同一座位的同一区间，冲突的日期跳过，其余日期一次写入
+     *
+     * @param studentId 学号
+     * @param seatId    座位 ID
+     * @param roomId    座位所属自习室 ID
+     * @param fromStr   起始日期字符串（包含），格式 "yyyy-MM-dd"
+     * @param toStr     结束日期字符串（包含），格式 "yyyy-MM-dd"
+     * @param weekdays  每周预约的星期
+     * @param startSlot 起始时段下标（包含）
+     * @param endSlot   结束时段下标（不包含）
+     * @return 逐日的预约结果（成功的日期与各冲突日期的原因）
+     * @throws IllegalArgumentException 如果区间、日期或星期不合法
+     * @throws com.example.seatmanager.service.AdmissionRejectedException 如果预约过于频繁或系统繁忙
+     * @throws RuntimeException 如果底层出现数据访问异常
+     */
+    public RecurringReservationReport handleCreateRecurringReservation(String studentId, long seatId, int roomId,
+                                                                       String fromStr, String toStr,
+                                                                       Set<DayOfWeek> weekdays,
+                                                                       int startSlot, int endSlot) {
+        LocalDate from = LocalDate.parse(fromStr);
+        LocalDate to = LocalDate.parse(toStr);
+        AdmissionService.Permit permit = admission.acquire(AdmissionService.Operation.RESERVE, studentId);
+        try {
+            return reserveService.createRecurringReservation(studentId, seatId, roomId, from, to,
+                    weekdays, startSlot, endSlot);
+        } finally {
+            permit.close();
         }
     }
 
     /**
-     * 取消预约：删除一条 UsageRecord，并更新自习室空座位数
+     * 取消预约：删除一条 UsageRecord 并通知座位时段释放
      *
      * @param recordId 记录 ID
      * @param roomId   自习室 ID
@@ -62,4 +153,50 @@ public class ReserveController {
             throw dae;
         }
     }
+
+    /**
+     * 查询座位所属的自习室：HTTP 接口据此确定 roomId，而不是采信请求中的 roomId
+     *
+     * @throws IllegalArgumentException 如果座位不存在
+     * @throws RuntimeException 如果底层出现数据访问异常
+     */
+    public int handleGetRoomOfSeat(long seatId) {
+        return reserveService.roomOfSeat(seatId);
+    }
+
+    /**
+     * 登记候补：座位或时段被占用时排队，一旦有人取消且区间可容纳即自动预约
+     *
+     * @param seatId 指定座位；传 0 表示该自习室内任意座位
+     * @return 候补登记
+     * @throws IllegalArgumentException 如果区间不合法或日期已过
+     * @throws IllegalStateException    如果候补数量已达上限
+     * @throws com.example.seatmanager.service.AdmissionRejectedException 如果操作过于频繁或系统繁忙
+     */
+    public WaitlistService.Ticket handleJoinWaitlist(String studentId, long seatId, int roomId,
+                                                     String dateStr, int startSlot, int endSlot) {
+        LocalDate date = LocalDate.parse(dateStr);
+        AdmissionService.Permit permit = admission.acquire(AdmissionService.Operation.RESERVE, studentId);
+        try {
+            return WaitlistService.getInstance().join(studentId, roomId, seatId, date, startSlot, endSlot);
+        } finally {
+            permit.close();
+        }
+    }
+
+    /**
+     * 取消候补
+     *
+     * @return 取消成功返回 true；候补已分配、已失效或不存在返回 false
+     */
+    public boolean handleLeaveWaitlist(String studentId, long ticketId) {
+        return WaitlistService.getInstance().leave(studentId, ticketId);
+    }
+
+    /**
+     * 查询某学生仍在等待的候补
+     */
+    public List<WaitlistService.Ticket> handleGetWaitlist(String studentId) {
+        return WaitlistService.getInstance().findWaiting(studentId);
+    }
 }
@@ -1,13 +1,8 @@
 package com.example.seatmanager.dao;
 
 import com.example.seatmanager.entity.Building;
-import com.example.seatmanager.util.DBUtil;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -22,45 +17,27 @@ import java.util.List;
  */
 public class BuildingDAO {
 
+    private static final String COLUMNS = "SELECT building_id, x_coord, y_coord FROM building";
+
+    private static final JdbcTemplate.RowMapper<Building> BUILDING_MAPPER =
+            rs -> new Building(rs.getInt(1), rs.getInt(2), rs.getInt(3));
+
+    private static final int ALL_FETCH = 16;
+
     /**
      * 根据 building_id 查询单个教学楼信息
      */
     public Building findById(int buildingId) throws SQLException {
-        String sql = "SELECT building_id, x_coord, y_coord FROM building WHERE building_id = ?";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, buildingId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return new Building(
-                            rs.getInt("building_id"),
-                            rs.getInt("x_coord"),
-                            rs.getInt("y_coord")
-                    );
-                }
-            }
-        }
-        return null;
+        return JdbcTemplate.READ.queryOne(COLUMNS + " WHERE building_id = ?",
+                ps -> ps.setInt(1, buildingId), BUILDING_MAPPER);
     }
 
     /**
      * 查询所有教学楼信息
      */
     public List<Building> findAll() throws SQLException {
-        List<Building> list = new ArrayList<>();
-        String sql = "SELECT building_id, x_coord, y_coord FROM building ORDER BY building_id";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) {
-                list.add(new Building(
-                        rs.getInt("building_id"),
-                        rs.getInt("x_coord"),
-                        rs.getInt("y_coord")
-                ));
-            }
-        }
-        return list;
+        return JdbcTemplate.READ.query(COLUMNS + " ORDER BY building_id", ALL_FETCH,
+                JdbcTemplate.NO_PARAMS, BUILDING_MAPPER);
     }
 
     /**
@@ -68,14 +45,11 @@ public class BuildingDAO {
      */
     public boolean insert(Building building) throws SQLException {
         String sql = "INSERT INTO building(building_id, x_coord, y_coord) VALUES (?, ?, ?)";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        return JdbcTemplate.PRIMARY.update(sql, ps -> {
             ps.setInt(1, building.getBuildingId());
             ps.setInt(2, building.getXCoord());
             ps.setInt(3, building.getYCoord());
-            int rows = ps.executeUpdate();
-            return rows > 0;
-        }
+        }) > 0;
     }
 
     /**
@@ -83,26 +57,18 @@ public class BuildingDAO {
      */
     public boolean update(Building building) throws SQLException {
         String sql = "UPDATE building SET x_coord = ?, y_coord = ? WHERE building_id = ?";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        return JdbcTemplate.PRIMARY.update(sql, ps -> {
             ps.setInt(1, building.getXCoord());
             ps.setInt(2, building.getYCoord());
             ps.setInt(3, building.getBuildingId());
-            int rows = ps.executeUpdate();
-            return rows > 0;
-        }
+        }) > 0;
     }
 
     /**
      * 删除教学楼（慎用：会级联删除其下属自习室、座位、设施等）
      */
     public boolean deleteById(int buildingId) throws SQLException {
-        String sql = "DELETE FROM building WHERE building_id = ?";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, buildingId);
-            int rows = ps.executeUpdate();
-            return rows > 0;
-        }
+        return JdbcTemplate.PRIMARY.update("DELETE FROM building WHERE building_id = ?",
+                ps -> ps.setInt(1, buildingId)) > 0;
     }
 }
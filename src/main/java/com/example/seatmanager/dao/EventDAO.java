@@ -1,11 +1,10 @@
 package com.example.seatmanager.dao;
 
 import com.example.seatmanager.entity.Event;
-import com.example.seatmanager.util.DBUtil;
 
-import java.sql.*;
+import java.sql.Date;
+import java.sql.SQLException;
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -23,42 +22,64 @@ import java.util.List;
  */
 public class EventDAO {
 
+    private static final String COLUMNS = "SELECT event_id, room_id, event_date, time_bitmap, reason FROM event";
+
+    /** 与 COLUMNS 的列顺序一一对应 */
+    private static final JdbcTemplate.RowMapper<Event> EVENT_MAPPER = rs -> {
+        Event e = new Event();
+        e.setEventId(rs.getLong(1));
+        e.setRoomId(rs.getInt(2));
+        e.setEventDate(rs.getDate(3).toLocalDate());
+        e.setTimeBitmap(rs.getBytes(4));
+        e.setReason(rs.getString(5));
+        return e;
+    };
+
+    // 一个自习室一天通常只有一条或零条事件
+    private static final int DAY_FETCH = 4;
+    private static final int STREAM_BATCH = 1000;
+
     /**
      * 根据 event_id 查询单个事件
      */
     public Event findById(long eventId) throws SQLException {
-        String sql = "SELECT event_id, room_id, event_date, time_bitmap, reason " +
-                "FROM event WHERE event_id = ?";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setLong(1, eventId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return mapRowToEvent(rs);
-                }
-            }
-        }
-        return null;
+        return JdbcTemplate.PRIMARY.queryOne(COLUMNS + " WHERE event_id = ?",
+                ps -> ps.setLong(1, eventId), EVENT_MAPPER);
     }
 
     /**
      * 查询某自习室在特定日期下的所有事件（通常只有一条或零条）
      */
     public List<Event> findByRoomAndDate(int roomId, LocalDate date) throws SQLException {
-        List<Event> list = new ArrayList<>();
-        String sql = "SELECT event_id, room_id, event_date, time_bitmap, reason " +
-                "FROM event WHERE room_id = ? AND event_date = ?";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, roomId);
-            ps.setDate(2, Date.valueOf(date));
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    list.add(mapRowToEvent(rs));
-                }
-            }
-        }
-        return list;
+        return JdbcTemplate.PRIMARY.query(COLUMNS + " WHERE room_id = ? AND event_date = ?", DAY_FETCH,
+                ps -> {
+                    ps.setInt(1, roomId);
+                    ps.setDate(2, Date.valueOf(date));
+                }, EVENT_MAPPER);
+    }
+
+    /**
+     * 查询某自习室在日期区间 [from, to] 内的所有事件（按日期排序），读主库，可用于预约前的冲突判断
+     */
+    public List<Event> findByRoomAndDateRange(int roomId, LocalDate from, LocalDate to) throws SQLException {
+        return JdbcTemplate.PRIMARY.query(COLUMNS + " WHERE room_id = ? AND event_date BETWEEN ? AND ? ORDER BY event_date",
+                DAY_FETCH, ps -> {
+                    ps.setInt(1, roomId);
+                    ps.setDate(2, Date.valueOf(from));
+                    ps.setDate(3, Date.valueOf(to));
+                }, EVENT_MAPPER);
+    }
+
+    /**
+     * 流式读取日期区间 [from, to] 内的所有事件（按日期、自习室排序），逐行交给 consumer
+     */
+    public <X extends Exception> void streamByDateRange(LocalDate from, LocalDate to,
+                                                        RowConsumer<Event, X> consumer) throws SQLException, X {
+        JdbcTemplate.READ.stream(COLUMNS + " WHERE event_date BETWEEN ? AND ? ORDER BY event_date, room_id, event_id",
+                STREAM_BATCH, ps -> {
+                    ps.setDate(1, Date.valueOf(from));
+                    ps.setDate(2, Date.valueOf(to));
+                }, EVENT_MAPPER, consumer);
     }
 
     /**
@@ -66,48 +87,24 @@ public class EventDAO {
      */
     public boolean insert(Event event) throws SQLException {
         String sql = "INSERT INTO event(room_id, event_date, time_bitmap, reason) VALUES (?, ?, ?, ?)";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        long id = JdbcTemplate.PRIMARY.insert(sql, ps -> {
             ps.setInt(1, event.getRoomId());
             ps.setDate(2, Date.valueOf(event.getEventDate()));
             ps.setBytes(3, event.getTimeBitmap());
             ps.setString(4, event.getReason());
-            int rows = ps.executeUpdate();
-            if (rows > 0) {
-                try (ResultSet keys = ps.getGeneratedKeys()) {
-                    if (keys.next()) {
-                        event.setEventId(keys.getLong(1));
-                    }
-                }
-                return true;
-            }
+        });
+        if (id < 0) {
+            return false;
         }
-        return false;
+        event.setEventId(id);
+        return true;
     }
 
     /**
      * 删除事件（慎用）
      */
     public boolean deleteById(long eventId) throws SQLException {
-        String sql = "DELETE FROM event WHERE event_id = ?";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setLong(1, eventId);
-            int rows = ps.executeUpdate();
-            return rows > 0;
-        }
-    }
-
-    /**
-     * 将 ResultSet 当前行映射为 Event 对象
-     */
-    private Event mapRowToEvent(ResultSet rs) throws SQLException {
-        Event e = new Event();
-        e.setEventId(rs.getLong("event_id"));
-        e.setRoomId(rs.getInt("room_id"));
-        e.setEventDate(rs.getDate("event_date").toLocalDate());
-        e.setTimeBitmap(rs.getBytes("time_bitmap"));
-        e.setReason(rs.getString("reason"));
-        return e;
+        return JdbcTemplate.PRIMARY.update("DELETE FROM event WHERE event_id = ?",
+                ps -> ps.setLong(1, eventId)) > 0;
     }
 }
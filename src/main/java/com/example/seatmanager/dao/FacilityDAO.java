@@ -2,10 +2,8 @@ package com.example.seatmanager.dao;
 
 import com.example.seatmanager.entity.Facility;
 import com.example.seatmanager.entity.Facility.FacilityType;
-import com.example.seatmanager.util.DBUtil;
 
-import java.sql.*;
-import java.util.ArrayList;
+import java.sql.SQLException;
 import java.util.List;
 
 /**
@@ -23,39 +21,43 @@ import java.util.List;
  */
 public class FacilityDAO {
 
+    private static final String COLUMNS = "SELECT facility_id, room_id, type, x_coord, y_coord FROM facility";
+
+    /** 与 COLUMNS 的列顺序一一对应 */
+    private static final JdbcTemplate.RowMapper<Facility> FACILITY_MAPPER = rs -> {
+        Facility f = new Facility();
+        f.setFacilityId(rs.getInt(1));
+        f.setRoomId(rs.getInt(2));
+        f.setType(FacilityType.valueOf(rs.getString(3)));
+        f.setXCoord(rs.getInt(4));
+        f.setYCoord(rs.getInt(5));
+        return f;
+    };
+
+    private static final int ROOM_FETCH = 16;
+
     /**
      * 根据 facility_id 查询单个设施信息
      */
     public Facility findById(int facilityId) throws SQLException {
-        String sql = "SELECT facility_id, room_id, type, x_coord, y_coord FROM facility WHERE facility_id = ?";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, facilityId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return mapRowToFacility(rs);
-                }
-            }
-        }
-        return null;
+        return JdbcTemplate.READ.queryOne(COLUMNS + " WHERE facility_id = ?",
+                ps -> ps.setInt(1, facilityId), FACILITY_MAPPER);
     }
 
     /**
      * 查询某个自习室下的所有设施（门、窗、插座）
      */
     public List<Facility> findByRoom(int roomId) throws SQLException {
-        List<Facility> list = new ArrayList<>();
-        String sql = "SELECT facility_id, room_id, type, x_coord, y_coord FROM facility WHERE room_id = ? ORDER BY facility_id";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, roomId);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    list.add(mapRowToFacility(rs));
-                }
-            }
-        }
-        return list;
+        return JdbcTemplate.READ.query(COLUMNS + " WHERE room_id = ? ORDER BY facility_id", ROOM_FETCH,
+                ps -> ps.setInt(1, roomId), FACILITY_MAPPER);
+    }
+
+    /**
+     * 查询某个自习室下的所有设施，读主库；用于设施刚写入后据此重新计算座位的 near_* 标记
+     */
+    public List<Facility> findByRoomOnPrimary(int roomId) throws SQLException {
+        return JdbcTemplate.PRIMARY.query(COLUMNS + " WHERE room_id = ? ORDER BY facility_id", ROOM_FETCH,
+                ps -> ps.setInt(1, roomId), FACILITY_MAPPER);
     }
 
     /**
@@ -63,48 +65,38 @@ public class FacilityDAO {
      */
     public boolean insert(Facility facility) throws SQLException {
         String sql = "INSERT INTO facility(room_id, type, x_coord, y_coord) VALUES (?, ?, ?, ?)";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        long id = JdbcTemplate.PRIMARY.insert(sql, ps -> {
             ps.setInt(1, facility.getRoomId());
             ps.setString(2, facility.getType().name());
             ps.setInt(3, facility.getXCoord());
             ps.setInt(4, facility.getYCoord());
-            int rows = ps.executeUpdate();
-            if (rows > 0) {
-                try (ResultSet keys = ps.getGeneratedKeys()) {
-                    if (keys.next()) {
-                        facility.setFacilityId(keys.getInt(1));
-                    }
-                }
-                return true;
-            }
+        });
+        if (id < 0) {
+            return false;
         }
-        return false;
+        facility.setFacilityId((int) id);
+        return true;
     }
 
     /**
-     * 删除设施（慎用）
+     * 更新设施的所属自习室、类型与坐标（如移动设施）
      */
-    public boolean deleteById(int facilityId) throws SQLException {
-        String sql = "DELETE FROM facility WHERE facility_id = ?";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, facilityId);
-            int rows = ps.executeUpdate();
-            return rows > 0;
-        }
+    public boolean update(Facility facility) throws SQLException {
+        String sql = "UPDATE facility SET room_id = ?, type = ?, x_coord = ?, y_coord = ? WHERE facility_id = ?";
+        return JdbcTemplate.PRIMARY.update(sql, ps -> {
+            ps.setInt(1, facility.getRoomId());
+            ps.setString(2, facility.getType().name());
+            ps.setInt(3, facility.getXCoord());
+            ps.setInt(4, facility.getYCoord());
+            ps.setInt(5, facility.getFacilityId());
+        }) > 0;
     }
 
     /**
-     * 将 ResultSet 当前行映射为 Facility 对象
+     * 删除设施（慎用）
      */
-    private Facility mapRowToFacility(ResultSet rs) throws SQLException {
-        Facility f = new Facility();
-        f.setFacilityId(rs.getInt("facility_id"));
-        f.setRoomId(rs.getInt("room_id"));
-        f.setType(FacilityType.valueOf(rs.getString("type")));
-        f.setXCoord(rs.getInt("x_coord"));
-        f.setYCoord(rs.getInt("y_coord"));
-        return f;
+    public boolean deleteById(int facilityId) throws SQLException {
+        return JdbcTemplate.PRIMARY.update("DELETE FROM facility WHERE facility_id = ?",
+                ps -> ps.setInt(1, facilityId)) > 0;
     }
 }
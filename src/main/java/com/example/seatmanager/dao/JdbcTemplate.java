@@ -0,0 +1,322 @@
+package com.example.seatmanager.dao;
+
+import com.example.seatmanager.util.DBUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * JdbcTemplate：各 DAO 共用的 JDBC 模板，取代每个方法里重复的“取连接 → 预编译 → 绑定参数 → 遍历结果集”。
+ *
+ * - 语句来自连接池中每个连接自带的缓存（DBUtil.prepareCached），同一条 SQL 在同一连接上只预编译一次，
+ *   调用方不关闭语句，只关闭结果集
+ * - 行映射按列序号读取（RowMapper），SQL 的列顺序与映射器一一对应，不再按列名查找
+ * - 每条查询带 fetchSize 提示：单行查询为 1，列表查询由 DAO 按预期行数给出
+ *
+ * PRIMARY 读写主库；READ 走 DBUtil.getReadConnection()，可能落到只读副本，只用于允许读到稍旧数据的查询。
+ * 需要多条语句在同一事务内执行时用 PRIMARY.inTransaction(...)。
+ */
+public final class JdbcTemplate {
+
+    /** 绑定语句参数 */
+    @FunctionalInterface
+    public interface Binder {
+        void bind(PreparedStatement ps) throws SQLException;
+    }
+
+    /** 把结果集当前行映射为实体；按列序号读取 */
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /** 逐行处理结果集，不产生实体；用于直接写入列式数组 */
+    @FunctionalInterface
+    public interface RowHandler {
+        void handle(ResultSet rs) throws SQLException;
+    }
+
+    /** 为批量语句中的一项绑定参数 */
+    @FunctionalInterface
+    public interface BatchBinder<T> {
+        void bind(PreparedStatement ps, T item) throws SQLException;
+    }
+
+    /** 在事务中执行的回调 */
+    @FunctionalInterface
+    public interface TransactionCallback<T> {
+        T doInTransaction(Session session) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection get() throws SQLException;
+    }
+
+    /** 不带参数的语句 */
+    public static final Binder NO_PARAMS = ps -> { };
+
+    /** 单行查询的 fetchSize 提示 */
+    public static final int FETCH_ONE = 1;
+    // 按 fetchSize 预分配结果容器的上限，提示偏大时不至于白占内存
+    private static final int PRESIZE_LIMIT = 1024;
+
+    /** 读写主库 */
+    public static final JdbcTemplate PRIMARY = new JdbcTemplate(DBUtil::getConnection, true);
+    /** 只读查询，可能路由到只读副本 */
+    public static final JdbcTemplate READ = new JdbcTemplate(DBUtil::getReadConnection, false);
+
+    private final ConnectionSource source;
+    private final boolean writable;
+
+    private JdbcTemplate(ConnectionSource source, boolean writable) {
+        this.source = source;
+        this.writable = writable;
+    }
+
+    /**
+     * 查询多行
+     *
+     * @param fetchSize 预期行数提示
+     */
+    public <T> List<T> query(String sql, int fetchSize, Binder binder, RowMapper<T> mapper) throws SQLException {
+        try (Connection conn = source.get()) {
+            return new Session(conn).query(sql, fetchSize, binder, mapper);
+        }
+    }
+
+    /**
+     * 逐行把结果集交给 handler，由调用方自行收集
+     */
+    public void forEach(String sql, int fetchSize, Binder binder, RowHandler handler) throws SQLException {
+        try (Connection conn = source.get()) {
+            new Session(conn).forEach(sql, fetchSize, binder, handler);
+        }
+    }
+
+    /**
+     * 查询单列 BIGINT 结果，直接收集为 long[]，不装箱
+     */
+    public long[] queryLongs(String sql, int fetchSize, Binder binder) throws SQLException {
+        try (Connection conn = source.get()) {
+            return new Session(conn).queryLongs(sql, fetchSize, binder);
+        }
+    }
+
+    /**
+     * 查询单行
+     *
+     * @return 无结果时返回 null
+     */
+    public <T> T queryOne(String sql, Binder binder, RowMapper<T> mapper) throws SQLException {
+        try (Connection conn = source.get()) {
+            return new Session(conn).queryOne(sql, binder, mapper);
+        }
+    }
+
+    /**
+     * 执行 INSERT / UPDATE / DELETE
+     *
+     * @return 受影响行数
+     */
+    public int update(String sql, Binder binder) throws SQLException {
+        try (Connection conn = primary()) {
+            return new Session(conn).update(sql, binder);
+        }
+    }
+
+    /**
+     * 执行 INSERT 并取回自增主键
+     *
+     * @return 自增主键；未插入任何行时返回 -1
+     */
+    public long insert(String sql, Binder binder) throws SQLException {
+        try (Connection conn = primary()) {
+            return new Session(conn).insert(sql, binder);
+        }
+    }
+
+    /**
+     * 流式查询：逐行交给 consumer，不在内存中累积结果。
+     * 流式结果集会占住连接直到读完，语句不进缓存（见 DBUtil.prepareStreaming）。
+     *
+     * @param batchSize 每批从服务器拉取的行数
+     */
+    public <T, X extends Exception> void stream(String sql, int batchSize, Binder binder, RowMapper<T> mapper,
+                                                RowConsumer<T, X> consumer) throws SQLException, X {
+        try (Connection conn = source.get();
+             PreparedStatement ps = DBUtil.prepareStreaming(conn, sql, batchSize)) {
+            binder.bind(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(mapper.map(rs));
+                }
+            }
+        }
+    }
+
+    /**
+     * 在同一连接、同一事务中执行 callback：正常返回则提交，抛出异常则回滚
+     */
+    public <T> T inTransaction(TransactionCallback<T> callback) throws SQLException {
+        try (Connection conn = primary()) {
+            conn.setAutoCommit(false);
+            try {
+                T result = callback.doInTransaction(new Session(conn));
+                conn.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 重试可能成功的错误：连接中断（SQLState 08）、死锁与事务回滚（40）、锁等待超时（MariaDB 1205）
+     */
+    public static boolean isTransient(SQLException e) {
+        if (e instanceof SQLTransientException || e instanceof SQLRecoverableException
+                || e instanceof SQLNonTransientConnectionException) {
+            return true;
+        }
+        String state = e.getSQLState();
+        return (state != null && (state.startsWith("08") || state.startsWith("40"))) || e.getErrorCode() == 1205;
+    }
+
+    /**
+     * 由某一行数据本身引起、重试也不会成功的错误：违反约束（SQLState 23，如外键指向的行已删除）或数据不合法（22）
+     */
+    public static boolean isDataError(SQLException e) {
+        if (e instanceof SQLIntegrityConstraintViolationException || e instanceof SQLDataException) {
+            return true;
+        }
+        String state = e.getSQLState();
+        return state != null && (state.startsWith("22") || state.startsWith("23"));
+    }
+
+    private Connection primary() throws SQLException {
+        if (!writable) {
+            throw new IllegalStateException("read-only template");
+        }
+        return source.get();
+    }
+
+    /**
+     * Session：绑定在一个已借出连接上的模板操作，供事务回调使用；连接的提交与归还由调用方负责
+     */
+    public static final class Session {
+        private final Connection conn;
+
+        Session(Connection conn) {
+            this.conn = conn;
+        }
+
+        public <T> List<T> query(String sql, int fetchSize, Binder binder, RowMapper<T> mapper) throws SQLException {
+            PreparedStatement ps = prepare(sql, false, fetchSize);
+            binder.bind(ps);
+            List<T> list = new ArrayList<>(Math.min(Math.max(fetchSize, 10), PRESIZE_LIMIT));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapper.map(rs));
+                }
+            }
+            return list;
+        }
+
+        public void forEach(String sql, int fetchSize, Binder binder, RowHandler handler) throws SQLException {
+            PreparedStatement ps = prepare(sql, false, fetchSize);
+            binder.bind(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    handler.handle(rs);
+                }
+            }
+        }
+
+        public long[] queryLongs(String sql, int fetchSize, Binder binder) throws SQLException {
+            PreparedStatement ps = prepare(sql, false, fetchSize);
+            binder.bind(ps);
+            long[] values = new long[Math.min(Math.max(fetchSize, 16), PRESIZE_LIMIT)];
+            int n = 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (n == values.length) {
+                        values = Arrays.copyOf(values, n * 2);
+                    }
+                    values[n++] = rs.getLong(1);
+                }
+            }
+            return n == values.length ? values : Arrays.copyOf(values, n);
+        }
+
+        public <T> T queryOne(String sql, Binder binder, RowMapper<T> mapper) throws SQLException {
+            PreparedStatement ps = prepare(sql, false, FETCH_ONE);
+            binder.bind(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? mapper.map(rs) : null;
+            }
+        }
+
+        /** 是否至少有一行结果 */
+        public boolean exists(String sql, Binder binder) throws SQLException {
+            PreparedStatement ps = prepare(sql, false, FETCH_ONE);
+            binder.bind(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+
+        public int update(String sql, Binder binder) throws SQLException {
+            PreparedStatement ps = prepare(sql, false, 0);
+            binder.bind(ps);
+            return ps.executeUpdate();
+        }
+
+        public long insert(String sql, Binder binder) throws SQLException {
+            PreparedStatement ps = prepare(sql, true, 0);
+            binder.bind(ps);
+            if (ps.executeUpdate() == 0) {
+                return -1L;
+            }
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                return keys.next() ? keys.getLong(1) : -1L;
+            }
+        }
+
+        /**
+         * 批量执行同一条语句，items 为空时不访问数据库
+         */
+        public <T> void batch(String sql, Collection<? extends T> items, BatchBinder<T> binder) throws SQLException {
+            if (items.isEmpty()) {
+                return;
+            }
+            PreparedStatement ps = prepare(sql, false, 0);
+            // 上次批量失败时可能残留未执行的参数组
+            ps.clearBatch();
+            for (T item : items) {
+                binder.bind(ps, item);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        private PreparedStatement prepare(String sql, boolean returnGeneratedKeys, int fetchSize) throws SQLException {
+            PreparedStatement ps = DBUtil.prepareCached(conn, sql, returnGeneratedKeys);
+            ps.clearParameters();
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }
+    }
+}
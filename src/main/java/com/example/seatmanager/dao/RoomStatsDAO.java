@@ -0,0 +1,128 @@
+package com.example.seatmanager.dao;
+
+import com.example.seatmanager.entity.RoomStats;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * RoomStatsDAO：对 room_day_stats / room_hour_stats 汇总表的读写。
+ * 汇总表由 RollupService 增量维护，仪表盘直接读取，不再扫描 usage_record。
+ */
+public class RoomStatsDAO {
+
+    private static final String ADD_DAY_SQL =
+            "INSERT INTO room_day_stats(room_id, stat_date, reservations, reserved_slots, signed_slots, closed_slots) " +
+            "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+            "reservations = reservations + VALUES(reservations), " +
+            "reserved_slots = reserved_slots + VALUES(reserved_slots), " +
+            "signed_slots = signed_slots + VALUES(signed_slots), " +
+            "closed_slots = closed_slots + VALUES(closed_slots)";
+    private static final String ADD_HOUR_SQL =
+            "INSERT INTO room_hour_stats(room_id, stat_date, hour, reserved_slots, signed_slots, closed_slots) " +
+            "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+            "reserved_slots = reserved_slots + VALUES(reserved_slots), " +
+            "signed_slots = signed_slots + VALUES(signed_slots), " +
+            "closed_slots = closed_slots + VALUES(closed_slots)";
+
+    private static final JdbcTemplate.RowMapper<RoomStats> DAY_MAPPER = rs -> {
+        RoomStats s = new RoomStats(rs.getInt(1), rs.getDate(2).toLocalDate(), RoomStats.WHOLE_DAY);
+        s.setReservations(rs.getInt(3));
+        s.setReservedSlots(rs.getInt(4));
+        s.setSignedSlots(rs.getInt(5));
+        s.setClosedSlots(rs.getInt(6));
+        return s;
+    };
+
+    private static final JdbcTemplate.RowMapper<RoomStats> HOUR_MAPPER = rs -> {
+        RoomStats s = new RoomStats(rs.getInt(1), rs.getDate(2).toLocalDate(), rs.getInt(3));
+        s.setReservedSlots(rs.getInt(4));
+        s.setSignedSlots(rs.getInt(5));
+        s.setClosedSlots(rs.getInt(6));
+        return s;
+    };
+
+    private static final JdbcTemplate.BatchBinder<RoomStats> DAY_BINDER = (ps, s) -> {
+        ps.setInt(1, s.getRoomId());
+        ps.setDate(2, Date.valueOf(s.getStatDate()));
+        ps.setInt(3, s.getReservations());
+        ps.setInt(4, s.getReservedSlots());
+        ps.setInt(5, s.getSignedSlots());
+        ps.setInt(6, s.getClosedSlots());
+    };
+
+    private static final JdbcTemplate.BatchBinder<RoomStats> HOUR_BINDER = (ps, s) -> {
+        ps.setInt(1, s.getRoomId());
+        ps.setDate(2, Date.valueOf(s.getStatDate()));
+        ps.setInt(3, s.getHour());
+        ps.setInt(4, s.getReservedSlots());
+        ps.setInt(5, s.getSignedSlots());
+        ps.setInt(6, s.getClosedSlots());
+    };
+
+    // 一周约 50 个自习室 × 7 天（按小时再 × 15）
+    private static final int RANGE_FETCH = 512;
+    private static final int HOUR_RANGE_FETCH = 4096;
+
+    /**
+     * 在一个事务中把增量累加到汇总表（行不存在时插入）
+     *
+     * @param dayDeltas  整天的增量（hour = -1）
+     * @param hourDeltas 按小时的增量
+     */
+    public void addDeltas(Collection<RoomStats> dayDeltas, Collection<RoomStats> hourDeltas) throws SQLException {
+        JdbcTemplate.PRIMARY.inTransaction(tx -> {
+            tx.batch(ADD_DAY_SQL, dayDeltas, DAY_BINDER);
+            tx.batch(ADD_HOUR_SQL, hourDeltas, HOUR_BINDER);
+            return null;
+        });
+    }
+
+    /**
+     * 在一个事务中用重新计算的结果替换某一天的全部汇总行
+     */
+    public void replaceDate(LocalDate date, Collection<RoomStats> days, Collection<RoomStats> hours) throws SQLException {
+        JdbcTemplate.PRIMARY.inTransaction(tx -> {
+            tx.update("DELETE FROM room_day_stats WHERE stat_date = ?", ps -> ps.setDate(1, Date.valueOf(date)));
+            tx.update("DELETE FROM room_hour_stats WHERE stat_date = ?", ps -> ps.setDate(1, Date.valueOf(date)));
+            tx.batch(ADD_DAY_SQL, days, DAY_BINDER);
+            tx.batch(ADD_HOUR_SQL, hours, HOUR_BINDER);
+            return null;
+        });
+    }
+
+    /**
+     * 查询日期区间 [from, to] 内各自习室的整天汇总（按日期、自习室排序）
+     */
+    public List<RoomStats> findDayStats(LocalDate from, LocalDate to) throws SQLException {
+        String sql = "SELECT room_id, stat_date, reservations, reserved_slots, signed_slots, closed_slots " +
+                "FROM room_day_stats WHERE stat_date BETWEEN ? AND ? ORDER BY stat_date, room_id";
+        return JdbcTemplate.PRIMARY.query(sql, RANGE_FETCH, ps -> {
+            ps.setDate(1, Date.valueOf(from));
+            ps.setDate(2, Date.valueOf(to));
+        }, DAY_MAPPER);
+    }
+
+    /**
+     * 查询日期区间 [from, to] 内各自习室按小时的汇总（按日期、自习室、小时排序）
+     */
+    public List<RoomStats> findHourStats(LocalDate from, LocalDate to) throws SQLException {
+        String sql = "SELECT room_id, stat_date, hour, reserved_slots, signed_slots, closed_slots " +
+                "FROM room_hour_stats WHERE stat_date BETWEEN ? AND ? ORDER BY stat_date, room_id, hour";
+        return JdbcTemplate.PRIMARY.query(sql, HOUR_RANGE_FETCH, ps -> {
+            ps.setDate(1, Date.valueOf(from));
+            ps.setDate(2, Date.valueOf(to));
+        }, HOUR_MAPPER);
+    }
+
+    /**
+     * 汇总表是否为空（首次启用时需要从历史数据回填）
+     */
+    public boolean isEmpty() throws SQLException {
+        return JdbcTemplate.PRIMARY.queryOne("SELECT 1 FROM room_day_stats LIMIT 1",
+                JdbcTemplate.NO_PARAMS, rs -> Boolean.TRUE) == null;
+    }
+}
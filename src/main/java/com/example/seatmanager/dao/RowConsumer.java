@@ -0,0 +1,13 @@
+package com.example.seatmanager.dao;
+
+/**
+ * RowConsumer：流式查询的逐行回调。DAO 每读到一行就映射为实体并交给回调，
+ * 不在内存中累积结果集，回调可以直接把这一行写到文件或网络。
+ *
+ * @param <T> 实体类型
+ * @param <X> 回调自身可能抛出的受检异常（如 IOException）
+ */
+@FunctionalInterface
+public interface RowConsumer<T, X extends Exception> {
+    void accept(T row) throws X;
+}
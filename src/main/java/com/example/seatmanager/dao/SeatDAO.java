@@ -1,11 +1,13 @@
 package com.example.seatmanager.dao;
 
 import com.example.seatmanager.entity.Seat;
-import com.example.seatmanager.util.DBUtil;
 
-import java.sql.*;
-import java.util.ArrayList;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * SeatDAO：对 seat 表的增删改查操作
@@ -25,41 +27,119 @@ import java.util.List;
  */
 public class SeatDAO {
 
+    private static final String COLUMNS =
+            "SELECT seat_id, room_id, x_coord, y_coord, near_window, near_door, near_socket FROM seat";
+
+    /** 与 COLUMNS 的列顺序一一对应 */
+    private static final JdbcTemplate.RowMapper<Seat> SEAT_MAPPER = rs -> {
+        Seat s = new Seat();
+        s.setSeatId(rs.getLong(1));
+        s.setRoomId(rs.getInt(2));
+        s.setXCoord(rs.getInt(3));
+        s.setYCoord(rs.getInt(4));
+        s.setNearWindow(rs.getBoolean(5));
+        s.setNearDoor(rs.getBoolean(6));
+        s.setNearSocket(rs.getBoolean(7));
+        return s;
+    };
+
+    private static final String INSERT_SQL =
+            "INSERT INTO seat(room_id, x_coord, y_coord, near_window, near_door, near_socket) VALUES ";
+
+    // 多行 INSERT 每条语句的最大行数（每行 6 个参数）
+    private static final int INSERT_CHUNK = 256;
+
+    private static final String UPDATE_NEAR_SQL =
+            "UPDATE seat SET near_window = ?, near_door = ?, near_socket = ? WHERE seat_id = ?";
+
+    private static final JdbcTemplate.BatchBinder<Seat> NEAR_BINDER = (ps, s) -> {
+        ps.setBoolean(1, s.isNearWindow());
+        ps.setBoolean(2, s.isNearDoor());
+        ps.setBoolean(3, s.isNearSocket());
+        ps.setLong(4, s.getSeatId());
+    };
+
+    // 单个自习室的座位数量级，作为 fetchSize 提示
+    private static final int ROOM_FETCH = 64;
+    private static final int ALL_FETCH = 1024;
+
     /**
      * 根据 seat_id 查询单个座位
      */
     public Seat findById(long seatId) throws SQLException {
-        String sql = "SELECT seat_id, room_id, x_coord, y_coord, near_window, near_door, near_socket " +
-                "FROM seat WHERE seat_id = ?";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setLong(1, seatId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return mapRowToSeat(rs);
-                }
-            }
-        }
-        return null;
+        return JdbcTemplate.READ.queryOne(COLUMNS + " WHERE seat_id = ?",
+                ps -> ps.setLong(1, seatId), SEAT_MAPPER);
     }
 
     /**
      * 查询某自习室下的所有座位
      */
     public List<Seat> findByRoomId(int roomId) throws SQLException {
-        List<Seat> list = new ArrayList<>();
-        String sql = "SELECT seat_id, room_id, x_coord, y_coord, near_window, near_door, near_socket " +
-                "FROM seat WHERE room_id = ? ORDER BY seat_id";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, roomId);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    list.add(mapRowToSeat(rs));
-                }
-            }
+        return JdbcTemplate.READ.query(COLUMNS + " WHERE room_id = ? ORDER BY seat_id", ROOM_FETCH,
+                ps -> ps.setInt(1, roomId), SEAT_MAPPER);
+    }
+
+    /**
+     * 查询某自习室下的所有座位，读主库；用于读取后据此写回（如重新计算 near_* 标记）
+     */
+    public List<Seat> findByRoomIdOnPrimary(int roomId) throws SQLException {
+        return JdbcTemplate.PRIMARY.query(COLUMNS + " WHERE room_id = ? ORDER BY seat_id", ROOM_FETCH,
+                ps -> ps.setInt(1, roomId), SEAT_MAPPER);
+    }
+
+    /**
+     * 查询全部座位（按 seat_id 升序）
+     */
+    public List<Seat> findAll() throws SQLException {
+        return JdbcTemplate.READ.query(COLUMNS + " ORDER BY seat_id", ALL_FETCH,
+                JdbcTemplate.NO_PARAMS, SEAT_MAPPER);
+    }
+
+    /**
+     * 已有座位的自习室 ID（升序），读主库；供初始化时判断哪些自习室还需要生成座位
+     */
+    public long[] findRoomIdsWithSeats() throws SQLException {
+        return JdbcTemplate.PRIMARY.queryLongs("SELECT DISTINCT room_id FROM seat ORDER BY room_id", ROOM_FETCH,
+                JdbcTemplate.NO_PARAMS);
+    }
+
+    /**
+     * 查询全部座位 ID（升序），用于构建占用快照的座位序号索引
+     */
+    public long[] findAllIds() throws SQLException {
+        return JdbcTemplate.PRIMARY.queryLongs("SELECT seat_id FROM seat ORDER BY seat_id", ALL_FETCH,
+                JdbcTemplate.NO_PARAMS);
+    }
+
+    /**
+     * 按自习室分组的全部座位 ID：key = room_id，value = 该自习室升序排列的座位 ID。
+     * 只读两列、直接写入 long[]，不创建 Seat 实体；供校园目录统计各自习室空座数
+     */
+    public Map<Integer, long[]> findIdsGroupedByRoom() throws SQLException {
+        Map<Integer, long[]> result = new HashMap<>();
+        // 结果按 room_id 排序，同一自习室的行连续出现
+        int[] currentRoom = {Integer.MIN_VALUE};
+        long[][] buffer = {new long[ROOM_FETCH]};
+        int[] count = {0};
+        JdbcTemplate.READ.forEach("SELECT room_id, seat_id FROM seat ORDER BY room_id, seat_id", ALL_FETCH,
+                JdbcTemplate.NO_PARAMS, rs -> {
+                    int roomId = rs.getInt(1);
+                    if (roomId != currentRoom[0]) {
+                        if (count[0] > 0) {
+                            result.put(currentRoom[0], Arrays.copyOf(buffer[0], count[0]));
+                        }
+                        currentRoom[0] = roomId;
+                        count[0] = 0;
+                    }
+                    if (count[0] == buffer[0].length) {
+                        buffer[0] = Arrays.copyOf(buffer[0], count[0] * 2);
+                    }
+                    buffer[0][count[0]++] = rs.getLong(2);
+                });
+        if (count[0] > 0) {
+            result.put(currentRoom[0], Arrays.copyOf(buffer[0], count[0]));
         }
-        return list;
+        return result;
     }
 
     /**
@@ -70,9 +150,8 @@ public class SeatDAO {
      * @param needSocket true 需靠插座，否则忽略
      */
     public List<Seat> findByAttributes(int roomId, boolean needWindow, boolean needDoor, boolean needSocket) throws SQLException {
-        StringBuilder sb = new StringBuilder(
-                "SELECT seat_id, room_id, x_coord, y_coord, near_window, near_door, near_socket " +
-                        "FROM seat WHERE room_id = ?");
+        // 三个开关共 8 种 SQL 文本，各自进入语句缓存
+        StringBuilder sb = new StringBuilder(COLUMNS).append(" WHERE room_id = ?");
         if (needWindow) {
             sb.append(" AND near_window = TRUE");
         }
@@ -83,72 +162,80 @@ public class SeatDAO {
             sb.append(" AND near_socket = TRUE");
         }
         sb.append(" ORDER BY seat_id");
-
-        List<Seat> list = new ArrayList<>();
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sb.toString())) {
-            ps.setInt(1, roomId);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    list.add(mapRowToSeat(rs));
-                }
-            }
-        }
-        return list;
+        return JdbcTemplate.READ.query(sb.toString(), ROOM_FETCH, ps -> ps.setInt(1, roomId), SEAT_MAPPER);
     }
 
     /**
      * 插入新的座位（一般由初始化脚本完成，此处可选）
      */
     public boolean insert(Seat seat) throws SQLException {
-        String sql = "INSERT INTO seat(room_id, x_coord, y_coord, near_window, near_door, near_socket) " +
-                "VALUES (?, ?, ?, ?, ?, ?)";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        long id = JdbcTemplate.PRIMARY.insert(INSERT_SQL + "(?, ?, ?, ?, ?, ?)", ps -> {
             ps.setInt(1, seat.getRoomId());
             ps.setInt(2, seat.getXCoord());
             ps.setInt(3, seat.getYCoord());
             ps.setBoolean(4, seat.isNearWindow());
             ps.setBoolean(5, seat.isNearDoor());
             ps.setBoolean(6, seat.isNearSocket());
-            int rows = ps.executeUpdate();
-            if (rows > 0) {
-                try (ResultSet keys = ps.getGeneratedKeys()) {
-                    if (keys.next()) {
-                        seat.setSeatId(keys.getLong(1));
+        });
+        if (id < 0) {
+            return false;
+        }
+        seat.setSeatId(id);
+        return true;
+    }
+
+    /**
+     * 在一个事务中批量插入座位：每条 INSERT 携带最多 INSERT_CHUNK 行 VALUES，seatId 由数据库生成且不回填。
+     * 满块使用同一条 SQL 文本，只预编译一次；seats 为空时不访问数据库
+     */
+    public void insertAll(List<Seat> seats) throws SQLException {
+        if (seats.isEmpty()) {
+            return;
+        }
+        JdbcTemplate.PRIMARY.inTransaction(tx -> {
+            for (int from = 0; from < seats.size(); from += INSERT_CHUNK) {
+                List<Seat> chunk = seats.subList(from, Math.min(seats.size(), from + INSERT_CHUNK));
+                tx.update(multiRowInsertSql(chunk.size()), ps -> {
+                    int p = 1;
+                    for (Seat seat : chunk) {
+                        ps.setInt(p++, seat.getRoomId());
+                        ps.setInt(p++, seat.getXCoord());
+                        ps.setInt(p++, seat.getYCoord());
+                        ps.setBoolean(p++, seat.isNearWindow());
+                        ps.setBoolean(p++, seat.isNearDoor());
+                        ps.setBoolean(p++, seat.isNearSocket());
                     }
-                }
-                return true;
+                });
             }
+            return null;
+        });
+    }
+
+    private static String multiRowInsertSql(int rows) {
+        StringBuilder sb = new StringBuilder(INSERT_SQL.length() + rows * 20).append(INSERT_SQL);
+        for (int i = 0; i < rows; i++) {
+            sb.append(i == 0 ? "(?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?)");
         }
-        return false;
+        return sb.toString();
     }
 
     /**
-     * 删除座位（慎用）
+     * 在一个事务中批量写回座位的 near_window / near_door / near_socket 标记，seats 为空时不访问数据库
      */
-    public boolean deleteById(long seatId) throws SQLException {
-        String sql = "DELETE FROM seat WHERE seat_id = ?";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setLong(1, seatId);
-            int rows = ps.executeUpdate();
-            return rows > 0;
+    public void updateNearFlags(Collection<Seat> seats) throws SQLException {
+        if (seats.isEmpty()) {
+            return;
         }
+        JdbcTemplate.PRIMARY.inTransaction(tx -> {
+            tx.batch(UPDATE_NEAR_SQL, seats, NEAR_BINDER);
+            return null;
+        });
     }
 
     /**
-     * 将 ResultSet 当前行映射为 Seat 对象
+     * 删除座位（慎用）
      */
-    private Seat mapRowToSeat(ResultSet rs) throws SQLException {
-        Seat s = new Seat();
-        s.setSeatId(rs.getLong("seat_id"));
-        s.setRoomId(rs.getInt("room_id"));
-        s.setXCoord(rs.getInt("x_coord"));
-        s.setYCoord(rs.getInt("y_coord"));
-        s.setNearWindow(rs.getBoolean("near_window"));
-        s.setNearDoor(rs.getBoolean("near_door"));
-        s.setNearSocket(rs.getBoolean("near_socket"));
-        return s;
+    public boolean deleteById(long seatId) throws SQLException {
+        return JdbcTemplate.PRIMARY.update("DELETE FROM seat WHERE seat_id = ?", ps -> ps.setLong(1, seatId)) > 0;
     }
 }
@@ -1,11 +1,7 @@
 package com.example.seatmanager.dao;
 
 import com.example.seatmanager.entity.Student;
-import com.example.seatmanager.util.DBUtil;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 
 /**
@@ -23,29 +19,27 @@ import java.sql.SQLException;
  */
 public class StudentDAO {
 
+    private static final String COLUMNS =
+            "SELECT student_id, name, photo_path, violation_count, email, created_at FROM student";
+
+    /** 与 COLUMNS 的列顺序一一对应 */
+    private static final JdbcTemplate.RowMapper<Student> STUDENT_MAPPER = rs -> {
+        Student s = new Student();
+        s.setStudentId(rs.getString(1));
+        s.setName(rs.getString(2));
+        s.setPhotoPath(rs.getString(3));
+        s.setViolationCount(rs.getInt(4));
+        s.setEmail(rs.getString(5));
+        s.setCreatedAt(rs.getTimestamp(6).toLocalDateTime());
+        return s;
+    };
+
     /**
      * 根据 student_id 查询学生信息
      */
     public Student findById(String studentId) throws SQLException {
-        String sql = "SELECT student_id, name, photo_path, violation_count, email, created_at " +
-                "FROM student WHERE student_id = ?";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, studentId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    Student s = new Student();
-                    s.setStudentId(rs.getString("student_id"));
-                    s.setName(rs.getString("name"));
-                    s.setPhotoPath(rs.getString("photo_path"));
-                    s.setViolationCount(rs.getInt("violation_count"));
-                    s.setEmail(rs.getString("email"));
-                    s.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-                    return s;
-                }
-            }
-        }
-        return null;
+        return JdbcTemplate.PRIMARY.queryOne(COLUMNS + " WHERE student_id = ?",
+                ps -> ps.setString(1, studentId), STUDENT_MAPPER);
     }
 
     /**
@@ -55,16 +49,13 @@ public class StudentDAO {
     public boolean insert(Student student) throws SQLException {
         String sql = "INSERT INTO student(student_id, name, photo_path, violation_count, email) " +
                 "VALUES (?, ?, ?, ?, ?)";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        return JdbcTemplate.PRIMARY.update(sql, ps -> {
             ps.setString(1, student.getStudentId());
             ps.setString(2, student.getName());
             ps.setString(3, student.getPhotoPath());
             ps.setInt(4, student.getViolationCount());
             ps.setString(5, student.getEmail());
-            int rows = ps.executeUpdate();
-            return rows > 0;
-        }
+        }) > 0;
     }
 
     /**
@@ -73,13 +64,10 @@ public class StudentDAO {
      */
     public boolean updateViolationCount(String studentId, int newCount) throws SQLException {
         String sql = "UPDATE student SET violation_count = ? WHERE student_id = ?";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        return JdbcTemplate.PRIMARY.update(sql, ps -> {
             ps.setInt(1, newCount);
             ps.setString(2, studentId);
-            int rows = ps.executeUpdate();
-            return rows > 0;
-        }
+        }) > 0;
     }
 
     /**
@@ -87,12 +75,7 @@ public class StudentDAO {
      * @return 删除成功返回 true，否则 false
      */
     public boolean deleteById(String studentId) throws SQLException {
-        String sql = "DELETE FROM student WHERE student_id = ?";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, studentId);
-            int rows = ps.executeUpdate();
-            return rows > 0;
-        }
+        return JdbcTemplate.PRIMARY.update("DELETE FROM student WHERE student_id = ?",
+                ps -> ps.setString(1, studentId)) > 0;
     }
 }
@@ -1,13 +1,8 @@
 package com.example.seatmanager.dao;
 
 import com.example.seatmanager.entity.StudyRoom;
-import com.example.seatmanager.util.DBUtil;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -27,58 +22,42 @@ import java.util.List;
  */
 public class StudyRoomDAO {
 
+    private static final String COLUMNS =
+            "SELECT room_id, floor, building_id, free_seats_count, total_seats_count, x_coord, y_coord FROM study_room";
+
+    /** 与 COLUMNS 的列顺序一一对应 */
+    private static final JdbcTemplate.RowMapper<StudyRoom> ROOM_MAPPER = rs -> new StudyRoom(
+            rs.getInt(1),
+            rs.getInt(2),
+            rs.getInt(3),
+            rs.getInt(4),
+            rs.getInt(5),
+            rs.getInt(6),
+            rs.getInt(7)
+    );
+
+    // 一层楼 / 一栋楼 / 全校的自习室数量级，作为 fetchSize 提示
+    private static final int FLOOR_FETCH = 8;
+    private static final int BUILDING_FETCH = 32;
+    private static final int ALL_FETCH = 128;
+
     /**
      * 根据 room_id 查询单个自习室信息
      */
     public StudyRoom findById(int roomId) throws SQLException {
-        String sql = "SELECT room_id, floor, building_id, free_seats_count, total_seats_count, x_coord, y_coord " +
-                "FROM study_room WHERE room_id = ?";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, roomId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return new StudyRoom(
-                            rs.getInt("room_id"),
-                            rs.getInt("floor"),
-                            rs.getInt("building_id"),
-                            rs.getInt("free_seats_count"),
-                            rs.getInt("total_seats_count"),
-                            rs.getInt("x_coord"),
-                            rs.getInt("y_coord")
-                    );
-                }
-            }
-        }
-        return null;
+        return JdbcTemplate.PRIMARY.queryOne(COLUMNS + " WHERE room_id = ?",
+                ps -> ps.setInt(1, roomId), ROOM_MAPPER);
     }
 
     /**
      * 查询某栋楼、某楼层下的所有自习室
      */
     public List<StudyRoom> findByBuildingAndFloor(int buildingId, int floor) throws SQLException {
-        List<StudyRoom> list = new ArrayList<>();
-        String sql = "SELECT room_id, floor, building_id, free_seats_count, total_seats_count, x_coord, y_coord " +
-                "FROM study_room WHERE building_id = ? AND floor = ? ORDER BY room_id";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, buildingId);
-            ps.setInt(2, floor);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    list.add(new StudyRoom(
-                            rs.getInt("room_id"),
-                            rs.getInt("floor"),
-                            rs.getInt("building_id"),
-                            rs.getInt("free_seats_count"),
-                            rs.getInt("total_seats_count"),
-                            rs.getInt("x_coord"),
-                            rs.getInt("y_coord")
-                    ));
-                }
-            }
-        }
-        return list;
+        return JdbcTemplate.READ.query(COLUMNS + " WHERE building_id = ? AND floor = ? ORDER BY room_id", FLOOR_FETCH,
+                ps -> {
+                    ps.setInt(1, buildingId);
+                    ps.setInt(2, floor);
+                }, ROOM_MAPPER);
     }
 
     /**
@@ -86,40 +65,26 @@ public class StudyRoomDAO {
      */
     public boolean updateFreeSeatsCount(int roomId, int newFreeCount) throws SQLException {
         String sql = "UPDATE study_room SET free_seats_count = ? WHERE room_id = ?";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        return JdbcTemplate.PRIMARY.update(sql, ps -> {
             ps.setInt(1, newFreeCount);
             ps.setInt(2, roomId);
-            int rows = ps.executeUpdate();
-            return rows > 0;
-        }
+        }) > 0;
     }
 
     /**
      * 查询某栋楼所有自习室（不分楼层）
      */
     public List<StudyRoom> findByBuilding(int buildingId) throws SQLException {
-        List<StudyRoom> list = new ArrayList<>();
-        String sql = "SELECT room_id, floor, building_id, free_seats_count, total_seats_count, x_coord, y_coord " +
-                "FROM study_room WHERE building_id = ? ORDER BY room_id";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, buildingId);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    list.add(new StudyRoom(
-                            rs.getInt("room_id"),
-                            rs.getInt("floor"),
-                            rs.getInt("building_id"),
-                            rs.getInt("free_seats_count"),
-                            rs.getInt("total_seats_count"),
-                            rs.getInt("x_coord"),
-                            rs.getInt("y_coord")
-                    ));
-                }
-            }
-        }
-        return list;
+        return JdbcTemplate.READ.query(COLUMNS + " WHERE building_id = ? ORDER BY room_id", BUILDING_FETCH,
+                ps -> ps.setInt(1, buildingId), ROOM_MAPPER);
+    }
+
+    /**
+     * 查询全部自习室（按 room_id 升序）
+     */
+    public List<StudyRoom> findAll() throws SQLException {
+        return JdbcTemplate.READ.query(COLUMNS + " ORDER BY room_id", ALL_FETCH,
+                JdbcTemplate.NO_PARAMS, ROOM_MAPPER);
     }
 
     /**
@@ -128,8 +93,7 @@ public class StudyRoomDAO {
     public boolean insert(StudyRoom studyRoom) throws SQLException {
         String sql = "INSERT INTO study_room(room_id, floor, building_id, free_seats_count, total_seats_count, x_coord, y_coord) " +
                 "VALUES (?, ?, ?, ?, ?, ?, ?)";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        return JdbcTemplate.PRIMARY.update(sql, ps -> {
             ps.setInt(1, studyRoom.getRoomId());
             ps.setInt(2, studyRoom.getFloor());
             ps.setInt(3, studyRoom.getBuildingId());
@@ -137,21 +101,14 @@ public class StudyRoomDAO {
             ps.setInt(5, studyRoom.getTotalSeatsCount());
             ps.setInt(6, studyRoom.getXCoord());
             ps.setInt(7, studyRoom.getYCoord());
-            int rows = ps.executeUpdate();
-            return rows > 0;
-        }
+        }) > 0;
     }
 
     /**
      * 删除自习室（慎用）
      */
     public boolean deleteById(int roomId) throws SQLException {
-        String sql = "DELETE FROM study_room WHERE room_id = ?";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, roomId);
-            int rows = ps.executeUpdate();
-            return rows > 0;
-        }
+        return JdbcTemplate.PRIMARY.update("DELETE FROM study_room WHERE room_id = ?",
+                ps -> ps.setInt(1, roomId)) > 0;
     }
 }
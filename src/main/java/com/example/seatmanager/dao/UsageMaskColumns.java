@@ -0,0 +1,71 @@
+package com.example.seatmanager.dao;
+
+import com.example.seatmanager.util.BitmapUtil;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * UsageMaskColumns：按列存放的一批 usage_record 占用数据，由 UsageRecordDAO 的批量读取方法填充。
+ *
+ * 第 i 行的座位为 seatIds()[i]、日期为 epochDays()[i]、占用掩码为 masks()[3i .. 3i+3)（与 OccupancyCache 相同的 long[3] 布局）。
+ * 读取时直接从 ResultSet 写入这三个数组，不创建 UsageRecord、LocalDate 或学号字符串；
+ * 数组可能比 size() 长，只有前 size() 行有效。调用方不得修改数组。
+ */
+public final class UsageMaskColumns {
+
+    /** TO_DAYS('1970-01-01')：MariaDB 的日序号从公元 0 年起算，减去它即为 LocalDate.toEpochDay() */
+    private static final int TO_DAYS_UNIX_EPOCH = 719528;
+
+    /** 查询的列顺序：seat_id、以 epochDay 表示的 record_date、time_bitmap */
+    static final String SELECT = "SELECT u.seat_id, TO_DAYS(u.record_date) - " + TO_DAYS_UNIX_EPOCH
+            + ", u.time_bitmap FROM usage_record u";
+
+    private long[] seatIds;
+    private int[] epochDays;
+    private long[] masks;
+    private int size;
+
+    UsageMaskColumns(int capacity) {
+        int n = Math.max(capacity, 16);
+        seatIds = new long[n];
+        epochDays = new int[n];
+        masks = new long[n * BitmapUtil.MASK_WORDS];
+    }
+
+    /** 追加结果集当前行（列顺序见 SELECT） */
+    void add(ResultSet rs) throws SQLException {
+        if (size == seatIds.length) {
+            int n = size * 2;
+            seatIds = Arrays.copyOf(seatIds, n);
+            epochDays = Arrays.copyOf(epochDays, n);
+            masks = Arrays.copyOf(masks, n * BitmapUtil.MASK_WORDS);
+        }
+        seatIds[size] = rs.getLong(1);
+        epochDays[size] = rs.getInt(2);
+        BitmapUtil.orOccupiedInto(rs.getBytes(3), masks, size * BitmapUtil.MASK_WORDS);
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+    public long[] seatIds() {
+        return seatIds;
+    }
+    public int[] epochDays() {
+        return epochDays;
+    }
+    public long[] masks() {
+        return masks;
+    }
+
+    /** 把第 row 行的占用掩码按位或进 dest[offset .. offset + 3) */
+    public void orMaskInto(int row, long[] dest, int offset) {
+        int base = row * BitmapUtil.MASK_WORDS;
+        for (int w = 0; w < BitmapUtil.MASK_WORDS; w++) {
+            dest[offset + w] |= masks[base + w];
+        }
+    }
+}
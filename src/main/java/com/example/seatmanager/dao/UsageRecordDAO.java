@@ -1,11 +1,14 @@
 package com.example.seatmanager.dao;
 
 import com.example.seatmanager.entity.UsageRecord;
-import com.example.seatmanager.util.DBUtil;
+import com.example.seatmanager.util.BitmapUtil;
 
-import java.sql.*;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -18,95 +21,317 @@ import java.util.List;
  *   record_date DATE NOT NULL,
  *   signed      BOOLEAN NOT NULL DEFAULT FALSE,
  *   time_bitmap BINARY(24) NOT NULL,
+ *   start_slot  SMALLINT NULL,
+ *   end_slot    SMALLINT NULL,
  *   FOREIGN KEY (student_id) REFERENCES student(student_id),
- *   FOREIGN KEY (seat_id) REFERENCES seat(seat_id)
+ *   FOREIGN KEY (seat_id) REFERENCES seat(seat_id),
+ *   INDEX idx_usage_seat_date_start (seat_id, record_date, start_slot)
  * );
  * :contentReference[oaicite:7]{index=7}
  */
 public class UsageRecordDAO {
 
+    // 流式读取时每批从服务器拉取的行数
+    private static final int STREAM_BATCH = 1000;
+    // 列表查询的 fetchSize 提示：一名学生 / 一个座位一天 / 一个座位多天 / 一个自习室一天 / 批量加载
+    private static final int STUDENT_FETCH = 64;
+    private static final int SEAT_DAY_FETCH = 8;
+    private static final int SEAT_SPAN_FETCH = 64;
+    private static final int ROOM_DAY_FETCH = 256;
+    private static final int BULK_FETCH = 1000;
+
+    private static final String COLUMNS =
+            "SELECT record_id, student_id, seat_id, record_date, signed, time_bitmap, start_slot, end_slot FROM usage_record";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO usage_record(student_id, seat_id, record_date, signed, time_bitmap, start_slot, end_slot) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String CHECKPOINT_SQL = "INSERT INTO engine_checkpoint(engine_id, last_seq) VALUES (?, ?) " +
+            "ON DUPLICATE KEY UPDATE last_seq = VALUES(last_seq)";
+
+    private static final String LOCK_SEAT_SQL = "SELECT seat_id FROM seat WHERE seat_id = ? FOR UPDATE";
+
+    private static final String OVERLAP_SQL = "SELECT 1 FROM usage_record " +
+            "WHERE seat_id = ? AND record_date = ? AND start_slot < ? AND end_slot > ? LIMIT 1";
+
+    /** 与 COLUMNS 的列顺序一一对应；start_slot / end_slot 为 NULL（未回填的旧数据）时记为 -1 */
+    private static final JdbcTemplate.RowMapper<UsageRecord> RECORD_MAPPER = rs -> {
+        UsageRecord r = new UsageRecord();
+        r.setRecordId(rs.getLong(1));
+        r.setStudentId(rs.getString(2));
+        r.setSeatId(rs.getLong(3));
+        r.setRecordDate(rs.getDate(4).toLocalDate());
+        r.setSigned(rs.getBoolean(5));
+        r.setTimeBitmap(rs.getBytes(6));
+        int startSlot = rs.getInt(7);
+        r.setStartSlot(rs.wasNull() ? -1 : startSlot);
+        int endSlot = rs.getInt(8);
+        r.setEndSlot(rs.wasNull() ? -1 : endSlot);
+        return r;
+    };
+
+    /** 与 INSERT_SQL 的参数顺序一一对应 */
+    private static final JdbcTemplate.BatchBinder<UsageRecord> INSERT_BINDER = (ps, r) -> {
+        ps.setString(1, r.getStudentId());
+        ps.setLong(2, r.getSeatId());
+        ps.setDate(3, Date.valueOf(r.getRecordDate()));
+        ps.setBoolean(4, r.isSigned());
+        ps.setBytes(5, r.getTimeBitmap());
+        ps.setInt(6, r.getStartSlot());
+        ps.setInt(7, r.getEndSlot());
+    };
+
     /**
      * 根据 record_id 查询单条使用记录
      */
     public UsageRecord findById(long recordId) throws SQLException {
-        String sql = "SELECT record_id, student_id, seat_id, record_date, signed, time_bitmap " +
-                "FROM usage_record WHERE record_id = ?";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setLong(1, recordId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return mapRowToUsageRecord(rs);
-                }
-            }
-        }
-        return null;
+        return JdbcTemplate.PRIMARY.queryOne(COLUMNS + " WHERE record_id = ?",
+                ps -> ps.setLong(1, recordId), RECORD_MAPPER);
     }
 
     /**
      * 查询某学生所有预约记录，按日期倒序
      */
     public List<UsageRecord> findByStudent(String studentId) throws SQLException {
-        List<UsageRecord> list = new ArrayList<>();
-        String sql = "SELECT record_id, student_id, seat_id, record_date, signed, time_bitmap " +
-                "FROM usage_record WHERE student_id = ? ORDER BY record_date DESC, record_id DESC";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        return JdbcTemplate.READ.query(COLUMNS + " WHERE student_id = ? ORDER BY record_date DESC, record_id DESC",
+                STUDENT_FETCH, ps -> ps.setString(1, studentId), RECORD_MAPPER);
+    }
+
+    /**
+     * 分页查询某学生的预约记录，排序与 findByStudent 相同（日期倒序、record_id 倒序）
+     *
+     * @param offset 跳过的行数
+     * @param limit  本页最多返回的行数
+     */
+    public List<UsageRecord> findPageByStudent(String studentId, int offset, int limit) throws SQLException {
+        String sql = COLUMNS + " WHERE student_id = ? ORDER BY record_date DESC, record_id DESC LIMIT ? OFFSET ?";
+        return JdbcTemplate.READ.query(sql, limit, ps -> {
             ps.setString(1, studentId);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    list.add(mapRowToUsageRecord(rs));
-                }
-            }
-        }
-        return list;
+            ps.setInt(2, limit);
+            ps.setInt(3, offset);
+        }, RECORD_MAPPER);
+    }
+
+    /**
+     * 统计某学生的预约记录条数
+     */
+    public int countByStudent(String studentId) throws SQLException {
+        Integer count = JdbcTemplate.READ.queryOne("SELECT COUNT(*) FROM usage_record WHERE student_id = ?",
+                ps -> ps.setString(1, studentId), rs -> rs.getInt(1));
+        return count != null ? count : 0;
     }
 
     /**
      * 查询某座位在某日期的预约情况（按 record_id 升序）
      */
     public List<UsageRecord> findBySeatAndDate(long seatId, LocalDate date) throws SQLException {
-        List<UsageRecord> list = new ArrayList<>();
-        String sql = "SELECT record_id, student_id, seat_id, record_date, signed, time_bitmap " +
-                "FROM usage_record WHERE seat_id = ? AND record_date = ? ORDER BY record_id";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setLong(1, seatId);
+        return JdbcTemplate.PRIMARY.query(COLUMNS + " WHERE seat_id = ? AND record_date = ? ORDER BY record_id",
+                SEAT_DAY_FETCH, ps -> {
+                    ps.setLong(1, seatId);
+                    ps.setDate(2, Date.valueOf(date));
+                }, RECORD_MAPPER);
+    }
+
+    /**
+     * 列式读取某自习室某日的所有预约占用（按座位），供示意图、推荐在预约窗口之外批量取数，
+     * 一次查询代替逐座位的 findBySeatAndDate；允许读到稍旧数据，可能路由到只读副本
+     */
+    public UsageMaskColumns findMasksByRoomAndDate(int roomId, LocalDate date) throws SQLException {
+        String sql = UsageMaskColumns.SELECT + " JOIN seat s ON s.seat_id = u.seat_id " +
+                "WHERE s.room_id = ? AND u.record_date = ? ORDER BY u.seat_id";
+        UsageMaskColumns columns = new UsageMaskColumns(ROOM_DAY_FETCH);
+        JdbcTemplate.READ.forEach(sql, ROOM_DAY_FETCH, ps -> {
+            ps.setInt(1, roomId);
             ps.setDate(2, Date.valueOf(date));
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    list.add(mapRowToUsageRecord(rs));
-                }
-            }
-        }
-        return list;
+        }, columns::add);
+        return columns;
     }
 
     /**
-     * 插入新预约记录
+     * 列式读取日期区间 [from, to] 内的所有预约占用，用于加载内存占用缓存
+     */
+    public UsageMaskColumns findMasksByDateRange(LocalDate from, LocalDate to) throws SQLException {
+        String sql = UsageMaskColumns.SELECT + " WHERE u.record_date BETWEEN ? AND ?";
+        UsageMaskColumns columns = new UsageMaskColumns(BULK_FETCH);
+        JdbcTemplate.PRIMARY.forEach(sql, BULK_FETCH, ps -> {
+            ps.setDate(1, Date.valueOf(from));
+            ps.setDate(2, Date.valueOf(to));
+        }, columns::add);
+        return columns;
+    }
+
+    /**
+     * 某座位某日所有预约合并后的占用掩码（long[3]，无预约时全 0），读主库，可用于预约前的冲突判断
+     */
+    public long[] findOccupiedMask(long seatId, LocalDate date) throws SQLException {
+        long[] mask = new long[BitmapUtil.MASK_WORDS];
+        JdbcTemplate.PRIMARY.forEach("SELECT time_bitmap FROM usage_record WHERE seat_id = ? AND record_date = ?",
+                SEAT_DAY_FETCH, ps -> {
+                    ps.setLong(1, seatId);
+                    ps.setDate(2, Date.valueOf(date));
+                }, rs -> BitmapUtil.orOccupiedInto(rs.getBytes(1), mask, 0));
+        return mask;
+    }
+
+    /**
+     * 插入新预约记录。
+     * 若 record 未设置 startSlot/endSlot，则按 timeBitmap 中的占用时段回填；此时位图必须是一段连续区间，
+     * 否则区间谓词会把中间的空闲时段也算作占用。
      * @return 插入成功返回 true，否则 false
+     * @throws IllegalArgumentException 如果需要回填区间而位图中的占用时段不连续
      */
     public boolean insert(UsageRecord record) throws SQLException {
-        String sql = "INSERT INTO usage_record(student_id, seat_id, record_date, signed, time_bitmap) " +
-                "VALUES (?, ?, ?, ?, ?)";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            ps.setString(1, record.getStudentId());
-            ps.setLong(2, record.getSeatId());
-            ps.setDate(3, Date.valueOf(record.getRecordDate()));
-            ps.setBoolean(4, record.isSigned());
-            ps.setBytes(5, record.getTimeBitmap());
-            int rows = ps.executeUpdate();
-            if (rows > 0) {
-                try (ResultSet keys = ps.getGeneratedKeys()) {
-                    if (keys.next()) {
-                        record.setRecordId(keys.getLong(1));
-                    }
+        if (record.getStartSlot() < 0) {
+            fillIntervalFromBitmap(record);
+        }
+        long id = JdbcTemplate.PRIMARY.insert(INSERT_SQL, ps -> INSERT_BINDER.bind(ps, record));
+        return assignId(record, id);
+    }
+
+    /**
+     * 带冲突检测的插入：在同一事务内锁住座位行，以区间谓词检查当天是否已有重叠记录，无重叠再插入。
+     * 同一座位的并发预约会在座位行锁上排队，检测与插入之间不会被其它预约插队。
+     *
+     * @param record 需已设置 startSlot/endSlot
+     * @return 插入成功返回 true；与已有记录重叠返回 false
+     */
+    public boolean insertIfFree(UsageRecord record) throws SQLException {
+        return JdbcTemplate.PRIMARY.inTransaction(tx -> {
+            tx.exists(LOCK_SEAT_SQL, ps -> ps.setLong(1, record.getSeatId()));
+            if (existsOverlap(tx, record.getSeatId(), record.getRecordDate(),
+                    record.getStartSlot(), record.getEndSlot())) {
+                return false;
+            }
+            return assignId(record, tx.insert(INSERT_SQL, ps -> INSERT_BINDER.bind(ps, record)));
+        });
+    }
+
+    /**
+     * 多座位的带冲突检测插入（小组预约）：在一个事务中按 seat_id 升序逐个锁住座位行，全部锁住后再逐个检查区间重叠，
+     * 任一座位有重叠则一条都不插入。所有多座位写入都按同一顺序加锁，互相争用座位的小组预约只会排队而不会死锁。
+     *
+     * @param records 需已设置 startSlot/endSlot，座位互不相同
+     * @return 全部插入返回 0；否则返回第一个有重叠的座位 ID
+     */
+    public long insertAllIfFree(List<UsageRecord> records) throws SQLException {
+        List<UsageRecord> sorted = new ArrayList<>(records);
+        sorted.sort(Comparator.comparingLong(UsageRecord::getSeatId));
+        return JdbcTemplate.PRIMARY.inTransaction(tx -> {
+            for (UsageRecord r : sorted) {
+                tx.exists(LOCK_SEAT_SQL, ps -> ps.setLong(1, r.getSeatId()));
+            }
+            for (UsageRecord r : sorted) {
+                if (existsOverlap(tx, r.getSeatId(), r.getRecordDate(), r.getStartSlot(), r.getEndSlot())) {
+                    return r.getSeatId();
+                }
+            }
+            for (UsageRecord r : sorted) {
+                if (!assignId(r, tx.insert(INSERT_SQL, ps -> INSERT_BINDER.bind(ps, r)))) {
+                    // 抛出异常使整组回滚
+                    throw new SQLException("no key generated for seat " + r.getSeatId());
                 }
-                return true;
             }
+            return 0L;
+        });
+    }
+
+    /**
+     * 同一座位多天的带冲突检测插入（周期预约）：在一个事务中锁住座位行，用一次查询取回该座位在
+     * 最早与最晚日期之间每一天的占用掩码，与各条记录的区间掩码按位与，不冲突的记录一次批量插入。
+     * 与 insertIfFree 不同，冲突的日期只是被跳过，其余日期照常写入。
+     *
+     * @param records 同一座位、日期互不相同的记录，需已设置 startSlot/endSlot
+     * @return 因已有预约而未插入的记录（按日期升序）
+     */
+    public List<UsageRecord> insertEachIfFree(List<UsageRecord> records) throws SQLException {
+        if (records.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<UsageRecord> sorted = new ArrayList<>(records);
+        sorted.sort(Comparator.comparing(UsageRecord::getRecordDate));
+        long seatId = sorted.get(0).getSeatId();
+        LocalDate from = sorted.get(0).getRecordDate();
+        LocalDate to = sorted.get(sorted.size() - 1).getRecordDate();
+        int words = BitmapUtil.MASK_WORDS;
+        return JdbcTemplate.PRIMARY.inTransaction(tx -> {
+            tx.exists(LOCK_SEAT_SQL, ps -> ps.setLong(1, seatId));
+            // 第 d 天（相对 from）的占用掩码位于 occupied[d * 3 .. d * 3 + 3)
+            long[] occupied = new long[(int) (to.toEpochDay() - from.toEpochDay() + 1) * words];
+            tx.forEach("SELECT record_date, time_bitmap FROM usage_record " +
+                            "WHERE seat_id = ? AND record_date BETWEEN ? AND ?",
+                    SEAT_SPAN_FETCH, ps -> {
+                        ps.setLong(1, seatId);
+                        ps.setDate(2, Date.valueOf(from));
+                        ps.setDate(3, Date.valueOf(to));
+                    }, rs -> {
+                        int d = (int) (rs.getDate(1).toLocalDate().toEpochDay() - from.toEpochDay());
+                        BitmapUtil.orOccupiedInto(rs.getBytes(2), occupied, d * words);
+                    });
+            List<UsageRecord> accepted = new ArrayList<>(sorted.size());
+            List<UsageRecord> conflicts = new ArrayList<>();
+            for (UsageRecord r : sorted) {
+                int offset = (int) (r.getRecordDate().toEpochDay() - from.toEpochDay()) * words;
+                long[] mask = BitmapUtil.rangeMask(r.getStartSlot(), r.getEndSlot());
+                long hit = 0;
+                for (int w = 0; w < words; w++) {
+                    hit |= occupied[offset + w] & mask[w];
+                }
+                (hit == 0 ? accepted : conflicts).add(r);
+            }
+            tx.batch(INSERT_SQL, accepted, INSERT_BINDER);
+            return conflicts;
+        });
+    }
+
+    /**
+     * 判断某座位某日是否存在与 [startSlot, endSlot) 重叠的预约。
+     * 使用 (seat_id, record_date, start_slot) 索引上的范围扫描，在库内完成判断，不取回位图。
+     */
+    public boolean existsOverlap(long seatId, LocalDate date, int startSlot, int endSlot) throws SQLException {
+        return JdbcTemplate.PRIMARY.queryOne(OVERLAP_SQL,
+                ps -> bindOverlap(ps, seatId, date, startSlot, endSlot), rs -> Boolean.TRUE) != null;
+    }
+
+    private static boolean existsOverlap(JdbcTemplate.Session tx, long seatId, LocalDate date,
+                                         int startSlot, int endSlot) throws SQLException {
+        return tx.exists(OVERLAP_SQL, ps -> bindOverlap(ps, seatId, date, startSlot, endSlot));
+    }
+
+    private static void bindOverlap(PreparedStatement ps, long seatId, LocalDate date,
+                                    int startSlot, int endSlot) throws SQLException {
+        ps.setLong(1, seatId);
+        ps.setDate(2, Date.valueOf(date));
+        ps.setInt(3, endSlot);
+        ps.setInt(4, startSlot);
+    }
+
+    /** 把插入得到的自增主键写回 record；未插入时返回 false */
+    private static boolean assignId(UsageRecord record, long id) {
+        if (id < 0) {
+            return false;
+        }
+        record.setRecordId(id);
+        return true;
+    }
+
+    /**
+     * 按位图中的占用时段回填区间；位图无占用时记为空区间 [0, 0)
+     *
+     * @throws IllegalArgumentException 如果占用时段不连续（一行只能表示一段区间）
+     */
+    private static void fillIntervalFromBitmap(UsageRecord record) {
+        List<int[]> runs = BitmapUtil.occupiedRuns(BitmapUtil.toOccupiedMask(record.getTimeBitmap()));
+        if (runs.size() > 1) {
+            throw new IllegalArgumentException("time bitmap is not a contiguous interval: " + runs.size() + " runs");
+        }
+        if (runs.isEmpty()) {
+            record.setStartSlot(0);
+            record.setEndSlot(0);
+        } else {
+            record.setStartSlot(runs.get(0)[0]);
+            record.setEndSlot(runs.get(0)[1]);
         }
-        return false;
     }
 
     /**
@@ -114,14 +339,10 @@ public class UsageRecordDAO {
      * @return 更新成功返回 true，否则 false
      */
     public boolean updateSigned(long recordId, boolean signed) throws SQLException {
-        String sql = "UPDATE usage_record SET signed = ? WHERE record_id = ?";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        return JdbcTemplate.PRIMARY.update("UPDATE usage_record SET signed = ? WHERE record_id = ?", ps -> {
             ps.setBoolean(1, signed);
             ps.setLong(2, recordId);
-            int rows = ps.executeUpdate();
-            return rows > 0;
-        }
+        }) > 0;
     }
 
     /**
@@ -129,26 +350,163 @@ public class UsageRecordDAO {
      * @return 删除成功返回 true，否则 false
      */
     public boolean deleteById(long recordId) throws SQLException {
-        String sql = "DELETE FROM usage_record WHERE record_id = ?";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setLong(1, recordId);
-            int rows = ps.executeUpdate();
-            return rows > 0;
+        return JdbcTemplate.PRIMARY.update("DELETE FROM usage_record WHERE record_id = ?",
+                ps -> ps.setLong(1, recordId)) > 0;
+    }
+
+    /**
+     * 查询预约引擎已落库的最后一条日志序号（engine_checkpoint 中无记录时为 0）
+     */
+    public long findEngineCheckpoint(String engineId) throws SQLException {
+        Long lastSeq = JdbcTemplate.PRIMARY.queryOne("SELECT last_seq FROM engine_checkpoint WHERE engine_id = ?",
+                ps -> ps.setString(1, engineId), rs -> rs.getLong(1));
+        return lastSeq != null ? lastSeq : 0L;
+    }
+
+    /**
+     * 批量写入预约引擎已接受的记录，并在同一事务中把 engine_checkpoint 推进到 lastSeq，
+     * 崩溃恢复时据此判断日志中哪些记录尚未落库。不做冲突检测（由引擎在内存中保证）。
+     *
+     * @throws IllegalArgumentException 如果某条记录需要回填区间而位图不连续（在开启事务前检查，不写入任何记录）
+     */
+    public void insertBatch(List<UsageRecord> records, String engineId, long lastSeq) throws SQLException {
+        for (UsageRecord r : records) {
+            if (r.getStartSlot() < 0) {
+                fillIntervalFromBitmap(r);
+            }
         }
+        JdbcTemplate.PRIMARY.inTransaction(tx -> {
+            tx.batch(INSERT_SQL, records, INSERT_BINDER);
+            advanceCheckpoint(tx, engineId, lastSeq);
+            return null;
+        });
     }
 
     /**
-     * 将 ResultSet 当前行映射为 UsageRecord 对象
+     * insertBatch 因个别记录失败时的退路：逐条写入，跳过本身不合法的记录（违反约束、数据错误或位图不连续，
+     * 见 JdbcTemplate.isDataError），其余记录与 engine_checkpoint 的推进在同一事务中提交。
+     *
+     * @return 被跳过的记录
+     * @throws SQLException 如果出现与具体记录无关的错误（整个事务回滚，不写入任何记录）
      */
-    private UsageRecord mapRowToUsageRecord(ResultSet rs) throws SQLException {
-        UsageRecord r = new UsageRecord();
-        r.setRecordId(rs.getLong("record_id"));
-        r.setStudentId(rs.getString("student_id"));
-        r.setSeatId(rs.getLong("seat_id"));
-        r.setRecordDate(rs.getDate("record_date").toLocalDate());
-        r.setSigned(rs.getBoolean("signed"));
-        r.setTimeBitmap(rs.getBytes("time_bitmap"));
-        return r;
+    public List<UsageRecord> insertEachSkippingInvalid(List<UsageRecord> records, String engineId, long lastSeq)
+            throws SQLException {
+        return JdbcTemplate.PRIMARY.inTransaction(tx -> {
+            List<UsageRecord> skipped = new ArrayList<>();
+            for (UsageRecord r : records) {
+                try {
+                    if (r.getStartSlot() < 0) {
+                        fillIntervalFromBitmap(r);
+                    }
+                    assignId(r, tx.insert(INSERT_SQL, ps -> INSERT_BINDER.bind(ps, r)));
+                } catch (IllegalArgumentException e) {
+                    skipped.add(r);
+                } catch (SQLException e) {
+                    // InnoDB 只回滚出错的这条语句，之前写入的记录仍在事务中
+                    if (!JdbcTemplate.isDataError(e)) {
+                        throw e;
+                    }
+                    skipped.add(r);
+                }
+            }
+            advanceCheckpoint(tx, engineId, lastSeq);
+            return skipped;
+        });
+    }
+
+    private static void advanceCheckpoint(JdbcTemplate.Session tx, String engineId, long lastSeq) throws SQLException {
+        tx.update(CHECKPOINT_SQL, ps -> {
+            ps.setString(1, engineId);
+            ps.setLong(2, lastSeq);
+        });
+    }
+
+    /**
+     * 查询日期区间 [from, to] 内 record_id 大于 afterRecordId 的所有记录（按 record_id 升序），
+     * 用于加载内存占用缓存或在快照之后补放新增预约
+     */
+    public List<UsageRecord> findByDateRange(LocalDate from, LocalDate to, long afterRecordId) throws SQLException {
+        return JdbcTemplate.PRIMARY.query(COLUMNS + " WHERE record_date BETWEEN ? AND ? AND record_id > ? ORDER BY record_id",
+                BULK_FETCH, ps -> {
+                    ps.setDate(1, Date.valueOf(from));
+                    ps.setDate(2, Date.valueOf(to));
+                    ps.setLong(3, afterRecordId);
+                }, RECORD_MAPPER);
+    }
+
+    /**
+     * 流式读取日期区间 [from, to] 内的所有记录（按日期、座位、起始时段排序），逐行交给 consumer，
+     * 不在内存中累积结果，适合导出等行数不受限的场景
+     */
+    public <X extends Exception> void streamByDateRange(LocalDate from, LocalDate to,
+                                                        RowConsumer<UsageRecord, X> consumer) throws SQLException, X {
+        JdbcTemplate.READ.stream(COLUMNS + " WHERE record_date BETWEEN ? AND ? ORDER BY record_date, seat_id, start_slot",
+                STREAM_BATCH, ps -> {
+                    ps.setDate(1, Date.valueOf(from));
+                    ps.setDate(2, Date.valueOf(to));
+                }, RECORD_MAPPER, consumer);
+    }
+
+    /**
+     * 查询所有记录的最早与最晚日期
+     *
+     * @return {min, max}；表为空时返回 null
+     */
+    public LocalDate[] findDateRange() throws SQLException {
+        return JdbcTemplate.PRIMARY.queryOne("SELECT MIN(record_date), MAX(record_date) FROM usage_record",
+                JdbcTemplate.NO_PARAMS,
+                rs -> rs.getDate(1) == null ? null
+                        : new LocalDate[] {rs.getDate(1).toLocalDate(), rs.getDate(2).toLocalDate()});
+    }
+
+    /**
+     * 查询当前最大的 record_id（无记录时为 0）
+     */
+    public long findMaxRecordId() throws SQLException {
+        Long max = JdbcTemplate.PRIMARY.queryOne("SELECT COALESCE(MAX(record_id), 0) FROM usage_record",
+                JdbcTemplate.NO_PARAMS, rs -> rs.getLong(1));
+        return max != null ? max : 0L;
+    }
+
+    /**
+     * 统计日期区间 [from, to] 内 record_id ≤ maxRecordId 的记录条数与 record_id 之和，
+     * 作为快照校验用的水位：期间有记录被删除（取消预约）时两者至少一个会变化
+     *
+     * @return {count, sum}
+     */
+    public long[] findWatermark(LocalDate from, LocalDate to, long maxRecordId) throws SQLException {
+        String sql = "SELECT COUNT(*), COALESCE(SUM(record_id), 0) FROM usage_record " +
+                "WHERE record_date BETWEEN ? AND ? AND record_id <= ?";
+        return JdbcTemplate.PRIMARY.queryOne(sql, ps -> {
+            ps.setDate(1, Date.valueOf(from));
+            ps.setDate(2, Date.valueOf(to));
+            ps.setLong(3, maxRecordId);
+        }, rs -> new long[] {rs.getLong(1), rs.getLong(2)});
+    }
+
+    /**
+     * 查询所有尚未回填 start_slot/end_slot 的记录（升级前的旧数据）
+     */
+    public List<UsageRecord> findWithoutInterval() throws SQLException {
+        return JdbcTemplate.PRIMARY.query(COLUMNS + " WHERE start_slot IS NULL OR end_slot IS NULL ORDER BY record_id",
+                BULK_FETCH, JdbcTemplate.NO_PARAMS, RECORD_MAPPER);
+    }
+
+    /**
+     * 在一个事务中批量回填区间：updates 中的记录按 recordId 更新 time_bitmap、start_slot、end_slot，
+     * inserts 中的记录作为新行插入（用于拆分不连续的旧位图）
+     */
+    public void applyIntervalBackfill(List<UsageRecord> updates, List<UsageRecord> inserts) throws SQLException {
+        String updateSql = "UPDATE usage_record SET time_bitmap = ?, start_slot = ?, end_slot = ? WHERE record_id = ?";
+        JdbcTemplate.PRIMARY.inTransaction(tx -> {
+            tx.batch(updateSql, updates, (ps, r) -> {
+                ps.setBytes(1, r.getTimeBitmap());
+                ps.setInt(2, r.getStartSlot());
+                ps.setInt(3, r.getEndSlot());
+                ps.setLong(4, r.getRecordId());
+            });
+            tx.batch(INSERT_SQL, inserts, INSERT_BINDER);
+            return null;
+        });
     }
 }
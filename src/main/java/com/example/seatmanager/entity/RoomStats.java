@@ -0,0 +1,110 @@
+package com.example.seatmanager.entity;
+
+import java.time.LocalDate;
+
+/**
+ * RoomStats.java
+ * 对应数据库表：room_day_stats（hour = -1）与 room_hour_stats（hour = 0–23）
+ *
+ * CREATE TABLE IF NOT EXISTS room_day_stats (
+ *   room_id         INT            NOT NULL,                     -- 自习室
+ *   stat_date       DATE           NOT NULL,                     -- 日期
+ *   reservations    INT            NOT NULL DEFAULT 0,           -- 预约条数
+ *   reserved_slots  INT            NOT NULL DEFAULT 0,           -- 被预约的“座位 × 时段”数
+ *   signed_slots    INT            NOT NULL DEFAULT 0,           -- 已签到的“座位 × 时段”数
+ *   closed_slots    INT            NOT NULL DEFAULT 0,           -- 被事件关闭的时段数（不乘座位数）
+ *   PRIMARY KEY (room_id, stat_date)
+ * );
+ * room_hour_stats 多一列 hour TINYINT，主键为 (room_id, stat_date, hour)，没有 reservations 列。
+ */
+public class RoomStats {
+    /** hour 取该值表示整天的汇总行 */
+    public static final int WHOLE_DAY = -1;
+
+    private int roomId;
+    private LocalDate statDate;
+    private int hour = WHOLE_DAY;
+    private int reservations;
+    private int reservedSlots;
+    private int signedSlots;
+    private int closedSlots;
+
+    public RoomStats() { }
+
+    public RoomStats(int roomId, LocalDate statDate, int hour) {
+        this.roomId = roomId;
+        this.statDate = statDate;
+        this.hour = hour;
+    }
+
+    // Getters and setters
+    public int getRoomId() {
+        return roomId;
+    }
+    public void setRoomId(int roomId) {
+        this.roomId = roomId;
+    }
+    public LocalDate getStatDate() {
+        return statDate;
+    }
+    public void setStatDate(LocalDate statDate) {
+        this.statDate = statDate;
+    }
+    public int getHour() {
+        return hour;
+    }
+    public void setHour(int hour) {
+        this.hour = hour;
+    }
+    public int getReservations() {
+        return reservations;
+    }
+    public void setReservations(int reservations) {
+        this.reservations = reservations;
+    }
+    public int getReservedSlots() {
+        return reservedSlots;
+    }
+    public void setReservedSlots(int reservedSlots) {
+        this.reservedSlots = reservedSlots;
+    }
+    public int getSignedSlots() {
+        return signedSlots;
+    }
+    public void setSignedSlots(int signedSlots) {
+        this.signedSlots = signedSlots;
+    }
+    public int getClosedSlots() {
+        return closedSlots;
+    }
+    public void setClosedSlots(int closedSlots) {
+        this.closedSlots = closedSlots;
+    }
+
+    /** 将另一行（同一键）的数值累加到本行 */
+    public void add(RoomStats other) {
+        reservations += other.reservations;
+        reservedSlots += other.reservedSlots;
+        signedSlots += other.signedSlots;
+        closedSlots += other.closedSlots;
+    }
+
+    /** 四个数值是否与另一行完全相同 */
+    public boolean sameValues(RoomStats other) {
+        return reservations == other.reservations && reservedSlots == other.reservedSlots
+                && signedSlots == other.signedSlots && closedSlots == other.closedSlots;
+    }
+
+    @Override
+    public String toString() {
+        return "RoomStats{" +
+                "roomId=" + roomId +
+                ", statDate=" + statDate +
+                ", hour=" + hour +
+                ", reservations=" + reservations +
+                ", reservedSlots=" + reservedSlots +
+                ", signedSlots=" + signedSlots +
+                ", closedSlots=" + closedSlots +
+                '}';
+    }
+}
@@ -15,11 +15,14 @@ import java.util.Objects;
  *   record_date     DATE           NOT NULL,                            -- 预约日期
  *   signed          BOOLEAN        NOT NULL DEFAULT FALSE,              -- 是否签到
  *   time_bitmap     BINARY(24)     NOT NULL,                            -- 192 段空闲/占用位图
+ *   start_slot      SMALLINT       NULL,                                -- 占用区间起点（包含）
+ *   end_slot        SMALLINT       NULL,                                -- 占用区间终点（不包含）
  *   FOREIGN KEY (student_id) REFERENCES student(student_id)
  *     ON DELETE CASCADE ON UPDATE CASCADE,
  *   FOREIGN KEY (seat_id) REFERENCES seat(seat_id)
  *     ON DELETE CASCADE ON UPDATE CASCADE,
- *   INDEX idx_usage_date_seat (record_date, seat_id)
+ *   INDEX idx_usage_date_seat (record_date, seat_id),
+ *   INDEX idx_usage_seat_date_start (seat_id, record_date, start_slot)
  * );
  * :contentReference[oaicite:13]{index=13}
  */
@@ -30,6 +33,8 @@ public class UsageRecord {
     private LocalDate recordDate;
     private boolean signed;
     private byte[] timeBitmap;  // 长度固定 24 字节
+    private int startSlot = -1; // 占用区间 [startSlot, endSlot)，-1 表示尚未回填
+    private int endSlot = -1;
 
     public UsageRecord() { }
 
@@ -81,6 +86,19 @@ public class UsageRecord {
         this.timeBitmap = timeBitmap != null ? Arrays.copyOf(timeBitmap, 24) : null;
     }
 
+    public int getStartSlot() {
+        return startSlot;
+    }
+    public void setStartSlot(int startSlot) {
+        this.startSlot = startSlot;
+    }
+    public int getEndSlot() {
+        return endSlot;
+    }
+    public void setEndSlot(int endSlot) {
+        this.endSlot = endSlot;
+    }
+
     @Override
     public String toString() {
         return "UsageRecord{" +
@@ -90,6 +108,8 @@ public class UsageRecord {
                 ", recordDate=" + recordDate +
                 ", signed=" + signed +
                 ", timeBitmap=" + Arrays.toString(timeBitmap) +
+                ", startSlot=" + startSlot +
+                ", endSlot=" + endSlot +
                 '}';
     }
 
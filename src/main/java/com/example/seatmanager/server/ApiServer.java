@@ -0,0 +1,692 @@
+package com.example.seatmanager.server;
+
+import com.example.seatmanager.controller.AnalyticsController;
+import com.example.seatmanager.controller.AuthController;
+import com.example.seatmanager.controller.ExportController;
+import com.example.seatmanager.controller.MapController;
+import com.example.seatmanager.controller.RecommendController;
+import com.example.seatmanager.controller.RecordController;
+import com.example.seatmanager.controller.ReserveController;
+import com.example.seatmanager.entity.RoomStats;
+import com.example.seatmanager.entity.Seat;
+import com.example.seatmanager.entity.Student;
+import com.example.seatmanager.entity.UsageRecord;
+import com.example.seatmanager.service.AdmissionRejectedException;
+import com.example.seatmanager.service.AdmissionService;
+import com.example.seatmanager.service.DataAccessException;
+import com.example.seatmanager.service.LifecycleService;
+import com.example.seatmanager.service.RecurringReservationReport;
+import com.example.seatmanager.service.RoomAvailability;
+import com.example.seatmanager.service.SeatChangeEvent;
+import com.example.seatmanager.service.UtilizationReport;
+import com.example.seatmanager.service.WaitlistService;
+import com.example.seatmanager.util.BitmapUtil;
+import com.example.seatmanager.util.SlotCalendar;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+/**
+ * ApiServer：无界面的 HTTP 服务入口，把各 Controller 的操作以 JSON 接口的形式提供出去，
+ * 多个终端可以共享同一个进程、同一份数据库连接与内存缓存。
+ *
+ * 每个请求在一个虚拟线程上处理，阻塞在 JDBC 上不会占用平台线程。
+ *
+ * <pre>
+ * POST   /api/login                      {"studentId", "name"}  → {"token", ...}
+ * POST   /api/logout                     （*）
+ * GET    /api/rooms/{roomId}/map?date=yyyy-MM-dd   （未登录时按客户端地址限速）
+ * GET    /api/recommendations?date=&roomId=&window=&door=&socket=&top=
+ * POST   /api/reservations               {"seatId", "date", "startSlot", "endSlot"}（*）
+ * POST   /api/reservations/group         {"roomId", "date", "startSlot", "endSlot", "size"}（*）
+ * POST   /api/reservations/recurring     {"seatId", "from", "to", "weekdays"（如 ["TUESDAY", 4]）, "startSlot", "endSlot"}（*）
+ * DELETE /api/reservations/{recordId}    （*，只能取消自己的记录）
+ * GET    /api/records                    （*）
+ * POST   /api/waitlist                   {"seatId"（0 表示任意座位）, "roomId"（仅任意座位时需要）, "date", "startSlot", "endSlot"}（*）
+ * GET    /api/waitlist                   （*）
+ * DELETE /api/waitlist/{ticketId}        （*）
+ * POST   /api/records/{recordId}/sign-in （*，只能签到自己的记录）
+ * GET    /api/export?from=&to=&format=csv|json   （#，流式输出，不经过内存汇总）
+ * GET    /api/analytics/utilization?from=&to=   （#，受 AdmissionService 限制）
+ * GET    /api/admission                  准入控制计数
+ * GET    /api/analytics/daily?from=&to=&hourly=true|false   （读取汇总表）
+ * </pre>
+ *
+ * 标 * 的接口需要登录：请求头 “Authorization: Bearer 令牌”，令牌由 /api/login 签发（见 SessionService），
+ * 学号一律取自令牌；请求中仍带 studentId 时必须与令牌一致，否则返回 403。
+ * 座位所属的自习室由服务端按 seatId 查出，不采信请求中的 roomId。
+ * 标 # 的接口含全体学生的数据，只对系统属性 seatmanager.api.admins（逗号分隔的学号）中的管理员开放，
+ * 未登录返回 401，非管理员返回 403。
+ *
+ * 示意图、预约类与利用率统计接口受 AdmissionService 限制，被拒绝时返回 429 与 Retry-After。
+ *
+ * 默认只监听本机地址；供其它终端访问时以系统属性 seatmanager.api.host 指定监听地址（如 0.0.0.0）。
+ *
+ * 运行：java -cp SeatManager.jar com.example.seatmanager.server.ApiServer [端口，默认 8080]
+ */
+public class ApiServer {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final AuthController authController = new AuthController();
+    private final MapController mapController = new MapController();
+    private final RecommendController recommendController = new RecommendController();
+    private final ReserveController reserveController = new ReserveController();
+    private final RecordController recordController = new RecordController();
+    private final ExportController exportController = new ExportController();
+    private final AnalyticsController analyticsController = new AnalyticsController();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /** 请求处理函数：返回的 JSON 以 200 写回，需要其它状态码时抛出 ApiException */
+    @FunctionalInterface
+    private interface Route {
+        JsonNode handle(HttpExchange exchange, String[] path) throws IOException;
+    }
+
+    /** 以指定 HTTP 状态码结束请求 */
+    private static final class ApiException extends RuntimeException {
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /** 监听地址，默认只接受本机连接 */
+    private static final String HOST = System.getProperty("seatmanager.api.host", "127.0.0.1");
+    /** 管理员学号，可访问导出与统计接口；默认没有管理员 */
+    private static final Set<String> ADMINS = parseAdmins(System.getProperty("seatmanager.api.admins", ""));
+
+    public ApiServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(HOST, port), 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/api/login", exchange -> dispatch(exchange, "POST", this::login));
+        server.createContext("/api/logout", exchange -> dispatch(exchange, "POST", this::logout));
+        server.createContext("/api/rooms/", exchange -> dispatch(exchange, "GET", this::roomMap));
+        server.createContext("/api/recommendations", exchange -> dispatch(exchange, "GET", this::recommendations));
+        server.createContext("/api/reservations", exchange -> dispatch(exchange,
+                "POST".equals(exchange.getRequestMethod()) ? "POST" : "DELETE",
+                "POST".equals(exchange.getRequestMethod()) ? this::reserve : this::cancel));
+        server.createContext("/api/reservations/group", exchange -> dispatch(exchange, "POST", this::reserveGroup));
+        server.createContext("/api/reservations/recurring", exchange -> dispatch(exchange, "POST", this::reserveRecurring));
+        server.createContext("/api/records", exchange -> dispatch(exchange,
+                exchange.getRequestURI().getPath().endsWith("/sign-in") ? "POST" : "GET",
+                exchange.getRequestURI().getPath().endsWith("/sign-in") ? this::signIn : this::records));
+        server.createContext("/api/waitlist", exchange -> {
+            String method = exchange.getRequestMethod();
+            dispatch(exchange, "POST".equals(method) || "DELETE".equals(method) ? method : "GET",
+                    "POST".equals(method) ? this::joinWaitlist
+                            : "DELETE".equals(method) ? this::leaveWaitlist : this::waitlist);
+        });
+        server.createContext("/api/export", this::export);
+        server.createContext("/api/admission", exchange -> dispatch(exchange, "GET", this::admission));
+        server.createContext("/api/analytics/utilization", exchange -> dispatch(exchange, "GET", this::utilization));
+        server.createContext("/api/analytics/daily", exchange -> dispatch(exchange, "GET", this::dailyStats));
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        LifecycleService lifecycle = new LifecycleService();
+        lifecycle.startUp();
+        ApiServer apiServer = new ApiServer(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            apiServer.stop();
+            lifecycle.shutDown();
+        }, "api-server-shutdown"));
+        apiServer.start();
+        System.out.println("[ApiServer] listening on port " + apiServer.getPort());
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /** 停止接收新请求，最多等待 1 秒让进行中的请求完成 */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // ---------------------------------------------------------------- 接口
+
+    private JsonNode login(HttpExchange exchange, String[] path) throws IOException {
+        if (path.length != 2) {
+            throw new ApiException(404, "未知路径");
+        }
+        JsonNode body = readBody(exchange);
+        Student s = authController.handleLogin(requiredText(body, "studentId"), requiredText(body, "name"));
+        if (s == null) {
+            throw new ApiException(401, "学号或姓名错误，或违规次数超限");
+        }
+        ObjectNode node = MAPPER.createObjectNode();
+        node.put("token", authController.handleOpenSession(s.getStudentId()));
+        node.put("studentId", s.getStudentId());
+        node.put("name", s.getName());
+        node.put("email", s.getEmail());
+        node.put("photoPath", s.getPhotoPath());
+        node.put("violationCount", s.getViolationCount());
+        return node;
+    }
+
+    private JsonNode logout(HttpExchange exchange, String[] path) {
+        caller(exchange);
+        authController.handleCloseSession(bearerToken(exchange));
+        return MAPPER.createObjectNode().put("loggedOut", true);
+    }
+
+    /** /api/rooms/{roomId}/map：每个座位的坐标、属性与合并后的可用区间 */
+    private JsonNode roomMap(HttpExchange exchange, String[] path) {
+        if (path.length != 4 || !"map".equals(path[3])) {
+            throw new ApiException(404, "未知路径");
+        }
+        String roomId = path[2];
+        String date = requiredParam(exchange, "date");
+        RoomAvailability availability = mapController.handleGetSeatAvailability(requester(exchange), roomId, date);
+
+        ObjectNode node = MAPPER.createObjectNode();
+        node.put("roomId", Integer.parseInt(roomId));
+        node.put("date", date);
+        node.put("slotMinutes", SlotCalendar.getDefault().getSlotMinutes());
+        ArrayNode seats = node.putArray("seats");
+        // RoomAvailability 按坐标排序，接口仍按 seatId 升序输出
+        IntStream.range(0, availability.size()).boxed()
+                .sorted(Comparator.comparingLong(i -> availability.seat(i).getSeatId()))
+                .forEach(i -> {
+                    ObjectNode seat = seatNode(seats.addObject(), availability.seat(i));
+                    ArrayNode free = seat.putArray("free");
+                    for (String range : BitmapUtil.mergeIntoContinuousSlots(
+                            BitmapUtil.getAvailableIndices(availability.availability(i)))) {
+                        free.add(range);
+                    }
+                });
+        return node;
+    }
+
+    private JsonNode recommendations(HttpExchange exchange, String[] path) {
+        Map<String, String> q = query(exchange);
+        List<Seat> seats = recommendController.handleGetRecommendations(
+                required(q, "date"),
+                Integer.parseInt(required(q, "roomId")),
+                Boolean.parseBoolean(q.get("window")),
+                Boolean.parseBoolean(q.get("door")),
+                Boolean.parseBoolean(q.get("socket")),
+                Integer.parseInt(q.getOrDefault("top", "10")));
+        ArrayNode array = MAPPER.createArrayNode();
+        for (Seat seat : seats) {
+            seatNode(array.addObject(), seat);
+        }
+        return array;
+    }
+
+    private JsonNode reserve(HttpExchange exchange, String[] path) throws IOException {
+        if (path.length != 2) {
+            throw new ApiException(404, "未知路径");
+        }
+        String studentId = caller(exchange);
+        JsonNode body = readBody(exchange);
+        checkSelf(studentId, body);
+        long seatId = requiredNumber(body, "seatId");
+        boolean ok = reserveController.handleCreateIntervalReservation(
+                studentId,
+                seatId,
+                reserveController.handleGetRoomOfSeat(seatId),
+                requiredText(body, "date"),
+                (int) requiredNumber(body, "startSlot"),
+                (int) requiredNumber(body, "endSlot"));
+        if (!ok) {
+            throw new ApiException(409, "该时段已被预约或自习室关闭");
+        }
+        exchange.getResponseHeaders().set("Location", "/api/records");
+        return MAPPER.createObjectNode().put("reserved", true);
+    }
+
+    private JsonNode reserveGroup(HttpExchange exchange, String[] path) throws IOException {
+        if (path.length != 3) {
+            throw new ApiException(404, "未知路径");
+        }
+        String studentId = caller(exchange);
+        JsonNode body = readBody(exchange);
+        checkSelf(studentId, body);
+        List<Seat> seats = reserveController.handleCreateGroupReservation(
+                studentId,
+                (int) requiredNumber(body, "roomId"),
+                requiredText(body, "date"),
+                (int) requiredNumber(body, "startSlot"),
+                (int) requiredNumber(body, "endSlot"),
+                (int) requiredNumber(body, "size"));
+        if (seats.isEmpty()) {
+            throw new ApiException(409, "没有足够的相邻空座或自习室关闭");
+        }
+        exchange.getResponseHeaders().set("Location", "/api/records");
+        ObjectNode node = MAPPER.createObjectNode().put("reserved", true);
+        ArrayNode array = node.putArray("seats");
+        for (Seat seat : seats) {
+            seatNode(array.addObject(), seat);
+        }
+        return node;
+    }
+
+    private JsonNode reserveRecurring(HttpExchange exchange, String[] path) throws IOException {
+        if (path.length != 3) {
+            throw new ApiException(404, "未知路径");
+        }
+        String studentId = caller(exchange);
+        JsonNode body = readBody(exchange);
+        checkSelf(studentId, body);
+        if (!body.path("weekdays").isArray()) {
+            throw new ApiException(400, "缺少数组字段 weekdays");
+        }
+        // 星期可写作 1–7（周一为 1）或英文名称
+        Set<DayOfWeek> weekdays = EnumSet.noneOf(DayOfWeek.class);
+        for (JsonNode day : body.get("weekdays")) {
+            try {
+                weekdays.add(day.isNumber() ? DayOfWeek.of(day.asInt())
+                        : DayOfWeek.valueOf(day.asText().toUpperCase(Locale.ROOT)));
+            } catch (DateTimeException | IllegalArgumentException e) {
+                throw new ApiException(400, "无效的星期: " + day);
+            }
+        }
+        long seatId = requiredNumber(body, "seatId");
+        RecurringReservationReport report = reserveController.handleCreateRecurringReservation(
+                studentId,
+                seatId,
+                reserveController.handleGetRoomOfSeat(seatId),
+                requiredText(body, "from"),
+                requiredText(body, "to"),
+                weekdays,
+                (int) requiredNumber(body, "startSlot"),
+                (int) requiredNumber(body, "endSlot"));
+        ObjectNode node = MAPPER.createObjectNode();
+        ArrayNode booked = node.putArray("booked");
+        for (LocalDate date : report.getBooked()) {
+            booked.add(date.toString());
+        }
+        ObjectNode conflicts = node.putObject("conflicts");
+        for (Map.Entry<LocalDate, RecurringReservationReport.Conflict> e : report.getConflicts().entrySet()) {
+            conflicts.put(e.getKey().toString(), e.getValue().name());
+        }
+        return node;
+    }
+
+    private JsonNode cancel(HttpExchange exchange, String[] path) {
+        if (path.length != 3) {
+            throw new ApiException(404, "未知路径");
+        }
+        if (!recordController.handleCancelRecord(caller(exchange), Long.parseLong(path[2]))) {
+            throw new ApiException(404, "预约记录不存在");
+        }
+        return MAPPER.createObjectNode().put("cancelled", true);
+    }
+
+    private JsonNode joinWaitlist(HttpExchange exchange, String[] path) throws IOException {
+        if (path.length != 2) {
+            throw new ApiException(404, "未知路径");
+        }
+        String studentId = caller(exchange);
+        JsonNode body = readBody(exchange);
+        checkSelf(studentId, body);
+        long seatId = body.path("seatId").asLong(SeatChangeEvent.ALL_SEATS);
+        // 指定座位时自习室按座位查出；等待任意座位时才使用请求中的 roomId
+        int roomId = seatId == SeatChangeEvent.ALL_SEATS
+                ? (int) requiredNumber(body, "roomId")
+                : reserveController.handleGetRoomOfSeat(seatId);
+        WaitlistService.Ticket ticket;
+        try {
+            ticket = reserveController.handleJoinWaitlist(
+                    studentId,
+                    seatId,
+                    roomId,
+                    requiredText(body, "date"),
+                    (int) requiredNumber(body, "startSlot"),
+                    (int) requiredNumber(body, "endSlot"));
+        } catch (IllegalStateException e) {
+            throw new ApiException(409, e.getMessage());
+        }
+        return ticketNode(ticket);
+    }
+
+    private JsonNode leaveWaitlist(HttpExchange exchange, String[] path) {
+        if (path.length != 3) {
+            throw new ApiException(404, "未知路径");
+        }
+        String studentId = caller(exchange);
+        if (!reserveController.handleLeaveWaitlist(studentId, Long.parseLong(path[2]))) {
+            throw new ApiException(404, "候补不存在或已分配");
+        }
+        return MAPPER.createObjectNode().put("cancelled", true);
+    }
+
+    private JsonNode waitlist(HttpExchange exchange, String[] path) {
+        if (path.length != 2) {
+            throw new ApiException(404, "未知路径");
+        }
+        ArrayNode tickets = MAPPER.createArrayNode();
+        for (WaitlistService.Ticket t : reserveController.handleGetWaitlist(callerSelf(exchange))) {
+            tickets.add(ticketNode(t));
+        }
+        return tickets;
+    }
+
+    private static ObjectNode ticketNode(WaitlistService.Ticket t) {
+        ObjectNode node = MAPPER.createObjectNode();
+        node.put("ticketId", t.getId());
+        node.put("roomId", t.getRoomId());
+        node.put("seatId", t.getSeatId());
+        node.put("date", t.getDate().toString());
+        node.put("startSlot", t.getStartSlot());
+        node.put("endSlot", t.getEndSlot());
+        node.put("status", t.getStatus().name());
+        return node;
+    }
+
+    private JsonNode records(HttpExchange exchange, String[] path) {
+        if (path.length != 2) {
+            throw new ApiException(404, "未知路径");
+        }
+        SlotCalendar calendar = SlotCalendar.getDefault();
+        ArrayNode array = MAPPER.createArrayNode();
+        for (UsageRecord r : recordController.handleGetRecordsByStudent(callerSelf(exchange))) {
+            ObjectNode node = array.addObject();
+            node.put("recordId", r.getRecordId());
+            node.put("seatId", r.getSeatId());
+            node.put("date", r.getRecordDate().toString());
+            node.put("signed", r.isSigned());
+            node.put("startSlot", r.getStartSlot());
+            node.put("endSlot", r.getEndSlot());
+            if (r.getStartSlot() >= 0 && r.getEndSlot() > r.getStartSlot()) {
+                node.put("time", calendar.rangeLabel(r.getStartSlot(), r.getEndSlot()));
+            }
+        }
+        return array;
+    }
+
+    private JsonNode signIn(HttpExchange exchange, String[] path) {
+        if (path.length != 4) {
+            throw new ApiException(404, "未知路径");
+        }
+        if (!recordController.handleSignInRecord(caller(exchange), Long.parseLong(path[2]))) {
+            throw new ApiException(409, "当前不在预约时段内或记录不存在");
+        }
+        return MAPPER.createObjectNode().put("signed", true);
+    }
+
+    private JsonNode utilization(HttpExchange exchange, String[] path) {
+        Map<String, String> q = query(exchange);
+        UtilizationReport report = analyticsController.handleGetUtilization(callerAdmin(exchange),
+                required(q, "from"), required(q, "to"));
+        ObjectNode node = MAPPER.createObjectNode();
+        node.put("from", report.getFrom().toString());
+        node.put("to", report.getTo().toString());
+        ObjectNode byRoom = node.putObject("byRoom");
+        report.byRoom().forEach((room, value) -> byRoom.put(String.valueOf(room), value));
+        ObjectNode byBuilding = node.putObject("byBuilding");
+        report.byBuilding().forEach((building, value) -> byBuilding.put(String.valueOf(building), value));
+        ObjectNode byFloor = node.putObject("byFloor");
+        report.byFloor().forEach((key, value) -> byFloor.put((key / 100) + "-" + (key % 100), value));
+        ArrayNode byHour = node.putArray("byHour");
+        for (double value : report.byHour()) {
+            byHour.add(value);
+        }
+        ArrayNode byWeekday = node.putArray("byWeekday");
+        for (double value : report.byWeekday()) {
+            byWeekday.add(value);
+        }
+        return node;
+    }
+
+    private JsonNode admission(HttpExchange exchange, String[] path) {
+        ObjectNode node = MAPPER.createObjectNode();
+        AdmissionService.getInstance().stats().forEach((op, stats) -> {
+            ObjectNode entry = node.putObject(op.name().toLowerCase());
+            entry.put("admitted", stats.admitted);
+            entry.put("rateLimited", stats.rateLimited);
+            entry.put("busy", stats.busy);
+            entry.put("inFlight", stats.inFlight);
+            entry.put("waiting", stats.waiting);
+        });
+        return node;
+    }
+
+    private JsonNode dailyStats(HttpExchange exchange, String[] path) {
+        Map<String, String> q = query(exchange);
+        boolean hourly = Boolean.parseBoolean(q.get("hourly"));
+        ArrayNode rows = MAPPER.createArrayNode();
+        for (RoomStats s : analyticsController.handleGetRoomStats(required(q, "from"), required(q, "to"), hourly)) {
+            ObjectNode row = rows.addObject();
+            row.put("roomId", s.getRoomId());
+            row.put("date", s.getStatDate().toString());
+            if (hourly) {
+                row.put("hour", s.getHour());
+            }
+            row.put("reservations", s.getReservations());
+            row.put("reservedSlots", s.getReservedSlots());
+            row.put("signedSlots", s.getSignedSlots());
+            row.put("closedSlots", s.getClosedSlots());
+        }
+        return rows;
+    }
+
+    /**
+     * /api/export：数据直接流式写入响应体（分块传输），参数错误时才回退为普通 JSON 错误响应
+     */
+    private void export(HttpExchange exchange) throws IOException {
+        Map<String, String> q = query(exchange);
+        String format = q.getOrDefault("format", "csv");
+        // 鉴权与参数检查都在发出响应头之前完成，失败时走普通的 JSON 错误响应
+        try {
+            callerAdmin(exchange);
+            ExportController.parseFormat(format);
+            ExportController.checkRange(required(q, "from"), required(q, "to"));
+        } catch (RuntimeException e) {
+            dispatch(exchange, "GET", (ex, path) -> {
+                throw e;
+            });
+            return;
+        }
+        boolean csv = "csv".equalsIgnoreCase(format);
+        exchange.getResponseHeaders().set("Content-Type",
+                csv ? "text/csv; charset=utf-8" : "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            exportController.handleExport(q.get("from"), q.get("to"), format, Channels.newChannel(out));
+        } catch (RuntimeException e) {
+            // 响应头已发出，只能中断连接
+            e.printStackTrace();
+        }
+    }
+
+    private static ObjectNode seatNode(ObjectNode node, Seat seat) {
+        node.put("seatId", seat.getSeatId());
+        node.put("roomId", seat.getRoomId());
+        node.put("x", seat.getXCoord());
+        node.put("y", seat.getYCoord());
+        node.put("nearWindow", seat.isNearWindow());
+        node.put("nearDoor", seat.isNearDoor());
+        node.put("nearSocket", seat.isNearSocket());
+        return node;
+    }
+
+    // ---------------------------------------------------------------- 请求分发与辅助
+
+    private void dispatch(HttpExchange exchange, String method, Route route) throws IOException {
+        int status = 200;
+        JsonNode body;
+        try {
+            if (!method.equals(exchange.getRequestMethod())) {
+                throw new ApiException(405, "不支持的请求方法 " + exchange.getRequestMethod());
+            }
+            String[] path = exchange.getRequestURI().getPath().substring(1).split("/");
+            body = route.handle(exchange, path);
+        } catch (ApiException e) {
+            status = e.status;
+            body = error(e.getMessage());
+        } catch (AdmissionRejectedException e) {
+            status = 429;
+            body = error(e.getMessage());
+            exchange.getResponseHeaders().set("Retry-After",
+                    String.valueOf(Math.max(1, (e.getRetryAfterMillis() + 999) / 1000)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // NumberFormatException 也在此列
+            status = 400;
+            body = error("参数错误: " + e.getMessage());
+        } catch (DataAccessException e) {
+            status = 500;
+            body = error(e.getMessage());
+        } catch (RuntimeException e) {
+            status = 500;
+            body = error("服务器内部错误");
+            e.printStackTrace();
+        }
+        byte[] bytes = MAPPER.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /** 限速对象：已登录时为令牌对应的学号，否则为客户端地址（请求参数中的学号可以随意填写，不作为依据） */
+    private String requester(HttpExchange exchange) {
+        String studentId = authController.handleResolveSession(bearerToken(exchange));
+        return studentId != null ? studentId : exchange.getRemoteAddress().getAddress().getHostAddress();
+    }
+
+    /** 请求者学号：由 Authorization 请求头中的会话令牌确定；缺少或失效时返回 401 */
+    private String caller(HttpExchange exchange) {
+        String studentId = authController.handleResolveSession(bearerToken(exchange));
+        if (studentId == null) {
+            throw new ApiException(401, "未登录或会话已过期");
+        }
+        return studentId;
+    }
+
+    /** 同 caller，且请求者必须是管理员，否则返回 403 */
+    private String callerAdmin(HttpExchange exchange) {
+        String studentId = caller(exchange);
+        if (!ADMINS.contains(studentId)) {
+            throw new ApiException(403, "需要管理员权限");
+        }
+        return studentId;
+    }
+
+    private static Set<String> parseAdmins(String property) {
+        Set<String> admins = new HashSet<>();
+        for (String id : property.split(",")) {
+            if (!id.isBlank()) {
+                admins.add(id.trim());
+            }
+        }
+        return Set.copyOf(admins);
+    }
+
+    /** 同 caller，且查询参数中的 studentId（如有）必须与请求者一致 */
+    private String callerSelf(HttpExchange exchange) {
+        String studentId = caller(exchange);
+        String claimed = query(exchange).get("studentId");
+        if (claimed != null && !claimed.equals(studentId)) {
+            throw new ApiException(403, "只能查看自己的记录");
+        }
+        return studentId;
+    }
+
+    /** 请求体中的 studentId（如有）必须与请求者一致 */
+    private static void checkSelf(String studentId, JsonNode body) {
+        if (body.hasNonNull("studentId") && !body.get("studentId").asText().equals(studentId)) {
+            throw new ApiException(403, "只能以自己的身份预约");
+        }
+    }
+
+    private static String bearerToken(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        return header != null && header.startsWith("Bearer ") ? header.substring(7).trim() : null;
+    }
+
+    private static JsonNode error(String message) {
+        return MAPPER.createObjectNode().put("error", message);
+    }
+
+    private static JsonNode readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            JsonNode body = MAPPER.readTree(in);
+            if (body == null || !body.isObject()) {
+                throw new ApiException(400, "请求体必须是 JSON 对象");
+            }
+            return body;
+        }
+    }
+
+    private static String requiredText(JsonNode body, String field) {
+        if (!body.hasNonNull(field)) {
+            throw new ApiException(400, "缺少字段 " + field);
+        }
+        return body.get(field).asText();
+    }
+
+    private static long requiredNumber(JsonNode body, String field) {
+        if (!body.hasNonNull(field) || !body.get(field).isNumber()) {
+            throw new ApiException(400, "缺少数字字段 " + field);
+        }
+        return body.get(field).asLong();
+    }
+
+    private static String requiredParam(HttpExchange exchange, String name) {
+        return required(query(exchange), name);
+    }
+
+    private static String required(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new ApiException(400, "缺少参数 " + name);
+        }
+        return value;
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+}
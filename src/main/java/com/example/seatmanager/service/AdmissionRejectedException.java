@@ -0,0 +1,39 @@
+package com.example.seatmanager.service;
+
+/**
+ * AdmissionRejectedException：请求被 AdmissionService 拒绝（请求过于频繁，或系统繁忙排队已满）。
+ * 在访问数据库之前抛出，调用方应提示稍后重试，而不是再次立即发起请求。
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    /** 拒绝原因 */
+    public enum Reason {
+        /** 该学生的令牌桶已空 */
+        RATE_LIMITED,
+        /** 全局并发已满且等待队列已满或等待超时 */
+        BUSY
+    }
+
+    private final AdmissionService.Operation operation;
+    private final Reason reason;
+    private final long retryAfterMillis;
+
+    public AdmissionRejectedException(AdmissionService.Operation operation, Reason reason, long retryAfterMillis) {
+        super((reason == Reason.RATE_LIMITED ? "操作过于频繁" : "系统繁忙") + "，请 "
+                + Math.max(1, (retryAfterMillis + 999) / 1000) + " 秒后再试（" + operation + "）");
+        this.operation = operation;
+        this.reason = reason;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public AdmissionService.Operation getOperation() {
+        return operation;
+    }
+    public Reason getReason() {
+        return reason;
+    }
+    /** 建议的最短重试间隔（毫秒） */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.seatmanager.service;
+
+import com.example.seatmanager.util.DBUtil;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AdmissionService：预约高峰期的准入控制（单例），挡在 MapController / ReserveController / AnalyticsController 与数据库之间。
+ *
+ * 每个操作两道关：
+ * 1. 每名学生一个令牌桶：以 GCRA（理论到达时间）形式保存为一个 AtomicLong，一次 CAS 完成补充与扣减，无锁
+ * 2. 全局并发上限：Semaphore 控制同时访问数据库的请求数，拿不到许可的请求进入有界等待队列，
+ *    队列已满或等待超时立即拒绝
+ * 被拒绝时抛出 AdmissionRejectedException，请求不会堆积在数据库连接上。
+ *
+ * 各操作的限额可通过系统属性配置，例如 -Dseatmanager.admission.reserve.rate=1
+ * （rate / burst / concurrency / queue / waitMillis）；-Dseatmanager.admission=false 关闭准入控制。
+ * 未指定 concurrency 时按主库连接池大小（DBUtil.getPoolSize()）分配，各操作的份额之和为 1，
+ * 全部放行的请求同时访问数据库时也不会超过连接池。
+ */
+public class AdmissionService {
+
+    /** 受控的操作及其默认限额（并发名额以连接池份额表示） */
+    public enum Operation {
+        /** 打开 / 刷新自习室示意图 */
+        MAP(2.0, 10, 0.45, 256, 200),
+        /** 预约、登记候补 */
+        RESERVE(1.0, 5, 0.45, 128, 500),
+        /** 利用率统计：单次请求扫描大量 usage_record 并占满 ForkJoinPool，只放行极少数 */
+        ANALYTICS(0.1, 2, 0.1, 4, 1000);
+
+        private final double defaultRate;
+        private final int defaultBurst;
+        private final double poolShare;
+        private final int defaultQueue;
+        private final long defaultWaitMillis;
+
+        Operation(double rate, int burst, double poolShare, int queue, long waitMillis) {
+            this.defaultRate = rate;
+            this.defaultBurst = burst;
+            this.poolShare = poolShare;
+            this.defaultQueue = queue;
+            this.defaultWaitMillis = waitMillis;
+        }
+    }
+
+    /** 已获得的准入许可，用完后关闭以归还全局并发名额 */
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /** 某操作的计数快照 */
+    public static final class Stats {
+        public final long admitted;
+        public final long rateLimited;
+        public final long busy;
+        public final int inFlight;
+        public final int waiting;
+
+        Stats(long admitted, long rateLimited, long busy, int inFlight, int waiting) {
+            this.admitted = admitted;
+            this.rateLimited = rateLimited;
+            this.busy = busy;
+            this.inFlight = inFlight;
+            this.waiting = waiting;
+        }
+
+        @Override
+        public String toString() {
+            return "admitted=" + admitted + ", rateLimited=" + rateLimited + ", busy=" + busy
+                    + ", inFlight=" + inFlight + ", waiting=" + waiting;
+        }
+    }
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("seatmanager.admission", "true"));
+    /** 令牌桶数量超过该值时清理已回满的桶 */
+    private static final int PURGE_THRESHOLD = 10_000;
+    private static final Permit NO_OP = () -> { };
+
+    private static final AdmissionService instance = new AdmissionService();
+
+    private final Map<Operation, Limiter> limiters = new EnumMap<>(Operation.class);
+
+    private AdmissionService() {
+        for (Operation op : Operation.values()) {
+            limiters.put(op, new Limiter(op));
+        }
+    }
+
+    public static AdmissionService getInstance() {
+        return instance;
+    }
+
+    /**
+     * 申请一次准入
+     *
+     * @param requester 限流对象，通常为学号；为 null 时只受全局并发限制
+     * @return 许可，调用方须在 finally / try-with-resources 中关闭
+     * @throws AdmissionRejectedException 如果超出该学生的速率或全局并发
+     */
+    public Permit acquire(Operation op, String requester) {
+        if (!ENABLED) {
+            return NO_OP;
+        }
+        return limiters.get(op).acquire(requester);
+    }
+
+    /** 各操作当前的计数 */
+    public Map<Operation, Stats> stats() {
+        Map<Operation, Stats> result = new EnumMap<>(Operation.class);
+        limiters.forEach((op, limiter) -> result.put(op, limiter.stats()));
+        return result;
+    }
+
+    // ---------------------------------------------------------------- 实现
+
+    private static final class Limiter {
+        private final Operation op;
+        /** 两次请求之间的最小间隔（纳秒），即补充一个令牌的时间 */
+        private final long intervalNanos;
+        /** 桶容量对应的时间跨度：理论到达时间最多领先当前时间这么多 */
+        private final long burstNanos;
+        private final int queueLimit;
+        private final long waitMillis;
+
+        private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+        private final AtomicLong lastPurge = new AtomicLong();
+        private final Semaphore slots;
+        private final int concurrency;
+        private final AtomicInteger waiting = new AtomicInteger();
+
+        private final LongAdder admitted = new LongAdder();
+        private final LongAdder rateLimited = new LongAdder();
+        private final LongAdder busy = new LongAdder();
+
+        Limiter(Operation op) {
+            this.op = op;
+            String prefix = "seatmanager.admission." + op.name().toLowerCase() + ".";
+            double rate = Double.parseDouble(System.getProperty(prefix + "rate", String.valueOf(op.defaultRate)));
+            int burst = Integer.getInteger(prefix + "burst", op.defaultBurst);
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+            this.burstNanos = intervalNanos * burst;
+            int defaultConcurrency = Math.max(1, (int) (DBUtil.getPoolSize() * op.poolShare));
+            this.concurrency = Integer.getInteger(prefix + "concurrency", defaultConcurrency);
+            this.queueLimit = Integer.getInteger(prefix + "queue", op.defaultQueue);
+            this.waitMillis = Long.getLong(prefix + "waitMillis", op.defaultWaitMillis);
+            this.slots = new Semaphore(concurrency);
+        }
+
+        Permit acquire(String requester) {
+            if (requester != null) {
+                takeToken(requester);
+            }
+            if (!slots.tryAcquire()) {
+                waitForSlot();
+            }
+            admitted.increment();
+            return new Permit() {
+                private boolean closed;
+
+                @Override
+                public void close() {
+                    if (!closed) {
+                        closed = true;
+                        slots.release();
+                    }
+                }
+            };
+        }
+
+        /** GCRA：newTat = max(tat, now) + interval，超出 now + burst 即拒绝 */
+        private void takeToken(String requester) {
+            long now = System.nanoTime();
+            AtomicLong tat = buckets.computeIfAbsent(requester, k -> new AtomicLong(now));
+            while (true) {
+                long current = tat.get();
+                long next = Math.max(current, now) + intervalNanos;
+                if (next - now > burstNanos) {
+                    rateLimited.increment();
+                    throw new AdmissionRejectedException(op, AdmissionRejectedException.Reason.RATE_LIMITED,
+                            TimeUnit.NANOSECONDS.toMillis(next - now - burstNanos));
+                }
+                if (tat.compareAndSet(current, next)) {
+                    break;
+                }
+            }
+            purgeIdle(now);
+        }
+
+        private void waitForSlot() {
+            if (waiting.incrementAndGet() > queueLimit) {
+                waiting.decrementAndGet();
+                busy.increment();
+                throw new AdmissionRejectedException(op, AdmissionRejectedException.Reason.BUSY, waitMillis);
+            }
+            try {
+                if (!slots.tryAcquire(waitMillis, TimeUnit.MILLISECONDS)) {
+                    busy.increment();
+                    throw new AdmissionRejectedException(op, AdmissionRejectedException.Reason.BUSY, waitMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                busy.increment();
+                throw new AdmissionRejectedException(op, AdmissionRejectedException.Reason.BUSY, waitMillis);
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+
+        /** 桶数量过多时（至多每秒一次）删除理论到达时间已落后于当前时间的桶，即已回满的桶 */
+        private void purgeIdle(long now) {
+            long last = lastPurge.get();
+            if (buckets.size() < PURGE_THRESHOLD || now - last < TimeUnit.SECONDS.toNanos(1)
+                    || !lastPurge.compareAndSet(last, now)) {
+                return;
+            }
+            buckets.values().removeIf(tat -> tat.get() - now <= 0);
+        }
+
+        Stats stats() {
+            return new Stats(admitted.sum(), rateLimited.sum(), busy.sum(),
+                    concurrency - slots.availablePermits(), waiting.get());
+        }
+    }
+}
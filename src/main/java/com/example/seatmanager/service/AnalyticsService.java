@@ -0,0 +1,246 @@
+package com.example.seatmanager.service;
+
+import com.example.seatmanager.dao.EventDAO;
+import com.example.seatmanager.dao.SeatDAO;
+import com.example.seatmanager.dao.StudyRoomDAO;
+import com.example.seatmanager.dao.UsageRecordDAO;
+import com.example.seatmanager.entity.Event;
+import com.example.seatmanager.entity.Seat;
+import com.example.seatmanager.entity.StudyRoom;
+import com.example.seatmanager.entity.UsageRecord;
+import com.example.seatmanager.util.BitmapUtil;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
+
+/**
+ * AnalyticsService：按自习室、楼层、楼栋、小时、星期统计一段日期内的座位利用率。
+ *
+ * 1. 分母：每个自习室每天每小时“座位数 × 未被事件关闭的时段数”，由座位表与事件直接算出
+ * 2. 分子：流式读取 usage_record，每 CHUNK_ROWS 行打包成基本类型数组，交给 ForkJoinPool 并行统计；
+ *    每个叶子任务把“占用掩码 & 小时掩码”的 popcount 累加到自己的 long[] 中，最后逐级合并。
+ *    同时在途的数据块数有上限，读得比算得快时读取线程会等待
+ * 事件关闭掩码按“自习室 × 天”常驻内存，因此一次统计的日期区间不超过 MAX_SPAN_DAYS 天
+ */
+public class AnalyticsService {
+
+    /** 一次统计的日期区间最多覆盖的天数 */
+    public static final int MAX_SPAN_DAYS = Integer.getInteger("seatmanager.analytics.maxDays", 366);
+
+    private static final int CHUNK_ROWS = 8192;
+    private static final int LEAF_ROWS = 1024;
+
+    private final UsageRecordDAO usageRecordDAO = new UsageRecordDAO();
+    private final EventDAO eventDAO = new EventDAO();
+    private final SeatDAO seatDAO = new SeatDAO();
+    private final StudyRoomDAO studyRoomDAO = new StudyRoomDAO();
+    private final ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /**
+     * 计算 [from, to] 内的利用率
+     *
+     * @throws IllegalArgumentException 如果 to 早于 from，或区间超过 MAX_SPAN_DAYS 天
+     * @throws DataAccessException 如果底层数据库操作出错
+     */
+    public UtilizationReport computeUtilization(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("to must not be before from");
+        }
+        long span = to.toEpochDay() - from.toEpochDay() + 1;
+        if (span > MAX_SPAN_DAYS) {
+            throw new IllegalArgumentException("date span must be at most " + MAX_SPAN_DAYS + " days: " + from + " ~ " + to);
+        }
+        try {
+            List<StudyRoom> rooms = studyRoomDAO.findAll();
+            Map<Integer, Integer> roomIndex = new HashMap<>();
+            for (int i = 0; i < rooms.size(); i++) {
+                roomIndex.put(rooms.get(i).getRoomId(), i);
+            }
+            int[] seatCount = new int[rooms.size()];
+            Map<Long, Integer> roomOfSeat = new HashMap<>();
+            for (Seat seat : seatDAO.findAll()) {
+                Integer r = roomIndex.get(seat.getRoomId());
+                if (r != null) {
+                    seatCount[r]++;
+                    roomOfSeat.put(seat.getSeatId(), r);
+                }
+            }
+
+            long fromDay = from.toEpochDay();
+            int days = (int) span;
+            int firstWeekday = from.getDayOfWeek().getValue() - 1;
+            long[][] hourMasks = BitmapUtil.hourMasks();
+
+            // 事件关闭掩码：closed[(room * days + day) * 3 + w]
+            long[] closed = new long[rooms.size() * days * BitmapUtil.MASK_WORDS];
+            eventDAO.streamByDateRange(from, to, (Event e) -> {
+                Integer r = roomIndex.get(e.getRoomId());
+                if (r == null) return;
+                int base = (r * days + (int) (e.getEventDate().toEpochDay() - fromDay)) * BitmapUtil.MASK_WORDS;
+                long[] mask = BitmapUtil.toOccupiedMask(e.getTimeBitmap());
+                for (int w = 0; w < BitmapUtil.MASK_WORDS; w++) {
+                    closed[base + w] |= mask[w];
+                }
+            });
+
+            int cells = rooms.size() * UtilizationReport.WEEKDAYS * UtilizationReport.HOURS;
+            long[] available = new long[cells];
+            for (int r = 0; r < rooms.size(); r++) {
+                for (int d = 0; d < days; d++) {
+                    int weekday = (firstWeekday + d) % UtilizationReport.WEEKDAYS;
+                    int base = (r * days + d) * BitmapUtil.MASK_WORDS;
+                    for (int h = 0; h < UtilizationReport.HOURS; h++) {
+                        long[] hm = hourMasks[h];
+                        int open = 0;
+                        for (int w = 0; w < BitmapUtil.MASK_WORDS; w++) {
+                            open += Long.bitCount(hm[w] & ~closed[base + w]);
+                        }
+                        available[UtilizationReport.cell(r, weekday, h)] += (long) open * seatCount[r];
+                    }
+                }
+            }
+
+            long[] occupied = new long[cells];
+            Context ctx = new Context(days, firstWeekday, hourMasks, closed, occupied);
+            Semaphore inFlight = new Semaphore(Math.max(2, pool.getParallelism() * 2));
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            Chunk[] current = {new Chunk()};
+            usageRecordDAO.streamByDateRange(from, to, (UsageRecord rec) -> {
+                Integer r = roomOfSeat.get(rec.getSeatId());
+                if (r == null) return;
+                Chunk chunk = current[0];
+                chunk.add(r, (int) (rec.getRecordDate().toEpochDay() - fromDay), BitmapUtil.toOccupiedMask(rec.getTimeBitmap()));
+                if (chunk.size == CHUNK_ROWS) {
+                    inFlight.acquireUninterruptibly();
+                    tasks.add(pool.submit(new ChunkTask(ctx, chunk, inFlight)));
+                    current[0] = new Chunk();
+                }
+            });
+            if (current[0].size > 0) {
+                inFlight.acquireUninterruptibly();
+                tasks.add(pool.submit(new ChunkTask(ctx, current[0], inFlight)));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+            return new UtilizationReport(from, to, rooms, occupied, available);
+        } catch (SQLException e) {
+            throw new DataAccessException("统计座位利用率时发生数据库错误", e);
+        }
+    }
+
+    /** 统计所需的只读上下文与共享结果 */
+    private static final class Context {
+        final int days;
+        final int firstWeekday;
+        final long[][] hourMasks;
+        final long[] closed;
+        final long[] occupied;
+
+        Context(int days, int firstWeekday, long[][] hourMasks, long[] closed, long[] occupied) {
+            this.days = days;
+            this.firstWeekday = firstWeekday;
+            this.hourMasks = hourMasks;
+            this.closed = closed;
+            this.occupied = occupied;
+        }
+    }
+
+    /** 一批记录：自习室下标、日期偏移与占用掩码，全部为基本类型数组 */
+    private static final class Chunk {
+        final int[] room = new int[CHUNK_ROWS];
+        final int[] day = new int[CHUNK_ROWS];
+        final long[] mask = new long[CHUNK_ROWS * BitmapUtil.MASK_WORDS];
+        int size;
+
+        void add(int roomIndex, int dayOffset, long[] occupiedMask) {
+            room[size] = roomIndex;
+            day[size] = dayOffset;
+            System.arraycopy(occupiedMask, 0, mask, size * BitmapUtil.MASK_WORDS, BitmapUtil.MASK_WORDS);
+            size++;
+        }
+    }
+
+    /** 一个数据块的根任务：并行统计后把结果合并进共享累加器，并归还在途名额 */
+    private static final class ChunkTask extends RecursiveAction {
+        private final Context ctx;
+        private final Chunk chunk;
+        private final Semaphore inFlight;
+
+        ChunkTask(Context ctx, Chunk chunk, Semaphore inFlight) {
+            this.ctx = ctx;
+            this.chunk = chunk;
+            this.inFlight = inFlight;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                long[] part = new SliceTask(ctx, chunk, 0, chunk.size).compute();
+                synchronized (ctx.occupied) {
+                    for (int i = 0; i < part.length; i++) {
+                        ctx.occupied[i] += part[i];
+                    }
+                }
+            } finally {
+                inFlight.release();
+            }
+        }
+    }
+
+    /** 对 [lo, hi) 行二分直到 LEAF_ROWS，叶子在自己的 long[] 中累加 */
+    private static final class SliceTask extends RecursiveTask<long[]> {
+        private final Context ctx;
+        private final Chunk chunk;
+        private final int lo;
+        private final int hi;
+
+        SliceTask(Context ctx, Chunk chunk, int lo, int hi) {
+            this.ctx = ctx;
+            this.chunk = chunk;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (hi - lo > LEAF_ROWS) {
+                int mid = (lo + hi) >>> 1;
+                SliceTask left = new SliceTask(ctx, chunk, lo, mid);
+                left.fork();
+                long[] right = new SliceTask(ctx, chunk, mid, hi).compute();
+                long[] result = left.join();
+                for (int i = 0; i < result.length; i++) {
+                    result[i] += right[i];
+                }
+                return result;
+            }
+            long[] acc = new long[ctx.occupied.length];
+            for (int i = lo; i < hi; i++) {
+                int r = chunk.room[i];
+                int d = chunk.day[i];
+                int weekday = (ctx.firstWeekday + d) % UtilizationReport.WEEKDAYS;
+                int closedBase = (r * ctx.days + d) * BitmapUtil.MASK_WORDS;
+                int maskBase = i * BitmapUtil.MASK_WORDS;
+                long m0 = chunk.mask[maskBase] & ~ctx.closed[closedBase];
+                long m1 = chunk.mask[maskBase + 1] & ~ctx.closed[closedBase + 1];
+                long m2 = chunk.mask[maskBase + 2] & ~ctx.closed[closedBase + 2];
+                int cellBase = UtilizationReport.cell(r, weekday, 0);
+                for (int h = 0; h < UtilizationReport.HOURS; h++) {
+                    long[] hm = ctx.hourMasks[h];
+                    acc[cellBase + h] += Long.bitCount(m0 & hm[0]) + Long.bitCount(m1 & hm[1]) + Long.bitCount(m2 & hm[2]);
+                }
+            }
+            return acc;
+        }
+    }
+}
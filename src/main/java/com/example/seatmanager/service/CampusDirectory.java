@@ -0,0 +1,341 @@
+package com.example.seatmanager.service;
+
+import com.example.seatmanager.dao.BuildingDAO;
+import com.example.seatmanager.dao.EventDAO;
+import com.example.seatmanager.dao.SeatDAO;
+import com.example.seatmanager.dao.StudyRoomDAO;
+import com.example.seatmanager.entity.Building;
+import com.example.seatmanager.entity.StudyRoom;
+import com.example.seatmanager.util.BitmapUtil;
+import com.example.seatmanager.util.SlotCalendar;
+import com.example.seatmanager.util.SlotClock;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * CampusDirectory：教学楼 → 楼层 → 自习室的只读目录（单例），供各预约界面的级联下拉框使用。
+ *
+ * 目录结构在第一次访问时用三次查询整体加载为不可变的树，之后切换教学楼、楼层只在内存中取子节点，不再访问数据库。
+ * 各自习室“当前空座数”单独存放在数组中：读取时如果已过期（超过 FIGURES_TTL_MILLIS，或收到过座位变化消息），
+ * 先返回旧值，再在后台线程上根据 OccupancyCache 与当天事件重新统计，统计完成后通知订阅方重绘。
+ */
+public final class CampusDirectory {
+
+    /** 空座数的最长有效期（毫秒） */
+    public static final long FIGURES_TTL_MILLIS = Long.getLong("seatmanager.directory.ttl.millis", 30_000L);
+
+    /** 尚未统计出空座数时 getFreeSeats 的返回值 */
+    public static final int UNKNOWN = -1;
+
+    /** 教学楼节点：楼层按楼层号升序，rooms 为整栋楼的自习室（按 room_id 升序） */
+    public static final class BuildingNode {
+        private final int buildingId;
+        private final int xCoord;
+        private final int yCoord;
+        private final List<FloorNode> floors;
+        private final List<RoomNode> rooms;
+
+        private BuildingNode(Building building, List<FloorNode> floors, List<RoomNode> rooms) {
+            this.buildingId = building.getBuildingId();
+            this.xCoord = building.getXCoord();
+            this.yCoord = building.getYCoord();
+            this.floors = Collections.unmodifiableList(floors);
+            this.rooms = Collections.unmodifiableList(rooms);
+        }
+
+        public int getBuildingId() {
+            return buildingId;
+        }
+        public int getXCoord() {
+            return xCoord;
+        }
+        public int getYCoord() {
+            return yCoord;
+        }
+        public List<FloorNode> getFloors() {
+            return floors;
+        }
+        public List<RoomNode> getRooms() {
+            return rooms;
+        }
+
+        /** @return 指定楼层；该楼没有这一层时返回 null */
+        public FloorNode floor(int floor) {
+            for (FloorNode f : floors) {
+                if (f.floor == floor) {
+                    return f;
+                }
+            }
+            return null;
+        }
+    }
+
+    /** 楼层节点：自习室按 room_id 升序 */
+    public static final class FloorNode {
+        private final int floor;
+        private final List<RoomNode> rooms;
+
+        private FloorNode(int floor, List<RoomNode> rooms) {
+            this.floor = floor;
+            this.rooms = Collections.unmodifiableList(rooms);
+        }
+
+        public int getFloor() {
+            return floor;
+        }
+        public List<RoomNode> getRooms() {
+            return rooms;
+        }
+    }
+
+    /** 自习室节点；index 为其在空座数数组中的下标 */
+    public static final class RoomNode {
+        private final int roomId;
+        private final int buildingId;
+        private final int floor;
+        private final int xCoord;
+        private final int yCoord;
+        private final long[] seatIds;
+        private final int index;
+
+        private RoomNode(StudyRoom room, long[] seatIds, int index) {
+            this.roomId = room.getRoomId();
+            this.buildingId = room.getBuildingId();
+            this.floor = room.getFloor();
+            this.xCoord = room.getXCoord();
+            this.yCoord = room.getYCoord();
+            this.seatIds = seatIds;
+            this.index = index;
+        }
+
+        public int getRoomId() {
+            return roomId;
+        }
+        public int getBuildingId() {
+            return buildingId;
+        }
+        public int getFloor() {
+            return floor;
+        }
+        public int getXCoord() {
+            return xCoord;
+        }
+        public int getYCoord() {
+            return yCoord;
+        }
+        /** 座位总数（以 seat 表为准） */
+        public int getTotalSeats() {
+            return seatIds.length;
+        }
+    }
+
+    /** 目录树一经加载不再变化 */
+    private static final class Tree {
+        final List<BuildingNode> buildings;
+        final Map<Integer, BuildingNode> buildingById;
+        final Map<Integer, RoomNode> roomById;
+        final RoomNode[] rooms;
+
+        Tree(List<BuildingNode> buildings, Map<Integer, BuildingNode> buildingById,
+             Map<Integer, RoomNode> roomById, RoomNode[] rooms) {
+            this.buildings = Collections.unmodifiableList(buildings);
+            this.buildingById = buildingById;
+            this.roomById = roomById;
+            this.rooms = rooms;
+        }
+    }
+
+    private static final CampusDirectory instance = new CampusDirectory();
+
+    private final BuildingDAO buildingDAO = new BuildingDAO();
+    private final StudyRoomDAO studyRoomDAO = new StudyRoomDAO();
+    private final SeatDAO seatDAO = new SeatDAO();
+    private final EventDAO eventDAO = new EventDAO();
+
+    private volatile Tree tree;
+    // 与 tree.rooms 同序；整体替换，不原地修改
+    private volatile int[] freeSeats;
+    private volatile long figuresAt;
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final CopyOnWriteArrayList<Runnable> figuresListeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "campus-directory");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private CampusDirectory() {
+        // 任何预约、取消或事件变化都可能改变空座数，只做标记，下次读取时再重新统计
+        SeatChangeBus.getInstance().subscribe(event -> dirty.set(true));
+    }
+
+    public static CampusDirectory getInstance() {
+        return instance;
+    }
+
+    /**
+     * 全部教学楼（按 building_id 升序）。第一次调用时从数据库加载整个目录
+     *
+     * @throws DataAccessException 如果加载目录时数据库操作出错
+     */
+    public List<BuildingNode> getBuildings() {
+        return tree().buildings;
+    }
+
+    /** @return 指定教学楼；不存在时返回 null */
+    public BuildingNode building(int buildingId) {
+        return tree().buildingById.get(buildingId);
+    }
+
+    /** @return 指定自习室；不存在时返回 null */
+    public RoomNode room(int roomId) {
+        return tree().roomById.get(roomId);
+    }
+
+    /**
+     * 自习室当前空座数：当前时段未被预约、也未被事件占用的座位数；开馆前按第一个时段统计，闭馆后为 0。
+     * 立即返回最近一次统计的结果，过期时在后台重新统计。
+     *
+     * @return 空座数；第一次统计尚未完成时返回 UNKNOWN
+     */
+    public int getFreeSeats(RoomNode room) {
+        if (dirty.get() || System.currentTimeMillis() - figuresAt > FIGURES_TTL_MILLIS) {
+            scheduleRefresh();
+        }
+        int[] figures = freeSeats;
+        return figures != null ? figures[room.index] : UNKNOWN;
+    }
+
+    /** 订阅空座数更新；回调在后台线程上执行，更新 Swing 组件需自行切换到 EDT */
+    public void subscribeFigures(Runnable listener) {
+        figuresListeners.addIfAbsent(listener);
+    }
+
+    public void unsubscribeFigures(Runnable listener) {
+        figuresListeners.remove(listener);
+    }
+
+    private Tree tree() {
+        Tree t = tree;
+        if (t == null) {
+            synchronized (this) {
+                t = tree;
+                if (t == null) {
+                    try {
+                        t = load();
+                    } catch (SQLException e) {
+                        throw new DataAccessException("加载校园目录时发生数据库错误", e);
+                    }
+                    tree = t;
+                }
+            }
+        }
+        return t;
+    }
+
+    /** 三次查询：教学楼、自习室、按自习室分组的座位 ID */
+    private Tree load() throws SQLException {
+        List<Building> buildings = buildingDAO.findAll();
+        List<StudyRoom> rooms = studyRoomDAO.findAll();
+        Map<Integer, long[]> seatIdsByRoom = seatDAO.findIdsGroupedByRoom();
+
+        // rooms 已按 room_id 升序，分组后各楼层、各楼内仍保持该顺序
+        Map<Integer, List<RoomNode>> roomsByBuilding = new HashMap<>();
+        Map<Integer, RoomNode> roomById = new HashMap<>();
+        RoomNode[] roomArray = new RoomNode[rooms.size()];
+        for (int i = 0; i < roomArray.length; i++) {
+            StudyRoom r = rooms.get(i);
+            RoomNode node = new RoomNode(r, seatIdsByRoom.getOrDefault(r.getRoomId(), new long[0]), i);
+            roomArray[i] = node;
+            roomById.put(node.roomId, node);
+            roomsByBuilding.computeIfAbsent(node.buildingId, k -> new ArrayList<>()).add(node);
+        }
+
+        List<BuildingNode> buildingNodes = new ArrayList<>(buildings.size());
+        Map<Integer, BuildingNode> buildingById = new HashMap<>();
+        for (Building b : buildings) {
+            List<RoomNode> buildingRooms = roomsByBuilding.getOrDefault(b.getBuildingId(), new ArrayList<>());
+            Map<Integer, List<RoomNode>> byFloor = new TreeMap<>();
+            for (RoomNode r : buildingRooms) {
+                byFloor.computeIfAbsent(r.floor, k -> new ArrayList<>()).add(r);
+            }
+            List<FloorNode> floors = new ArrayList<>(byFloor.size());
+            byFloor.forEach((floor, list) -> floors.add(new FloorNode(floor, list)));
+            BuildingNode node = new BuildingNode(b, floors, buildingRooms);
+            buildingNodes.add(node);
+            buildingById.put(node.buildingId, node);
+        }
+        return new Tree(buildingNodes, buildingById, roomById, roomArray);
+    }
+
+    private void scheduleRefresh() {
+        if (refreshing.compareAndSet(false, true)) {
+            refresher.execute(this::refreshFigures);
+        }
+    }
+
+    /** 后台线程：按当前时段重新统计各自习室空座数，完成后通知订阅方 */
+    private void refreshFigures() {
+        try {
+            dirty.set(false);
+            SlotClock clock = SlotClock.getInstance();
+            LocalDate today = clock.today();
+            SlotCalendar calendar = SlotCalendar.getDefault();
+            int slot = Math.max(0, calendar.slotAtMinuteOfDay(clock.now().toLocalTime().toSecondOfDay() / 60));
+
+            Tree t = tree();
+            int[] figures = new int[t.rooms.length];
+            if (slot < calendar.getSlotCount()) {
+                OccupancyCache cache = OccupancyCache.getInstance();
+                cache.ensureWindow(today);
+                long bit = 1L << (slot & 63);
+                int word = slot >>> 6;
+
+                // 当前时段被事件占用的自习室整体没有空座
+                Set<Integer> closed = new HashSet<>();
+                eventDAO.streamByDateRange(today, today, e -> {
+                    if ((BitmapUtil.toOccupiedMask(e.getTimeBitmap())[word] & bit) != 0) {
+                        closed.add(e.getRoomId());
+                    }
+                });
+                for (RoomNode room : t.rooms) {
+                    if (closed.contains(room.roomId)) {
+                        continue;
+                    }
+                    int free = 0;
+                    for (long seatId : room.seatIds) {
+                        if ((cache.get(seatId, today)[word] & bit) == 0) {
+                            free++;
+                        }
+                    }
+                    figures[room.index] = free;
+                }
+            }
+            freeSeats = figures;
+            figuresAt = System.currentTimeMillis();
+            for (Runnable listener : figuresListeners) {
+                listener.run();
+            }
+        } catch (SQLException | RuntimeException e) {
+            // 统计失败时保留旧值，下次读取时重试
+            dirty.set(true);
+            System.err.println("[CampusDirectory] 统计空座数失败: " + e);
+        } finally {
+            refreshing.set(false);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.seatmanager.service;
+
+import com.example.seatmanager.dao.EventDAO;
+import com.example.seatmanager.entity.Event;
+import com.example.seatmanager.util.BitmapUtil;
+
+import java.sql.SQLException;
+
+/**
+ * EventService：自习室占用事件（讲座、维修等整间关闭）的业务逻辑层
+ */
+public class EventService {
+
+    private final EventDAO eventDAO = new EventDAO();
+
+    /**
+     * 新增事件，并通知该自习室在事件时段内关闭
+     *
+     * @param event 事件（不含 eventId）
+     * @return 插入成功返回 true，否则 false
+     * @throws DataAccessException 如果底层数据库操作发生错误
+     */
+    public boolean createEvent(Event event) {
+        try {
+            boolean inserted = eventDAO.insert(event);
+            if (inserted) {
+                publish(SeatChangeEvent.Kind.ROOM_CLOSED, event);
+            }
+            return inserted;
+        } catch (SQLException e) {
+            throw new DataAccessException("新增自习室事件失败", e);
+        }
+    }
+
+    /**
+     * 删除事件，并通知该自习室在原事件时段重新开放
+     *
+     * @param eventId 事件 ID
+     * @return 删除成功返回 true，否则 false
+     * @throws DataAccessException 如果底层数据库操作发生错误
+     */
+    public boolean deleteEvent(long eventId) {
+        try {
+            Event event = eventDAO.findById(eventId);
+            boolean deleted = eventDAO.deleteById(eventId);
+            if (deleted && event != null) {
+                publish(SeatChangeEvent.Kind.ROOM_REOPENED, event);
+            }
+            return deleted;
+        } catch (SQLException e) {
+            throw new DataAccessException("删除自习室事件失败", e);
+        }
+    }
+
+    private void publish(SeatChangeEvent.Kind kind, Event event) {
+        long[] delta = BitmapUtil.toOccupiedMask(event.getTimeBitmap());
+        SeatChangeBus.getInstance().publish(new SeatChangeEvent(
+                kind, event.getRoomId(), SeatChangeEvent.ALL_SEATS, event.getEventDate(), delta));
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.seatmanager.service;
+
+import com.example.seatmanager.dao.EventDAO;
+import com.example.seatmanager.dao.SeatDAO;
+import com.example.seatmanager.dao.UsageRecordDAO;
+import com.example.seatmanager.entity.Event;
+import com.example.seatmanager.entity.Seat;
+import com.example.seatmanager.entity.UsageRecord;
+import com.example.seatmanager.util.BitmapUtil;
+import com.example.seatmanager.util.SlotCalendar;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ExportService：按日期区间导出预约与事件占用数据（CSV / JSON），供设施管理部门统计使用。
+ *
+ * usage_record 与 event 都以服务端游标流式读取（只进、按批拉取），每读一行立即写入带缓冲的 NIO 通道，
+ * 内存占用只与缓冲区和座位表大小有关，与导出的行数无关。
+ */
+public class ExportService {
+
+    /** 导出格式 */
+    public enum Format { CSV, JSON }
+
+    /** 一次导出的日期区间最多覆盖的天数 */
+    public static final int MAX_SPAN_DAYS = Integer.getInteger("seatmanager.export.maxDays", 366);
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String CSV_HEADER =
+            "kind,date,room_id,seat_id,id,student_id,signed,start_slot,end_slot,time,reason\n";
+
+    private final UsageRecordDAO usageRecordDAO = new UsageRecordDAO();
+    private final EventDAO eventDAO = new EventDAO();
+    private final SeatDAO seatDAO = new SeatDAO();
+
+    /**
+     * 导出 [from, to] 内的所有预约与事件到 channel（不关闭 channel）
+     *
+     * @return 导出的行数（预约 + 事件）
+     * @throws IllegalArgumentException 如果区间不合法（见 checkRange）
+     * @throws DataAccessException 如果底层数据库操作出错
+     * @throws IOException 如果写入 channel 失败
+     */
+    public long export(LocalDate from, LocalDate to, Format format, WritableByteChannel channel) throws IOException {
+        checkRange(from, to);
+        OutputStream out = new BufferedOutputStream(nonClosing(Channels.newOutputStream(channel)), BUFFER_BYTES);
+        try {
+            Map<Long, Integer> roomOfSeat = loadRoomOfSeat();
+            long rows = format == Format.CSV
+                    ? exportCsv(from, to, roomOfSeat, out)
+                    : exportJson(from, to, roomOfSeat, out);
+            out.flush();
+            return rows;
+        } catch (SQLException e) {
+            throw new DataAccessException("导出占用数据时发生数据库错误", e);
+        }
+    }
+
+    /**
+     * 检查导出区间，供调用方在开始输出之前提前拒绝
+     *
+     * @throws IllegalArgumentException 如果 to 早于 from，或区间超过 MAX_SPAN_DAYS 天
+     */
+    public static void checkRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("to must not be before from");
+        }
+        if (to.toEpochDay() - from.toEpochDay() + 1 > MAX_SPAN_DAYS) {
+            throw new IllegalArgumentException("date span must be at most " + MAX_SPAN_DAYS + " days: " + from + " ~ " + to);
+        }
+    }
+
+    private long exportCsv(LocalDate from, LocalDate to, Map<Long, Integer> roomOfSeat, OutputStream out)
+            throws IOException, SQLException {
+        // Writer 自身不再缓冲大块数据，字节由外层 BufferedOutputStream 汇总后写入通道
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        long[] rows = new long[1];
+        StringBuilder line = new StringBuilder(128);
+        writer.write(CSV_HEADER);
+        usageRecordDAO.streamByDateRange(from, to, (UsageRecord r) -> {
+            line.setLength(0);
+            line.append("reservation,").append(r.getRecordDate()).append(',')
+                    .append(roomOfSeat.getOrDefault(r.getSeatId(), 0)).append(',')
+                    .append(r.getSeatId()).append(',')
+                    .append(r.getRecordId()).append(',');
+            appendCsvField(line, r.getStudentId());
+            line.append(',').append(r.isSigned()).append(',')
+                    .append(r.getStartSlot()).append(',').append(r.getEndSlot()).append(',')
+                    .append(timeLabel(r.getStartSlot(), r.getEndSlot())).append(",\n");
+            writer.append(line);
+            rows[0]++;
+        });
+        eventDAO.streamByDateRange(from, to, (Event e) -> {
+            int[] envelope = envelope(e.getTimeBitmap());
+            line.setLength(0);
+            line.append("event,").append(e.getEventDate()).append(',')
+                    .append(e.getRoomId()).append(",,")
+                    .append(e.getEventId()).append(",,,")
+                    .append(envelope[0]).append(',').append(envelope[1]).append(',')
+                    .append(timeLabel(envelope[0], envelope[1])).append(',');
+            appendCsvField(line, e.getReason());
+            line.append('\n');
+            writer.append(line);
+            rows[0]++;
+        });
+        writer.flush();
+        return rows[0];
+    }
+
+    private long exportJson(LocalDate from, LocalDate to, Map<Long, Integer> roomOfSeat, OutputStream out)
+            throws IOException, SQLException {
+        long[] rows = new long[1];
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            gen.writeStartObject();
+            gen.writeStringField("from", from.toString());
+            gen.writeStringField("to", to.toString());
+            gen.writeNumberField("slotMinutes", SlotCalendar.getDefault().getSlotMinutes());
+            gen.writeArrayFieldStart("reservations");
+            usageRecordDAO.streamByDateRange(from, to, (UsageRecord r) -> {
+                gen.writeStartObject();
+                gen.writeNumberField("id", r.getRecordId());
+                gen.writeStringField("date", r.getRecordDate().toString());
+                gen.writeNumberField("roomId", roomOfSeat.getOrDefault(r.getSeatId(), 0));
+                gen.writeNumberField("seatId", r.getSeatId());
+                gen.writeStringField("studentId", r.getStudentId());
+                gen.writeBooleanField("signed", r.isSigned());
+                gen.writeNumberField("startSlot", r.getStartSlot());
+                gen.writeNumberField("endSlot", r.getEndSlot());
+                gen.writeStringField("time", timeLabel(r.getStartSlot(), r.getEndSlot()));
+                gen.writeEndObject();
+                rows[0]++;
+            });
+            gen.writeEndArray();
+            gen.writeArrayFieldStart("events");
+            eventDAO.streamByDateRange(from, to, (Event e) -> {
+                int[] envelope = envelope(e.getTimeBitmap());
+                gen.writeStartObject();
+                gen.writeNumberField("id", e.getEventId());
+                gen.writeStringField("date", e.getEventDate().toString());
+                gen.writeNumberField("roomId", e.getRoomId());
+                gen.writeNumberField("startSlot", envelope[0]);
+                gen.writeNumberField("endSlot", envelope[1]);
+                gen.writeStringField("time", timeLabel(envelope[0], envelope[1]));
+                gen.writeStringField("reason", e.getReason());
+                gen.writeEndObject();
+                rows[0]++;
+            });
+            gen.writeEndArray();
+            gen.writeNumberField("rows", rows[0]);
+            gen.writeEndObject();
+        }
+        return rows[0];
+    }
+
+    /** seat_id → room_id，座位表规模固定，一次性加载 */
+    private Map<Long, Integer> loadRoomOfSeat() throws SQLException {
+        List<Seat> seats = seatDAO.findAll();
+        Map<Long, Integer> map = new HashMap<>(seats.size() * 2);
+        for (Seat s : seats) {
+            map.put(s.getSeatId(), s.getRoomId());
+        }
+        return map;
+    }
+
+    /** 事件位图的占用外包区间 {start, end}；无占用时为 {0, 0} */
+    private static int[] envelope(byte[] bitmap) {
+        List<int[]> runs = BitmapUtil.occupiedRuns(BitmapUtil.toOccupiedMask(bitmap));
+        if (runs.isEmpty()) {
+            return new int[] {0, 0};
+        }
+        return new int[] {runs.get(0)[0], runs.get(runs.size() - 1)[1]};
+    }
+
+    private static String timeLabel(int start, int end) {
+        return start >= 0 && end > start ? SlotCalendar.getDefault().rangeLabel(start, end) : "";
+    }
+
+    private static void appendCsvField(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    /** 包装输出流，使 JsonGenerator / Writer 关闭时不会顺带关闭调用方的通道 */
+    private static OutputStream nonClosing(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.seatmanager.service;
+
+import com.example.seatmanager.entity.Facility;
+
+import java.util.List;
+
+/**
+ * FacilityGrid：单个自习室内设施的均匀网格索引，用于批量计算座位的 near_* 标记。
+ * 格子边长取距离阈值，与某座位距离不超过阈值的设施只可能落在座位所在格子及其周围 8 个格子中，
+ * 因此每个座位只需检查少量候选设施，整个自习室一遍即可算完，不必像初始化脚本那样对每个座位做三次 EXISTS 子查询。
+ */
+final class FacilityGrid {
+
+    /** nearFlags 的返回位 */
+    static final int NEAR_WINDOW = 1;
+    static final int NEAR_DOOR   = 2;
+    static final int NEAR_SOCKET = 4;
+
+    private final long maxDistanceSquared;
+    private final int cellSize;
+    private final int originX;
+    private final int originY;
+    private final int cols;
+    private final int rows;
+    // 按格子排列的设施：第 cell 个格子的设施为 items[cellStart[cell] .. cellStart[cell + 1])
+    private final int[] cellStart;
+    private final int[] itemX;
+    private final int[] itemY;
+    private final int[] itemFlag;
+
+    /**
+     * @param facilities 同一自习室内的设施
+     * @param threshold  距离阈值（坐标单位），距离 ≤ threshold 视为靠近
+     */
+    FacilityGrid(List<Facility> facilities, int threshold) {
+        this.maxDistanceSquared = (long) threshold * threshold;
+        this.cellSize = Math.max(1, threshold);
+        int n = facilities.size();
+
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (Facility f : facilities) {
+            minX = Math.min(minX, f.getXCoord());
+            minY = Math.min(minY, f.getYCoord());
+            maxX = Math.max(maxX, f.getXCoord());
+            maxY = Math.max(maxY, f.getYCoord());
+        }
+        this.originX = n == 0 ? 0 : minX;
+        this.originY = n == 0 ? 0 : minY;
+        this.cols = n == 0 ? 0 : (maxX - minX) / cellSize + 1;
+        this.rows = n == 0 ? 0 : (maxY - minY) / cellSize + 1;
+
+        // 计数排序：先数出每个格子的设施数，再按格子顺序放入平铺数组
+        int[] cellOf = new int[n];
+        this.cellStart = new int[cols * rows + 1];
+        for (int i = 0; i < n; i++) {
+            Facility f = facilities.get(i);
+            cellOf[i] = ((f.getYCoord() - originY) / cellSize) * cols + (f.getXCoord() - originX) / cellSize;
+            cellStart[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < cols * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        this.itemX = new int[n];
+        this.itemY = new int[n];
+        this.itemFlag = new int[n];
+        int[] next = new int[cols * rows];
+        for (int i = 0; i < n; i++) {
+            Facility f = facilities.get(i);
+            int slot = cellStart[cellOf[i]] + next[cellOf[i]]++;
+            itemX[slot] = f.getXCoord();
+            itemY[slot] = f.getYCoord();
+            itemFlag[slot] = flagOf(f.getType());
+        }
+    }
+
+    /**
+     * 计算坐标 (x, y) 处座位的靠近标记
+     *
+     * @return NEAR_WINDOW / NEAR_DOOR / NEAR_SOCKET 的按位或
+     */
+    int nearFlags(int x, int y) {
+        if (cols == 0) return 0;
+        int cx = Math.floorDiv(x - originX, cellSize);
+        int cy = Math.floorDiv(y - originY, cellSize);
+        int flags = 0;
+        for (int r = Math.max(0, cy - 1); r <= Math.min(rows - 1, cy + 1); r++) {
+            for (int c = Math.max(0, cx - 1); c <= Math.min(cols - 1, cx + 1); c++) {
+                int cell = r * cols + c;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    long dx = itemX[i] - x;
+                    long dy = itemY[i] - y;
+                    if (dx * dx + dy * dy <= maxDistanceSquared) {
+                        flags |= itemFlag[i];
+                    }
+                }
+            }
+        }
+        return flags;
+    }
+
+    private static int flagOf(Facility.FacilityType type) {
+        switch (type) {
+            case WINDOW:
+                return NEAR_WINDOW;
+            case DOOR:
+                return NEAR_DOOR;
+            default:
+                return NEAR_SOCKET;
+        }
+    }
+}
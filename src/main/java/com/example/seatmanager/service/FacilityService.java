@@ -0,0 +1,141 @@
+package com.example.seatmanager.service;
+
+import com.example.seatmanager.dao.FacilityDAO;
+import com.example.seatmanager.dao.SeatDAO;
+import com.example.seatmanager.dao.StudyRoomDAO;
+import com.example.seatmanager.entity.Facility;
+import com.example.seatmanager.entity.Seat;
+import com.example.seatmanager.entity.StudyRoom;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * FacilityService：设施（门、窗、插座）的业务逻辑层。
+ * 新增、移动或删除设施后，重新计算所在自习室全部座位的 near_window / near_door / near_socket 标记，
+ * 只把发生变化的座位批量写回。
+ */
+public class FacilityService {
+
+    /** 座位与设施的距离不超过该值（坐标单位）时视为靠近，与初始化脚本中的 POW(dx,2)+POW(dy,2) <= 25 一致 */
+    public static final int NEAR_DISTANCE = Integer.getInteger("seatmanager.facility.nearDistance", 5);
+
+    private final FacilityDAO facilityDAO = new FacilityDAO();
+    private final SeatDAO seatDAO = new SeatDAO();
+    private final StudyRoomDAO studyRoomDAO = new StudyRoomDAO();
+
+    /**
+     * 新增设施，并重新计算所在自习室的座位标记
+     *
+     * @param facility 设施（不含 facilityId，插入成功后回填）
+     * @return 插入成功返回 true，否则 false
+     * @throws DataAccessException 如果底层数据库操作发生错误
+     */
+    public boolean addFacility(Facility facility) {
+        try {
+            boolean inserted = facilityDAO.insert(facility);
+            if (inserted) {
+                recompute(facility.getRoomId());
+            }
+            return inserted;
+        } catch (SQLException e) {
+            throw new DataAccessException("新增设施失败", e);
+        }
+    }
+
+    /**
+     * 移动或修改设施，并重新计算受影响的自习室（设施换了自习室时原自习室也要重新计算）
+     *
+     * @param facility 修改后的设施（facilityId 必须已存在）
+     * @return 更新成功返回 true，否则 false
+     * @throws DataAccessException 如果底层数据库操作发生错误
+     */
+    public boolean moveFacility(Facility facility) {
+        try {
+            Facility before = facilityDAO.findById(facility.getFacilityId());
+            boolean updated = facilityDAO.update(facility);
+            if (updated) {
+                recompute(facility.getRoomId());
+                if (before != null && before.getRoomId() != facility.getRoomId()) {
+                    recompute(before.getRoomId());
+                }
+            }
+            return updated;
+        } catch (SQLException e) {
+            throw new DataAccessException("更新设施失败", e);
+        }
+    }
+
+    /**
+     * 删除设施，并重新计算原所在自习室的座位标记
+     *
+     * @param facilityId 设施 ID
+     * @return 删除成功返回 true，否则 false
+     * @throws DataAccessException 如果底层数据库操作发生错误
+     */
+    public boolean removeFacility(int facilityId) {
+        try {
+            Facility before = facilityDAO.findById(facilityId);
+            boolean deleted = facilityDAO.deleteById(facilityId);
+            if (deleted && before != null) {
+                recompute(before.getRoomId());
+            }
+            return deleted;
+        } catch (SQLException e) {
+            throw new DataAccessException("删除设施失败", e);
+        }
+    }
+
+    /**
+     * 重新计算某自习室全部座位的 near_* 标记
+     *
+     * @return 标记发生变化并已写回的座位数
+     * @throws DataAccessException 如果底层数据库操作发生错误
+     */
+    public int recomputeNearFlags(int roomId) {
+        try {
+            return recompute(roomId);
+        } catch (SQLException e) {
+            throw new DataAccessException("重新计算座位靠近标记失败", e);
+        }
+    }
+
+    /**
+     * 重新计算全部自习室的座位标记（如修改了距离阈值后）
+     *
+     * @return 标记发生变化并已写回的座位数
+     * @throws DataAccessException 如果底层数据库操作发生错误
+     */
+    public int recomputeAllNearFlags() {
+        try {
+            int changed = 0;
+            for (StudyRoom room : studyRoomDAO.findAll()) {
+                changed += recompute(room.getRoomId());
+            }
+            return changed;
+        } catch (SQLException e) {
+            throw new DataAccessException("重新计算座位靠近标记失败", e);
+        }
+    }
+
+    /** 对一个自习室：建设施网格、逐座位计算一遍，只批量写回有变化的座位 */
+    private int recompute(int roomId) throws SQLException {
+        FacilityGrid grid = new FacilityGrid(facilityDAO.findByRoomOnPrimary(roomId), NEAR_DISTANCE);
+        List<Seat> changed = new ArrayList<>();
+        for (Seat seat : seatDAO.findByRoomIdOnPrimary(roomId)) {
+            int flags = grid.nearFlags(seat.getXCoord(), seat.getYCoord());
+            boolean window = (flags & FacilityGrid.NEAR_WINDOW) != 0;
+            boolean door = (flags & FacilityGrid.NEAR_DOOR) != 0;
+            boolean socket = (flags & FacilityGrid.NEAR_SOCKET) != 0;
+            if (window != seat.isNearWindow() || door != seat.isNearDoor() || socket != seat.isNearSocket()) {
+                seat.setNearWindow(window);
+                seat.setNearDoor(door);
+                seat.setNearSocket(socket);
+                changed.add(seat);
+            }
+        }
+        seatDAO.updateNearFlags(changed);
+        return changed.size();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.seatmanager.service;
+
+import com.example.seatmanager.dao.UsageRecordDAO;
+import com.example.seatmanager.entity.UsageRecord;
+import com.example.seatmanager.util.BitmapUtil;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * IntervalMigrationService：把旧的纯位图 usage_record 回填为区间编码（start_slot, end_slot）。
+ *
+ * 规则：
+ * 1. 位图中只有一段连续占用：直接回填该区间
+ * 2. 有多段不连续占用：原记录保留第一段，其余每段拆成一条新记录（学生、座位、日期、签到状态不变）
+ * 3. 没有任何占用：回填为空区间 [0, 0)，不会与任何区间重叠
+ *
+ * 可重复执行：已回填的记录不会再被处理。应在数据库初始化之后、接受预约之前调用一次。
+ */
+public class IntervalMigrationService {
+
+    private final UsageRecordDAO usageRecordDAO = new UsageRecordDAO();
+
+    /**
+     * 执行回填
+     *
+     * @return 处理的旧记录条数
+     * @throws DataAccessException 如果底层数据库操作发生错误
+     */
+    public int migrate() {
+        try {
+            List<UsageRecord> legacy = usageRecordDAO.findWithoutInterval();
+            if (legacy.isEmpty()) {
+                return 0;
+            }
+            List<UsageRecord> updates = new ArrayList<>(legacy.size());
+            List<UsageRecord> inserts = new ArrayList<>();
+            for (UsageRecord r : legacy) {
+                List<int[]> runs = BitmapUtil.occupiedRuns(BitmapUtil.toOccupiedMask(r.getTimeBitmap()));
+                if (runs.isEmpty()) {
+                    r.setStartSlot(0);
+                    r.setEndSlot(0);
+                    updates.add(r);
+                    continue;
+                }
+                applyRun(r, runs.get(0));
+                updates.add(r);
+                for (int i = 1; i < runs.size(); i++) {
+                    UsageRecord split = new UsageRecord();
+                    split.setStudentId(r.getStudentId());
+                    split.setSeatId(r.getSeatId());
+                    split.setRecordDate(r.getRecordDate());
+                    split.setSigned(r.isSigned());
+                    applyRun(split, runs.get(i));
+                    inserts.add(split);
+                }
+            }
+            usageRecordDAO.applyIntervalBackfill(updates, inserts);
+            System.out.println("[IntervalMigrationService] backfilled " + updates.size()
+                    + " records, split off " + inserts.size() + " additional intervals.");
+            return legacy.size();
+        } catch (SQLException e) {
+            throw new DataAccessException("回填预约区间失败", e);
+        }
+    }
+
+    /** 将记录的位图与区间都设为 run 所表示的单段占用 */
+    private static void applyRun(UsageRecord record, int[] run) {
+        record.setStartSlot(run[0]);
+        record.setEndSlot(run[1]);
+        record.setTimeBitmap(BitmapUtil.fromOccupiedMask(BitmapUtil.rangeMask(run[0], run[1])));
+    }
+}
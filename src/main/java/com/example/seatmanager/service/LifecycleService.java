@@ -0,0 +1,46 @@
+package com.example.seatmanager.service;
+
+import com.example.seatmanager.util.DBUtil;
+import com.example.seatmanager.util.SlotClock;
+
+/**
+ * LifecycleService：桌面端与服务端共用的启动 / 关闭流程
+ */
+public class LifecycleService {
+
+    private final OccupancySnapshotService snapshotService = new OccupancySnapshotService();
+
+    /**
+     * 启动：
+     * 1. 初始化嵌入式数据库，为还没有座位的自习室生成座位，并将旧的位图记录回填为区间编码
+     * 2. 启用内存预约引擎时重放日志中尚未落库的预约
+     * 3. 从快照恢复座位占用缓存（快照失效时整体从数据库加载）
+     * 4. 启动汇总表的增量维护与每晚校对
+     * 5. 启动时段时钟，在每个时段边界推进当天的过期时段掩码
+     */
+    public void startUp() {
+        DBUtil.initDatabase();
+        new SeatLayoutGenerator().seedEmptyRooms();
+        new IntervalMigrationService().migrate();
+        ReservationEngine.startIfEnabled();
+        snapshotService.restore(OccupancySnapshotService.defaultPath(), SlotClock.getInstance().today());
+        RollupService.getInstance().start();
+        SlotClock.getInstance().start();
+    }
+
+    /**
+     * 关闭：停止时段时钟，等待预约引擎全部落库，写入剩余的汇总增量，再写出占用快照，最后停止只读副本。失败只打印日志，不影响退出。
+     */
+    public void shutDown() {
+        try {
+            SlotClock.getInstance().stop();
+            ReservationEngine.shutdownCurrent();
+            RollupService.getInstance().stop();
+            snapshotService.save(OccupancySnapshotService.defaultPath());
+        } catch (RuntimeException e) {
+            System.err.println("[LifecycleService] 关闭预约引擎或写入占用快照失败: " + e);
+        } finally {
+            DBUtil.shutdownReplica();
+        }
+    }
+}
@@ -1,19 +1,18 @@
 package com.example.seatmanager.service;
 
 import com.example.seatmanager.dao.EventDAO;
+import com.example.seatmanager.dao.FacilityDAO;
 import com.example.seatmanager.dao.UsageRecordDAO;
 import com.example.seatmanager.dao.SeatDAO;
 import com.example.seatmanager.entity.Event;
+import com.example.seatmanager.entity.Facility;
 import com.example.seatmanager.entity.Seat;
-import com.example.seatmanager.entity.UsageRecord;
 import com.example.seatmanager.util.BitmapUtil;
+import com.example.seatmanager.util.SlotClock;
 
 import java.sql.SQLException;
 import java.time.LocalDate;
-import java.util.BitSet;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * MapService：生成自习室示意图数据的业务逻辑层
@@ -23,71 +22,100 @@ public class MapService {
     private final EventDAO eventDAO = new EventDAO();
     private final UsageRecordDAO usageRecordDAO = new UsageRecordDAO();
     private final SeatDAO seatDAO = new SeatDAO();
+    private final FacilityDAO facilityDAO = new FacilityDAO();
+    private final OccupancyCache occupancyCache = OccupancyCache.getInstance();
 
     /**
-     * 获取某个自习室在指定日期下，每个座位的可用状态位图（合并事件和预约）
+     * 获取某个自习室在指定日期下所有座位的占用情况（合并事件和预约）
      *
      * @param roomId 自习室 ID
      * @param date   指定日期
-     * @return Map：key = Seat 实例，value = boolean[192] 位图（true = 可用，false = 不可用）
+     * @return 按坐标排序的座位及其占用掩码、空闲时段数与状态
      * @throws DataAccessException 如果底层数据库操作出错
      */
-    public Map<Seat, boolean[]> getSeatAvailabilityMap(int roomId, LocalDate date) {
+    public RoomAvailability getRoomAvailability(int roomId, LocalDate date) {
         try {
-            // 1. 查询该自习室是否有整日事件（即 event.timeBitmap 全 0 或指定时段 0 表示整日不可用）
-            List<Event> events = eventDAO.findByRoomAndDate(roomId, date);
-            boolean[] roomEventMask = new boolean[192];
-            // 默认初始化为全可用
-            for (int i = 0; i < 192; i++) {
-                roomEventMask[i] = true;
-            }
-            for (Event e : events) {
-                boolean[] eventAvail = BitmapUtil.binaryToAvailability(e.getTimeBitmap());
-                for (int i = 0; i < 192; i++) {
-                    if (!eventAvail[i]) {
-                        roomEventMask[i] = false; // 该时段被事件占用
-                    }
-                }
-            }
+            // 1. 合并该自习室当天的所有事件占用，以及已经结束的时段
+            long[] roomEventMask = loadRoomEventMask(roomId, date);
+            orInto(roomEventMask, SlotClock.getInstance().pastMask(date));
 
-            // 2. 获取该自习室下所有座位
+            // 2. 获取该自习室下所有座位（按 seat_id 升序）
             List<Seat> seats = seatDAO.findByRoomId(roomId);
 
-            // 3. 对每个座位：
-            //    3.1 初始化一个“可用位图”为全 true
-            //    3.2 将 roomEventMask 中的 false 合并进来（事件占用） → 得到 seatMask
-            //    3.3 查询该座位当天所有 UsageRecord，将预约占用位段合并（置 false）
-            //    3.4 最终得到该座位的完整可用位图
-            Map<Seat, boolean[]> resultMap = new HashMap<>();
-            for (Seat seat : seats) {
-                // 3.1 默认全可用
-                boolean[] availability = new boolean[192];
-                for (int i = 0; i < 192; i++) {
-                    availability[i] = true;
-                }
-                // 3.2 合并事件
-                for (int i = 0; i < 192; i++) {
-                    if (!roomEventMask[i]) {
-                        availability[i] = false;
-                    }
-                }
-                // 3.3 合并预约占用
-                List<UsageRecord> records = usageRecordDAO.findBySeatAndDate(seat.getSeatId(), date);
-                for (UsageRecord r : records) {
-                    boolean[] recordAvail = BitmapUtil.binaryToAvailability(r.getTimeBitmap());
-                    for (int i = 0; i < 192; i++) {
-                        if (!recordAvail[i]) {
-                            availability[i] = false;
-                        }
-                    }
-                }
-                // 3.4 将座位与其可用位图放入结果
-                resultMap.put(seat, availability);
+            // 3. 整个自习室的预约占用：窗口内取内存缓存，窗口外一次列式查询
+            long[] seatIds = new long[seats.size()];
+            for (int i = 0; i < seatIds.length; i++) {
+                seatIds[i] = seats.get(i).getSeatId();
             }
+            long[] occupied = occupancyCache.getRoomMasks(roomId, date, seatIds);
 
-            return resultMap;
+            // 4. 每个座位的预约占用再叠加事件占用与过期时段（每个座位一次按位或）
+            for (int i = 0; i < seatIds.length; i++) {
+                for (int w = 0; w < BitmapUtil.MASK_WORDS; w++) {
+                    occupied[i * BitmapUtil.MASK_WORDS + w] |= roomEventMask[w];
+                }
+            }
+            return new RoomAvailability(roomId, date, seats, occupied);
         } catch (SQLException e) {
             throw new DataAccessException("生成自习室示意图数据时发生数据库错误", e);
         }
     }
+
+    /**
+     * 获取单个座位在指定日期的占用掩码（合并事件和预约），
+     * 供示意图在收到某个座位的变化消息后只重新加载该座位
+     *
+     * @param roomId 座位所属自习室 ID
+     * @param seatId 座位 ID
+     * @param date   指定日期
+     * @return long[3] 占用掩码（1 = 被预约或事件占用）
+     * @throws DataAccessException 如果底层数据库操作出错
+     */
+    public long[] getSeatOccupancy(int roomId, long seatId, LocalDate date) {
+        try {
+            long[] occupied = loadRoomEventMask(roomId, date);
+            occupancyCache.ensureWindow(SlotClock.getInstance().today());
+            long[] reserved = occupancyCache.get(seatId, date);
+            if (reserved == null) {
+                reserved = usageRecordDAO.findOccupiedMask(seatId, date);
+            }
+            orInto(occupied, reserved);
+            orInto(occupied, SlotClock.getInstance().pastMask(date));
+            return occupied;
+        } catch (SQLException e) {
+            throw new DataAccessException("查询座位可用时段时发生数据库错误", e);
+        }
+    }
+
+    /**
+     * 辅助：合并自习室当天所有事件，得到事件占用掩码（1 表示该时段被事件占用）
+     */
+    private long[] loadRoomEventMask(int roomId, LocalDate date) throws SQLException {
+        long[] mask = new long[BitmapUtil.MASK_WORDS];
+        for (Event e : eventDAO.findByRoomAndDate(roomId, date)) {
+            orInto(mask, BitmapUtil.toOccupiedMask(e.getTimeBitmap()));
+        }
+        return mask;
+    }
+
+    private static void orInto(long[] target, long[] mask) {
+        for (int w = 0; w < BitmapUtil.MASK_WORDS; w++) {
+            target[w] |= mask[w];
+        }
+    }
+
+    /**
+     * 获取某个自习室内的所有设施（门、窗、插座），用于在示意图上按坐标绘制
+     *
+     * @param roomId 自习室 ID
+     * @return 设施列表，按 facility_id 升序
+     * @throws DataAccessException 如果底层数据库操作出错
+     */
+    public List<Facility> getFacilities(int roomId) {
+        try {
+            return facilityDAO.findByRoom(roomId);
+        } catch (SQLException e) {
+            throw new DataAccessException("查询自习室设施时发生数据库错误", e);
+        }
+    }
 }
@@ -0,0 +1,306 @@
+package com.example.seatmanager.service;
+
+import com.example.seatmanager.dao.UsageMaskColumns;
+import com.example.seatmanager.dao.UsageRecordDAO;
+import com.example.seatmanager.entity.UsageRecord;
+import com.example.seatmanager.util.BitmapUtil;
+import com.example.seatmanager.util.SlotClock;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * OccupancyCache：预约窗口（今天起若干天）内每个座位每天的预约占用掩码（单例）。
+ * 掩码为 long[3]，第 i 位为 1 表示第 i 个时段已被预约；不含事件占用，事件仍由调用方另行合并。
+ *
+ * 启动时由 OccupancySnapshotService 从快照恢复，或整体从数据库加载；
+ * 之后通过订阅 SeatChangeBus 增量维护，示意图等视图不必再逐座位查询 usage_record。
+ * 存放的数组一经放入不再修改（更新时整体替换），调用方拿到的掩码同样不得修改。
+ * 从数据库加载某段日期期间到达的占用变化先暂存，加载完成后再重放，不会因查询与写入窗口之间的空隙而丢失。
+ */
+public class OccupancyCache {
+
+    /** 预约窗口天数（含今天），与各预约界面提供的日期数一致 */
+    public static final int WINDOW_DAYS = Integer.getInteger("seatmanager.window.days", 7);
+
+    private static final long[] EMPTY = new long[BitmapUtil.MASK_WORDS];
+
+    private static final OccupancyCache instance = new OccupancyCache();
+
+    private final UsageRecordDAO usageRecordDAO = new UsageRecordDAO();
+
+    // key = seatDayKey(seatId, epochDay)；窗口内没有预约的座位不占条目
+    private final ConcurrentHashMap<Long, long[]> masks = new ConcurrentHashMap<>();
+    // 当前窗口的起始日（epochDay）与天数；windowDays == 0 表示尚未加载
+    private volatile long windowStart;
+    private volatile int windowDays;
+
+    private final Object loadLock = new Object();
+    // 正在从数据库加载的日期范围 [loadingFrom, loadingTo]（epochDay）内到达的变化；为 null 表示没有加载在进行
+    private List<SeatChangeEvent> deferred;
+    private long loadingFrom;
+    private long loadingTo;
+
+    private OccupancyCache() {
+        SeatChangeBus.getInstance().subscribe(this::onSeatChange);
+    }
+
+    public static OccupancyCache getInstance() {
+        return instance;
+    }
+
+    /** 指定日期是否在已加载的窗口内 */
+    public boolean covers(LocalDate date) {
+        long day = date.toEpochDay();
+        return windowDays > 0 && day >= windowStart && day < windowStart + windowDays;
+    }
+
+    public long getWindowStart() {
+        return windowStart;
+    }
+    public int getWindowDays() {
+        return windowDays;
+    }
+
+    /**
+     * 某座位某天的预约占用掩码
+     *
+     * @return long[3]（不得修改）；日期不在窗口内时返回 null，调用方应回退到数据库
+     */
+    public long[] get(long seatId, LocalDate date) {
+        if (!covers(date)) {
+            return null;
+        }
+        long[] mask = masks.get(seatDayKey(seatId, date.toEpochDay()));
+        return mask != null ? mask : EMPTY;
+    }
+
+    /**
+     * 一批座位某天的预约占用掩码，按 seatIds 的顺序平铺为 long[seatIds.length * 3]。
+     * 日期在窗口内时直接取缓存；窗口外用一次列式查询取回整个自习室当天的记录，而不是逐座位查询。
+     *
+     * @param roomId  座位所属自习室
+     * @param seatIds 升序排列的座位 ID
+     */
+    public long[] getRoomMasks(int roomId, LocalDate date, long[] seatIds) throws SQLException {
+        int words = BitmapUtil.MASK_WORDS;
+        long[] occupied = new long[seatIds.length * words];
+        ensureWindow(SlotClock.getInstance().today());
+        if (covers(date)) {
+            for (int i = 0; i < seatIds.length; i++) {
+                System.arraycopy(get(seatIds[i], date), 0, occupied, i * words, words);
+            }
+            return occupied;
+        }
+        UsageMaskColumns columns = usageRecordDAO.findMasksByRoomAndDate(roomId, date);
+        long[] rowSeats = columns.seatIds();
+        for (int row = 0; row < columns.size(); row++) {
+            int i = Arrays.binarySearch(seatIds, rowSeats[row]);
+            if (i >= 0) {
+                columns.orMaskInto(row, occupied, i * words);
+            }
+        }
+        return occupied;
+    }
+
+    /**
+     * 确保窗口从 today 开始：跨天后丢弃过去的日期，并只从数据库加载新进入窗口的日期。
+     * 窗口未变化时不访问数据库。
+     */
+    public synchronized void ensureWindow(LocalDate today) throws SQLException {
+        long start = today.toEpochDay();
+        if (windowDays == WINDOW_DAYS && windowStart == start) {
+            return;
+        }
+        if (windowDays == 0 || start >= windowStart + windowDays || start < windowStart) {
+            loadFromDatabase(today);
+            return;
+        }
+        long oldEnd = windowStart + windowDays;
+        masks.keySet().removeIf(key -> epochDayOf(key) < start);
+        windowStart = start;
+        windowDays = (int) (oldEnd - start);
+        extendTo(WINDOW_DAYS);
+    }
+
+    /**
+     * 清空后从数据库整体加载 [today, today + WINDOW_DAYS) 的所有预约
+     */
+    public synchronized void loadFromDatabase(LocalDate today) throws SQLException {
+        masks.clear();
+        windowStart = today.toEpochDay();
+        windowDays = 0;
+        LocalDate end = today.plusDays(WINDOW_DAYS - 1);
+        beginLoad(today, end);
+        try {
+            applyColumns(usageRecordDAO.findMasksByDateRange(today, end));
+            windowDays = WINDOW_DAYS;
+        } finally {
+            endLoad();
+        }
+    }
+
+    /**
+     * 将窗口延长到 days 天，只加载新增日期的预约
+     */
+    synchronized void extendTo(int days) throws SQLException {
+        if (days <= windowDays) {
+            return;
+        }
+        LocalDate from = LocalDate.ofEpochDay(windowStart + windowDays);
+        LocalDate to = LocalDate.ofEpochDay(windowStart + days - 1);
+        beginLoad(from, to);
+        try {
+            applyColumns(usageRecordDAO.findMasksByDateRange(from, to));
+            windowDays = days;
+        } finally {
+            endLoad();
+        }
+    }
+
+    /** 开始加载 [from, to]：此后到达的、落在该范围内的变化暂存，由 endLoad 重放 */
+    private void beginLoad(LocalDate from, LocalDate to) {
+        synchronized (loadLock) {
+            deferred = new ArrayList<>();
+            loadingFrom = from.toEpochDay();
+            loadingTo = to.toEpochDay();
+        }
+    }
+
+    /** 结束加载并重放暂存的变化；加载失败时窗口不覆盖这些日期，重放会自然忽略它们 */
+    private void endLoad() {
+        List<SeatChangeEvent> events;
+        synchronized (loadLock) {
+            events = deferred;
+            deferred = null;
+        }
+        for (SeatChangeEvent event : events) {
+            try {
+                apply(event);
+            } catch (DataAccessException e) {
+                System.err.println("[OccupancyCache] 重放占用变化失败: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 用快照中的内容替换整个缓存（由 OccupancySnapshotService 调用）
+     *
+     * @param start   窗口起始日（epochDay）
+     * @param days    窗口天数
+     * @param entries key = seatDayKey，value = 占用掩码
+     */
+    synchronized void install(long start, int days, Map<Long, long[]> entries) {
+        masks.clear();
+        masks.putAll(entries);
+        windowStart = start;
+        windowDays = days;
+    }
+
+    /** 将若干条预约记录合并到缓存（窗口外的记录忽略） */
+    void applyRecords(List<UsageRecord> records) {
+        long start = windowStart;
+        for (UsageRecord r : records) {
+            long day = r.getRecordDate().toEpochDay();
+            if (day >= start && day < start + WINDOW_DAYS) {
+                orInto(seatDayKey(r.getSeatId(), day), BitmapUtil.toOccupiedMask(r.getTimeBitmap()));
+            }
+        }
+    }
+
+    /** 将列式读取的预约占用合并到缓存（窗口外的行忽略） */
+    private void applyColumns(UsageMaskColumns columns) {
+        long start = windowStart;
+        long[] seatIds = columns.seatIds();
+        int[] days = columns.epochDays();
+        long[] delta = new long[BitmapUtil.MASK_WORDS];
+        for (int row = 0; row < columns.size(); row++) {
+            long day = days[row];
+            if (day >= start && day < start + WINDOW_DAYS) {
+                Arrays.fill(delta, 0L);
+                columns.orMaskInto(row, delta, 0);
+                orInto(seatDayKey(seatIds[row], day), delta);
+            }
+        }
+    }
+
+    /** 当前某座位某天的掩码，不存在时返回 null（供写快照使用，不检查窗口） */
+    long[] peek(long seatId, long epochDay) {
+        return masks.get(seatDayKey(seatId, epochDay));
+    }
+
+    private void onSeatChange(SeatChangeEvent event) {
+        if (event.isRoomWide()) {
+            return;
+        }
+        long day = event.getDate().toEpochDay();
+        synchronized (loadLock) {
+            if (deferred != null && day >= loadingFrom && day <= loadingTo) {
+                deferred.add(event);
+                return;
+            }
+        }
+        apply(event);
+    }
+
+    private void apply(SeatChangeEvent event) {
+        if (!covers(event.getDate())) {
+            return;
+        }
+        long key = seatDayKey(event.getSeatId(), event.getDate().toEpochDay());
+        switch (event.getKind()) {
+            case RESERVED:
+                orInto(key, event.getDeltaMask());
+                break;
+            case RELEASED: {
+                // 释放的时段可能仍被同一座位的其它记录占用；只清除库中已无记录覆盖的释放位，
+                // 其余位（包括预约引擎已接受、尚未落库的预约）保持不变
+                long[] stored;
+                try {
+                    stored = usageRecordDAO.findOccupiedMask(event.getSeatId(), event.getDate());
+                } catch (SQLException e) {
+                    // 无法确认时丢弃该条目会被误判为全空，只能整体作废窗口，让下次访问重新加载
+                    windowDays = 0;
+                    throw new DataAccessException("刷新座位占用缓存时发生数据库错误", e);
+                }
+                long[] delta = event.getDeltaMask();
+                masks.computeIfPresent(key, (k, old) -> {
+                    long[] next = old.clone();
+                    boolean empty = true;
+                    for (int w = 0; w < next.length; w++) {
+                        next[w] &= ~(delta[w] & ~stored[w]);
+                        empty &= next[w] == 0;
+                    }
+                    return empty ? null : next;
+                });
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    private void orInto(long key, long[] delta) {
+        masks.compute(key, (k, old) -> {
+            long[] merged = old != null ? old.clone() : new long[BitmapUtil.MASK_WORDS];
+            for (int w = 0; w < merged.length; w++) {
+                merged[w] |= delta[w];
+            }
+            return merged;
+        });
+    }
+
+    /** 将 (seatId, epochDay) 打包为一个 long：高位为座位 ID，低 24 位为日期 */
+    static long seatDayKey(long seatId, long epochDay) {
+        return (seatId << 24) | epochDay;
+    }
+
+    static long epochDayOf(long key) {
+        return key & 0xFFFFFFL;
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.seatmanager.service;
+
+import com.example.seatmanager.dao.SeatDAO;
+import com.example.seatmanager.dao.UsageRecordDAO;
+import com.example.seatmanager.util.BitmapUtil;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * OccupancySnapshotService：把 OccupancyCache 写成定长二进制快照，并在启动时映射回内存。
+ *
+ * 文件布局（小端）：
+ * <pre>
+ *   0  int   魔数 "SMOC"
+ *   4  int   版本号
+ *   8  long  窗口起始日（epochDay）
+ *  16  int   窗口天数 days
+ *  20  int   座位数 seatCount
+ *  24  long  水位：写快照时的最大 record_id
+ *  32  long  窗口内 record_id ≤ 水位的记录条数
+ *  40  long  窗口内 record_id ≤ 水位的 record_id 之和
+ *  48  long  CRC32（从 64 字节起到文件末尾）
+ *  56  long  写入时间（毫秒）
+ *  64  long[seatCount]              座位序号索引：升序的 seat_id
+ *      long[seatCount * days * 3]   第 s 个座位第 d 天的占用掩码
+ * </pre>
+ *
+ * 加载时先校验魔数、版本与 CRC，再用水位之内的记录条数与 ID 之和比对数据库：
+ * 快照之后有预约被取消（记录被删除）时比对失败，整体回退到从数据库加载；
+ * 比对通过则只补放 record_id 大于水位的新预约。
+ */
+public class OccupancySnapshotService {
+
+    private static final int MAGIC = 0x534D4F43;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+
+    private final SeatDAO seatDAO = new SeatDAO();
+    private final UsageRecordDAO usageRecordDAO = new UsageRecordDAO();
+    private final OccupancyCache cache = OccupancyCache.getInstance();
+
+    /** 快照默认路径，可通过系统属性 seatmanager.snapshot.path 指定 */
+    public static Path defaultPath() {
+        return Paths.get(System.getProperty("seatmanager.snapshot.path", "embeddedDB/occupancy.snapshot"));
+    }
+
+    /**
+     * 将当前缓存写入快照文件（先写临时文件再原子替换）
+     *
+     * @throws DataAccessException 如果查询水位时数据库出错
+     * @throws IllegalStateException 如果写文件失败
+     */
+    public void save(Path file) {
+        if (cache.getWindowDays() == 0) {
+            return;
+        }
+        try {
+            long start = cache.getWindowStart();
+            int days = cache.getWindowDays();
+            // 先取水位再复制缓存：其间新增的预约 ID 大于水位，恢复时会被重放（按位或，重复无害）
+            long maxRecordId = usageRecordDAO.findMaxRecordId();
+            long[] watermark = usageRecordDAO.findWatermark(
+                    LocalDate.ofEpochDay(start), LocalDate.ofEpochDay(start + days - 1), maxRecordId);
+            long[] seatIds = seatDAO.findAllIds();
+
+            long size = HEADER_BYTES + 8L * seatIds.length * (1 + (long) days * BitmapUtil.MASK_WORDS);
+            Path dir = file.toAbsolutePath().getParent();
+            if (dir != null) {
+                Files.createDirectories(dir);
+            }
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buf.order(ByteOrder.LITTLE_ENDIAN);
+                buf.position(HEADER_BYTES);
+                for (long seatId : seatIds) {
+                    buf.putLong(seatId);
+                }
+                for (long seatId : seatIds) {
+                    for (int d = 0; d < days; d++) {
+                        long[] mask = cache.peek(seatId, start + d);
+                        for (int w = 0; w < BitmapUtil.MASK_WORDS; w++) {
+                            buf.putLong(mask != null ? mask[w] : 0L);
+                        }
+                    }
+                }
+                CRC32 crc = new CRC32();
+                buf.position(HEADER_BYTES);
+                crc.update(buf);
+
+                buf.putInt(0, MAGIC);
+                buf.putInt(4, VERSION);
+                buf.putLong(8, start);
+                buf.putInt(16, days);
+                buf.putInt(20, seatIds.length);
+                buf.putLong(24, maxRecordId);
+                buf.putLong(32, watermark[0]);
+                buf.putLong(40, watermark[1]);
+                buf.putLong(48, crc.getValue());
+                buf.putLong(56, System.currentTimeMillis());
+                buf.force();
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (SQLException e) {
+            throw new DataAccessException("写入占用快照时发生数据库错误", e);
+        } catch (IOException e) {
+            throw new IllegalStateException("写入占用快照失败: " + file, e);
+        }
+    }
+
+    /**
+     * 启动时恢复缓存：快照可用则映射回内存并只补放新预约，否则整体从数据库加载。
+     *
+     * @return true 表示使用了快照
+     * @throws DataAccessException 如果数据库操作出错
+     */
+    public boolean restore(Path file, LocalDate today) {
+        try {
+            if (restoreFromSnapshot(file, today)) {
+                return true;
+            }
+            cache.loadFromDatabase(today);
+            return false;
+        } catch (SQLException e) {
+            throw new DataAccessException("恢复占用缓存时发生数据库错误", e);
+        }
+    }
+
+    private boolean restoreFromSnapshot(Path file, LocalDate today) throws SQLException {
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < HEADER_BYTES) {
+                return reject(file, "文件过短");
+            }
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            if (buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION) {
+                return reject(file, "魔数或版本不符");
+            }
+            long start = buf.getLong(8);
+            int days = buf.getInt(16);
+            int seatCount = buf.getInt(20);
+            long maxRecordId = buf.getLong(24);
+            if (days <= 0 || seatCount < 0
+                    || size != HEADER_BYTES + 8L * seatCount * (1 + (long) days * BitmapUtil.MASK_WORDS)) {
+                return reject(file, "长度与头部不符");
+            }
+            CRC32 crc = new CRC32();
+            buf.position(HEADER_BYTES);
+            crc.update(buf);
+            if (crc.getValue() != buf.getLong(48)) {
+                return reject(file, "校验和不符");
+            }
+
+            // 与数据库水位比对：水位之内的记录必须与写快照时完全一致
+            long[] watermark = usageRecordDAO.findWatermark(
+                    LocalDate.ofEpochDay(start), LocalDate.ofEpochDay(start + days - 1), maxRecordId);
+            if (watermark[0] != buf.getLong(32) || watermark[1] != buf.getLong(40)
+                    || usageRecordDAO.findMaxRecordId() < maxRecordId) {
+                return reject(file, "数据库水位已变化");
+            }
+
+            // 只取快照中与今天起的窗口重叠的日期
+            long windowStart = today.toEpochDay();
+            long overlapEnd = Math.min(start + days, windowStart + OccupancyCache.WINDOW_DAYS);
+            if (overlapEnd <= windowStart || start > windowStart) {
+                return reject(file, "快照窗口已过期");
+            }
+            int firstDay = (int) (windowStart - start);
+            Map<Long, long[]> entries = new HashMap<>();
+            int maskBase = HEADER_BYTES + 8 * seatCount;
+            for (int s = 0; s < seatCount; s++) {
+                long seatId = buf.getLong(HEADER_BYTES + 8 * s);
+                for (int d = firstDay; d < overlapEnd - start; d++) {
+                    int off = maskBase + ((s * days + d) * BitmapUtil.MASK_WORDS) * 8;
+                    long w0 = buf.getLong(off);
+                    long w1 = buf.getLong(off + 8);
+                    long w2 = buf.getLong(off + 16);
+                    if ((w0 | w1 | w2) != 0) {
+                        entries.put(OccupancyCache.seatDayKey(seatId, start + d), new long[] {w0, w1, w2});
+                    }
+                }
+            }
+            int overlapDays = (int) (overlapEnd - windowStart);
+            cache.install(windowStart, overlapDays, entries);
+
+            // 补放快照之后的新预约，再加载快照未覆盖的新日期
+            cache.applyRecords(usageRecordDAO.findByDateRange(
+                    today, LocalDate.ofEpochDay(overlapEnd - 1), maxRecordId));
+            cache.extendTo(OccupancyCache.WINDOW_DAYS);
+            return true;
+        } catch (IOException e) {
+            return reject(file, e.toString());
+        }
+    }
+
+    private static boolean reject(Path file, String reason) {
+        System.err.println("[OccupancySnapshot] 忽略快照 " + file + "：" + reason);
+        return false;
+    }
+}
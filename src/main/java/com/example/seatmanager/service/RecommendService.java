@@ -1,10 +1,9 @@
 package com.example.seatmanager.service;
 
 import com.example.seatmanager.dao.SeatDAO;
-import com.example.seatmanager.dao.UsageRecordDAO;
 import com.example.seatmanager.entity.Seat;
-import com.example.seatmanager.entity.UsageRecord;
 import com.example.seatmanager.util.BitmapUtil;
+import com.example.seatmanager.util.SlotClock;
 
 import java.sql.SQLException;
 import java.time.LocalDate;
@@ -17,7 +16,7 @@ import java.util.stream.Collectors;
 public class RecommendService {
 
     private final SeatDAO seatDAO = new SeatDAO();
-    private final UsageRecordDAO usageRecordDAO = new UsageRecordDAO();
+    private final OccupancyCache occupancyCache = OccupancyCache.getInstance();
 
     /**
      * 获取推荐座位列表（按综合权重排序后返回前 topN）
@@ -41,29 +40,25 @@ public class RecommendService {
             // 1. 根据属性筛选候选座位
             List<Seat> candidates = seatDAO.findByAttributes(roomId, needWindow, needDoor, needSocket);
 
-            // 2. 计算每个座位的“可用时段数量”与“附加分”
-            Map<Seat, Integer> weightMap = new HashMap<>();
-            for (Seat seat : candidates) {
-                // 2.1 查询该座位当天所有预约记录
-                List<UsageRecord> records = usageRecordDAO.findBySeatAndDate(seat.getSeatId(), date);
+            // 2. 候选座位当天的预约占用：窗口内取内存缓存，窗口外一次列式查询整个自习室
+            long[] seatIds = new long[candidates.size()];
+            for (int c = 0; c < seatIds.length; c++) {
+                seatIds[c] = candidates.get(c).getSeatId();
+            }
+            long[] occupied = occupancyCache.getRoomMasks(roomId, date, seatIds);
+            long[] past = SlotClock.getInstance().pastMask(date);
 
-                // 2.2 合并位图，计算可用时段数量
-                boolean[] allAvail = new boolean[192];
-                Arrays.fill(allAvail, true); // 初始假设全天可用
-                for (UsageRecord r : records) {
-                    boolean[] avail = BitmapUtil.binaryToAvailability(r.getTimeBitmap());
-                    for (int i = 0; i < 192; i++) {
-                        if (!avail[i]) {
-                            allAvail[i] = false; // 已被占用
-                        }
-                    }
-                }
-                int availableCount = 0;
-                for (boolean b : allAvail) {
-                    if (b) availableCount++;
+            // 3. 计算每个座位的“可用时段数量”与“附加分”
+            Map<Seat, Integer> weightMap = new HashMap<>();
+            for (int c = 0; c < candidates.size(); c++) {
+                Seat seat = candidates.get(c);
+                // 3.1 可用时段数量 = 总时段数 − 占用位数（已经结束的时段也算占用）
+                int availableCount = 192;
+                for (int w = 0; w < BitmapUtil.MASK_WORDS; w++) {
+                    availableCount -= Long.bitCount(occupied[c * BitmapUtil.MASK_WORDS + w] | past[w]);
                 }
 
-                // 2.3 计算附加分：靠窗 +2，靠门 +1，靠插座 +3（示例分值，可根据实际调整）
+                // 3.2 计算附加分：靠窗 +2，靠门 +1，靠插座 +3（示例分值，可根据实际调整）
                 int bonus = 0;
                 if (seat.isNearWindow()) bonus += 2;
                 if (seat.isNearDoor())   bonus += 1;
@@ -73,7 +68,7 @@ public class RecommendService {
                 weightMap.put(seat, weight);
             }
 
-            // 3. 按权重降序排序，取前 topN
+            // 4. 按权重降序排序，取前 topN
             return weightMap.entrySet().stream()
                     .sorted(Map.Entry.<Seat, Integer>comparingByValue(Comparator.reverseOrder()))
                     .limit(topN)
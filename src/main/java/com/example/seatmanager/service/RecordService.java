@@ -1,7 +1,10 @@
 package com.example.seatmanager.service;
 
+import com.example.seatmanager.dao.SeatDAO;
 import com.example.seatmanager.dao.UsageRecordDAO;
+import com.example.seatmanager.entity.Seat;
 import com.example.seatmanager.entity.UsageRecord;
+import com.example.seatmanager.util.BitmapUtil;
 
 import java.sql.SQLException;
 import java.util.List;
@@ -12,6 +15,7 @@ import java.util.List;
 public class RecordService {
 
     private final UsageRecordDAO usageRecordDAO = new UsageRecordDAO();
+    private final SeatDAO seatDAO = new SeatDAO();
 
     /**
      * 获取某学生所有预约记录，按 record_date DESC、record_id DESC 排序
@@ -28,6 +32,34 @@ public class RecordService {
         }
     }
 
+    /**
+     * 统计某学生的预约记录条数，供记录表格确定总行数
+     *
+     * @throws DataAccessException 如果底层数据库操作发生错误
+     */
+    public int countRecordsByStudent(String studentId) {
+        try {
+            return usageRecordDAO.countByStudent(studentId);
+        } catch (SQLException e) {
+            throw new DataAccessException("统计学生预约记录失败", e);
+        }
+    }
+
+    /**
+     * 分页获取某学生的预约记录，排序与 getRecordsByStudent 相同
+     *
+     * @param offset 跳过的行数
+     * @param limit  本页最多返回的行数
+     * @throws DataAccessException 如果底层数据库操作发生错误
+     */
+    public List<UsageRecord> getRecordPage(String studentId, int offset, int limit) {
+        try {
+            return usageRecordDAO.findPageByStudent(studentId, offset, limit);
+        } catch (SQLException e) {
+            throw new DataAccessException("分页查询学生预约记录失败", e);
+        }
+    }
+
     /**
      * 取消一条预约记录
      *
@@ -37,12 +69,29 @@ public class RecordService {
      */
     public boolean cancelRecord(long recordId) {
         try {
-            return usageRecordDAO.deleteById(recordId);
+            UsageRecord record = usageRecordDAO.findById(recordId);
+            boolean deleted = usageRecordDAO.deleteById(recordId);
+            if (deleted && record != null) {
+                publish(SeatChangeEvent.Kind.RELEASED, record);
+            }
+            return deleted;
         } catch (SQLException e) {
             throw new DataAccessException("取消预约记录失败", e);
         }
     }
 
+    /**
+     * 取消某学生自己的一条预约记录：记录不存在或不属于该学生时不做任何修改
+     *
+     * @param studentId 请求者学号
+     * @param recordId  记录 ID
+     * @return 如果删除成功返回 true；记录不存在或不属于该学生返回 false
+     * @throws DataAccessException 如果底层数据库操作发生错误
+     */
+    public boolean cancelRecord(String studentId, long recordId) {
+        return isOwner(studentId, recordId) && cancelRecord(recordId);
+    }
+
     /**
      * 签到：将使用记录的 signed 字段更新为 true
      *
@@ -52,9 +101,53 @@ public class RecordService {
      */
     public boolean signInRecord(long recordId) {
         try {
-            return usageRecordDAO.updateSigned(recordId, true);
+            boolean updated = usageRecordDAO.updateSigned(recordId, true);
+            if (updated) {
+                UsageRecord record = usageRecordDAO.findById(recordId);
+                if (record != null) {
+                    publish(SeatChangeEvent.Kind.SIGNED_IN, record);
+                }
+            }
+            return updated;
         } catch (SQLException e) {
             throw new DataAccessException("签到操作失败", e);
         }
     }
+
+    /**
+     * 某学生对自己的一条预约记录签到：记录不存在或不属于该学生时不做任何修改
+     *
+     * @param studentId 请求者学号
+     * @param recordId  记录 ID
+     * @return 如果更新成功返回 true；记录不存在或不属于该学生返回 false
+     * @throws DataAccessException 如果底层数据库操作发生错误
+     */
+    public boolean signInRecord(String studentId, long recordId) {
+        return isOwner(studentId, recordId) && signInRecord(recordId);
+    }
+
+    /**
+     * 辅助：记录存在且属于 studentId（记录的学号不会改变，检查后再操作不存在竞态）
+     */
+    private boolean isOwner(String studentId, long recordId) {
+        try {
+            UsageRecord record = usageRecordDAO.findById(recordId);
+            return record != null && record.getStudentId().equals(studentId);
+        } catch (SQLException e) {
+            throw new DataAccessException("查询预约记录失败", e);
+        }
+    }
+
+    /**
+     * 辅助：查出记录所属自习室后发布座位变化消息
+     */
+    private void publish(SeatChangeEvent.Kind kind, UsageRecord record) throws SQLException {
+        Seat seat = seatDAO.findById(record.getSeatId());
+        if (seat == null) {
+            return;
+        }
+        long[] delta = BitmapUtil.toOccupiedMask(record.getTimeBitmap());
+        SeatChangeBus.getInstance().publish(
+                new SeatChangeEvent(kind, seat.getRoomId(), record.getSeatId(), record.getRecordDate(), delta));
+    }
 }
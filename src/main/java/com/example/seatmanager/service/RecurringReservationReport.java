@@ -0,0 +1,40 @@
+package com.example.seatmanager.service;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RecurringReservationReport：一次周期预约的结果（不可变），逐日列出预约成功的日期与未能预约的原因。
+ */
+public class RecurringReservationReport {
+
+    /** 某一天未能预约的原因 */
+    public enum Conflict {
+        /** 时段在该日已经结束 */
+        PAST,
+        /** 自习室在该时段因事件关闭 */
+        ROOM_CLOSED,
+        /** 座位在该时段已被预约 */
+        RESERVED
+    }
+
+    private final List<LocalDate> booked;
+    private final Map<LocalDate, Conflict> conflicts;
+
+    RecurringReservationReport(List<LocalDate> booked, Map<LocalDate, Conflict> conflicts) {
+        this.booked = Collections.unmodifiableList(booked);
+        this.conflicts = Collections.unmodifiableMap(conflicts);
+    }
+
+    /** 预约成功的日期（升序） */
+    public List<LocalDate> getBooked() {
+        return booked;
+    }
+
+    /** 未能预约的日期及原因（按日期升序） */
+    public Map<LocalDate, Conflict> getConflicts() {
+        return conflicts;
+    }
+}
@@ -0,0 +1,732 @@
+package com.example.seatmanager.service;
+
+import com.example.seatmanager.dao.EventDAO;
+import com.example.seatmanager.dao.JdbcTemplate;
+import com.example.seatmanager.dao.UsageRecordDAO;
+import com.example.seatmanager.entity.Event;
+import com.example.seatmanager.entity.UsageRecord;
+import com.example.seatmanager.util.BitmapUtil;
+import com.example.seatmanager.util.SlotClock;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * ReservationEngine：可选的内存预约引擎（系统属性 seatmanager.engine=true 时启用）。
+ *
+ * 1. 每个（座位, 日期）的占用掩码以 AtomicReference&lt;long[3]&gt; 常驻内存，是预约判定的唯一依据，
+ *    接受/拒绝通过 CAS 完成，不访问数据库（首次访问某座位某天时从库中加载一次）
+ * 2. 被接受的预约追加写入本地日志文件；日志线程把同一时刻排队的多条预约合并为一次 write + fsync（组提交），
+ *    fsync 完成后调用方才返回成功
+ * 3. 落库线程把已持久化的预约按批写入 usage_record，并在同一事务中推进 engine_checkpoint；
+ *    连接中断等暂时性错误原批重试，个别记录违反约束（如座位或学生已被删除）时逐条写入，跳过并释放这些记录
+ * 4. 启动时先把日志中序号大于 checkpoint 的预约补写入库，再清空日志
+ * 5. SlotClock 跨日时丢弃今天以前的占用掩码（过去的日期已不能再预约）
+ *
+ * 启用后 ReserveService 的单座位预约与小组预约都经由引擎；取消、签到与事件仍走原有路径，
+ * 引擎通过 SeatChangeBus 同步它们对占用的影响。
+ */
+public class ReservationEngine {
+
+    public static final String ENGINE_ID = "default";
+
+    // 单次组提交最多合并的预约数
+    private static final int MAX_GROUP = 256;
+    // 单条日志记录的最大长度：长度(4) + 序号(8) + 座位(8) + 自习室(4) + 日期(8) + 区间(4) + 掩码(24) + 学号(1 + 64) + CRC(4)
+    private static final int MAX_RECORD_BYTES = 129;
+    private static final int MAX_STUDENT_ID_BYTES = 64;
+    private static final int DRAIN_BATCH = Integer.getInteger("seatmanager.engine.drainBatch", 500);
+    private static final long DRAIN_LINGER_MS = Long.getLong("seatmanager.engine.drainLingerMs", 20);
+    // 日志超过该长度且已全部落库时截断
+    private static final long COMPACT_BYTES = 4L << 20;
+
+    private static ReservationEngine instance;
+
+    private final Path journalPath;
+    private final UsageRecordDAO usageRecordDAO = new UsageRecordDAO();
+    private final EventDAO eventDAO = new EventDAO();
+
+    // key = OccupancyCache.seatDayKey(seatId, epochDay)
+    private final ConcurrentHashMap<Long, AtomicReference<long[]>> seatMasks = new ConcurrentHashMap<>();
+    // key = OccupancyCache.seatDayKey(roomId, epochDay)，value = 事件占用掩码；事件变化时作废
+    private final ConcurrentHashMap<Long, long[]> roomClosedMasks = new ConcurrentHashMap<>();
+
+    private final LinkedBlockingQueue<Entry> journalQueue = new LinkedBlockingQueue<>();
+    private final LinkedBlockingQueue<Entry> drainQueue = new LinkedBlockingQueue<>();
+    // 读锁：入队；写锁：停止引擎。保证停止后不会再有预约进入日志队列
+    private final ReentrantReadWriteLock lifecycle = new ReentrantReadWriteLock();
+    private final SeatChangeBus.Listener busListener = this::onSeatChange;
+    private final SlotClock.Listener clockListener = this::onSlotBoundary;
+
+    private FileChannel journal;
+    private Thread journalThread;
+    private Thread drainThread;
+    private volatile boolean running;
+    // 仅由日志线程修改
+    private long lastSeq;
+    private volatile long drainedSeq;
+    // 已清理到的日期（epochDay），早于它的掩码都已丢弃；仅由 SlotClock 线程修改
+    private long evictedBefore;
+
+    /** 一条已接受的预约 */
+    private static final class Entry {
+        long seq;
+        final UsageRecord record;
+        final int roomId;
+        final long[] mask;
+        final CompletableFuture<Void> synced = new CompletableFuture<>();
+
+        Entry(UsageRecord record, int roomId, long[] mask) {
+            this.record = record;
+            this.roomId = roomId;
+            this.mask = mask;
+        }
+    }
+
+    public ReservationEngine(Path journalPath) {
+        this.journalPath = journalPath;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean("seatmanager.engine");
+    }
+
+    /** 日志默认路径，可通过系统属性 seatmanager.engine.journal 指定 */
+    public static Path defaultJournalPath() {
+        return Paths.get(System.getProperty("seatmanager.engine.journal", "embeddedDB/reservation.journal"));
+    }
+
+    /**
+     * 启用时启动全局引擎（含崩溃恢复），未启用时什么也不做
+     *
+     * @return 全局引擎；未启用时返回 null
+     */
+    public static synchronized ReservationEngine startIfEnabled() {
+        if (instance == null && isEnabled()) {
+            ReservationEngine engine = new ReservationEngine(defaultJournalPath());
+            engine.start();
+            instance = engine;
+        }
+        return instance;
+    }
+
+    /** 全局引擎；未启用或已停止时返回 null */
+    public static synchronized ReservationEngine current() {
+        return instance;
+    }
+
+    /** 停止全局引擎：等待所有已接受的预约落库 */
+    public static synchronized void shutdownCurrent() {
+        if (instance != null) {
+            instance.stop();
+            instance = null;
+        }
+    }
+
+    /**
+     * 崩溃恢复后启动日志线程与落库线程
+     *
+     * @throws DataAccessException 如果恢复时数据库出错
+     * @throws IllegalStateException 如果日志文件无法读写
+     */
+    public void start() {
+        try {
+            Path dir = journalPath.toAbsolutePath().getParent();
+            if (dir != null) {
+                Files.createDirectories(dir);
+            }
+            journal = FileChannel.open(journalPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            recover();
+        } catch (SQLException e) {
+            throw new DataAccessException("恢复预约日志时发生数据库错误", e);
+        } catch (IOException e) {
+            throw new IllegalStateException("无法打开预约日志: " + journalPath, e);
+        }
+        drainedSeq = lastSeq;
+        running = true;
+        SeatChangeBus.getInstance().subscribe(busListener);
+        SlotClock.getInstance().subscribe(clockListener);
+        journalThread = new Thread(this::journalLoop, "reservation-journal");
+        drainThread = new Thread(this::drainLoop, "reservation-drain");
+        journalThread.setDaemon(true);
+        drainThread.setDaemon(true);
+        journalThread.start();
+        drainThread.start();
+    }
+
+    /** 停止引擎：拒绝新的预约，写完并落库所有已排队的预约后关闭日志 */
+    public void stop() {
+        lifecycle.writeLock().lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+        } finally {
+            lifecycle.writeLock().unlock();
+        }
+        SeatChangeBus.getInstance().unsubscribe(busListener);
+        SlotClock.getInstance().unsubscribe(clockListener);
+        try {
+            journalThread.join();
+            drainThread.join();
+            journal.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("[ReservationEngine] 关闭日志失败: " + e);
+        }
+    }
+
+    /**
+     * 预约：在内存中判定并占用，写入日志并 fsync 后返回。
+     *
+     * @param record 待写入的预约（studentId、seatId、recordDate、timeBitmap 必填，start/end 可为 -1）
+     * @param roomId 座位所属自习室 ID
+     * @return 接受返回 true；与已有预约、事件或已经结束的时段冲突返回 false
+     * @throws IllegalArgumentException 如果学号超过日志记录允许的长度
+     * @throws IllegalStateException 如果引擎已停止
+     * @throws DataAccessException 如果首次加载座位占用时数据库出错，或日志写入失败
+     */
+    public boolean reserve(UsageRecord record, int roomId) {
+        if (record.getStudentId().getBytes(StandardCharsets.UTF_8).length > MAX_STUDENT_ID_BYTES) {
+            throw new IllegalArgumentException("student id too long: " + record.getStudentId());
+        }
+        long[] mask = BitmapUtil.toOccupiedMask(record.getTimeBitmap());
+        LocalDate date = record.getRecordDate();
+        if (BitmapUtil.intersects(SlotClock.getInstance().pastMask(date), mask)
+                || BitmapUtil.intersects(roomClosedMask(roomId, date), mask)) {
+            return false;
+        }
+        AtomicReference<long[]> ref = seatRef(record.getSeatId(), date);
+        if (!tryOccupy(ref, mask)) {
+            return false;
+        }
+
+        Entry entry = new Entry(record, roomId, mask);
+        lifecycle.readLock().lock();
+        try {
+            if (!running) {
+                release(ref, mask);
+                throw new IllegalStateException("reservation engine is stopped");
+            }
+            journalQueue.add(entry);
+        } finally {
+            lifecycle.readLock().unlock();
+        }
+        try {
+            awaitSynced(entry);
+        } catch (ExecutionException e) {
+            release(ref, mask);
+            throw new DataAccessException("写入预约日志失败", e.getCause());
+        }
+        SeatChangeBus.getInstance().publish(
+                new SeatChangeEvent(SeatChangeEvent.Kind.RESERVED, roomId, record.getSeatId(), date, mask));
+        return true;
+    }
+
+    /**
+     * 小组预约：同一自习室、同一天的一组座位要么全部接受，要么全部拒绝。
+     * 按 seat_id 升序逐个 CAS 占用，遇到冲突即释放已占用的座位；全部占用后一起写入日志并等待 fsync。
+     * 日志写入失败时已持久化的座位仍会落库，只释放未持久化的座位，并抛出异常。
+     *
+     * @param records 座位互不相同的预约（要求同 reserve）
+     * @param roomId  座位所属自习室 ID
+     * @return 全部接受返回 0；否则返回第一个冲突的座位 ID
+     * @throws IllegalArgumentException 如果学号超过日志记录允许的长度
+     * @throws IllegalStateException 如果引擎已停止
+     * @throws DataAccessException 如果首次加载座位占用时数据库出错，或日志写入失败
+     */
+    public long reserveAll(List<UsageRecord> records, int roomId) {
+        List<UsageRecord> sorted = new ArrayList<>(records);
+        sorted.sort(Comparator.comparingLong(UsageRecord::getSeatId));
+        List<Entry> entries = new ArrayList<>(sorted.size());
+        List<AtomicReference<long[]>> refs = new ArrayList<>(sorted.size());
+        for (UsageRecord record : sorted) {
+            if (record.getStudentId().getBytes(StandardCharsets.UTF_8).length > MAX_STUDENT_ID_BYTES) {
+                releaseAll(refs, entries);
+                throw new IllegalArgumentException("student id too long: " + record.getStudentId());
+            }
+            long[] mask = BitmapUtil.toOccupiedMask(record.getTimeBitmap());
+            AtomicReference<long[]> ref;
+            try {
+                if (BitmapUtil.intersects(SlotClock.getInstance().pastMask(record.getRecordDate()), mask)
+                        || BitmapUtil.intersects(roomClosedMask(roomId, record.getRecordDate()), mask)) {
+                    releaseAll(refs, entries);
+                    return record.getSeatId();
+                }
+                ref = seatRef(record.getSeatId(), record.getRecordDate());
+            } catch (DataAccessException e) {
+                releaseAll(refs, entries);
+                throw e;
+            }
+            if (!tryOccupy(ref, mask)) {
+                releaseAll(refs, entries);
+                return record.getSeatId();
+            }
+            refs.add(ref);
+            entries.add(new Entry(record, roomId, mask));
+        }
+
+        lifecycle.readLock().lock();
+        try {
+            if (!running) {
+                releaseAll(refs, entries);
+                throw new IllegalStateException("reservation engine is stopped");
+            }
+            journalQueue.addAll(entries);
+        } finally {
+            lifecycle.readLock().unlock();
+        }
+        Throwable failure = null;
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            try {
+                awaitSynced(entry);
+            } catch (ExecutionException e) {
+                release(refs.get(i), entry.mask);
+                failure = e.getCause();
+            }
+        }
+        for (Entry entry : entries) {
+            if (!entry.synced.isCompletedExceptionally()) {
+                SeatChangeBus.getInstance().publish(new SeatChangeEvent(SeatChangeEvent.Kind.RESERVED,
+                        roomId, entry.record.getSeatId(), entry.record.getRecordDate(), entry.mask));
+            }
+        }
+        if (failure != null) {
+            throw new DataAccessException("写入预约日志失败", failure);
+        }
+        return 0;
+    }
+
+    /**
+     * 等待日志线程 fsync 这条预约。已入队的预约无法撤回，被中断时继续等待，返回前恢复中断标志，
+     * 保证调用方看到成功时预约一定已经持久化。
+     *
+     * @throws ExecutionException 如果日志写入失败
+     */
+    private static void awaitSynced(Entry entry) throws ExecutionException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    entry.synced.get();
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** 已写入日志但尚未落库的预约数 */
+    public long getPendingCount() {
+        return drainQueue.size() + journalQueue.size();
+    }
+
+    // ---------------------------------------------------------------- 内存占用
+
+    // 首次访问时在映射之外查库，再 putIfAbsent：不在 ConcurrentHashMap 的桶锁内做 I/O，
+    // 并发加载同一键时以先放入的为准
+    private AtomicReference<long[]> seatRef(long seatId, LocalDate date) {
+        long key = OccupancyCache.seatDayKey(seatId, date.toEpochDay());
+        AtomicReference<long[]> ref = seatMasks.get(key);
+        if (ref != null) {
+            return ref;
+        }
+        long[] loaded;
+        try {
+            loaded = usageRecordDAO.findOccupiedMask(seatId, date);
+        } catch (SQLException e) {
+            throw new DataAccessException("加载座位占用时发生数据库错误", e);
+        }
+        ref = new AtomicReference<>(loaded);
+        AtomicReference<long[]> existing = seatMasks.putIfAbsent(key, ref);
+        return existing != null ? existing : ref;
+    }
+
+    private long[] roomClosedMask(int roomId, LocalDate date) {
+        long key = OccupancyCache.seatDayKey(roomId, date.toEpochDay());
+        long[] mask = roomClosedMasks.get(key);
+        if (mask != null) {
+            return mask;
+        }
+        mask = new long[BitmapUtil.MASK_WORDS];
+        try {
+            for (Event e : eventDAO.findByRoomAndDate(roomId, date)) {
+                orInPlace(mask, BitmapUtil.toOccupiedMask(e.getTimeBitmap()));
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("加载自习室事件时发生数据库错误", e);
+        }
+        long[] existing = roomClosedMasks.putIfAbsent(key, mask);
+        return existing != null ? existing : mask;
+    }
+
+    /** 跨日时丢弃今天以前的座位与事件掩码 */
+    private void onSlotBoundary(LocalDate today, long[] pastMask) {
+        long todayEpoch = today.toEpochDay();
+        if (todayEpoch <= evictedBefore) {
+            return;
+        }
+        seatMasks.keySet().removeIf(key -> OccupancyCache.epochDayOf(key) < todayEpoch);
+        roomClosedMasks.keySet().removeIf(key -> OccupancyCache.epochDayOf(key) < todayEpoch);
+        evictedBefore = todayEpoch;
+    }
+
+    /** 同步其它路径造成的占用变化；引擎自己发布的 RESERVED 再合并一次也无害 */
+    private void onSeatChange(SeatChangeEvent event) {
+        long epochDay = event.getDate().toEpochDay();
+        switch (event.getKind()) {
+            case RESERVED: {
+                AtomicReference<long[]> ref = seatMasks.get(OccupancyCache.seatDayKey(event.getSeatId(), epochDay));
+                if (ref != null) {
+                    ref.accumulateAndGet(event.getDeltaMask(), ReservationEngine::or);
+                }
+                break;
+            }
+            case RELEASED: {
+                AtomicReference<long[]> ref = seatMasks.get(OccupancyCache.seatDayKey(event.getSeatId(), epochDay));
+                if (ref != null) {
+                    release(ref, event.getDeltaMask());
+                }
+                break;
+            }
+            case ROOM_CLOSED:
+            case ROOM_REOPENED:
+                roomClosedMasks.remove(OccupancyCache.seatDayKey(event.getRoomId(), epochDay));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /** CAS 占用：与当前占用不相交时置位并返回 true */
+    private static boolean tryOccupy(AtomicReference<long[]> ref, long[] mask) {
+        while (true) {
+            long[] current = ref.get();
+            if (BitmapUtil.intersects(current, mask)) {
+                return false;
+            }
+            if (ref.compareAndSet(current, or(current, mask))) {
+                return true;
+            }
+        }
+    }
+
+    private static void releaseAll(List<AtomicReference<long[]>> refs, List<Entry> entries) {
+        for (int i = 0; i < refs.size(); i++) {
+            release(refs.get(i), entries.get(i).mask);
+        }
+    }
+
+    private static void release(AtomicReference<long[]> ref, long[] mask) {
+        ref.updateAndGet(current -> {
+            long[] next = current.clone();
+            for (int w = 0; w < next.length; w++) {
+                next[w] &= ~mask[w];
+            }
+            return next;
+        });
+    }
+
+    private static long[] or(long[] a, long[] b) {
+        long[] result = a.clone();
+        orInPlace(result, b);
+        return result;
+    }
+
+    private static void orInPlace(long[] target, long[] mask) {
+        for (int w = 0; w < BitmapUtil.MASK_WORDS; w++) {
+            target[w] |= mask[w];
+        }
+    }
+
+    // ---------------------------------------------------------------- 日志（组提交）
+
+    private void journalLoop() {
+        ByteBuffer buf = ByteBuffer.allocateDirect(MAX_GROUP * MAX_RECORD_BYTES);
+        List<Entry> group = new ArrayList<>(MAX_GROUP);
+        while (running || !journalQueue.isEmpty()) {
+            Entry first;
+            try {
+                first = journalQueue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (first == null) {
+                compactIfDrained();
+                continue;
+            }
+            group.add(first);
+            journalQueue.drainTo(group, MAX_GROUP - 1);
+
+            long seq = lastSeq;
+            buf.clear();
+            for (Entry e : group) {
+                e.seq = ++seq;
+                encode(buf, e);
+            }
+            buf.flip();
+            long rollbackPosition = -1;
+            try {
+                rollbackPosition = journal.position();
+                while (buf.hasRemaining()) {
+                    journal.write(buf);
+                }
+                journal.force(false);
+                lastSeq = seq;
+                for (Entry e : group) {
+                    drainQueue.add(e);
+                    e.synced.complete(null);
+                }
+            } catch (IOException ex) {
+                // 丢弃写了一半的记录，这一组全部失败，序号不前进
+                try {
+                    if (rollbackPosition >= 0) {
+                        journal.truncate(rollbackPosition);
+                        journal.position(rollbackPosition);
+                    }
+                } catch (IOException ignored) {
+                    // 恢复时会在第一条校验失败的记录处停止
+                }
+                for (Entry e : group) {
+                    e.synced.completeExceptionally(ex);
+                }
+            }
+            group.clear();
+        }
+    }
+
+    /** 所有日志均已落库且文件过长时从头开始写 */
+    private void compactIfDrained() {
+        try {
+            if (drainedSeq == lastSeq && journal.position() > COMPACT_BYTES) {
+                journal.truncate(0);
+                journal.position(0);
+                journal.force(true);
+            }
+        } catch (IOException e) {
+            System.err.println("[ReservationEngine] 截断日志失败: " + e);
+        }
+    }
+
+    private static void encode(ByteBuffer buf, Entry e) {
+        UsageRecord r = e.record;
+        byte[] sid = r.getStudentId().getBytes(StandardCharsets.UTF_8);
+        int start = buf.position();
+        int bodyLength = 8 + 8 + 4 + 8 + 4 + 8 * BitmapUtil.MASK_WORDS + 1 + sid.length;
+        buf.putInt(bodyLength);
+        buf.putLong(e.seq);
+        buf.putLong(r.getSeatId());
+        buf.putInt(e.roomId);
+        buf.putLong(r.getRecordDate().toEpochDay());
+        buf.putShort((short) r.getStartSlot());
+        buf.putShort((short) r.getEndSlot());
+        for (long word : e.mask) {
+            buf.putLong(word);
+        }
+        buf.put((byte) sid.length);
+        buf.put(sid);
+        CRC32 crc = new CRC32();
+        ByteBuffer body = buf.duplicate();
+        body.position(start + 4).limit(start + 4 + bodyLength);
+        crc.update(body);
+        buf.putInt((int) crc.getValue());
+    }
+
+    /**
+     * 从 buf 当前位置解码一条记录
+     *
+     * @return 记录；到达文件末尾或记录不完整、校验失败时返回 null
+     */
+    private static Entry decode(ByteBuffer buf) {
+        if (buf.remaining() < 4) {
+            return null;
+        }
+        int start = buf.position();
+        int bodyLength = buf.getInt();
+        if (bodyLength <= 0 || bodyLength > MAX_RECORD_BYTES || buf.remaining() < bodyLength + 4) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        ByteBuffer body = buf.duplicate();
+        body.position(start + 4).limit(start + 4 + bodyLength);
+        crc.update(body);
+        if ((int) crc.getValue() != buf.getInt(start + 4 + bodyLength)) {
+            return null;
+        }
+        long seq = buf.getLong();
+        UsageRecord r = new UsageRecord();
+        r.setSeatId(buf.getLong());
+        int roomId = buf.getInt();
+        r.setRecordDate(LocalDate.ofEpochDay(buf.getLong()));
+        r.setStartSlot(buf.getShort());
+        r.setEndSlot(buf.getShort());
+        long[] mask = new long[BitmapUtil.MASK_WORDS];
+        for (int w = 0; w < mask.length; w++) {
+            mask[w] = buf.getLong();
+        }
+        byte[] sid = new byte[buf.get()];
+        buf.get(sid);
+        buf.getInt();
+        r.setStudentId(new String(sid, StandardCharsets.UTF_8));
+        r.setSigned(false);
+        r.setTimeBitmap(BitmapUtil.fromOccupiedMask(mask));
+        Entry e = new Entry(r, roomId, mask);
+        e.seq = seq;
+        return e;
+    }
+
+    /**
+     * 崩溃恢复：把日志中序号大于 checkpoint 的预约补写入库，然后清空日志。
+     * 日志尾部写了一半的记录（校验失败）视为未被接受，直接丢弃。
+     */
+    private void recover() throws IOException, SQLException {
+        long checkpoint = usageRecordDAO.findEngineCheckpoint(ENGINE_ID);
+        long size = journal.size();
+        List<Entry> pending = new ArrayList<>();
+        long maxSeq = checkpoint;
+        if (size > 0) {
+            ByteBuffer buf = ByteBuffer.allocate((int) size);
+            journal.read(buf, 0);
+            buf.flip();
+            Entry e;
+            while ((e = decode(buf)) != null) {
+                if (e.seq > checkpoint) {
+                    pending.add(e);
+                }
+                maxSeq = Math.max(maxSeq, e.seq);
+            }
+        }
+        if (!pending.isEmpty()) {
+            for (int i = 0; i < pending.size(); i += DRAIN_BATCH) {
+                int end = Math.min(pending.size(), i + DRAIN_BATCH);
+                List<Entry> batch = pending.subList(i, end);
+                List<UsageRecord> records = new ArrayList<>(end - i);
+                for (Entry e : batch) {
+                    records.add(e.record);
+                }
+                persist(batch, records, pending.get(end - 1).seq);
+            }
+            System.err.println("[ReservationEngine] 已从日志恢复 " + pending.size() + " 条未落库的预约");
+        }
+        journal.truncate(0);
+        journal.position(0);
+        journal.force(true);
+        lastSeq = maxSeq;
+    }
+
+    // ---------------------------------------------------------------- 异步落库
+
+    /**
+     * 写入一批预约并推进 checkpoint。整批写入遇到暂时性错误时原样抛出，由调用方重试；
+     * 其它错误多半由个别记录引起，改为逐条写入，跳过的记录释放其内存占用并通知各视图
+     *
+     * @throws SQLException 如果出现暂时性错误，或逐条写入时出现与具体记录无关的错误
+     */
+    private void persist(List<Entry> batch, List<UsageRecord> records, long lastSeq) throws SQLException {
+        try {
+            usageRecordDAO.insertBatch(records, ENGINE_ID, lastSeq);
+            return;
+        } catch (SQLException e) {
+            if (JdbcTemplate.isTransient(e)) {
+                throw e;
+            }
+            System.err.println("[ReservationEngine] 整批落库失败，改为逐条写入: " + e);
+        } catch (IllegalArgumentException e) {
+            System.err.println("[ReservationEngine] 整批落库失败，改为逐条写入: " + e);
+        }
+        Set<UsageRecord> skipped = Collections.newSetFromMap(new IdentityHashMap<>());
+        skipped.addAll(usageRecordDAO.insertEachSkippingInvalid(records, ENGINE_ID, lastSeq));
+        for (Entry e : batch) {
+            if (skipped.contains(e.record)) {
+                discard(e);
+            }
+        }
+    }
+
+    /** 放弃一条无法落库的预约：记录日志，释放引擎中的占用，并让其它视图撤销这次占用 */
+    private void discard(Entry e) {
+        UsageRecord r = e.record;
+        System.err.println("[ReservationEngine] 丢弃无法落库的预约 #" + e.seq + ": student=" + r.getStudentId()
+                + ", seat=" + r.getSeatId() + ", date=" + r.getRecordDate());
+        AtomicReference<long[]> ref = seatMasks.get(OccupancyCache.seatDayKey(r.getSeatId(), r.getRecordDate().toEpochDay()));
+        if (ref != null) {
+            release(ref, e.mask);
+        }
+        // 恢复阶段（在启动线程上）尚未发布过这些预约，不需要撤销
+        if (Thread.currentThread() == drainThread) {
+            SeatChangeBus.getInstance().publish(
+                    new SeatChangeEvent(SeatChangeEvent.Kind.RELEASED, e.roomId, r.getSeatId(), r.getRecordDate(), e.mask));
+        }
+    }
+
+    private void drainLoop() {
+        List<Entry> batch = new ArrayList<>(DRAIN_BATCH);
+        List<UsageRecord> records = new ArrayList<>(DRAIN_BATCH);
+        while (journalThread.isAlive() || !drainQueue.isEmpty()) {
+            Entry first;
+            try {
+                first = drainQueue.poll(DRAIN_LINGER_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            drainQueue.drainTo(batch, DRAIN_BATCH - 1);
+            for (Entry e : batch) {
+                records.add(e.record);
+            }
+            long batchLastSeq = batch.get(batch.size() - 1).seq;
+            // persist 只在与具体记录无关的错误（连接中断等）时抛出；日志已持久化，进程退出也不会丢失
+            while (true) {
+                try {
+                    persist(batch, records, batchLastSeq);
+                    break;
+                } catch (SQLException ex) {
+                    System.err.println("[ReservationEngine] 落库失败，稍后重试: " + ex);
+                    try {
+                        Thread.sleep(500);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+            drainedSeq = batchLastSeq;
+            batch.clear();
+            records.clear();
+        }
+    }
+}
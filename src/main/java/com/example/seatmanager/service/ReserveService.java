@@ -1,31 +1,51 @@
 package com.example.seatmanager.service;
 
-import com.example.seatmanager.dao.StudyRoomDAO;
+import com.example.seatmanager.dao.EventDAO;
+import com.example.seatmanager.dao.SeatDAO;
 import com.example.seatmanager.dao.UsageRecordDAO;
+import com.example.seatmanager.entity.Event;
+import com.example.seatmanager.entity.Seat;
 import com.example.seatmanager.entity.UsageRecord;
-import com.example.seatmanager.entity.StudyRoom;
 import com.example.seatmanager.util.BitmapUtil;
+import com.example.seatmanager.util.SlotCalendar;
+import com.example.seatmanager.util.SlotClock;
 
 import java.sql.SQLException;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.util.BitSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * ReserveService：手动预约业务逻辑层
  */
 public class ReserveService {
 
+    /** 小组预约一次最多的座位数 */
+    public static final int MAX_GROUP_SIZE = Integer.getInteger("seatmanager.group.maxSize", 12);
+    /** 周期预约的日期区间最多覆盖的天数 */
+    public static final int MAX_RECURRING_DAYS = Integer.getInteger("seatmanager.recurring.maxDays", 120);
+    // 提交时有座位被抢先预约，排除该座位后重新搜索的次数
+    private static final int GROUP_ATTEMPTS = 3;
+
     private final UsageRecordDAO usageRecordDAO = new UsageRecordDAO();
-    private final StudyRoomDAO studyRoomDAO = new StudyRoomDAO();
+    private final EventDAO eventDAO = new EventDAO();
+    private final SeatDAO seatDAO = new SeatDAO();
+    private final OccupancyCache occupancyCache = OccupancyCache.getInstance();
 
     /**
      * 检查某个座位在指定日期指定时候段是否可用。
      *
      * 逻辑：
-     * 1. 从数据库获取该座位在当天的所有 UsageRecord，遍历每条记录的 timeBitmap。
-     * 2. 将所有已占用的 bit 合并（BitSet.or），生成一个“已占用位图”。
-     * 3. 检查要预约的时段索引所在的 bit 是否为 true（可用）。
+     * 1. 从数据库取该座位当天所有预约合并后的占用掩码（long[3]，逐行直接或入，不构造 UsageRecord）。
+     * 2. 将 targetBitmap 中想要预约的时段转换为占用掩码。
+     * 3. 两个掩码按位与，不相交即可用。
      *
      * @param seatId      座位 ID
      * @param date        预约日期
@@ -36,71 +56,320 @@ public class ReserveService {
      */
     public boolean isSeatAvailable(long seatId, LocalDate date, byte[] targetBitmap) {
         try {
-            // 1. 获取该座位在当天的所有预约记录
-            List<UsageRecord> records = usageRecordDAO.findBySeatAndDate(seatId, date);
-            // 2. 合并所有已占用位图
-            BitSet occupied = new BitSet(192);
-            for (UsageRecord r : records) {
-                boolean[] avail = BitmapUtil.binaryToAvailability(r.getTimeBitmap());
-                for (int i = 0; i < 192; i++) {
-                    if (!avail[i]) {
-                        occupied.set(i); // 该时段被占用
-                    }
-                }
-            }
-            // 3. 检查 targetBitmap 中所有想要预约的 bit 都是可用（也就是 occupied 中对应位置都为 0）
-            boolean[] targetAvail = BitmapUtil.binaryToAvailability(targetBitmap);
-            for (int i = 0; i < 192; i++) {
-                if (!targetAvail[i] && occupied.get(i)) {
-                    // 如果 target 要 0（想要占用），但是 occupied 为 1（已占用），则冲突
-                    return false;
-                }
-            }
-            return true;
+            long[] occupied = usageRecordDAO.findOccupiedMask(seatId, date);
+            return !BitmapUtil.intersects(occupied, BitmapUtil.toOccupiedMask(targetBitmap));
         } catch (SQLException e) {
             throw new DataAccessException("检查座位可用时发生数据库错误", e);
         }
     }
 
     /**
-     * 创建一条新的预约记录并更新自习室空座位数。
+     * 创建一条新的预约记录。
      *
      * 逻辑：
      * 1. 插入 UsageRecord（studentId, seatId, recordDate, signed=false, timeBitmap）
-     * 2. 预约成功后，需将对应自习室的 freeSeatsCount 减 1
+     * 2. 通过 SeatChangeBus 通知已打开的示意图该座位的占用变化
+     *
+     * 自习室的实时空座数由 CampusDirectory 按时段统计，不再维护 study_room.free_seats_count。
      *
      * @param record 使用者构造好的 UsageRecord 实例（不含 recordId）
-     * @return 如果插入并更新自习室成功返回 true，否则 false
+     * @param roomId 座位所属自习室 ID
+     * @return 插入成功返回 true；时段已经结束或插入失败返回 false
+     * @throws IllegalArgumentException 如果 timeBitmap 中的占用时段不连续（一条记录只能表示一段区间）
      * @throws DataAccessException 如果底层数据库操作发生错误
      */
-    public boolean createReservation(UsageRecord record) {
+    public boolean createReservation(UsageRecord record, int roomId) {
+        long[] mask = BitmapUtil.toOccupiedMask(record.getTimeBitmap());
+        // 在进入引擎日志之前拒绝，落库时才发现就无法再回绝调用方
+        if (BitmapUtil.occupiedRuns(mask).size() > 1) {
+            throw new IllegalArgumentException("time bitmap is not a contiguous interval");
+        }
+        if (BitmapUtil.intersects(SlotClock.getInstance().pastMask(record.getRecordDate()), mask)) {
+            return false;
+        }
+        ReservationEngine engine = ReservationEngine.current();
+        if (engine != null) {
+            // 启用内存预约引擎时由引擎判定冲突、写日志并异步落库
+            return engine.reserve(record, roomId);
+        }
         try {
             // 1. 插入预约记录
             boolean inserted = usageRecordDAO.insert(record);
             if (!inserted) {
                 return false;
             }
-            // 2. 更新自习室空座位数
-            //    首先查询该自习室当前 freeSeatsCount
-            int roomId = usageRecordDAO.findById(record.getRecordId()).getSeatId() > 0 ?
-                    // 注意：record.getSeatId() 是 seatId，但我们需要查出该座位所属的自习室 roomId
-                    // 为了简化，这里假设前端传入 record 中已经包含正确的 seatId 和 recordDate
-                    // 后续你可以改为通过 SeatDAO 查 seatId 对应的 roomId 再查询
-                    0 : 0; // 这里留作 TODO：前端应先查出 seatId 所属的 roomId
-            // 由于实际业务中需要 SeatDAO 查出对应 roomId，这里示例只做伪码
-            // StudyRoom room = studyRoomDAO.findById(roomId);
-            // int newFree = room.getFreeSeatsCount() - 1;
-            // return studyRoomDAO.updateFreeSeatsCount(roomId, newFree);
-            return true; // 先返回 true，占位
+            // 2. 发布占用变化
+            publish(SeatChangeEvent.Kind.RESERVED, roomId, record);
+            return true;
         } catch (SQLException e) {
             throw new DataAccessException("创建预约记录失败", e);
         }
     }
 
+    /**
+     * 区间预约：一次预约 [startSlot, endSlot) 内的所有时段，整段只写一条 usage_record。
+     *
+     * 逻辑：
+     * 0. 区间与 SlotClock 的过期时段掩码相交（时段已经结束）直接拒绝
+     * 1. 合并自习室当天所有事件为一个占用掩码（long[3]），与区间掩码做一次按位与
+     * 2. 与其它预约的冲突由 UsageRecordDAO.insertIfFree 在库内以区间谓词判断，
+     *    检测与插入在同一事务中并持有座位行锁，不再把当天所有位图取回 Java 合并
+     * 3. 启用 ReservationEngine 时以上判定与写入都交给引擎在内存中完成
+     *
+     * @param studentId 学号
+     * @param seatId    座位 ID
+     * @param roomId    座位所属自习室 ID
+     * @param date      预约日期
+     * @param startSlot 起始时段（包含）
+     * @param endSlot   结束时段（不包含）
+     * @return 预约成功返回 true；区间与已有预约、事件冲突或时段已经结束返回 false
+     * @throws IllegalArgumentException 如果区间不在 SlotCalendar 范围内
+     * @throws DataAccessException 如果底层数据库操作发生错误
+     */
+    public boolean createIntervalReservation(String studentId, long seatId, int roomId,
+                                             LocalDate date, int startSlot, int endSlot) {
+        if (startSlot < 0 || endSlot > SlotCalendar.getDefault().getSlotCount() || startSlot >= endSlot) {
+            throw new IllegalArgumentException("invalid slot range [" + startSlot + ", " + endSlot + ")");
+        }
+        // 0. 已经结束的时段不可预约
+        long[] range = BitmapUtil.rangeMask(startSlot, endSlot);
+        if (BitmapUtil.intersects(SlotClock.getInstance().pastMask(date), range)) {
+            return false;
+        }
+        ReservationEngine engine = ReservationEngine.current();
+        if (engine != null) {
+            return engine.reserve(newIntervalRecord(studentId, seatId, date, startSlot, endSlot), roomId);
+        }
+        try {
+            // 1. 事件占用检查
+            long[] closed = new long[BitmapUtil.MASK_WORDS];
+            for (Event e : eventDAO.findByRoomAndDate(roomId, date)) {
+                orInto(closed, BitmapUtil.toOccupiedMask(e.getTimeBitmap()));
+            }
+            if (BitmapUtil.intersects(closed, range)) {
+                return false;
+            }
+            // 2. 库内区间冲突检测 + 整段写入一条记录
+            UsageRecord record = newIntervalRecord(studentId, seatId, date, startSlot, endSlot);
+            if (!usageRecordDAO.insertIfFree(record)) {
+                return false;
+            }
+            SeatChangeBus.getInstance().publish(
+                    new SeatChangeEvent(SeatChangeEvent.Kind.RESERVED, roomId, seatId, date, range));
+            return true;
+        } catch (SQLException e) {
+            throw new DataAccessException("创建区间预约失败", e);
+        }
+    }
+
+    /**
+     * 小组预约：在自习室内找出 groupSize 个在 [startSlot, endSlot) 内都空闲、彼此最靠近的座位，并一次性全部预约。
+     *
+     * 逻辑：
+     * 1. 事件占用与已经结束的时段合并为一个掩码，与区间掩码相交则整个自习室都不可用
+     * 2. 整个自习室的占用掩码一次取回（OccupancyCache），每个座位与区间掩码按位与为 0 即为候选，
+     *    由 SeatClusterFinder 按坐标在候选中找出最紧凑的一组
+     * 3. 整组在一个事务中写入：按 seat_id 升序锁住座位行后在库内检查区间重叠，任一座位冲突则整组不写；
+     *    启用 ReservationEngine 时改由引擎在内存中整组判定
+     * 4. 提交时发现某个座位已被抢先预约，则排除该座位重新搜索，最多 GROUP_ATTEMPTS 次
+     *
+     * 所有座位都记在发起预约的学生名下，每个座位一条 usage_record。
+     *
+     * @param studentId 发起预约的学号
+     * @param roomId    自习室 ID
+     * @param date      预约日期
+     * @param startSlot 起始时段（包含）
+     * @param endSlot   结束时段（不包含）
+     * @param groupSize 需要的座位数，1 ≤ groupSize ≤ MAX_GROUP_SIZE
+     * @return 预约到的座位（离簇中心座位由近到远）；没有足够的空闲座位时返回空列表
+     * @throws IllegalArgumentException 如果区间不在 SlotCalendar 范围内或人数不合法
+     * @throws DataAccessException 如果底层数据库操作发生错误
+     */
+    public List<Seat> createGroupReservation(String studentId, int roomId, LocalDate date,
+                                             int startSlot, int endSlot, int groupSize) {
+        if (startSlot < 0 || endSlot > SlotCalendar.getDefault().getSlotCount() || startSlot >= endSlot) {
+            throw new IllegalArgumentException("invalid slot range [" + startSlot + ", " + endSlot + ")");
+        }
+        if (groupSize < 1 || groupSize > MAX_GROUP_SIZE) {
+            throw new IllegalArgumentException("group size must be in [1, " + MAX_GROUP_SIZE + "]: " + groupSize);
+        }
+        try {
+            // 1. 事件占用与过期时段
+            long[] range = BitmapUtil.rangeMask(startSlot, endSlot);
+            long[] closed = SlotClock.getInstance().pastMask(date).clone();
+            for (Event e : eventDAO.findByRoomAndDate(roomId, date)) {
+                orInto(closed, BitmapUtil.toOccupiedMask(e.getTimeBitmap()));
+            }
+            if (BitmapUtil.intersects(closed, range)) {
+                return Collections.emptyList();
+            }
+
+            // 2. 整个自习室的预约占用（seat_id 升序）
+            List<Seat> seats = seatDAO.findByRoomId(roomId);
+            long[] seatIds = new long[seats.size()];
+            for (int i = 0; i < seatIds.length; i++) {
+                seatIds[i] = seats.get(i).getSeatId();
+            }
+            long[] occupied = occupancyCache.getRoomMasks(roomId, date, seatIds);
+            boolean[] excluded = new boolean[seats.size()];
+
+            ReservationEngine engine = ReservationEngine.current();
+            for (int attempt = 0; attempt < GROUP_ATTEMPTS; attempt++) {
+                List<Seat> group = findCluster(seats, occupied, excluded, range, groupSize);
+                if (group.isEmpty()) {
+                    return group;
+                }
+                List<UsageRecord> records = new ArrayList<>(group.size());
+                for (Seat seat : group) {
+                    records.add(newIntervalRecord(studentId, seat.getSeatId(), date, startSlot, endSlot));
+                }
+                // 3. 整组写入（引擎自行发布 RESERVED）
+                long conflict = engine != null
+                        ? engine.reserveAll(records, roomId)
+                        : usageRecordDAO.insertAllIfFree(records);
+                if (conflict == 0) {
+                    if (engine == null) {
+                        for (UsageRecord record : records) {
+                            SeatChangeBus.getInstance().publish(new SeatChangeEvent(
+                                    SeatChangeEvent.Kind.RESERVED, roomId, record.getSeatId(), date, range));
+                        }
+                    }
+                    return group;
+                }
+                // 4. 排除被抢先的座位后重试
+                int idx = Arrays.binarySearch(seatIds, conflict);
+                if (idx < 0) {
+                    return Collections.emptyList();
+                }
+                excluded[idx] = true;
+            }
+            return Collections.emptyList();
+        } catch (SQLException e) {
+            throw new DataAccessException("创建小组预约失败", e);
+        }
+    }
+
+    /**
+     * 周期预约：在 [from, to] 内每个属于 weekdays 的日期预约同一座位的同一区间，每天一条 usage_record。
+     *
+     * 逻辑：
+     * 1. 已经结束的日期（SlotClock）直接记为 PAST
+     * 2. 一次查询取回自习室在整个区间内的事件，按日期合并为占用掩码，与区间掩码相交的日期记为 ROOM_CLOSED
+     * 3. 其余日期交给 UsageRecordDAO.insertEachIfFree：一个事务内锁住座位行，一次查询取回该座位各天的占用掩码，
+     *    不冲突的日期批量插入，冲突的日期记为 RESERVED；不再逐日调用 isSeatAvailable
+     * 4. 启用 ReservationEngine 时第 3 步改为逐日交给引擎在内存中判定
+     *
+     * @param studentId 学号
+     * @param seatId    座位 ID
+     * @param roomId    座位所属自习室 ID
+     * @param from      起始日期（包含）
+     * @param to        结束日期（包含），区间不超过 MAX_RECURRING_DAYS 天
+     * @param weekdays  每周预约的星期，不能为空
+     * @param startSlot 起始时段（包含）
+     * @param endSlot   结束时段（不包含）
+     * @return 逐日的预约结果
+     * @throws IllegalArgumentException 如果区间、日期或星期不合法
+     * @throws DataAccessException 如果底层数据库操作发生错误
+     */
+    public RecurringReservationReport createRecurringReservation(String studentId, long seatId, int roomId,
+                                                                 LocalDate from, LocalDate to,
+                                                                 Set<DayOfWeek> weekdays,
+                                                                 int startSlot, int endSlot) {
+        if (startSlot < 0 || endSlot > SlotCalendar.getDefault().getSlotCount() || startSlot >= endSlot) {
+            throw new IllegalArgumentException("invalid slot range [" + startSlot + ", " + endSlot + ")");
+        }
+        long days = to.toEpochDay() - from.toEpochDay() + 1;
+        if (days < 1 || days > MAX_RECURRING_DAYS) {
+            throw new IllegalArgumentException("date span must be 1.." + MAX_RECURRING_DAYS + " days: " + from + " ~ " + to);
+        }
+        if (weekdays.isEmpty()) {
+            throw new IllegalArgumentException("no weekday selected");
+        }
+        long[] range = BitmapUtil.rangeMask(startSlot, endSlot);
+        List<LocalDate> booked = new ArrayList<>();
+        Map<LocalDate, RecurringReservationReport.Conflict> conflicts = new TreeMap<>();
+        try {
+            // 1 + 2. 过期日期与事件：事件按日期平铺为 closed[d * 3 .. d * 3 + 3)
+            int words = BitmapUtil.MASK_WORDS;
+            long[] closed = new long[(int) days * words];
+            for (Event e : eventDAO.findByRoomAndDateRange(roomId, from, to)) {
+                int d = (int) (e.getEventDate().toEpochDay() - from.toEpochDay());
+                BitmapUtil.orOccupiedInto(e.getTimeBitmap(), closed, d * words);
+            }
+            SlotClock clock = SlotClock.getInstance();
+            List<UsageRecord> records = new ArrayList<>();
+            for (int d = 0; d < days; d++) {
+                LocalDate date = from.plusDays(d);
+                if (!weekdays.contains(date.getDayOfWeek())) continue;
+                long pastHit = 0;
+                long closedHit = 0;
+                long[] past = clock.pastMask(date);
+                for (int w = 0; w < words; w++) {
+                    pastHit |= past[w] & range[w];
+                    closedHit |= closed[d * words + w] & range[w];
+                }
+                if (pastHit != 0) {
+                    conflicts.put(date, RecurringReservationReport.Conflict.PAST);
+                } else if (closedHit != 0) {
+                    conflicts.put(date, RecurringReservationReport.Conflict.ROOM_CLOSED);
+                } else {
+                    records.add(newIntervalRecord(studentId, seatId, date, startSlot, endSlot));
+                }
+            }
+
+            // 3 / 4. 预约冲突检测与写入
+            ReservationEngine engine = ReservationEngine.current();
+            if (engine != null) {
+                for (UsageRecord record : records) {
+                    if (engine.reserve(record, roomId)) {
+                        booked.add(record.getRecordDate());
+                    } else {
+                        conflicts.put(record.getRecordDate(), RecurringReservationReport.Conflict.RESERVED);
+                    }
+                }
+            } else {
+                Set<LocalDate> rejected = new HashSet<>();
+                for (UsageRecord record : usageRecordDAO.insertEachIfFree(records)) {
+                    rejected.add(record.getRecordDate());
+                    conflicts.put(record.getRecordDate(), RecurringReservationReport.Conflict.RESERVED);
+                }
+                for (UsageRecord record : records) {
+                    if (!rejected.contains(record.getRecordDate())) {
+                        booked.add(record.getRecordDate());
+                        SeatChangeBus.getInstance().publish(new SeatChangeEvent(
+                                SeatChangeEvent.Kind.RESERVED, roomId, seatId, record.getRecordDate(), range));
+                    }
+                }
+            }
+            return new RecurringReservationReport(booked, conflicts);
+        } catch (SQLException e) {
+            throw new DataAccessException("创建周期预约失败", e);
+        }
+    }
+
+    /**
+     * 查询座位所属的自习室，供不能信任调用方所给 roomId 的入口（HTTP 接口）使用
+     *
+     * @return 自习室 ID
+     * @throws IllegalArgumentException 如果座位不存在
+     * @throws DataAccessException 如果底层数据库操作发生错误
+     */
+    public int roomOfSeat(long seatId) {
+        try {
+            Seat seat = seatDAO.findById(seatId);
+            if (seat == null) {
+                throw new IllegalArgumentException("unknown seat: " + seatId);
+            }
+            return seat.getRoomId();
+        } catch (SQLException e) {
+            throw new DataAccessException("查询座位所属自习室失败", e);
+        }
+    }
+
     /**
      * 取消预约：
      * 1. 删除 UsageRecord
-     * 2. 更新对应自习室的 freeSeatsCount 加 1
+     * 2. 通过 SeatChangeBus 通知该座位的时段已释放（与 createReservation 对称，不改动 free_seats_count）
      *
      * @param recordId 记录 ID
      * @param roomId   自习室 ID（需要前端提前查出）
@@ -109,17 +378,89 @@ public class ReserveService {
      */
     public boolean cancelReservation(long recordId, int roomId) {
         try {
-            // 1. 删除这条预约记录
+            // 1. 删除这条预约记录（先取出记录，用于通知释放了哪些时段）
+            UsageRecord record = usageRecordDAO.findById(recordId);
             boolean deleted = usageRecordDAO.deleteById(recordId);
             if (!deleted) {
                 return false;
             }
-            // 2. 更新自习室空座位数 + 1
-            StudyRoom room = studyRoomDAO.findById(roomId);
-            int newFree = room.getFreeSeatsCount() + 1;
-            return studyRoomDAO.updateFreeSeatsCount(roomId, newFree);
+            // 2. 发布释放通知
+            if (record != null) {
+                publish(SeatChangeEvent.Kind.RELEASED, roomId, record);
+            }
+            return true;
         } catch (SQLException e) {
             throw new DataAccessException("取消预约时发生数据库错误", e);
         }
     }
+
+    /**
+     * 辅助：按记录的占用位图发布一条座位变化消息
+     */
+    private void publish(SeatChangeEvent.Kind kind, int roomId, UsageRecord record) {
+        long[] delta = BitmapUtil.toOccupiedMask(record.getTimeBitmap());
+        SeatChangeBus.getInstance().publish(
+                new SeatChangeEvent(kind, roomId, record.getSeatId(), record.getRecordDate(), delta));
+    }
+
+    /**
+     * 辅助：在未排除、且占用掩码与 range 按位与为 0 的座位中找出最紧凑的 n 个
+     *
+     * @param occupied 与 seats 顺序一致的平铺占用掩码（long[seats.size() * 3]）
+     * @return 选中的座位；候选不足 n 个时返回空列表
+     */
+    private static List<Seat> findCluster(List<Seat> seats, long[] occupied, boolean[] excluded,
+                                          long[] range, int n) {
+        int words = BitmapUtil.MASK_WORDS;
+        int[] candidates = new int[seats.size()];
+        int m = 0;
+        for (int i = 0; i < seats.size(); i++) {
+            if (excluded[i]) continue;
+            long hit = 0;
+            for (int w = 0; w < words; w++) {
+                hit |= occupied[i * words + w] & range[w];
+            }
+            if (hit == 0) {
+                candidates[m++] = i;
+            }
+        }
+        int[] xs = new int[m];
+        int[] ys = new int[m];
+        for (int c = 0; c < m; c++) {
+            Seat seat = seats.get(candidates[c]);
+            xs[c] = seat.getXCoord();
+            ys[c] = seat.getYCoord();
+        }
+        int[] chosen = SeatClusterFinder.tightest(xs, ys, n);
+        if (chosen == null) {
+            return Collections.emptyList();
+        }
+        List<Seat> group = new ArrayList<>(n);
+        for (int c : chosen) {
+            group.add(seats.get(candidates[c]));
+        }
+        return group;
+    }
+
+    /**
+     * 辅助：构造一条覆盖 [startSlot, endSlot) 的未签到预约记录
+     */
+    private static UsageRecord newIntervalRecord(String studentId, long seatId, LocalDate date,
+                                                 int startSlot, int endSlot) {
+        UsageRecord record = new UsageRecord();
+        record.setStudentId(studentId);
+        record.setSeatId(seatId);
+        record.setRecordDate(date);
+        record.setSigned(false);
+        record.setTimeBitmap(BitmapUtil.fromOccupiedMask(BitmapUtil.rangeMask(startSlot, endSlot)));
+        record.setStartSlot(startSlot);
+        record.setEndSlot(endSlot);
+        return record;
+    }
+
+    private static void orInto(long[] target, long[] mask) {
+        for (int w = 0; w < BitmapUtil.MASK_WORDS; w++) {
+            target[w] |= mask[w];
+        }
+    }
 }
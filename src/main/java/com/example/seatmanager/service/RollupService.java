@@ -0,0 +1,294 @@
+package com.example.seatmanager.service;
+
+import com.example.seatmanager.dao.EventDAO;
+import com.example.seatmanager.dao.RoomStatsDAO;
+import com.example.seatmanager.dao.SeatDAO;
+import com.example.seatmanager.dao.UsageRecordDAO;
+import com.example.seatmanager.entity.Event;
+import com.example.seatmanager.entity.RoomStats;
+import com.example.seatmanager.entity.Seat;
+import com.example.seatmanager.entity.UsageRecord;
+import com.example.seatmanager.util.BitmapUtil;
+import com.example.seatmanager.util.SlotClock;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RollupService：维护 room_day_stats / room_hour_stats 两张汇总表（单例）。
+ *
+ * 1. 订阅 SeatChangeBus：预约 / 取消 / 签到 / 事件增删都换算成按小时的增量放入队列，
+ *    后台线程每 FLUSH_MILLIS 合并同键增量后一次性累加到汇总表，不拖慢预约本身
+ * 2. 每晚 RECONCILE_AT 从 usage_record 与 event 重新计算前一天的汇总，与增量结果比对后整体替换；
+ *    取消一条已签到的预约等增量无法精确表达的情况由此纠正
+ * 3. 首次启用（汇总表为空）时在后台回填历史数据
+ */
+public class RollupService {
+
+    private static final long FLUSH_MILLIS = 200;
+    private static final LocalTime RECONCILE_AT = LocalTime.of(0, 30);
+
+    private static final RollupService instance = new RollupService();
+
+    private final RoomStatsDAO roomStatsDAO = new RoomStatsDAO();
+    private final UsageRecordDAO usageRecordDAO = new UsageRecordDAO();
+    private final EventDAO eventDAO = new EventDAO();
+    private final SeatDAO seatDAO = new SeatDAO();
+
+    private final LinkedBlockingQueue<RoomStats> pending = new LinkedBlockingQueue<>();
+    private final SeatChangeBus.Listener busListener = this::onSeatChange;
+    private ScheduledExecutorService scheduler;
+
+    private RollupService() { }
+
+    public static RollupService getInstance() {
+        return instance;
+    }
+
+    /** 开始订阅变化消息，并启动定时写入与每晚校对 */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rollup");
+            t.setDaemon(true);
+            return t;
+        });
+        SeatChangeBus.getInstance().subscribe(busListener);
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+
+        LocalDateTime now = SlotClock.getInstance().now();
+        LocalDateTime next = now.toLocalDate().atTime(RECONCILE_AT);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                reconcile(SlotClock.getInstance().today().minusDays(1));
+            } catch (RuntimeException e) {
+                System.err.println("[RollupService] 每晚校对失败: " + e);
+            }
+        }, Duration.between(now, next).toMillis(), TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+        scheduler.execute(this::backfillIfEmpty);
+    }
+
+    /** 停止订阅并写入剩余增量 */
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        SeatChangeBus.getInstance().unsubscribe(busListener);
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+        flushQuietly();
+    }
+
+    /**
+     * 仪表盘：日期区间内各自习室的整天汇总
+     *
+     * @throws DataAccessException 如果底层数据库操作出错
+     */
+    public List<RoomStats> getDailyStats(LocalDate from, LocalDate to) {
+        try {
+            return roomStatsDAO.findDayStats(from, to);
+        } catch (SQLException e) {
+            throw new DataAccessException("查询每日汇总时发生数据库错误", e);
+        }
+    }
+
+    /**
+     * 仪表盘：日期区间内各自习室按小时的汇总
+     *
+     * @throws DataAccessException 如果底层数据库操作出错
+     */
+    public List<RoomStats> getHourlyStats(LocalDate from, LocalDate to) {
+        try {
+            return roomStatsDAO.findHourStats(from, to);
+        } catch (SQLException e) {
+            throw new DataAccessException("查询每小时汇总时发生数据库错误", e);
+        }
+    }
+
+    /**
+     * 从原始数据重新计算某一天的汇总，与表中现有（增量维护的）结果比对后整体替换
+     *
+     * @return 与重新计算结果不一致的汇总行数
+     * @throws DataAccessException 如果底层数据库操作出错
+     */
+    public synchronized int reconcile(LocalDate date) {
+        try {
+            flush();
+            Map<Long, RoomStats> days = new HashMap<>();
+            Map<Long, RoomStats> hours = new HashMap<>();
+            Map<Long, Integer> roomOfSeat = new HashMap<>();
+            for (Seat seat : seatDAO.findAll()) {
+                roomOfSeat.put(seat.getSeatId(), seat.getRoomId());
+            }
+            usageRecordDAO.streamByDateRange(date, date, (UsageRecord r) -> {
+                Integer roomId = roomOfSeat.get(r.getSeatId());
+                if (roomId == null) return;
+                long[] mask = BitmapUtil.toOccupiedMask(r.getTimeBitmap());
+                accumulate(days, hours, roomId, date, mask, 1, r.isSigned() ? 1 : 0, 0);
+            });
+            eventDAO.streamByDateRange(date, date, (Event e) ->
+                    accumulate(days, hours, e.getRoomId(), date, BitmapUtil.toOccupiedMask(e.getTimeBitmap()), 0, 0, 1));
+
+            int mismatches = countMismatches(days, roomStatsDAO.findDayStats(date, date))
+                    + countMismatches(hours, roomStatsDAO.findHourStats(date, date));
+            if (mismatches > 0) {
+                System.err.println("[RollupService] " + date + " 的增量汇总有 " + mismatches + " 行与重新计算结果不一致，已纠正");
+            }
+            roomStatsDAO.replaceDate(date, days.values(), hours.values());
+            return mismatches;
+        } catch (SQLException e) {
+            throw new DataAccessException("校对汇总表时发生数据库错误", e);
+        }
+    }
+
+    // ---------------------------------------------------------------- 增量
+
+    private void onSeatChange(SeatChangeEvent event) {
+        Map<Long, RoomStats> days = new HashMap<>();
+        Map<Long, RoomStats> hours = new HashMap<>();
+        long[] delta = event.getDeltaMask();
+        switch (event.getKind()) {
+            case RESERVED:
+                accumulate(days, hours, event.getRoomId(), event.getDate(), delta, 1, 0, 0);
+                break;
+            case RELEASED:
+                accumulate(days, hours, event.getRoomId(), event.getDate(), delta, -1, 0, 0);
+                break;
+            case SIGNED_IN:
+                accumulate(days, hours, event.getRoomId(), event.getDate(), delta, 0, 1, 0);
+                break;
+            case ROOM_CLOSED:
+                accumulate(days, hours, event.getRoomId(), event.getDate(), delta, 0, 0, 1);
+                break;
+            case ROOM_REOPENED:
+                accumulate(days, hours, event.getRoomId(), event.getDate(), delta, 0, 0, -1);
+                break;
+            default:
+                return;
+        }
+        pending.addAll(days.values());
+        pending.addAll(hours.values());
+    }
+
+    /**
+     * 把一个占用掩码按小时拆开累加到 days / hours 中
+     *
+     * @param reserved 预约条数与预约时段的符号（1 / -1 / 0）
+     * @param signed   签到时段的符号
+     * @param closed   事件关闭时段的符号
+     */
+    private static void accumulate(Map<Long, RoomStats> days, Map<Long, RoomStats> hours, int roomId, LocalDate date,
+                                   long[] mask, int reserved, int signed, int closed) {
+        int[] byHour = BitmapUtil.countByHour(mask);
+        RoomStats day = days.computeIfAbsent(key(roomId, date, RoomStats.WHOLE_DAY),
+                k -> new RoomStats(roomId, date, RoomStats.WHOLE_DAY));
+        day.setReservations(day.getReservations() + reserved);
+        for (int h = 0; h < byHour.length; h++) {
+            int n = byHour[h];
+            if (n == 0) continue;
+            int hour = h;
+            RoomStats row = hours.computeIfAbsent(key(roomId, date, h), k -> new RoomStats(roomId, date, hour));
+            row.setReservedSlots(row.getReservedSlots() + reserved * n);
+            row.setSignedSlots(row.getSignedSlots() + signed * n);
+            row.setClosedSlots(row.getClosedSlots() + closed * n);
+            day.setReservedSlots(day.getReservedSlots() + reserved * n);
+            day.setSignedSlots(day.getSignedSlots() + signed * n);
+            day.setClosedSlots(day.getClosedSlots() + closed * n);
+        }
+    }
+
+    /** 合并队列中同键的增量后一次写入 */
+    private synchronized void flush() throws SQLException {
+        List<RoomStats> batch = new ArrayList<>();
+        pending.drainTo(batch);
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<Long, RoomStats> days = new HashMap<>();
+        Map<Long, RoomStats> hours = new HashMap<>();
+        for (RoomStats s : batch) {
+            Map<Long, RoomStats> target = s.getHour() == RoomStats.WHOLE_DAY ? days : hours;
+            RoomStats merged = target.putIfAbsent(key(s.getRoomId(), s.getStatDate(), s.getHour()), s);
+            if (merged != null) {
+                merged.add(s);
+            }
+        }
+        try {
+            roomStatsDAO.addDeltas(days.values(), hours.values());
+        } catch (SQLException e) {
+            // 写入失败时放回队列，下次重试
+            pending.addAll(days.values());
+            pending.addAll(hours.values());
+            throw e;
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("[RollupService] 写入汇总增量失败: " + e);
+        }
+    }
+
+    /** 汇总表为空时按 usage_record 中出现过的日期逐天回填 */
+    private void backfillIfEmpty() {
+        try {
+            if (!roomStatsDAO.isEmpty()) {
+                return;
+            }
+            LocalDate[] range = usageRecordDAO.findDateRange();
+            if (range == null) {
+                return;
+            }
+            for (LocalDate d = range[0]; !d.isAfter(range[1]); d = d.plusDays(1)) {
+                reconcile(d);
+            }
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("[RollupService] 回填汇总表失败: " + e);
+        }
+    }
+
+    private static int countMismatches(Map<Long, RoomStats> expected, List<RoomStats> actual) {
+        int mismatches = 0;
+        Map<Long, RoomStats> remaining = new HashMap<>(expected);
+        for (RoomStats a : actual) {
+            RoomStats e = remaining.remove(key(a.getRoomId(), a.getStatDate(), a.getHour()));
+            if (e == null ? !a.sameValues(new RoomStats()) : !e.sameValues(a)) {
+                mismatches++;
+            }
+        }
+        for (RoomStats e : remaining.values()) {
+            if (!e.sameValues(new RoomStats())) {
+                mismatches++;
+            }
+        }
+        return mismatches;
+    }
+
+    /** (roomId, date, hour) 打包为 long：hour + 1 占低 5 位，日期占中间 24 位 */
+    private static long key(int roomId, LocalDate date, int hour) {
+        return ((long) roomId << 29) | (date.toEpochDay() << 5) | (hour + 1);
+    }
+}
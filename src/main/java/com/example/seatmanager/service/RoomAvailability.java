@@ -0,0 +1,147 @@
+package com.example.seatmanager.service;
+
+import com.example.seatmanager.entity.Seat;
+import com.example.seatmanager.util.BitmapUtil;
+import com.example.seatmanager.util.LongIntHashMap;
+import com.example.seatmanager.util.SlotCalendar;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * RoomAvailability：某自习室某天所有座位的占用情况，由 MapService.getRoomAvailability 生成。
+ *
+ * 座位按坐标（先 y 后 x）排序存放在数组中，第 i 个座位的占用掩码为 masks[3i .. 3i+3)（1 = 已被预约或事件占用），
+ * 同时预先算好每个座位的空闲时段数与状态；按 seatId 查下标走开放寻址的 LongIntHashMap。
+ * 空闲数与状态只统计 SlotCalendar.getDefault() 配置的时段，掩码中超出时段数的位不计入。
+ *
+ * 示意图在 EDT 上通过 markOccupied / replaceMask 增量修补，修补不是线程安全的。
+ */
+public final class RoomAvailability {
+
+    /** 座位状态：全天可用 / 部分占用 / 全天占用 */
+    public static final byte STATUS_FREE    = 0;
+    public static final byte STATUS_PARTIAL = 1;
+    public static final byte STATUS_FULL    = 2;
+
+    private static final int WORDS = BitmapUtil.MASK_WORDS;
+    // 实际开放的时段数及其掩码（[0, SLOTS) 的位为 1）
+    private static final int SLOTS = SlotCalendar.getDefault().getSlotCount();
+    private static final long[] VALID = BitmapUtil.rangeMask(0, SLOTS);
+
+    private final int roomId;
+    private final LocalDate date;
+    private final Seat[] seats;
+    private final long[] masks;
+    private final int[] freeCounts;
+    private final byte[] status;
+    private final LongIntHashMap indexById;
+
+    /**
+     * @param seats    自习室内的座位（任意顺序）
+     * @param occupied 与 seats 同序的占用掩码，长度 seats.size() * 3
+     */
+    RoomAvailability(int roomId, LocalDate date, List<Seat> seats, long[] occupied) {
+        int n = seats.size();
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingInt(i -> seats.get(i).getYCoord())
+                .thenComparingInt(i -> seats.get(i).getXCoord()));
+
+        this.roomId = roomId;
+        this.date = date;
+        this.seats = new Seat[n];
+        this.masks = new long[n * WORDS];
+        this.freeCounts = new int[n];
+        this.status = new byte[n];
+        this.indexById = new LongIntHashMap(n);
+        for (int i = 0; i < n; i++) {
+            int from = order[i];
+            this.seats[i] = seats.get(from);
+            System.arraycopy(occupied, from * WORDS, masks, i * WORDS, WORDS);
+            indexById.put(this.seats[i].getSeatId(), i);
+            recompute(i);
+        }
+    }
+
+    public int getRoomId() {
+        return roomId;
+    }
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /** 座位数 */
+    public int size() {
+        return seats.length;
+    }
+
+    /** 第 i 个座位（按坐标排序） */
+    public Seat seat(int i) {
+        return seats[i];
+    }
+
+    /** @return seatId 对应的下标；不在本自习室时返回 -1 */
+    public int indexOf(long seatId) {
+        return indexById.get(seatId);
+    }
+
+    /** 第 i 个座位的空闲时段数 */
+    public int freeCount(int i) {
+        return freeCounts[i];
+    }
+
+    /** 第 i 个座位的状态：STATUS_FREE / STATUS_PARTIAL / STATUS_FULL */
+    public byte status(int i) {
+        return status[i];
+    }
+
+    /** 第 i 个座位的 slot 时段是否空闲 */
+    public boolean isFree(int i, int slot) {
+        return (masks[i * WORDS + (slot >>> 6)] & (1L << (slot & 63))) == 0;
+    }
+
+    /** 第 i 个座位的占用掩码副本（long[3]） */
+    public long[] occupiedMask(int i) {
+        return Arrays.copyOfRange(masks, i * WORDS, i * WORDS + WORDS);
+    }
+
+    /** 第 i 个座位的可用位图（true = 可用，长度为时段数），按需展开，供时段选择与接口输出使用 */
+    public boolean[] availability(int i) {
+        boolean[] avail = new boolean[SLOTS];
+        Arrays.fill(avail, true);
+        long[] occupied = occupiedMask(i);
+        for (int w = 0; w < WORDS; w++) {
+            occupied[w] &= VALID[w];
+        }
+        BitmapUtil.markOccupied(avail, occupied);
+        return avail;
+    }
+
+    /** 在第 i 个座位上追加占用（预约、整室关闭），并更新空闲数与状态 */
+    public void markOccupied(int i, long[] delta) {
+        for (int w = 0; w < WORDS; w++) {
+            masks[i * WORDS + w] |= delta[w];
+        }
+        recompute(i);
+    }
+
+    /** 用重新加载的占用掩码替换第 i 个座位（释放时段后），并更新空闲数与状态 */
+    public void replaceMask(int i, long[] occupied) {
+        System.arraycopy(occupied, 0, masks, i * WORDS, WORDS);
+        recompute(i);
+    }
+
+    private void recompute(int i) {
+        int busy = 0;
+        for (int w = 0; w < WORDS; w++) {
+            busy += Long.bitCount(masks[i * WORDS + w] & VALID[w]);
+        }
+        freeCounts[i] = SLOTS - busy;
+        status[i] = busy == 0 ? STATUS_FREE : busy == SLOTS ? STATUS_FULL : STATUS_PARTIAL;
+    }
+}
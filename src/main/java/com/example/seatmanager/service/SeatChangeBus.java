@@ -0,0 +1,50 @@
+package com.example.seatmanager.service;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * SeatChangeBus：进程内的座位变化消息总线（单例）。
+ * Service 层在写库成功后发布 SeatChangeEvent，已打开的示意图等视图订阅后增量更新，
+ * 不必再整体刷新整个自习室。
+ *
+ * 消息在发布者线程上同步投递；订阅方如需更新 Swing 组件，应自行切换到 EDT。
+ */
+public class SeatChangeBus {
+
+    /** 订阅接口 */
+    @FunctionalInterface
+    public interface Listener {
+        void onSeatChange(SeatChangeEvent event);
+    }
+
+    private static final SeatChangeBus instance = new SeatChangeBus();
+
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private SeatChangeBus() { }
+
+    public static SeatChangeBus getInstance() {
+        return instance;
+    }
+
+    public void subscribe(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void unsubscribe(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 发布一条变化消息。单个订阅方抛出的异常不会影响其它订阅方，也不会回滚已完成的写操作。
+     */
+    public void publish(SeatChangeEvent event) {
+        for (Listener listener : listeners) {
+            try {
+                listener.onSeatChange(event);
+            } catch (RuntimeException e) {
+                System.err.println("[SeatChangeBus] listener failed for " + event + ": " + e);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.seatmanager.service;
+
+import java.time.LocalDate;
+
+/**
+ * SeatChangeEvent：座位占用变化消息，由 Service 层在预约、取消、签到、事件变更后发布。
+ * 只携带（自习室, 座位, 日期, 变化掩码）这几项，订阅方据此只修补受影响的座位。
+ */
+public final class SeatChangeEvent {
+
+    /** 变化类型 */
+    public enum Kind {
+        /** 新增预约：deltaMask 中的时段变为占用 */
+        RESERVED,
+        /** 取消预约：deltaMask 中的时段被释放（是否真正可用需结合其它记录判断） */
+        RELEASED,
+        /** 签到：占用状态不变，仅签到标记变化 */
+        SIGNED_IN,
+        /** 新增事件：整个自习室在 deltaMask 时段关闭 */
+        ROOM_CLOSED,
+        /** 删除事件：整个自习室在 deltaMask 时段重新开放 */
+        ROOM_REOPENED
+    }
+
+    /** seatId 取该值时表示影响整个自习室 */
+    public static final long ALL_SEATS = 0L;
+
+    private final Kind kind;
+    private final int roomId;
+    private final long seatId;
+    private final LocalDate date;
+    private final long[] deltaMask;
+
+    public SeatChangeEvent(Kind kind, int roomId, long seatId, LocalDate date, long[] deltaMask) {
+        this.kind = kind;
+        this.roomId = roomId;
+        this.seatId = seatId;
+        this.date = date;
+        this.deltaMask = deltaMask;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+    public int getRoomId() {
+        return roomId;
+    }
+    public long getSeatId() {
+        return seatId;
+    }
+    public LocalDate getDate() {
+        return date;
+    }
+    /** 受影响的时段：long[3]，第 i 位为 1 表示第 i 个时段。订阅方不得修改该数组 */
+    public long[] getDeltaMask() {
+        return deltaMask;
+    }
+    public boolean isRoomWide() {
+        return seatId == ALL_SEATS;
+    }
+
+    @Override
+    public String toString() {
+        return "SeatChangeEvent{" +
+                "kind=" + kind +
+                ", roomId=" + roomId +
+                ", seatId=" + seatId +
+                ", date=" + date +
+                '}';
+    }
+}
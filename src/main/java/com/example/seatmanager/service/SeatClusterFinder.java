@@ -0,0 +1,69 @@
+package com.example.seatmanager.service;
+
+import java.util.Arrays;
+
+/**
+ * SeatClusterFinder：在一组空闲座位的坐标中找出 n 个彼此最靠近的座位，用于小组预约。
+ *
+ * 以每个候选座位为锚点取离它最近的 n 个座位（含自身），簇的松紧以第 n 近的距离（半径）衡量，
+ * 半径相同时比较到锚点的距离之和，仍相同时取 seat_id 较小的锚点。
+ * 扫描某个锚点时只收集不超过当前最优半径的座位，凑不满 n 个即跳过，几百个座位的自习室也只需毫秒级。
+ */
+final class SeatClusterFinder {
+
+    // 排序键 = 距离平方 << INDEX_BITS | 下标，一次排序同时得到距离顺序与下标
+    private static final int INDEX_BITS = 20;
+    private static final int MAX_CANDIDATES = 1 << INDEX_BITS;
+
+    private SeatClusterFinder() {
+    }
+
+    /**
+     * @param xs 候选座位的 x 坐标
+     * @param ys 候选座位的 y 坐标（与 xs 一一对应）
+     * @param n  需要的座位数
+     * @return 选中座位在 xs / ys 中的下标（按到锚点的距离升序）；候选不足 n 个时返回 null
+     */
+    static int[] tightest(int[] xs, int[] ys, int n) {
+        int m = xs.length;
+        if (n <= 0 || m < n) {
+            return null;
+        }
+        if (m > MAX_CANDIDATES) {
+            throw new IllegalArgumentException("too many candidate seats: " + m);
+        }
+        long[] keys = new long[m];
+        long bestRadius = Long.MAX_VALUE;
+        long bestSum = Long.MAX_VALUE;
+        int[] best = null;
+        for (int a = 0; a < m; a++) {
+            int k = 0;
+            for (int j = 0; j < m; j++) {
+                long dx = xs[j] - xs[a];
+                long dy = ys[j] - ys[a];
+                long d2 = dx * dx + dy * dy;
+                if (d2 <= bestRadius) {
+                    keys[k++] = d2 << INDEX_BITS | j;
+                }
+            }
+            if (k < n) {
+                continue;
+            }
+            Arrays.sort(keys, 0, k);
+            long radius = keys[n - 1] >>> INDEX_BITS;
+            long sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += keys[i] >>> INDEX_BITS;
+            }
+            if (radius < bestRadius || (radius == bestRadius && sum < bestSum)) {
+                bestRadius = radius;
+                bestSum = sum;
+                best = new int[n];
+                for (int i = 0; i < n; i++) {
+                    best[i] = (int) (keys[i] & (MAX_CANDIDATES - 1));
+                }
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.seatmanager.service;
+
+import com.example.seatmanager.dao.FacilityDAO;
+import com.example.seatmanager.dao.SeatDAO;
+import com.example.seatmanager.dao.StudyRoomDAO;
+import com.example.seatmanager.entity.Seat;
+import com.example.seatmanager.entity.StudyRoom;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * SeatLayoutGenerator：为还没有座位的自习室生成行列排列的座位，取代 schema.sql 中逐行插入的 seedSeats41to50 存储过程。
+ *
+ * 布局与原存储过程一致，只由 room_id 和自习室坐标决定（同样的输入总是得到同样的座位）：
+ * 行数 = room_id*7 % 4 + 3，列数 = room_id*11 % 4 + 3，间距 8，网格以自习室坐标为中心；
+ * 网格越出 seat 表坐标范围（1–100）时整体平移回范围内。near_* 标记由 FacilityGrid 按 FacilityService.NEAR_DISTANCE 计算。
+ * 全部座位在一个事务中用多行 INSERT 写入。
+ */
+public class SeatLayoutGenerator {
+
+    /** 相邻座位的间距（坐标单位） */
+    public static final int SPACING = 8;
+
+    // seat 表 x_coord / y_coord 的 CHECK 范围
+    private static final int MIN_COORD = 1;
+    private static final int MAX_COORD = 100;
+
+    private final StudyRoomDAO studyRoomDAO = new StudyRoomDAO();
+    private final SeatDAO seatDAO = new SeatDAO();
+    private final FacilityDAO facilityDAO = new FacilityDAO();
+
+    /**
+     * 为所有还没有座位的自习室生成座位并写入数据库；已有座位的自习室不受影响，重复调用不会重复插入
+     *
+     * @return 插入的座位数
+     * @throws DataAccessException 如果底层数据库操作发生错误
+     */
+    public int seedEmptyRooms() {
+        try {
+            long[] seeded = seatDAO.findRoomIdsWithSeats();
+            List<Seat> seats = new ArrayList<>();
+            for (StudyRoom room : studyRoomDAO.findAll()) {
+                if (Arrays.binarySearch(seeded, room.getRoomId()) < 0) {
+                    FacilityGrid grid = new FacilityGrid(
+                            facilityDAO.findByRoomOnPrimary(room.getRoomId()), FacilityService.NEAR_DISTANCE);
+                    seats.addAll(layout(room, grid));
+                }
+            }
+            seatDAO.insertAll(seats);
+            return seats.size();
+        } catch (SQLException e) {
+            throw new DataAccessException("生成自习室座位布局失败", e);
+        }
+    }
+
+    /** 行数（3–6），与原存储过程 MOD(rid*7,4) + 3 相同 */
+    static int rowsOf(int roomId) {
+        return Math.floorMod(roomId * 7, 4) + 3;
+    }
+
+    /** 列数（3–6），与原存储过程 MOD(rid*11,4) + 3 相同 */
+    static int colsOf(int roomId) {
+        return Math.floorMod(roomId * 11, 4) + 3;
+    }
+
+    /** 按行优先顺序生成一个自习室的座位（seatId 未设置） */
+    static List<Seat> layout(StudyRoom room, FacilityGrid grid) {
+        int rows = rowsOf(room.getRoomId());
+        int cols = colsOf(room.getRoomId());
+        int startX = gridStart(room.getXCoord(), cols);
+        int startY = gridStart(room.getYCoord(), rows);
+
+        List<Seat> seats = new ArrayList<>(rows * cols);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                int x = startX + j * SPACING;
+                int y = startY + i * SPACING;
+                int flags = grid.nearFlags(x, y);
+                Seat seat = new Seat();
+                seat.setRoomId(room.getRoomId());
+                seat.setXCoord(x);
+                seat.setYCoord(y);
+                seat.setNearWindow((flags & FacilityGrid.NEAR_WINDOW) != 0);
+                seat.setNearDoor((flags & FacilityGrid.NEAR_DOOR) != 0);
+                seat.setNearSocket((flags & FacilityGrid.NEAR_SOCKET) != 0);
+                seats.add(seat);
+            }
+        }
+        return seats;
+    }
+
+    /** 以 center 为中心排 count 个座位时第一个座位的坐标，越界时平移回 [MIN_COORD, MAX_COORD] */
+    private static int gridStart(int center, int count) {
+        int span = (count - 1) * SPACING;
+        int start = center - span / 2;
+        return Math.max(MIN_COORD, Math.min(start, MAX_COORD - span));
+    }
+}
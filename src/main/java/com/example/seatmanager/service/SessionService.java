@@ -0,0 +1,99 @@
+package com.example.seatmanager.service;
+
+import com.example.seatmanager.util.SlotClock;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SessionService：HTTP 接口的登录会话（单例）。
+ *
+ * 登录成功后签发随机令牌，之后的请求以 “Authorization: Bearer 令牌” 表明身份；
+ * 令牌只保存在内存中，进程重启后需重新登录。会话在 seatmanager.session.ttl.millis（默认 8 小时）内有效，
+ * 每次使用都会顺延。
+ */
+public class SessionService {
+
+    public static final long TTL_MILLIS = Long.getLong("seatmanager.session.ttl.millis", 8 * 60 * 60 * 1000L);
+    // 令牌字节数（256 位）
+    private static final int TOKEN_BYTES = 32;
+    // 每签发这么多个令牌顺带清理一次过期会话
+    private static final int PURGE_EVERY = 256;
+
+    private static final SessionService instance = new SessionService();
+
+    /** 一个会话：所属学号与过期时间 */
+    private static final class Session {
+        final String studentId;
+        volatile long expiresAt;
+
+        Session(String studentId, long expiresAt) {
+            this.studentId = studentId;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final SecureRandom random = new SecureRandom();
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private int issued;
+
+    private SessionService() {
+    }
+
+    public static SessionService getInstance() {
+        return instance;
+    }
+
+    /**
+     * 为已通过登录校验的学生签发令牌
+     *
+     * @return URL 安全的 Base64 令牌
+     */
+    public String open(String studentId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new Session(studentId, now() + TTL_MILLIS));
+        synchronized (this) {
+            if (++issued % PURGE_EVERY == 0) {
+                long now = now();
+                sessions.values().removeIf(s -> s.expiresAt <= now);
+            }
+        }
+        return token;
+    }
+
+    /**
+     * 查询令牌对应的学号，并顺延会话
+     *
+     * @return 学号；令牌不存在或已过期时返回 null
+     */
+    public String resolve(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session s = sessions.get(token);
+        if (s == null) {
+            return null;
+        }
+        long now = now();
+        if (s.expiresAt <= now) {
+            sessions.remove(token, s);
+            return null;
+        }
+        s.expiresAt = now + TTL_MILLIS;
+        return s.studentId;
+    }
+
+    /** 注销令牌；令牌不存在时什么也不做 */
+    public void close(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    private static long now() {
+        return SlotClock.getInstance().getClock().millis();
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.seatmanager.service;
+
+import com.example.seatmanager.entity.StudyRoom;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+
+/**
+ * UtilizationReport：一段日期内的座位利用率统计结果（不可变）。
+ * 利用率 = 被预约的“座位 × 时段”数 / 可预约的“座位 × 时段”数，事件关闭的时段不计入分子和分母。
+ *
+ * 内部按（自习室, 星期, 小时）三维存放两个 long[] 累加器，按楼栋、楼层、小时、星期等维度的结果都由其汇总得到。
+ */
+public class UtilizationReport {
+
+    public static final int WEEKDAYS = 7;
+    public static final int HOURS = 24;
+
+    private final LocalDate from;
+    private final LocalDate to;
+    private final List<StudyRoom> rooms;
+    // 下标 = (roomIndex * WEEKDAYS + weekday) * HOURS + hour，weekday 0 = 周一
+    private final long[] occupied;
+    private final long[] available;
+
+    UtilizationReport(LocalDate from, LocalDate to, List<StudyRoom> rooms, long[] occupied, long[] available) {
+        this.from = from;
+        this.to = to;
+        this.rooms = rooms;
+        this.occupied = occupied;
+        this.available = available;
+    }
+
+    static int cell(int roomIndex, int weekday, int hour) {
+        return (roomIndex * WEEKDAYS + weekday) * HOURS + hour;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+    public LocalDate getTo() {
+        return to;
+    }
+    public List<StudyRoom> getRooms() {
+        return rooms;
+    }
+
+    /**
+     * 通用汇总：满足条件的自习室、星期、小时上的利用率
+     *
+     * @param roomFilter 按自习室下标（与 getRooms() 顺序一致）筛选
+     * @param weekday    DayOfWeek，null 表示所有星期
+     * @param hour       0–23，-1 表示所有小时
+     */
+    public double utilization(IntPredicate roomFilter, DayOfWeek weekday, int hour) {
+        long occ = 0;
+        long avail = 0;
+        for (int r = 0; r < rooms.size(); r++) {
+            if (!roomFilter.test(r)) continue;
+            for (int d = 0; d < WEEKDAYS; d++) {
+                if (weekday != null && weekday.getValue() - 1 != d) continue;
+                for (int h = 0; h < HOURS; h++) {
+                    if (hour >= 0 && hour != h) continue;
+                    int c = cell(r, d, h);
+                    occ += occupied[c];
+                    avail += available[c];
+                }
+            }
+        }
+        return avail == 0 ? 0.0 : (double) occ / avail;
+    }
+
+    /** 各自习室的利用率：key = roomId */
+    public Map<Integer, Double> byRoom() {
+        Map<Integer, Double> result = new LinkedHashMap<>();
+        for (int r = 0; r < rooms.size(); r++) {
+            int room = r;
+            result.put(rooms.get(r).getRoomId(), utilization(i -> i == room, null, -1));
+        }
+        return result;
+    }
+
+    /** 各楼栋的利用率：key = buildingId */
+    public Map<Integer, Double> byBuilding() {
+        Map<Integer, Double> result = new TreeMap<>();
+        for (StudyRoom room : rooms) {
+            int building = room.getBuildingId();
+            result.computeIfAbsent(building, b -> utilization(i -> rooms.get(i).getBuildingId() == b, null, -1));
+        }
+        return result;
+    }
+
+    /** 各楼层的利用率：key = buildingId * 100 + floor */
+    public Map<Integer, Double> byFloor() {
+        Map<Integer, Double> result = new TreeMap<>();
+        for (StudyRoom room : rooms) {
+            int key = room.getBuildingId() * 100 + room.getFloor();
+            result.computeIfAbsent(key, k -> utilization(
+                    i -> rooms.get(i).getBuildingId() * 100 + rooms.get(i).getFloor() == k, null, -1));
+        }
+        return result;
+    }
+
+    /** 各小时（0–23）的利用率，全校汇总 */
+    public double[] byHour() {
+        double[] result = new double[HOURS];
+        for (int h = 0; h < HOURS; h++) {
+            result[h] = utilization(i -> true, null, h);
+        }
+        return result;
+    }
+
+    /** 周一到周日的利用率，全校汇总 */
+    public double[] byWeekday() {
+        double[] result = new double[WEEKDAYS];
+        for (DayOfWeek d : DayOfWeek.values()) {
+            result[d.getValue() - 1] = utilization(i -> true, d, -1);
+        }
+        return result;
+    }
+
+    /** 自习室 × 小时的利用率矩阵：[roomIndex][hour]，用于找出各自习室的爆满时段 */
+    public double[][] roomByHour() {
+        double[][] result = new double[rooms.size()][HOURS];
+        for (int r = 0; r < rooms.size(); r++) {
+            for (int h = 0; h < HOURS; h++) {
+                long occ = 0;
+                long avail = 0;
+                for (int d = 0; d < WEEKDAYS; d++) {
+                    occ += occupied[cell(r, d, h)];
+                    avail += available[cell(r, d, h)];
+                }
+                result[r][h] = avail == 0 ? 0.0 : (double) occ / avail;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,354 @@
+package com.example.seatmanager.service;
+
+import com.example.seatmanager.util.BitmapUtil;
+import com.example.seatmanager.util.SlotCalendar;
+import com.example.seatmanager.util.SlotClock;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WaitlistService：座位候补（单例）。
+ *
+ * 想要的座位或时段已被占用时，学生可以登记候补：指定某个座位，或只指定自习室（任意座位）。
+ * 候补按 (座位或自习室, 日期) 分队列存放，每个队列是按登记先后排序的 PriorityBlockingQueue。
+ *
+ * 订阅 SeatChangeBus 的 RELEASED 消息：某座位释放时段后，只检查该座位的队列与其所在自习室的队列，
+ * 匹配代价只与这两个队列的长度有关，与候补总数无关。
+ * 只有区间与释放掩码相交、且不与本轮已分配区间重叠的候补才可能因这次释放变为可用；
+ * 命中后调用 ReserveService.createIntervalReservation 完成预约，冲突仍由 insertIfFree（或预约引擎）原子判定，
+ * 失败则留在队列中继续等待。
+ * 分配在单独的 waitlist-assign 线程上按释放顺序执行，取消预约的调用方不必等待；预约期间不持有队列锁，
+ * 只锁住正在尝试的那一条候补，以免它在分配途中被取消。
+ *
+ * 候补只保存在内存中，进程重启后失效；整室重新开放（ROOM_REOPENED）不触发分配。
+ */
+public class WaitlistService {
+
+    /** 每名学生同时有效的候补上限 */
+    public static final int MAX_TICKETS_PER_STUDENT = 5;
+
+    /** 候补状态 */
+    public enum Status {
+        WAITING,
+        /** 已自动分配座位并生成预约 */
+        ASSIGNED,
+        /** 学生主动取消 */
+        CANCELLED,
+        /** 日期已过仍未分配 */
+        EXPIRED
+    }
+
+    /** 一条候补登记 */
+    public static final class Ticket {
+        private final long seq;
+        private final String studentId;
+        private final int roomId;
+        private final long seatId;
+        private final LocalDate date;
+        private final int startSlot;
+        private final int endSlot;
+        private final long[] range;
+        private volatile Status status = Status.WAITING;
+        private volatile long assignedSeatId;
+
+        Ticket(long seq, String studentId, int roomId, long seatId, LocalDate date, int startSlot, int endSlot) {
+            this.seq = seq;
+            this.studentId = studentId;
+            this.roomId = roomId;
+            this.seatId = seatId;
+            this.date = date;
+            this.startSlot = startSlot;
+            this.endSlot = endSlot;
+            this.range = BitmapUtil.rangeMask(startSlot, endSlot);
+        }
+
+        /** 候补编号，按登记先后递增 */
+        public long getId() {
+            return seq;
+        }
+        public String getStudentId() {
+            return studentId;
+        }
+        public int getRoomId() {
+            return roomId;
+        }
+        /** 指定的座位；为 SeatChangeEvent.ALL_SEATS 时表示自习室内任意座位 */
+        public long getSeatId() {
+            return seatId;
+        }
+        public LocalDate getDate() {
+            return date;
+        }
+        public int getStartSlot() {
+            return startSlot;
+        }
+        public int getEndSlot() {
+            return endSlot;
+        }
+        public Status getStatus() {
+            return status;
+        }
+        /** 分配到的座位；尚未分配时为 0 */
+        public long getAssignedSeatId() {
+            return assignedSeatId;
+        }
+
+        @Override
+        public String toString() {
+            return "Ticket{" + studentId + ", room=" + roomId + ", seat=" + seatId + ", " + date + " "
+                    + SlotCalendar.getDefault().rangeLabel(startSlot, endSlot) + ", " + status + "}";
+        }
+    }
+
+    private static final Comparator<Ticket> BY_SEQ = Comparator.comparingLong(t -> t.seq);
+
+    private static final WaitlistService instance = new WaitlistService();
+
+    private final ReserveService reserveService = new ReserveService();
+    private final OccupancyCache cache = OccupancyCache.getInstance();
+
+    // key = queueKey(座位或自习室, 是否整室, epochDay)
+    private final ConcurrentHashMap<Long, PriorityBlockingQueue<Ticket>> queues = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<Ticket>> byStudent = new ConcurrentHashMap<>();
+    private final AtomicLong nextSeq = new AtomicLong();
+    // 单线程：同一时刻只有一轮分配，各轮按释放顺序执行
+    private final ExecutorService assigner = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "waitlist-assign");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private WaitlistService() {
+        SeatChangeBus.getInstance().subscribe(this::onSeatChange);
+    }
+
+    public static WaitlistService getInstance() {
+        return instance;
+    }
+
+    /**
+     * 登记候补
+     *
+     * @param seatId 指定座位；传 SeatChangeEvent.ALL_SEATS 表示自习室内任意座位均可
+     * @return 候补登记；调用方可据此查看状态或取消
+     * @throws IllegalArgumentException 如果区间不合法或日期已过
+     * @throws IllegalStateException    如果该学生的有效候补已达上限
+     */
+    public Ticket join(String studentId, int roomId, long seatId, LocalDate date, int startSlot, int endSlot) {
+        if (startSlot < 0 || endSlot > SlotCalendar.getDefault().getSlotCount() || startSlot >= endSlot) {
+            throw new IllegalArgumentException("invalid slot range [" + startSlot + ", " + endSlot + ")");
+        }
+        if (date.isBefore(SlotClock.getInstance().today())) {
+            throw new IllegalArgumentException("cannot wait for a past date: " + date);
+        }
+        purgeExpired();
+        Set<Ticket> mine = byStudent.computeIfAbsent(studentId, k -> ConcurrentHashMap.newKeySet());
+        synchronized (mine) {
+            if (mine.size() >= MAX_TICKETS_PER_STUDENT) {
+                throw new IllegalStateException("候补数量已达上限 " + MAX_TICKETS_PER_STUDENT);
+            }
+            Ticket ticket = new Ticket(nextSeq.incrementAndGet(), studentId, roomId, seatId, date, startSlot, endSlot);
+            mine.add(ticket);
+            queueFor(ticket).add(ticket);
+            return ticket;
+        }
+    }
+
+    /**
+     * 取消候补
+     *
+     * @return 仍在等待并成功取消返回 true；已分配或已失效返回 false
+     */
+    public boolean leave(Ticket ticket) {
+        // 正在为这条候补预约时等它结束，随后按结果判断
+        synchronized (ticket) {
+            if (ticket.status != Status.WAITING) {
+                return false;
+            }
+            ticket.status = Status.CANCELLED;
+        }
+        PriorityBlockingQueue<Ticket> queue = queueFor(ticket);
+        synchronized (queue) {
+            queue.remove(ticket);
+        }
+        forget(ticket);
+        return true;
+    }
+
+    /**
+     * 按编号取消某学生的候补
+     *
+     * @return 找到仍在等待的候补并成功取消返回 true
+     */
+    public boolean leave(String studentId, long ticketId) {
+        for (Ticket t : byStudent.getOrDefault(studentId, Set.of())) {
+            if (t.seq == ticketId) {
+                return leave(t);
+            }
+        }
+        return false;
+    }
+
+    /** 某学生仍在等待的候补，按登记先后排列 */
+    public List<Ticket> findWaiting(String studentId) {
+        List<Ticket> result = new ArrayList<>(byStudent.getOrDefault(studentId, Set.of()));
+        result.removeIf(t -> t.status != Status.WAITING);
+        result.sort(BY_SEQ);
+        return result;
+    }
+
+    // ---------------------------------------------------------------- 分配
+
+    private void onSeatChange(SeatChangeEvent event) {
+        if (event.getKind() != SeatChangeEvent.Kind.RELEASED || event.isRoomWide()
+                || event.getDate().isBefore(SlotClock.getInstance().today())) {
+            return;
+        }
+        long day = event.getDate().toEpochDay();
+        if (queues.get(queueKey(event.getSeatId(), false, day)) == null
+                && queues.get(queueKey(event.getRoomId(), true, day)) == null) {
+            return;
+        }
+        assigner.execute(() -> assignReleased(event));
+    }
+
+    /** 在分配线程上处理一次释放：先看指定该座位的候补，再看该自习室任意座位的候补 */
+    private void assignReleased(SeatChangeEvent event) {
+        long day = event.getDate().toEpochDay();
+        // 本轮已分配出去的时段，后续候补不再尝试与之重叠的区间
+        long[] booked = new long[BitmapUtil.MASK_WORDS];
+        assign(queueKey(event.getSeatId(), false, day), event, booked);
+        assign(queueKey(event.getRoomId(), true, day), event, booked);
+    }
+
+    /**
+     * 按登记先后依次尝试队列中的候补，能放进释放出的时段就立即预约；未命中的放回队列。
+     * 只在取出与放回时持有队列锁，预约期间只锁住当前这条候补
+     */
+    private void assign(long key, SeatChangeEvent event, long[] booked) {
+        PriorityBlockingQueue<Ticket> queue = queues.get(key);
+        if (queue == null) {
+            return;
+        }
+        long[] released = event.getDeltaMask();
+        // 缓存中的掩码可能尚未反映这次释放，只用它排除释放时段以外的冲突
+        long[] others = cache.get(event.getSeatId(), event.getDate());
+        List<Ticket> candidates = new ArrayList<>();
+        synchronized (queue) {
+            queue.drainTo(candidates);
+        }
+        candidates.sort(BY_SEQ);
+        List<Ticket> skipped = new ArrayList<>();
+        for (Ticket ticket : candidates) {
+            synchronized (ticket) {
+                if (ticket.status != Status.WAITING) {
+                    continue;
+                }
+                if (!BitmapUtil.intersects(ticket.range, released)
+                        || BitmapUtil.intersects(ticket.range, booked)
+                        || (others != null && intersectsOutside(ticket.range, others, released))) {
+                    skipped.add(ticket);
+                    continue;
+                }
+                boolean reserved;
+                try {
+                    reserved = reserveService.createIntervalReservation(ticket.studentId, event.getSeatId(),
+                            event.getRoomId(), ticket.date, ticket.startSlot, ticket.endSlot);
+                } catch (RuntimeException e) {
+                    skipped.add(ticket);
+                    System.err.println("[WaitlistService] 自动分配失败 " + ticket + ": " + e);
+                    continue;
+                }
+                if (!reserved) {
+                    skipped.add(ticket);
+                    continue;
+                }
+                ticket.assignedSeatId = event.getSeatId();
+                ticket.status = Status.ASSIGNED;
+            }
+            forget(ticket);
+            for (int w = 0; w < booked.length; w++) {
+                booked[w] |= ticket.range[w];
+            }
+        }
+        // 尝试之后才被取消的候补不必放回
+        skipped.removeIf(t -> t.status != Status.WAITING);
+        synchronized (queue) {
+            queue.addAll(skipped);
+        }
+        // 分配期间队列可能已因跨日被 purgeExpired 摘除，放回的候补不会再有人处理
+        if (queues.get(key) != queue) {
+            expire(queue);
+        }
+    }
+
+    /** range 是否与 occupied 中不属于 released 的时段相交 */
+    private static boolean intersectsOutside(long[] range, long[] occupied, long[] released) {
+        for (int w = 0; w < BitmapUtil.MASK_WORDS; w++) {
+            if ((range[w] & occupied[w] & ~released[w]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ---------------------------------------------------------------- 辅助
+
+    private PriorityBlockingQueue<Ticket> queueFor(Ticket ticket) {
+        return queues.computeIfAbsent(queueKeyOf(ticket), k -> new PriorityBlockingQueue<>(16, BY_SEQ));
+    }
+
+    private static long queueKeyOf(Ticket ticket) {
+        boolean roomWide = ticket.seatId == SeatChangeEvent.ALL_SEATS;
+        return queueKey(roomWide ? ticket.roomId : ticket.seatId, roomWide, ticket.date.toEpochDay());
+    }
+
+    private void forget(Ticket ticket) {
+        Set<Ticket> mine = byStudent.get(ticket.studentId);
+        if (mine != null) {
+            mine.remove(ticket);
+        }
+    }
+
+    /** 丢弃已过日期的队列，其中的候补标记为 EXPIRED */
+    private void purgeExpired() {
+        long today = SlotClock.getInstance().today().toEpochDay();
+        queues.entrySet().removeIf(entry -> {
+            if ((entry.getKey() & 0xFFFFFFL) >= today) {
+                return false;
+            }
+            expire(entry.getValue());
+            return true;
+        });
+    }
+
+    /** 把队列中仍在等待的候补标记为 EXPIRED 并清空队列 */
+    private void expire(PriorityBlockingQueue<Ticket> queue) {
+        List<Ticket> expired = new ArrayList<>();
+        synchronized (queue) {
+            queue.drainTo(expired);
+        }
+        for (Ticket t : expired) {
+            synchronized (t) {
+                if (t.status == Status.WAITING) {
+                    t.status = Status.EXPIRED;
+                }
+            }
+            forget(t);
+        }
+    }
+
+    /** 将 (座位或自习室 ID, 是否整室, epochDay) 打包为一个 long：低 24 位为日期，第 24 位区分整室队列 */
+    private static long queueKey(long id, boolean roomWide, long epochDay) {
+        return (id << 25) | (roomWide ? 1L << 24 : 0L) | epochDay;
+    }
+}
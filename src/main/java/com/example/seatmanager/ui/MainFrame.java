@@ -1,9 +1,11 @@
 package com.example.seatmanager.ui;
 
-import com.example.seatmanager.util.DBUtil;
+import com.example.seatmanager.service.LifecycleService;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 
 /**
  * MainFrame：程序入口，使用 CardLayout 管理各子面板
@@ -27,8 +29,15 @@ public class MainFrame extends JFrame {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
 
-        // 初始化嵌入式数据库
-        DBUtil.initDatabase();
+        // 初始化数据库与缓存，关闭窗口时保存状态
+        LifecycleService lifecycle = new LifecycleService();
+        lifecycle.startUp();
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                lifecycle.shutDown();
+            }
+        });
 
         cardLayout = new CardLayout();
         cards = new JPanel(cardLayout);
@@ -2,6 +2,7 @@ package com.example.seatmanager.ui;
 
 import com.example.seatmanager.controller.ReserveController;
 import com.example.seatmanager.entity.Student;
+import com.example.seatmanager.service.CampusDirectory;
 import com.example.seatmanager.service.DataAccessException;
 import com.example.seatmanager.util.DateUtil;
 
@@ -24,6 +25,7 @@ public class ManualReservePanel extends JPanel {
     private final JButton btnBack;
 
     private final ReserveController reserveController = new ReserveController();
+    private final CampusDirectory directory = CampusDirectory.getInstance();
 
     public ManualReservePanel(MainFrame frame) {
         this.mainFrame = frame;
@@ -47,15 +49,14 @@ public class ManualReservePanel extends JPanel {
         gbc.gridx = 0; gbc.gridy = 1; gbc.anchor = GridBagConstraints.EAST;
         topPanel.add(new JLabel("教学楼："), gbc);
         cbBuilding = new JComboBox<>();
-        for (int i = 1; i <= 6; i++) cbBuilding.addItem(i);
+        loadBuildings();
         gbc.gridx = 1; gbc.anchor = GridBagConstraints.WEST;
         topPanel.add(cbBuilding, gbc);
 
-        // 楼层 (1-6)
+        // 楼层（所选教学楼实际存在的楼层）
         gbc.gridx = 0; gbc.gridy = 2; gbc.anchor = GridBagConstraints.EAST;
         topPanel.add(new JLabel("楼层："), gbc);
         cbFloor = new JComboBox<>();
-        for (int i = 1; i <= 6; i++) cbFloor.addItem(i);
         gbc.gridx = 1; gbc.anchor = GridBagConstraints.WEST;
         topPanel.add(cbFloor, gbc);
 
@@ -63,7 +64,8 @@ public class ManualReservePanel extends JPanel {
         gbc.gridx = 0; gbc.gridy = 3; gbc.anchor = GridBagConstraints.EAST;
         topPanel.add(new JLabel("自习室："), gbc);
         cbRoom = new JComboBox<>();
-        updateRooms();
+        RoomComboRenderer.install(cbRoom);
+        updateFloors();
         gbc.gridx = 1; gbc.anchor = GridBagConstraints.WEST;
         topPanel.add(cbRoom, gbc);
 
@@ -80,28 +82,58 @@ public class ManualReservePanel extends JPanel {
         add(topPanel, BorderLayout.NORTH);
 
         // 事件监听
-        cbBuilding.addActionListener(e -> updateRooms());
+        cbBuilding.addActionListener(e -> updateFloors());
         cbFloor.addActionListener(e -> updateRooms());
         btnViewMap.addActionListener(e -> viewMap());
         btnBack.addActionListener(e -> mainFrame.showPanel(MainFrame.PANEL_MAIN));
     }
 
-    /** 根据所选教学楼与楼层，动态加载自习室 ID（示例仅简单填充） */
+    /** 从校园目录填充教学楼（第一次访问时加载整个目录） */
+    private void loadBuildings() {
+        try {
+            for (CampusDirectory.BuildingNode b : directory.getBuildings()) {
+                cbBuilding.addItem(b.getBuildingId());
+            }
+        } catch (DataAccessException dae) {
+            JOptionPane.showMessageDialog(this, "加载教学楼列表失败，请稍后再试", "错误", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /** 根据所选教学楼填充楼层（内存中取目录子节点，不访问数据库） */
+    private void updateFloors() {
+        Integer buildingId = (Integer) cbBuilding.getSelectedItem();
+        CampusDirectory.BuildingNode building = buildingId != null ? directory.building(buildingId) : null;
+        cbFloor.removeAllItems();
+        if (building != null) {
+            for (CampusDirectory.FloorNode f : building.getFloors()) {
+                cbFloor.addItem(f.getFloor());
+            }
+        }
+        updateRooms();
+    }
+
+    /** 根据所选教学楼与楼层填充自习室（内存中取目录子节点，不访问数据库） */
     private void updateRooms() {
-        int buildingId = (Integer) cbBuilding.getSelectedItem();
-        int floor = (Integer) cbFloor.getSelectedItem();
+        Integer buildingId = (Integer) cbBuilding.getSelectedItem();
+        Integer floor = (Integer) cbFloor.getSelectedItem();
         cbRoom.removeAllItems();
-        // TODO: 实际业务应调用 StudyRoomDAO，根据 buildingId 和 floor 查询自习室 ID
-        // 示例：每个楼层 10 个自习室，ID = buildingId*100 + floor*10 + i
-        for (int i = 1; i <= 10; i++) {
-            cbRoom.addItem(buildingId * 100 + floor * 10 + i);
+        if (buildingId == null || floor == null) return;
+        CampusDirectory.BuildingNode building = directory.building(buildingId);
+        CampusDirectory.FloorNode floorNode = building != null ? building.floor(floor) : null;
+        if (floorNode == null) return;
+        for (CampusDirectory.RoomNode room : floorNode.getRooms()) {
+            cbRoom.addItem(room.getRoomId());
         }
     }
 
     /** 点击“查看示意图”后，切换到 RoomMapPanel 并传递所选参数 */
     private void viewMap() {
         String dateStr = (String) cbDate.getSelectedItem();
-        int roomId = (Integer) cbRoom.getSelectedItem();
+        Integer roomId = (Integer) cbRoom.getSelectedItem();
+        if (roomId == null) {
+            JOptionPane.showMessageDialog(this, "请选择自习室", "提示", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
         // 将参数保存在 ApplicationContext 以便 RoomMapPanel 获取
         ApplicationContext.getInstance().setSelectedDate(dateStr);
         ApplicationContext.getInstance().setSelectedRoomId(roomId);
@@ -2,12 +2,13 @@ package com.example.seatmanager.ui;
 
 import com.example.seatmanager.controller.RecommendController;
 import com.example.seatmanager.entity.Seat;
+import com.example.seatmanager.service.CampusDirectory;
 import com.example.seatmanager.service.DataAccessException;
+import com.example.seatmanager.util.SlotClock;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -30,6 +31,7 @@ public class RecommendPanel extends JPanel {
     private final DefaultTableModel tblModel;
 
     private final RecommendController recommendController = new RecommendController();
+    private final CampusDirectory directory = CampusDirectory.getInstance();
 
     public RecommendPanel(MainFrame frame) {
         this.mainFrame = frame;
@@ -43,15 +45,21 @@ public class RecommendPanel extends JPanel {
         // 预约日期
         gbc.gridx = 0; gbc.gridy = 0; gbc.anchor = GridBagConstraints.EAST;
         inputPanel.add(new JLabel("日期(yyyy-MM-dd)："), gbc);
-        tfDate = new JTextField(LocalDate.now().toString(), 10);
+        tfDate = new JTextField(SlotClock.getInstance().today().toString(), 10);
         gbc.gridx = 1; gbc.anchor = GridBagConstraints.WEST;
         inputPanel.add(tfDate, gbc);
 
         // 教学楼
         gbc.gridx = 0; gbc.gridy = 1; gbc.anchor = GridBagConstraints.EAST;
-        inputPanel.add(new JLabel("教学楼(1-6)："), gbc);
+        inputPanel.add(new JLabel("教学楼："), gbc);
         cbBuilding = new JComboBox<>();
-        for (int i = 1; i <= 6; i++) cbBuilding.addItem(i);
+        try {
+            for (CampusDirectory.BuildingNode b : directory.getBuildings()) {
+                cbBuilding.addItem(b.getBuildingId());
+            }
+        } catch (DataAccessException dae) {
+            JOptionPane.showMessageDialog(this, "加载教学楼列表失败，请稍后再试", "错误", JOptionPane.ERROR_MESSAGE);
+        }
         gbc.gridx = 1; gbc.anchor = GridBagConstraints.WEST;
         inputPanel.add(cbBuilding, gbc);
 
@@ -59,7 +67,7 @@ public class RecommendPanel extends JPanel {
         gbc.gridx = 0; gbc.gridy = 2; gbc.anchor = GridBagConstraints.EAST;
         inputPanel.add(new JLabel("自习室(ID)："), gbc);
         cbRoom = new JComboBox<>();
-        // 默认值，可在用户选择教学楼后动态加载
+        RoomComboRenderer.install(cbRoom);
         updateRooms();
         gbc.gridx = 1; gbc.anchor = GridBagConstraints.WEST;
         inputPanel.add(cbRoom, gbc);
@@ -115,20 +123,24 @@ public class RecommendPanel extends JPanel {
         btnBack.addActionListener(e -> mainFrame.showPanel(MainFrame.PANEL_MAIN));
     }
 
-    /** 根据选定的教学楼，动态加载该楼对应的自习室 ID（示例仅简单填 1-10） */
+    /** 根据选定的教学楼填充该楼全部自习室（内存中取目录子节点，不访问数据库） */
     private void updateRooms() {
-        int buildingId = (Integer) cbBuilding.getSelectedItem();
+        Integer buildingId = (Integer) cbBuilding.getSelectedItem();
         cbRoom.removeAllItems();
-        // TODO: 实际业务中应调用 StudyRoomDAO 根据 buildingId 查询自习室列表
-        // 此处简单示例：假设每栋楼有 10 个自习室，ID = buildingId * 10 + i
-        for (int i = 1; i <= 10; i++) {
-            cbRoom.addItem(buildingId * 10 + i);
+        CampusDirectory.BuildingNode building = buildingId != null ? directory.building(buildingId) : null;
+        if (building == null) return;
+        for (CampusDirectory.RoomNode room : building.getRooms()) {
+            cbRoom.addItem(room.getRoomId());
         }
     }
 
     private void fetchRecommendations() {
         String dateStr = tfDate.getText().trim();
-        int roomId = (Integer) cbRoom.getSelectedItem();
+        Integer roomId = (Integer) cbRoom.getSelectedItem();
+        if (roomId == null) {
+            JOptionPane.showMessageDialog(this, "请选择自习室", "提示", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
         boolean needWindow = chkWindow.isSelected();
         boolean needDoor   = chkDoor.isSelected();
         boolean needSocket = chkSocket.isSelected();
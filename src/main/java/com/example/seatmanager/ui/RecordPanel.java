@@ -4,21 +4,18 @@ import com.example.seatmanager.controller.RecordController;
 import com.example.seatmanager.entity.UsageRecord;
 import com.example.seatmanager.entity.Student;
 import com.example.seatmanager.service.DataAccessException;
-import com.example.seatmanager.util.BitmapUtil;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.time.format.DateTimeFormatter;
-import java.util.List;
 
 /**
- * RecordPanel：展示当前登录学生的所有预约记录，并提供“取消”与“签到”操作
+ * RecordPanel：展示当前登录学生的所有预约记录，并提供“取消”与“签到”操作。
+ * 记录由 RecordTableModel 按页在后台加载，只有滚动到的页才会查询
  */
 public class RecordPanel extends JPanel {
     private final MainFrame mainFrame;
     private final JTable tblRecords;
-    private final DefaultTableModel tblModel;
+    private final RecordTableModel tblModel;
     private final JButton btnCancel;
     private final JButton btnSignIn;
     private final JButton btnBack;
@@ -40,13 +37,8 @@ public class RecordPanel extends JPanel {
         add(topPanel, BorderLayout.NORTH);
 
         // 表格：展示预约记录
-        String[] columns = {"记录ID", "座位ID", "日期", "已签到", "示例时段(第一个可用)"};
-        tblModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tblModel = new RecordTableModel(recordController, () -> JOptionPane.showMessageDialog(this,
+                "加载预约记录失败，请稍后再试", "错误", JOptionPane.ERROR_MESSAGE));
         tblRecords = new JTable(tblModel);
         tblRecords.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         JScrollPane scrollPane = new JScrollPane(tblRecords);
@@ -66,40 +58,31 @@ public class RecordPanel extends JPanel {
         }
     }
 
-    /** 加载当前登录学生的预约记录到表格 */
+    /** 重新加载当前登录学生的预约记录：后台统计总数，各页随滚动按需加载 */
     private void loadRecords() {
-        tblModel.setRowCount(0);
         Student current = ApplicationContext.getInstance().getCurrentStudent();
-        if (current == null) return;
-        try {
-            List<UsageRecord> list = recordController.handleGetRecordsByStudent(current.getStudentId());
-            DateTimeFormatter df = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-            for (UsageRecord r : list) {
-                // 只拿出 timeBitmap 中的第一个可用/占用时段示例
-                boolean[] avail = BitmapUtil.binaryToAvailability(r.getTimeBitmap());
-                String timeSlot = BitmapUtil.availabilityToTimeSlots(avail).stream().findFirst().orElse("—");
-                Object[] row = {
-                        r.getRecordId(),
-                        r.getSeatId(),
-                        r.getRecordDate().format(df),
-                        r.isSigned() ? "是" : "否",
-                        timeSlot
-                };
-                tblModel.addRow(row);
-            }
-        } catch (DataAccessException dae) {
-            JOptionPane.showMessageDialog(this, "加载预约记录失败，请稍后再试", "错误", JOptionPane.ERROR_MESSAGE);
-        }
+        tblModel.reload(current != null ? current.getStudentId() : null);
     }
 
-    /** 取消在表格中选中的预约记录 */
-    private void cancelSelectedRecord() {
+    /** @return 选中行的记录；未选中或所在页尚未加载完时提示并返回 null */
+    private UsageRecord selectedRecord(String emptyMessage) {
         int selectedRow = tblRecords.getSelectedRow();
         if (selectedRow < 0) {
-            JOptionPane.showMessageDialog(this, "请选择要取消的记录", "提示", JOptionPane.WARNING_MESSAGE);
-            return;
+            JOptionPane.showMessageDialog(this, emptyMessage, "提示", JOptionPane.WARNING_MESSAGE);
+            return null;
+        }
+        UsageRecord record = tblModel.recordAt(tblRecords.convertRowIndexToModel(selectedRow));
+        if (record == null) {
+            JOptionPane.showMessageDialog(this, "记录仍在加载，请稍候", "提示", JOptionPane.INFORMATION_MESSAGE);
         }
-        long recordId = (Long) tblModel.getValueAt(selectedRow, 0);
+        return record;
+    }
+
+    /** 取消在表格中选中的预约记录 */
+    private void cancelSelectedRecord() {
+        UsageRecord record = selectedRecord("请选择要取消的记录");
+        if (record == null) return;
+        long recordId = record.getRecordId();
         int confirm = JOptionPane.showConfirmDialog(this, "确定要取消此预约吗？", "确认", JOptionPane.YES_NO_OPTION);
         if (confirm != JOptionPane.YES_OPTION) return;
 
@@ -118,14 +101,10 @@ public class RecordPanel extends JPanel {
 
     /** 对表格中选中的预约记录进行“签到” */
     private void signInSelectedRecord() {
-        int selectedRow = tblRecords.getSelectedRow();
-        if (selectedRow < 0) {
-            JOptionPane.showMessageDialog(this, "请选择要签到的记录", "提示", JOptionPane.WARNING_MESSAGE);
-            return;
-        }
-        Long recordId = (Long) tblModel.getValueAt(selectedRow, 0);
-        String signedStr = (String) tblModel.getValueAt(selectedRow, 3);
-        if ("是".equals(signedStr)) {
+        UsageRecord record = selectedRecord("请选择要签到的记录");
+        if (record == null) return;
+        long recordId = record.getRecordId();
+        if (record.isSigned()) {
             JOptionPane.showMessageDialog(this, "该记录已签到，无需重复操作", "提示", JOptionPane.INFORMATION_MESSAGE);
             return;
         }
@@ -0,0 +1,202 @@
+package com.example.seatmanager.ui;
+
+import com.example.seatmanager.controller.RecordController;
+import com.example.seatmanager.entity.UsageRecord;
+import com.example.seatmanager.util.BitmapUtil;
+import com.example.seatmanager.util.SlotCalendar;
+
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * RecordTableModel：预约记录表格的分页模型。
+ *
+ * 只在后台查询记录总数，各页在表格第一次绘制到该页的行时才在后台加载，加载完成前对应单元格显示占位符。
+ * 已加载的页放在容量为 CACHE_PAGES 的 LRU 中；“时段”列（合并后的时间区间）只在单元格被绘制时才从位图解码，并按行缓存。
+ * 除后台加载外，所有方法都只在 EDT 上调用。
+ */
+class RecordTableModel extends AbstractTableModel {
+
+    static final int PAGE_SIZE = 50;
+    static final int CACHE_PAGES = 8;
+
+    private static final String[] COLUMNS = {"记录ID", "座位ID", "日期", "已签到", "时段"};
+    private static final String LOADING = "…";
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    /** 一页记录及其按需解码的时段文本 */
+    private static final class Page {
+        final List<UsageRecord> records;
+        final String[] intervals;
+
+        Page(List<UsageRecord> records) {
+            this.records = records;
+            this.intervals = new String[records.size()];
+        }
+    }
+
+    private final RecordController recordController;
+    private final Runnable onLoadFailed;
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "record-pages");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // 访问顺序的 LinkedHashMap 即 LRU：超过 CACHE_PAGES 时淘汰最久未访问的页
+    private final Map<Integer, Page> pages = new LinkedHashMap<Integer, Page>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Page> eldest) {
+            return size() > CACHE_PAGES;
+        }
+    };
+    private final Set<Integer> pending = new HashSet<>();
+    private String studentId;
+    private int rowCount;
+    // 每次 reload 递增，丢弃针对旧数据发起的加载结果
+    private int generation;
+
+    /**
+     * @param onLoadFailed 后台加载失败时在 EDT 上调用
+     */
+    RecordTableModel(RecordController recordController, Runnable onLoadFailed) {
+        this.recordController = recordController;
+        this.onLoadFailed = onLoadFailed;
+    }
+
+    /** 清空缓存并在后台重新统计该学生的记录数；studentId 为 null 时清空表格 */
+    void reload(String studentId) {
+        int gen = ++generation;
+        this.studentId = studentId;
+        pages.clear();
+        pending.clear();
+        rowCount = 0;
+        fireTableDataChanged();
+        if (studentId == null) {
+            return;
+        }
+        loader.execute(() -> {
+            try {
+                int count = recordController.handleCountRecordsByStudent(studentId);
+                SwingUtilities.invokeLater(() -> {
+                    if (gen == generation) {
+                        rowCount = count;
+                        fireTableDataChanged();
+                    }
+                });
+            } catch (RuntimeException e) {
+                failed(gen, e);
+            }
+        });
+    }
+
+    /** @return 第 row 行的记录；所在页尚未加载时返回 null（并开始加载） */
+    UsageRecord recordAt(int row) {
+        Page page = page(row / PAGE_SIZE);
+        int i = row % PAGE_SIZE;
+        return page != null && i < page.records.size() ? page.records.get(i) : null;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Page page = page(row / PAGE_SIZE);
+        int i = row % PAGE_SIZE;
+        if (page == null || i >= page.records.size()) {
+            return LOADING;
+        }
+        UsageRecord r = page.records.get(i);
+        switch (column) {
+            case 0:
+                return r.getRecordId();
+            case 1:
+                return r.getSeatId();
+            case 2:
+                return r.getRecordDate().format(DATE_FORMAT);
+            case 3:
+                return r.isSigned() ? "是" : "否";
+            default:
+                if (page.intervals[i] == null) {
+                    page.intervals[i] = intervalText(r);
+                }
+                return page.intervals[i];
+        }
+    }
+
+    /** 取缓存中的页；不在缓存中时在后台加载并返回 null */
+    private Page page(int index) {
+        Page page = pages.get(index);
+        if (page == null && studentId != null && pending.add(index)) {
+            int gen = generation;
+            String sid = studentId;
+            loader.execute(() -> {
+                try {
+                    List<UsageRecord> records = recordController.handleGetRecordPage(sid, index * PAGE_SIZE, PAGE_SIZE);
+                    SwingUtilities.invokeLater(() -> {
+                        if (gen != generation) return;
+                        pending.remove(index);
+                        pages.put(index, new Page(records));
+                        int first = index * PAGE_SIZE;
+                        int last = Math.min(rowCount, first + PAGE_SIZE) - 1;
+                        if (last >= first) {
+                            fireTableRowsUpdated(first, last);
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    // 失败的页留在 pending 中，直到下次 reload 才重试，避免每次重绘都重复查询并弹框
+                    failed(gen, e);
+                }
+            });
+        }
+        return page;
+    }
+
+    private void failed(int gen, RuntimeException e) {
+        System.err.println("[RecordTableModel] 加载预约记录失败: " + e);
+        SwingUtilities.invokeLater(() -> {
+            if (gen == generation) {
+                onLoadFailed.run();
+            }
+        });
+    }
+
+    /** 把记录的占用位图合并为若干连续区间，如 "08:00-09:30, 14:00-15:00" */
+    private static String intervalText(UsageRecord r) {
+        SlotCalendar calendar = SlotCalendar.getDefault();
+        StringBuilder sb = new StringBuilder();
+        for (int[] run : BitmapUtil.occupiedRuns(BitmapUtil.toOccupiedMask(r.getTimeBitmap()))) {
+            int end = Math.min(run[1], calendar.getSlotCount());
+            if (run[0] >= end) continue;
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(calendar.rangeLabel(run[0], end));
+        }
+        return sb.length() > 0 ? sb.toString() : "—";
+    }
+}
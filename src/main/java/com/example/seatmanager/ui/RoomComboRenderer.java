@@ -0,0 +1,40 @@
+package com.example.seatmanager.ui;
+
+import com.example.seatmanager.service.CampusDirectory;
+
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.JComboBox;
+import javax.swing.JList;
+import javax.swing.SwingUtilities;
+import java.awt.Component;
+
+/**
+ * RoomComboRenderer：自习室下拉框的显示方式，在 room_id 后附上 CampusDirectory 统计的空座数。
+ * 下拉框中的元素仍是 Integer 形式的 room_id；空座数在绘制时从目录读取，后台统计完成后由 install 注册的回调重绘。
+ */
+class RoomComboRenderer extends DefaultListCellRenderer {
+
+    private final CampusDirectory directory = CampusDirectory.getInstance();
+
+    /** 为下拉框设置本渲染器，并在空座数更新后重绘 */
+    static void install(JComboBox<Integer> comboBox) {
+        comboBox.setRenderer(new RoomComboRenderer());
+        CampusDirectory.getInstance().subscribeFigures(() -> SwingUtilities.invokeLater(comboBox::repaint));
+    }
+
+    @Override
+    public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                  boolean isSelected, boolean cellHasFocus) {
+        Object text = value;
+        if (value instanceof Integer) {
+            CampusDirectory.RoomNode room = directory.room((Integer) value);
+            if (room != null) {
+                int free = directory.getFreeSeats(room);
+                text = value + (free == CampusDirectory.UNKNOWN
+                        ? "（共 " + room.getTotalSeats() + " 座）"
+                        : "（空座 " + free + " / " + room.getTotalSeats() + "）");
+            }
+        }
+        return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+    }
+}
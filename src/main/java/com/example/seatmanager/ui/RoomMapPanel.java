@@ -2,20 +2,26 @@ package com.example.seatmanager.ui;
 
 import com.example.seatmanager.controller.MapController;
 import com.example.seatmanager.controller.ReserveController;
+import com.example.seatmanager.entity.Facility;
 import com.example.seatmanager.entity.Seat;
-import com.example.seatmanager.entity.UsageRecord;
 import com.example.seatmanager.entity.Student;
+import com.example.seatmanager.service.AdmissionRejectedException;
 import com.example.seatmanager.service.DataAccessException;
-import com.example.seatmanager.util.BitmapUtil;
+import com.example.seatmanager.service.RoomAvailability;
+import com.example.seatmanager.service.SeatChangeBus;
+import com.example.seatmanager.service.SeatChangeEvent;
+import com.example.seatmanager.util.SlotCalendar;
+import com.example.seatmanager.util.SlotClock;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 /**
- * RoomMapPanel：自习室示意图面板，根据 MapController 返回的可用位图绘制每个座位状态
+ * RoomMapPanel：自习室示意图面板，根据 MapController 返回的 RoomAvailability，按座位与设施的实际坐标绘制示意图
  */
 public class RoomMapPanel extends JPanel {
     private final MainFrame mainFrame;
@@ -25,29 +31,50 @@ public class RoomMapPanel extends JPanel {
     private final MapController mapController = new MapController();
     private final ReserveController reserveController = new ReserveController();
 
-    // 存储当前自习室可用位图：key = Seat，value = boolean[192]
-    private Map<Seat, boolean[]> seatAvailabilityMap;
+    // 当前自习室数据：按坐标（先 y 后 x）排序后的座位、占用掩码及预先计算好的状态，尚未加载时为 null
+    private RoomAvailability availability;
+    private List<Facility> facilities = new ArrayList<>();
+    // 当前示意图对应的自习室与日期（收到变化消息时据此过滤）
+    private int shownRoomId;
+    private LocalDate shownDate;
+
+    private final DrawingCanvas canvas;
 
     public RoomMapPanel(MainFrame frame) {
         this.mainFrame = frame;
         setLayout(new BorderLayout(10, 10));
 
-        // 顶部按钮区：返回 + 刷新示意图
+        // 顶部按钮区：返回 + 刷新示意图 + 缩放
         JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 10));
         btnBack = new JButton("返回");
         btnRefreshMap = new JButton("刷新示意图");
+        JButton btnZoomIn = new JButton("放大");
+        JButton btnZoomOut = new JButton("缩小");
         topPanel.add(btnBack);
         topPanel.add(btnRefreshMap);
+        topPanel.add(btnZoomIn);
+        topPanel.add(btnZoomOut);
         add(topPanel, BorderLayout.NORTH);
 
         // 中央画布区
-        DrawingCanvas canvas = new DrawingCanvas();
+        canvas = new DrawingCanvas();
         JScrollPane scrollPane = new JScrollPane(canvas);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+        scrollPane.getHorizontalScrollBar().setUnitIncrement(16);
+        // 仅复制画布中已缓存的图像，拖动滚动条时不必整块重绘
+        scrollPane.getViewport().setScrollMode(JViewport.BLIT_SCROLL_MODE);
         add(scrollPane, BorderLayout.CENTER);
 
         // 事件监听
         btnBack.addActionListener(e -> mainFrame.showPanel(MainFrame.PANEL_RESERVE));
         btnRefreshMap.addActionListener(e -> refreshMap());
+        btnZoomIn.addActionListener(e -> canvas.zoomBy(1.25));
+        btnZoomOut.addActionListener(e -> canvas.zoomBy(0.8));
+
+        // 订阅座位变化：其它界面或其它用户的预约、取消、事件变更会增量反映到当前示意图
+        SeatChangeBus.getInstance().subscribe(event -> SwingUtilities.invokeLater(() -> applySeatChange(event)));
+        // 订阅时段边界：刚结束的时段在边界上标为不可用，无需轮询
+        SlotClock.getInstance().subscribe((today, pastMask) -> SwingUtilities.invokeLater(this::applySlotBoundary));
     }
 
     @Override
@@ -58,31 +85,107 @@ public class RoomMapPanel extends JPanel {
         }
     }
 
-    /** 从 MapController 获取最新可用位图并重绘 */
+    /** 从 MapController 获取最新占用情况与设施后重建示意图 */
     private void refreshMap() {
         try {
             String dateStr = ApplicationContext.getInstance().getSelectedDate();
             int roomId = ApplicationContext.getInstance().getSelectedRoomId();
-            seatAvailabilityMap = mapController.handleGetSeatAvailability(String.valueOf(roomId), dateStr);
-            repaint();
+            String studentId = ApplicationContext.getInstance().getCurrentStudent().getStudentId();
+            availability = mapController.handleGetSeatAvailability(
+                    studentId, String.valueOf(roomId), dateStr);
+            facilities = mapController.handleGetFacilities(String.valueOf(roomId));
+            shownRoomId = roomId;
+            shownDate = LocalDate.parse(dateStr);
+            canvas.invalidateImage();
+        } catch (AdmissionRejectedException are) {
+            JOptionPane.showMessageDialog(this, are.getMessage(), "提示", JOptionPane.WARNING_MESSAGE);
         } catch (DataAccessException dae) {
             JOptionPane.showMessageDialog(this, "获取示意图失败，请稍后再试", "错误", JOptionPane.ERROR_MESSAGE);
         }
     }
 
     /**
-     * DrawingCanvas：实际绘制座位的 JPanel
+     * 处理座位变化消息（在 EDT 上执行）：只修补并重绘受影响的座位。
+     * 新增占用可直接在本地掩码上置位；释放时段时同一时段可能仍被其它记录或事件占用，
+     * 因此只重新加载该座位；事件删除影响整个自习室，直接整体刷新。
+     */
+    private void applySeatChange(SeatChangeEvent event) {
+        if (!isShowing() || availability == null
+                || event.getRoomId() != shownRoomId || !event.getDate().equals(shownDate)) {
+            return;
+        }
+        try {
+            switch (event.getKind()) {
+                case RESERVED: {
+                    int idx = availability.indexOf(event.getSeatId());
+                    if (idx >= 0) {
+                        availability.markOccupied(idx, event.getDeltaMask());
+                        canvas.redrawSeat(idx);
+                    }
+                    break;
+                }
+                case RELEASED: {
+                    int idx = availability.indexOf(event.getSeatId());
+                    if (idx >= 0) {
+                        availability.replaceMask(idx, mapController.handleGetSingleSeatOccupancy(
+                                shownRoomId, event.getSeatId(), shownDate.toString()));
+                        canvas.redrawSeat(idx);
+                    }
+                    break;
+                }
+                case ROOM_CLOSED:
+                    for (int i = 0; i < availability.size(); i++) {
+                        availability.markOccupied(i, event.getDeltaMask());
+                        canvas.redrawSeat(i);
+                    }
+                    break;
+                case ROOM_REOPENED:
+                    refreshMap();
+                    break;
+                default:
+                    // SIGNED_IN 不改变占用状态，示意图无需更新
+            }
+        } catch (DataAccessException dae) {
+            // 增量更新失败时不打扰用户，下次手动刷新即可恢复
+            System.err.println("[RoomMapPanel] failed to apply " + event + ": " + dae.getMessage());
+        }
+    }
+
+    /** 时段边界（在 EDT 上执行）：把所示日期已经结束的时段叠加到每个座位上，只重绘状态变化的座位 */
+    private void applySlotBoundary() {
+        if (!isShowing() || availability == null) {
+            return;
+        }
+        long[] past = SlotClock.getInstance().pastMask(shownDate);
+        for (int i = 0; i < availability.size(); i++) {
+            byte before = availability.status(i);
+            availability.markOccupied(i, past);
+            if (availability.status(i) != before) {
+                canvas.redrawSeat(i);
+            }
+        }
+    }
+
+    /**
+     * DrawingCanvas：按座位、设施的实际坐标绘制示意图。
+     * 示意图先绘制到缓存的 BufferedImage 中，仅在数据或缩放比例变化时重建；
+     * paintComponent 只负责把缓存图像贴到屏幕上。
      */
     private class DrawingCanvas extends JPanel {
-        private final int SEAT_SIZE = 40; // 每个座位方块大小（像素）
-        private final int GAP       = 10; // 座位之间间隔
+        private static final int UNIT_PX    = 8;  // 缩放为 1 时，坐标系中 1 个单位对应的像素
+        private static final int SEAT_UNITS = 6;  // 座位方块边长（坐标单位），座位间距至少为 8
+        private static final int MARGIN     = 6;  // 画布四周留白（坐标单位）
+        private static final double MIN_ZOOM = 0.5;
+        private static final double MAX_ZOOM = 4.0;
 
-        // 用于点击检测：Rectangle  → Seat 对象
-        private final java.util.Map<Rectangle, Seat> seatRectMap = new java.util.HashMap<>();
+        private double zoom = 1.0;
+        private BufferedImage mapImage;
+        private SeatHitGrid hitGrid;
+        // 坐标系原点偏移：所有座位、设施坐标的最小值
+        private int originX;
+        private int originY;
 
         public DrawingCanvas() {
-            // 根据实际自习室大小调整此值
-            setPreferredSize(new Dimension(1200, 800));
             setBackground(Color.WHITE);
 
             addMouseListener(new java.awt.event.MouseAdapter() {
@@ -91,137 +194,278 @@ public class RoomMapPanel extends JPanel {
                     handleClick(e.getX(), e.getY());
                 }
             });
+            // Ctrl + 滚轮缩放，其余情况交给 JScrollPane 滚动
+            addMouseWheelListener(e -> {
+                if (e.isControlDown()) {
+                    zoomBy(e.getWheelRotation() < 0 ? 1.1 : 1 / 1.1);
+                } else {
+                    Container scrollPane = SwingUtilities.getAncestorOfClass(JScrollPane.class, this);
+                    if (scrollPane != null) {
+                        scrollPane.dispatchEvent(SwingUtilities.convertMouseEvent(this, e, scrollPane));
+                    }
+                }
+            });
+        }
+
+        /** 数据已变化，丢弃缓存图像并在下次绘制前重建 */
+        void invalidateImage() {
+            mapImage = null;
+            hitGrid = null;
+            revalidate();
+            repaint();
+        }
+
+        /** 在缓存图像上重画单个座位，并只重绘其所在矩形 */
+        void redrawSeat(int index) {
+            if (mapImage == null || hitGrid == null) {
+                repaint();
+                return;
+            }
+            Rectangle rect = hitGrid.rectOf(index);
+            Graphics2D g2d = mapImage.createGraphics();
+            try {
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2d.setFont(getFont().deriveFont((float) Math.max(9, 12 * zoom)));
+                drawSeat(g2d, index, rect);
+            } finally {
+                g2d.dispose();
+            }
+            repaint(rect);
+        }
+
+        void zoomBy(double factor) {
+            double newZoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom * factor));
+            if (newZoom != zoom) {
+                zoom = newZoom;
+                invalidateImage();
+            }
+        }
+
+        private double scale() {
+            return UNIT_PX * zoom;
+        }
+
+        @Override
+        public Dimension getPreferredSize() {
+            ensureImage();
+            if (mapImage == null) {
+                return new Dimension(800, 600);
+            }
+            return new Dimension(mapImage.getWidth(), mapImage.getHeight());
         }
 
         @Override
         protected void paintComponent(Graphics g) {
             super.paintComponent(g);
-            if (seatAvailabilityMap == null) return;
-
-            seatRectMap.clear(); // 清除上次绘制时存的矩形映射
-
-            Graphics2D g2d = (Graphics2D) g;
-            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-            int x = GAP;
-            int y = GAP;
-            for (Seat seat : seatAvailabilityMap.keySet()) {
-                boolean[] avail = seatAvailabilityMap.get(seat);
-                // 判断整个位图：全 true = 全可用；全 false = 全占用；否则部分占用
-                boolean allTrue = true, allFalse = true;
-                for (boolean b : avail) {
-                    if (b) {
-                        allFalse = false;
-                    } else {
-                        allTrue = false;
-                    }
+            ensureImage();
+            if (mapImage != null) {
+                g.drawImage(mapImage, 0, 0, null);
+            }
+        }
+
+        /** 按需重建缓存图像及点击检测网格 */
+        private void ensureImage() {
+            if (mapImage != null || availability == null || availability.size() == 0) return;
+            RoomAvailability av = availability;
+
+            // 1. 计算所有座位、设施坐标的包围盒
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+            for (int i = 0; i < av.size(); i++) {
+                Seat seat = av.seat(i);
+                minX = Math.min(minX, seat.getXCoord());
+                minY = Math.min(minY, seat.getYCoord());
+                maxX = Math.max(maxX, seat.getXCoord());
+                maxY = Math.max(maxY, seat.getYCoord());
+            }
+            for (Facility f : facilities) {
+                minX = Math.min(minX, f.getXCoord());
+                minY = Math.min(minY, f.getYCoord());
+                maxX = Math.max(maxX, f.getXCoord());
+                maxY = Math.max(maxY, f.getYCoord());
+            }
+            originX = minX - MARGIN;
+            originY = minY - MARGIN;
+            double scale = scale();
+            int width = (int) Math.ceil((maxX - minX + 2 * MARGIN) * scale);
+            int height = (int) Math.ceil((maxY - minY + 2 * MARGIN) * scale);
+
+            // 2. 绘制到离屏图像
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2d = image.createGraphics();
+            try {
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2d.setColor(Color.WHITE);
+                g2d.fillRect(0, 0, width, height);
+                g2d.setFont(getFont().deriveFont((float) Math.max(9, 12 * zoom)));
+
+                for (Facility f : facilities) {
+                    drawFacility(g2d, f);
+                }
+
+                int seatPx = (int) Math.round(SEAT_UNITS * scale);
+                SeatHitGrid grid = new SeatHitGrid(width, height, seatPx, av.size());
+                for (int i = 0; i < av.size(); i++) {
+                    Rectangle rect = seatRect(av.seat(i), seatPx);
+                    drawSeat(g2d, i, rect);
+                    grid.add(i, rect);
                 }
-                if (allTrue) {
+                hitGrid = grid;
+            } finally {
+                g2d.dispose();
+            }
+            mapImage = image;
+        }
+
+        /** 计算座位在画布上的矩形：以座位坐标为中心的方块 */
+        private Rectangle seatRect(Seat seat, int seatPx) {
+            int cx = toPx(seat.getXCoord() - originX);
+            int cy = toPx(seat.getYCoord() - originY);
+            return new Rectangle(cx - seatPx / 2, cy - seatPx / 2, seatPx, seatPx);
+        }
+
+        private int toPx(int units) {
+            return (int) Math.round(units * scale());
+        }
+
+        private void drawSeat(Graphics2D g2d, int index, Rectangle rect) {
+            switch (availability.status(index)) {
+                case RoomAvailability.STATUS_FREE:
                     g2d.setColor(Color.GREEN);
-                } else if (allFalse) {
+                    break;
+                case RoomAvailability.STATUS_FULL:
                     g2d.setColor(Color.RED);
-                } else {
+                    break;
+                default:
                     g2d.setColor(Color.ORANGE);
-                }
-                g2d.fillRect(x, y, SEAT_SIZE, SEAT_SIZE);
-
-                // 绘制座位 ID
-                g2d.setColor(Color.BLACK);
-                String text = String.valueOf(seat.getSeatId());
-                FontMetrics fm = g2d.getFontMetrics();
-                int tx = x + (SEAT_SIZE - fm.stringWidth(text)) / 2;
-                int ty = y + ((SEAT_SIZE - fm.getHeight()) / 2) + fm.getAscent();
-                g2d.drawString(text, tx, ty);
-
-                // 存储当前座位对应的矩形区域
-                Rectangle rect = new Rectangle(x, y, SEAT_SIZE, SEAT_SIZE);
-                seatRectMap.put(rect, seat);
-
-                // 准备绘制下一个座位：横向排列，若超出画布宽度则换行
-                x += SEAT_SIZE + GAP;
-                if (x + SEAT_SIZE + GAP > getWidth()) {
-                    x = GAP;
-                    y += SEAT_SIZE + GAP;
-                }
+            }
+            g2d.fillRect(rect.x, rect.y, rect.width, rect.height);
+
+            // 绘制座位 ID
+            g2d.setColor(Color.BLACK);
+            String text = String.valueOf(availability.seat(index).getSeatId());
+            FontMetrics fm = g2d.getFontMetrics();
+            int tx = rect.x + (rect.width - fm.stringWidth(text)) / 2;
+            int ty = rect.y + ((rect.height - fm.getHeight()) / 2) + fm.getAscent();
+            g2d.drawString(text, tx, ty);
+        }
+
+        private void drawFacility(Graphics2D g2d, Facility f) {
+            int cx = toPx(f.getXCoord() - originX);
+            int cy = toPx(f.getYCoord() - originY);
+            int size = (int) Math.round(3 * scale());
+            switch (f.getType()) {
+                case DOOR:
+                    g2d.setColor(new Color(139, 90, 43));
+                    g2d.fillRect(cx - size / 2, cy - size / 4, size, size / 2);
+                    break;
+                case WINDOW:
+                    g2d.setColor(new Color(135, 206, 250));
+                    g2d.fillRect(cx - size / 2, cy - size / 2, size, size);
+                    g2d.setColor(Color.GRAY);
+                    g2d.drawRect(cx - size / 2, cy - size / 2, size, size);
+                    break;
+                default:
+                    g2d.setColor(Color.DARK_GRAY);
+                    g2d.fillOval(cx - size / 4, cy - size / 4, size / 2, size / 2);
             }
         }
 
         /**
-         * 处理用户点击某个座位方块：弹出时段选择对话框，并尝试预约
+         * 处理用户点击某个座位方块：弹出时段区间选择对话框，并尝试整段预约
          */
         private void handleClick(int mouseX, int mouseY) {
-            for (Rectangle rect : seatRectMap.keySet()) {
-                if (rect.contains(mouseX, mouseY)) {
-                    Seat clickedSeat = seatRectMap.get(rect);
-                    boolean[] avail = seatAvailabilityMap.get(clickedSeat);
-
-                    // 从 avail（boolean[192]）直接生成可用时段列表
-                    java.util.List<String> timeSlots = BitmapUtil.availabilityToTimeSlots(avail);
-                    if (timeSlots.isEmpty()) {
-                        JOptionPane.showMessageDialog(this, "该座位已无可用时段", "提示", JOptionPane.INFORMATION_MESSAGE);
-                        return;
-                    }
+            if (hitGrid == null) return;
+            int seatIndex = hitGrid.find(mouseX, mouseY);
+            if (seatIndex < 0) return;
 
-                    // 弹出对话框供用户选择一个时段
-                    String selectedSlot = (String) JOptionPane.showInputDialog(
-                            this,
-                            "选择预约时段：",
-                            "预约 座位 " + clickedSeat.getSeatId(),
-                            JOptionPane.PLAIN_MESSAGE,
-                            null,
-                            timeSlots.toArray(),
-                            timeSlots.get(0)
-                    );
-                    if (selectedSlot != null) {
-                        // 找到 selectedSlot 对应的索引 idx
-                        int targetIdx = -1;
-                        for (int i = 0; i < 192; i++) {
-                            int totalMin = i * 5;
-                            int h = totalMin / 60;
-                            int m = totalMin % 60;
-                            String start = String.format("%02d:%02d", h, m);
-                            int endTotal = totalMin + 5;
-                            int eh = endTotal / 60;
-                            int em = endTotal % 60;
-                            String end = String.format("%02d:%02d", eh, em);
-                            if ((start + "-" + end).equals(selectedSlot)) {
-                                targetIdx = i;
-                                break;
-                            }
-                        }
-                        if (targetIdx < 0) return;
-
-                        // 构建新的目标可用位图：复制原始 avail，再把 targetIdx 置为 false（表示要占用这段）
-                        boolean[] targetAvail = avail.clone();
-                        targetAvail[targetIdx] = false;
-
-                        // 将 boolean[192] 转换为 byte[24]
-                        byte[] targetBitmap = BitmapUtil.availabilityToBinary(targetAvail);
-
-                        // 构造 UsageRecord 对象，并调用 ReserveController 创建预约
-                        UsageRecord record = new UsageRecord();
-                        Student current = ApplicationContext.getInstance().getCurrentStudent();
-                        record.setStudentId(current.getStudentId());
-                        record.setSeatId(clickedSeat.getSeatId());
-                        record.setRecordDate(LocalDate.parse(ApplicationContext.getInstance().getSelectedDate()));
-                        record.setSigned(false);
-                        record.setTimeBitmap(targetBitmap);
-
-                        try {
-                            boolean success = reserveController.handleCreateReservation(record, clickedSeat.getRoomId());
-                            if (success) {
-                                JOptionPane.showMessageDialog(this, "预约成功");
-                                refreshMap();
-                            } else {
-                                JOptionPane.showMessageDialog(this, "预约失败，存在时间冲突或数据库错误", "错误", JOptionPane.ERROR_MESSAGE);
-                            }
-                        } catch (DataAccessException dae) {
-                            JOptionPane.showMessageDialog(this, "系统繁忙，请稍后再试", "错误", JOptionPane.ERROR_MESSAGE);
-                        }
-                    }
-                    break;
+            Seat clickedSeat = availability.seat(seatIndex);
+            int[] range = showRangeDialog(clickedSeat, availability.availability(seatIndex));
+            if (range == null) return;
+
+            Student current = ApplicationContext.getInstance().getCurrentStudent();
+            try {
+                boolean success = reserveController.handleCreateIntervalReservation(
+                        current.getStudentId(),
+                        clickedSeat.getSeatId(),
+                        clickedSeat.getRoomId(),
+                        ApplicationContext.getInstance().getSelectedDate(),
+                        range[0],
+                        range[1]);
+                if (success) {
+                    // 示意图会通过 SeatChangeBus 增量更新，无需整体刷新
+                    JOptionPane.showMessageDialog(this, "预约成功："
+                            + SlotCalendar.getDefault().rangeLabel(range[0], range[1]));
+                } else {
+                    offerWaitlist(current, clickedSeat, range);
                 }
+            } catch (AdmissionRejectedException are) {
+                JOptionPane.showMessageDialog(this, are.getMessage(), "提示", JOptionPane.WARNING_MESSAGE);
+            } catch (DataAccessException dae) {
+                JOptionPane.showMessageDialog(this, "系统繁忙，请稍后再试", "错误", JOptionPane.ERROR_MESSAGE);
             }
         }
+
+        /**
+         * 预约冲突时询问是否登记候补：有人取消且区间可容纳时自动为其预约该座位
+         */
+        private void offerWaitlist(Student current, Seat seat, int[] range) {
+            String label = SlotCalendar.getDefault().rangeLabel(range[0], range[1]);
+            int option = JOptionPane.showConfirmDialog(this,
+                    "预约失败，存在时间冲突。\n是否登记候补？有人取消 " + label + " 时将自动为您预约该座位。",
+                    "候补", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
+            if (option != JOptionPane.YES_OPTION) return;
+            try {
+                reserveController.handleJoinWaitlist(current.getStudentId(), seat.getSeatId(), seat.getRoomId(),
+                        ApplicationContext.getInstance().getSelectedDate(), range[0], range[1]);
+                JOptionPane.showMessageDialog(this, "已登记候补：座位 " + seat.getSeatId() + " " + label);
+            } catch (IllegalArgumentException | IllegalStateException | AdmissionRejectedException e) {
+                JOptionPane.showMessageDialog(this, "登记候补失败：" + e.getMessage(), "错误", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+
+        /**
+         * 弹出“开始时间 / 结束时间”对话框。开始时间只列出空闲时段，
+         * 结束时间只列出与开始时段处于同一段连续空闲区间内的边界，保证所选区间整体可用。
+         *
+         * @return {startSlot, endSlot}（endSlot 不包含）；用户取消或无可用时段返回 null
+         */
+        private int[] showRangeDialog(Seat seat, boolean[] avail) {
+            SlotCalendar calendar = SlotCalendar.getDefault();
+            int slotCount = Math.min(avail.length, calendar.getSlotCount());
+
+            JComboBox<String> cbStart = new JComboBox<>();
+            for (int i = 0; i < slotCount; i++) {
+                if (avail[i]) cbStart.addItem(calendar.slotLabel(i));
+            }
+            if (cbStart.getItemCount() == 0) {
+                JOptionPane.showMessageDialog(this, "该座位已无可用时段", "提示", JOptionPane.INFORMATION_MESSAGE);
+                return null;
+            }
+            JComboBox<String> cbEnd = new JComboBox<>();
+            Runnable updateEnds = () -> {
+                cbEnd.removeAllItems();
+                int start = calendar.parseSlot((String) cbStart.getSelectedItem());
+                for (int b = start + 1; b <= slotCount && avail[b - 1]; b++) {
+                    cbEnd.addItem(calendar.boundaryLabel(b));
+                }
+            };
+            updateEnds.run();
+            cbStart.addActionListener(e -> updateEnds.run());
+
+            JPanel form = new JPanel(new GridLayout(2, 2, 8, 8));
+            form.add(new JLabel("开始时段："));
+            form.add(cbStart);
+            form.add(new JLabel("结束时间："));
+            form.add(cbEnd);
+            int option = JOptionPane.showConfirmDialog(this, form, "预约 座位 " + seat.getSeatId(),
+                    JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+            if (option != JOptionPane.OK_OPTION) return null;
+
+            int start = calendar.parseSlot((String) cbStart.getSelectedItem());
+            // 结束下标 = 开始下标 + 1 + 结束下拉框中的位置
+            int end = start + 1 + cbEnd.getSelectedIndex();
+            return start >= 0 && cbEnd.getSelectedIndex() >= 0 ? new int[] {start, end} : null;
+        }
     }
 }
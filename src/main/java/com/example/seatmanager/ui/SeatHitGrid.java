@@ -0,0 +1,86 @@
+package com.example.seatmanager.ui;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+/**
+ * SeatHitGrid：示意图点击检测用的均匀网格。
+ * 画布按固定边长切成若干格子，每个格子只记录与之相交的座位下标；
+ * 点击时先定位到格子，再在格子内的少量候选座位中做矩形检测，整体为 O(1)。
+ */
+class SeatHitGrid {
+    private final int cellSize;
+    private final int cols;
+    private final int rows;
+    // cells[row * cols + col] = 与该格子相交的座位下标
+    private final int[][] cells;
+    private final int[] cellCounts;
+    private final Rectangle[] rects;
+
+    /**
+     * @param width     画布宽度（像素）
+     * @param height    画布高度（像素）
+     * @param cellSize  格子边长（像素），一般取座位方块边长
+     * @param seatCount 座位总数
+     */
+    SeatHitGrid(int width, int height, int cellSize, int seatCount) {
+        this.cellSize = Math.max(1, cellSize);
+        this.cols = Math.max(1, (width + this.cellSize - 1) / this.cellSize);
+        this.rows = Math.max(1, (height + this.cellSize - 1) / this.cellSize);
+        this.cells = new int[cols * rows][];
+        this.cellCounts = new int[cols * rows];
+        this.rects = new Rectangle[seatCount];
+    }
+
+    /** 登记第 seatIndex 个座位所占的矩形区域 */
+    void add(int seatIndex, Rectangle rect) {
+        rects[seatIndex] = rect;
+        int c0 = clamp(rect.x / cellSize, cols);
+        int c1 = clamp((rect.x + rect.width - 1) / cellSize, cols);
+        int r0 = clamp(rect.y / cellSize, rows);
+        int r1 = clamp((rect.y + rect.height - 1) / cellSize, rows);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * cols + c;
+                int[] bucket = cells[cell];
+                if (bucket == null) {
+                    bucket = new int[2];
+                } else if (cellCounts[cell] == bucket.length) {
+                    bucket = Arrays.copyOf(bucket, bucket.length * 2);
+                }
+                bucket[cellCounts[cell]++] = seatIndex;
+                cells[cell] = bucket;
+            }
+        }
+    }
+
+    /**
+     * 查找包含点 (x, y) 的座位
+     *
+     * @return 座位下标；未命中返回 -1
+     */
+    int find(int x, int y) {
+        if (x < 0 || y < 0) return -1;
+        int c = x / cellSize;
+        int r = y / cellSize;
+        if (c >= cols || r >= rows) return -1;
+        int cell = r * cols + c;
+        int[] bucket = cells[cell];
+        for (int i = 0; i < cellCounts[cell]; i++) {
+            int seatIndex = bucket[i];
+            if (rects[seatIndex].contains(x, y)) {
+                return seatIndex;
+            }
+        }
+        return -1;
+    }
+
+    /** 返回第 seatIndex 个座位登记时的矩形（用于局部重绘） */
+    Rectangle rectOf(int seatIndex) {
+        return rects[seatIndex];
+    }
+
+    private static int clamp(int v, int size) {
+        return Math.max(0, Math.min(size - 1, v));
+    }
+}
@@ -6,13 +6,18 @@ import java.util.List;
 
 /**
  * BitmapUtil：将数据库中 BINARY(24) ↔ boolean[192]（或 BitSet）相互转换，
- * 并支持按 5 分钟一格切分成具体时段列表的辅助方法。
+ * 并支持按 SlotCalendar 定义的时段切分成具体时段列表的辅助方法。
  */
 public class BitmapUtil {
 
+    /** 192 个时段按 64 位分组后所需的 long 个数 */
+    public static final int MASK_WORDS = 3;
+
+    private static final long[][] HOUR_MASKS = buildHourMasks();
+
     /**
      * 将长度为 24 的 byte 数组（二进制总共 192 位）转换为 boolean[192] 数组。
-     * 其中，第 0 位表示 0:00-0:05，第 1 位表示 0:05-0:10 …… 第 191 位表示 15:55-16:00，依此类推。
+     * 第 i 位对应 SlotCalendar 中的第 i 段，默认第 0 位表示 07:00-07:05 …… 第 191 位表示 22:55-23:00。
      *
      * @param binaryData 数据库中 BINARY(24) 字段对应的 byte[24]
      * @return boolean[192]：true 表示该 5 分钟时段“可用”，false 表示该时段“已占用”
@@ -85,20 +90,13 @@ public class BitmapUtil {
      * @return List<String>，每个 String 形如 “HH:mm-HH:mm”
      */
     public static List<String> availabilityToTimeSlots(boolean[] availability) {
+        SlotCalendar calendar = SlotCalendar.getDefault();
+        int slotCount = Math.min(availability.length, calendar.getSlotCount());
         List<String> timeSlots = new ArrayList<>();
-        for (int index = 0; index < availability.length; index++) {
+        for (int index = 0; index < slotCount; index++) {
             if (availability[index]) {
-                // 每个 index 对应 5 分钟一个时段
-                int totalMinutes = index * 5;               // 例如 index=0 → 0 分钟；index=1 → 5 分钟
-                int hour = totalMinutes / 60;               // 小时
-                int minute = totalMinutes % 60;             // 分钟
-                String start = String.format("%02d:%02d", hour, minute);
-                // 结束时间再加 5 分钟
-                int endTotalMinutes = totalMinutes + 5;
-                int endHour = endTotalMinutes / 60;
-                int endMinute = endTotalMinutes % 60;
-                String end = String.format("%02d:%02d", endHour, endMinute);
-                timeSlots.add(start + "-" + end);
+                // 标签已由 SlotCalendar 预先生成
+                timeSlots.add(calendar.slotLabel(index));
             }
         }
         return timeSlots;
@@ -106,7 +104,7 @@ public class BitmapUtil {
 
     /**
      * 将 List&lt;Integer&gt;（可用时段索引）转换为按连续区间合并的 String 列表，
-     * 例如： [0,1,2,5,6] → ["00:00-00:15", "00:25-00:35"]
+     * 例如（默认 07:00 开馆）： [0,1,2,5,6] → ["07:00-07:15", "07:25-07:35"]
      * 用于展示一整块连续可用区间，而不是所有单一的 5 分钟粒度。
      *
      * @param availableIndices List&lt;Integer&gt;，必须是升序且不重复
@@ -127,34 +125,180 @@ public class BitmapUtil {
                 prevIdx = curr;
             } else {
                 // 当前连续区间结束，生成时间区间字符串
-                merged.add(buildTimeRangeString(startIdx, prevIdx + 1));
+                merged.add(SlotCalendar.getDefault().rangeLabel(startIdx, prevIdx + 1));
                 // 重新开新的连续区间
                 startIdx = curr;
                 prevIdx = curr;
             }
         }
         // 最后一个区间
-        merged.add(buildTimeRangeString(startIdx, prevIdx + 1));
+        merged.add(SlotCalendar.getDefault().rangeLabel(startIdx, prevIdx + 1));
         return merged;
     }
 
     /**
-     * 辅助：将时段索引 rangeStart（包含）到 rangeEnd（不包含）合并，生成“HH:mm-HH:mm”。
+     * 将 BINARY(24) 可用位图转换为“占用掩码”：long[3]，第 i 位为 1 表示第 i 个时段被占用。
+     * 与 boolean[192] 相比，合并、冲突检测都可以按 64 位一组完成。
+     *
+     * @param binaryData 数据库中 BINARY(24) 字段对应的 byte[24]（1 = 可用，0 = 占用）
+     * @return long[3] 占用掩码
+     */
+    public static long[] toOccupiedMask(byte[] binaryData) {
+        if (binaryData == null || binaryData.length != 24) {
+            throw new IllegalArgumentException("binaryData must be exactly 24 bytes (192 bits).");
+        }
+        long[] mask = new long[MASK_WORDS];
+        for (int byteIndex = 0; byteIndex < 24; byteIndex++) {
+            int occupied = ~binaryData[byteIndex] & 0xFF;
+            if (occupied == 0) continue;
+            for (int bitIndex = 0; bitIndex < 8; bitIndex++) {
+                if ((occupied & (0x80 >>> bitIndex)) != 0) {
+                    int slot = byteIndex * 8 + bitIndex;
+                    mask[slot >>> 6] |= 1L << (slot & 63);
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 把 BINARY(24) 可用位图中的占用时段按位或进 dest[offset .. offset + MASK_WORDS)，
+     * 结果与 toOccupiedMask() 相同，但不分配中间数组；供批量读取直接写入列式数组
+     */
+    public static void orOccupiedInto(byte[] binaryData, long[] dest, int offset) {
+        if (binaryData == null || binaryData.length != 24) {
+            throw new IllegalArgumentException("binaryData must be exactly 24 bytes (192 bits).");
+        }
+        for (int byteIndex = 0; byteIndex < 24; byteIndex++) {
+            int occupied = ~binaryData[byteIndex] & 0xFF;
+            if (occupied != 0) {
+                // 字节的最高位对应较小的时段，反转后按字节序号移到对应位置
+                long bits = Integer.reverse(occupied) >>> 24;
+                dest[offset + (byteIndex >>> 3)] |= bits << ((byteIndex & 7) << 3);
+            }
+        }
+    }
+
+    /**
+     * 将占用掩码中为 1 的时段在 availability 中置为 false（不可用）
+     */
+    public static void markOccupied(boolean[] availability, long[] occupiedMask) {
+        for (int w = 0; w < MASK_WORDS; w++) {
+            long word = occupiedMask[w];
+            while (word != 0) {
+                int slot = (w << 6) + Long.numberOfTrailingZeros(word);
+                availability[slot] = false;
+                word &= word - 1;
+            }
+        }
+    }
+
+    /**
+     * 生成时段区间 [start, end) 的占用掩码：long[3]，区间内的位为 1
      *
-     * @param rangeStart 起始索引
-     * @param rangeEnd   结束索引（exclusive），表示最后一个时段索引 + 1
-     * @return 格式化后的时间区间字符串
+     * @param start 起始时段（包含）
+     * @param end   结束时段（不包含）
      */
-    private static String buildTimeRangeString(int rangeStart, int rangeEnd) {
-        // rangeStart → 开始时间；rangeEnd → 结束时间
-        int startTotal = rangeStart * 5;
-        int endTotal = rangeEnd * 5;
-        int startHour = startTotal / 60;
-        int startMinute = startTotal % 60;
-        int endHour = endTotal / 60;
-        int endMinute = endTotal % 60;
-        String start = String.format("%02d:%02d", startHour, startMinute);
-        String end = String.format("%02d:%02d", endHour, endMinute);
-        return start + "-" + end;
+    public static long[] rangeMask(int start, int end) {
+        if (start < 0 || end > 192 || start >= end) {
+            throw new IllegalArgumentException("invalid slot range [" + start + ", " + end + ")");
+        }
+        long[] mask = new long[MASK_WORDS];
+        for (int w = 0; w < MASK_WORDS; w++) {
+            int lo = Math.max(start, w << 6);
+            int hi = Math.min(end, (w + 1) << 6);
+            if (lo < hi) {
+                int len = hi - lo;
+                long bits = len == 64 ? -1L : (1L << len) - 1;
+                mask[w] = bits << (lo & 63);
+            }
+        }
+        return mask;
+    }
+
+    /** 判断两个占用掩码是否有重叠的时段 */
+    public static boolean intersects(long[] a, long[] b) {
+        for (int w = 0; w < MASK_WORDS; w++) {
+            if ((a[w] & b[w]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 将占用掩码转换回 BINARY(24) 可用位图（1 = 可用，0 = 占用），与 toOccupiedMask() 互逆
+     */
+    public static byte[] fromOccupiedMask(long[] occupiedMask) {
+        byte[] binaryData = new byte[24];
+        for (int byteIndex = 0; byteIndex < 24; byteIndex++) {
+            int b = 0;
+            for (int bitIndex = 0; bitIndex < 8; bitIndex++) {
+                int slot = byteIndex * 8 + bitIndex;
+                if ((occupiedMask[slot >>> 6] & (1L << (slot & 63))) == 0) {
+                    b |= 0x80 >>> bitIndex;
+                }
+            }
+            binaryData[byteIndex] = (byte) b;
+        }
+        return binaryData;
+    }
+
+    /**
+     * 将占用掩码拆分为若干连续占用区间，例如占用 0–2、5–6 段 → [[0,3], [5,7]]
+     *
+     * @return 升序排列的区间列表，每项为 {start, end}（end 不包含）；无占用返回空列表
+     */
+    public static List<int[]> occupiedRuns(long[] occupiedMask) {
+        List<int[]> runs = new ArrayList<>();
+        int runStart = -1;
+        for (int slot = 0; slot < 192; slot++) {
+            boolean occupied = (occupiedMask[slot >>> 6] & (1L << (slot & 63))) != 0;
+            if (occupied && runStart < 0) {
+                runStart = slot;
+            } else if (!occupied && runStart >= 0) {
+                runs.add(new int[] {runStart, slot});
+                runStart = -1;
+            }
+        }
+        if (runStart >= 0) {
+            runs.add(new int[] {runStart, 192});
+        }
+        return runs;
+    }
+
+    /**
+     * 按小时分组的时段掩码：hourMasks()[h] 为起点落在 h 点（0–23）内的所有时段，基于默认 SlotCalendar
+     */
+    public static long[][] hourMasks() {
+        long[][] copy = new long[HOUR_MASKS.length][];
+        for (int h = 0; h < HOUR_MASKS.length; h++) {
+            copy[h] = HOUR_MASKS[h].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * 统计占用掩码在每个小时（0–23）内的时段数
+     */
+    public static int[] countByHour(long[] occupiedMask) {
+        int[] counts = new int[24];
+        for (int h = 0; h < 24; h++) {
+            long[] hm = HOUR_MASKS[h];
+            for (int w = 0; w < MASK_WORDS; w++) {
+                counts[h] += Long.bitCount(occupiedMask[w] & hm[w]);
+            }
+        }
+        return counts;
+    }
+
+    private static long[][] buildHourMasks() {
+        SlotCalendar calendar = SlotCalendar.getDefault();
+        long[][] masks = new long[24][MASK_WORDS];
+        for (int slot = 0; slot < calendar.getSlotCount(); slot++) {
+            int hour = calendar.boundaryMinuteOfDay(slot) / 60;
+            masks[hour][slot >> 6] |= 1L << (slot & 63);
+        }
+        return masks;
     }
 }
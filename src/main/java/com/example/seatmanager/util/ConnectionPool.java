@@ -0,0 +1,202 @@
+package com.example.seatmanager.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ConnectionPool：定长 JDBC 连接池，由 DBUtil 为主库与只读副本各建一个。
+ *
+ * 借出的是物理连接的代理，调用 close() 时归还而不是真正关闭；归还时回滚未提交的事务并恢复自动提交。
+ * 每个物理连接带一个按 SQL 文本索引的 PreparedStatement 缓存（LRU），
+ * 配合 useServerPrepStmts=true，同一条 SQL 在同一连接上只在服务器端预编译一次。
+ */
+final class ConnectionPool {
+
+    /** 每个连接缓存的语句数上限 */
+    private static final int STATEMENT_CACHE_SIZE = 64;
+    private static final long BORROW_TIMEOUT_SECONDS = 5;
+
+    private final String url;
+    private final Semaphore permits;
+    private final ArrayBlockingQueue<Physical> idle;
+
+    ConnectionPool(String url, int maxSize) {
+        this.url = url;
+        this.permits = new Semaphore(maxSize);
+        this.idle = new ArrayBlockingQueue<>(maxSize);
+    }
+
+    /**
+     * 借出一个连接；池中无空闲连接且未达上限时新建，已达上限时最多等待 BORROW_TIMEOUT_SECONDS 秒
+     */
+    Connection borrow() throws SQLException {
+        try {
+            if (!permits.tryAcquire(BORROW_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new SQLException("连接池已耗尽: " + url);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("等待数据库连接时被中断", e);
+        }
+        try {
+            Physical physical;
+            while ((physical = idle.poll()) != null) {
+                if (!physical.raw.isClosed()) {
+                    return physical.lease();
+                }
+                physical.destroy();
+            }
+            return new Physical(DriverManager.getConnection(url, "root", "")).lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /** 关闭所有空闲连接（借出中的连接归还后照常回到池中） */
+    void close() {
+        Physical physical;
+        while ((physical = idle.poll()) != null) {
+            physical.destroy();
+        }
+    }
+
+    /**
+     * 在借出的连接上取缓存的 PreparedStatement，不存在时预编译并放入缓存。
+     * 返回的语句归连接所有，调用方不得关闭；使用前应自行清空参数。
+     *
+     * @throws IllegalArgumentException 如果 conn 不是连接池借出的连接
+     */
+    static PreparedStatement prepareCached(Connection conn, String sql, boolean returnGeneratedKeys) throws SQLException {
+        if (!Proxy.isProxyClass(conn.getClass()) || !(Proxy.getInvocationHandler(conn) instanceof Lease)) {
+            throw new IllegalArgumentException("not a pooled connection");
+        }
+        Lease lease = (Lease) Proxy.getInvocationHandler(conn);
+        if (lease.released) {
+            throw new SQLException("connection already closed");
+        }
+        return lease.physical.statement(sql, returnGeneratedKeys);
+    }
+
+    private void giveBack(Physical physical) {
+        try {
+            if (!physical.raw.getAutoCommit()) {
+                physical.raw.rollback();
+                physical.raw.setAutoCommit(true);
+            }
+            if (!idle.offer(physical)) {
+                physical.destroy();
+            }
+        } catch (SQLException e) {
+            physical.destroy();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /** 物理连接及其语句缓存 */
+    private final class Physical {
+        final Connection raw;
+        final Map<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= STATEMENT_CACHE_SIZE) {
+                    return false;
+                }
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+
+        Physical(Connection raw) {
+            this.raw = raw;
+        }
+
+        Connection lease() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] {Connection.class}, new Lease(this));
+        }
+
+        PreparedStatement statement(String sql, boolean returnGeneratedKeys) throws SQLException {
+            String key = returnGeneratedKeys ? "K:" + sql : sql;
+            PreparedStatement ps = statements.get(key);
+            if (ps == null || ps.isClosed()) {
+                ps = returnGeneratedKeys
+                        ? raw.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                        : raw.prepareStatement(sql);
+                statements.put(key, ps);
+            }
+            return ps;
+        }
+
+        void destroy() {
+            statements.values().forEach(ConnectionPool::closeQuietly);
+            statements.clear();
+            try {
+                raw.close();
+            } catch (SQLException ignored) {
+                // 连接已失效
+            }
+        }
+    }
+
+    /** 一次借出：close() 归还物理连接，之后该代理不可再用 */
+    private final class Lease implements InvocationHandler {
+        final Physical physical;
+        volatile boolean released;
+
+        Lease(Physical physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        giveBack(physical);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || physical.raw.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + physical.raw + "]";
+                default:
+                    break;
+            }
+            if (released) {
+                throw new SQLException("connection already closed");
+            }
+            try {
+                return method.invoke(physical.raw, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // 关闭失败不影响后续使用
+        }
+    }
+}
@@ -7,17 +7,39 @@ import java.io.File;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Scanner;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * DBUtil：嵌入式 MariaDB4j 数据库初始化及连接工具类
+ *
+ * 读写分离：DAO 通过 getConnection()（读写，主库）与 getReadConnection()（只读）声明访问意图。
+ * 以 -Dseatmanager.replica=true 启动时另起一个通过 binlog 复制跟随主库的只读副本（ReadReplica），
+ * 只读查询在副本延迟不超过 seatmanager.replica.maxLagMillis（默认 1000 毫秒）时发往副本，
+ * 否则或副本连接失败时退回主库。未启用副本时两者等价。
  */
 public class DBUtil {
 
+    private static final boolean REPLICA_ENABLED = Boolean.getBoolean("seatmanager.replica");
+    private static final long MAX_REPLICA_LAG_MILLIS = Long.getLong("seatmanager.replica.maxLagMillis", 1000L);
+    /** 每个连接池的连接数上限 */
+    static final int POOL_SIZE = Integer.getInteger("seatmanager.pool.size", 32);
+
     // 嵌入式数据库实例
     private static DB embeddedDB;
+    // 主库连接池
+    private static volatile ConnectionPool primaryPool;
+    // 只读副本；未启用或启动失败时为 null
+    private static volatile ReadReplica replica;
+    // 运行时开关，供基准测试对比路由开 / 关
+    private static volatile boolean readRouting = true;
+
+    private static final LongAdder replicaReads = new LongAdder();
+    private static final LongAdder primaryReads = new LongAdder();
 
     /**
      * 初始化嵌入式 MariaDB 数据库并执行 schema.sql（建库、建表、预装数据）。
@@ -29,10 +51,18 @@ public class DBUtil {
             DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
             config.setPort(0);                     // 0 表示随机端口
             config.setDataDir(new File("embeddedDB")); // 使用 File 对象指定目录
+            if (REPLICA_ENABLED) {
+                // 副本按行复制主库的 binlog
+                config.addArg("--server-id=1");
+                config.addArg("--log-bin=seatmanager-bin");
+                config.addArg("--binlog-format=ROW");
+            }
 
             // 2. 启动嵌入式数据库
             embeddedDB = DB.newEmbeddedDB(config.build());
             embeddedDB.start();
+            primaryPool = new ConnectionPool(withServerPrepStmts(embeddedDB.getConfiguration().getURL("SeatManagerDB")),
+                    POOL_SIZE);
 
             // 3. 读取 classpath 下的 schema.sql，并切分成单条 SQL 语句执行
             String schemaSql = loadResourceAsString("schema.sql");
@@ -49,6 +79,17 @@ public class DBUtil {
             }
 
             System.out.println("[DBUtil] Embedded MariaDB initialized successfully.");
+
+            // 4. 启动只读副本；失败时只读查询全部走主库
+            if (REPLICA_ENABLED) {
+                try {
+                    replica = ReadReplica.start(embeddedDB.getConfiguration().getURL("SeatManagerDB"),
+                            embeddedDB.getConfiguration().getPort());
+                    System.out.println("[DBUtil] Read replica started.");
+                } catch (Exception e) {
+                    System.err.println("[DBUtil] 只读副本启动失败，只读查询将使用主库: " + e);
+                }
+            }
         } catch (Exception e) {
             e.printStackTrace();
             throw new RuntimeException("Failed to initialize embedded MariaDB4j.", e);
@@ -56,18 +97,105 @@ public class DBUtil {
     }
 
     /**
-     * 获取到 SeatManagerDB 数据库的 JDBC 连接。
+     * 获取到 SeatManagerDB 数据库的 JDBC 连接（读写，主库）。
+     * 连接来自连接池，close() 即归还；未提交的事务在归还时回滚。
      * 注意：调用本方法前，必须先执行 initDatabase()。
      *
      * @return Connection 对象，用完后请关闭
-     * @throws Exception 如果获取连接失败
+     * @throws SQLException 如果获取连接失败或连接池已耗尽
      */
-    public static Connection getConnection() throws Exception {
+    public static Connection getConnection() throws SQLException {
+        return primaryPool.borrow();
+    }
+
+    /**
+     * 在连接池借出的连接上取缓存的 PreparedStatement（不存在时预编译并缓存），供 JdbcTemplate 使用。
+     * 返回的语句归该连接所有，调用方不得关闭，使用前应先 clearParameters()。
+     *
+     * @param returnGeneratedKeys 是否需要取回自增主键
+     * @throws IllegalArgumentException 如果 conn 不是由 getConnection() / getReadConnection() 取得
+     */
+    public static PreparedStatement prepareCached(Connection conn, String sql, boolean returnGeneratedKeys)
+            throws SQLException {
+        return ConnectionPool.prepareCached(conn, sql, returnGeneratedKeys);
+    }
+
+    /**
+     * 在 JDBC URL 上开启服务器端预编译：语句缓存中的 PreparedStatement 只在服务器上编译一次
+     */
+    static String withServerPrepStmts(String jdbcUrl) {
         // embeddedDB.getConfiguration().getURL("SeatManagerDB") 会返回类似 jdbc:mariadb://localhost:XXXXX/SeatManagerDB
-        String jdbcUrl = embeddedDB.getConfiguration().getURL("SeatManagerDB");
-        String username = "root";
-        String password = "";  // 嵌入式 MariaDB 默认无密码
-        return DriverManager.getConnection(jdbcUrl, username, password);
+        return jdbcUrl + (jdbcUrl.indexOf('?') >= 0 ? "&" : "?") + "useServerPrepStmts=true";
+    }
+
+    /**
+     * 获取只读连接：启用副本且副本延迟在上限之内时连接副本，否则连接主库。
+     * 只用于允许读到稍旧数据的查询（示意图、推荐、历史记录、统计）；
+     * 随后要据此写库的读取（冲突检测、先读后改）必须使用 getConnection()。
+     *
+     * @return Connection 对象，用完后请关闭；不得在其上执行写操作
+     * @throws SQLException 如果主库连接也获取失败
+     */
+    public static Connection getReadConnection() throws SQLException {
+        ReadReplica r = replica;
+        if (r != null && readRouting && r.getLagMillis() <= MAX_REPLICA_LAG_MILLIS) {
+            try {
+                Connection conn = r.getConnection();
+                replicaReads.increment();
+                return conn;
+            } catch (SQLException e) {
+                System.err.println("[DBUtil] 副本连接失败，退回主库: " + e);
+            }
+        }
+        primaryReads.increment();
+        return getConnection();
+    }
+
+    /** 打开 / 关闭只读查询路由（关闭后 getReadConnection() 总是连接主库） */
+    public static void setReadRouting(boolean enabled) {
+        readRouting = enabled;
+    }
+
+    /** 只读副本当前延迟（毫秒）；未启用副本或副本不可用时返回 -1 */
+    public static long getReplicaLagMillis() {
+        ReadReplica r = replica;
+        long lag = r != null ? r.getLagMillis() : Long.MAX_VALUE;
+        return lag == Long.MAX_VALUE ? -1 : lag;
+    }
+
+    /** 每个连接池的连接数上限（seatmanager.pool.size，默认 32），准入控制据此分配并发名额 */
+    public static int getPoolSize() {
+        return POOL_SIZE;
+    }
+
+    /** 只读连接的去向计数：{发往副本, 发往主库} */
+    public static long[] readRoutingCounts() {
+        return new long[] {replicaReads.sum(), primaryReads.sum()};
+    }
+
+    /** 停止只读副本（主库由 MariaDB4j 在进程退出时关闭） */
+    public static void shutdownReplica() {
+        ReadReplica r = replica;
+        replica = null;
+        if (r != null) {
+            r.stop();
+        }
+    }
+
+    /**
+     * 创建用于流式读取的 PreparedStatement：只进、只读，并设置驱动对应的 fetch size，
+     * 使结果集按批从服务器拉取，而不是一次性全部缓存在客户端。
+     * MySQL Connector/J 只有 fetch size 为 Integer.MIN_VALUE 时才逐行流式读取，MariaDB 驱动则按正数批量拉取。
+     *
+     * @param conn      数据库连接（结果集读完之前不能在该连接上执行其它语句）
+     * @param sql       查询语句
+     * @param batchSize 非 MySQL 驱动时每批拉取的行数
+     */
+    public static PreparedStatement prepareStreaming(Connection conn, String sql, int batchSize) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        String driver = conn.getMetaData().getDriverName();
+        ps.setFetchSize(driver != null && driver.startsWith("MySQL") ? Integer.MIN_VALUE : batchSize);
+        return ps;
     }
 
     /**
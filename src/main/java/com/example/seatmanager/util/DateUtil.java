@@ -2,8 +2,6 @@ package com.example.seatmanager.util;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
@@ -15,8 +13,6 @@ public class DateUtil {
 
     /** 时间格式化器：yyyy-MM-dd */
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-    /** 时间格式化器：HH:mm */
-    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
 
     /**
      * 获取从当天开始向后 n 天的日期列表（包含当天）。
@@ -27,7 +23,7 @@ public class DateUtil {
      */
     public static List<String> getNextNDates(int daysAhead) {
         List<String> dates = new ArrayList<>();
-        LocalDate today = LocalDate.now(ZoneId.systemDefault());
+        LocalDate today = SlotClock.getInstance().today();
         for (int i = 0; i < daysAhead; i++) {
             LocalDate d = today.plusDays(i);
             dates.add(d.format(DATE_FORMATTER));
@@ -36,41 +32,44 @@ public class DateUtil {
     }
 
     /**
-     * 生成一日内所有 5 分钟粒度的时段列表：从 07:00-07:05、07:05-07:10 …… 到 23:00。
+     * 生成一日内所有时段列表（由 SlotCalendar 定义，默认 07:00-07:05、07:05-07:10 …… 到 23:00）。
      * 可在“手动预约”界面用于展示全部可选时段（后续再根据当天当前时间及冲突情况过滤）。
      *
      * @return List<String>，每个元素形如 "HH:mm-HH:mm"
      */
     public static List<String> generateAllDailyTimeSlots() {
-        List<String> slots = new ArrayList<>();
-        // 定义预约起始时间为 07:00，结束时间为 23:00（不包含 23:00-23:05 这样的时段）
-        LocalTime start = LocalTime.of(7, 0);
-        LocalTime end   = LocalTime.of(23, 0);
-
-        LocalTime cursor = start;
-        while (cursor.isBefore(end)) {
-            LocalTime next = cursor.plusMinutes(5);
-            String slot = cursor.format(TIME_FORMATTER) + "-" + next.format(TIME_FORMATTER);
-            slots.add(slot);
-            cursor = next;
+        SlotCalendar calendar = SlotCalendar.getDefault();
+        List<String> slots = new ArrayList<>(calendar.getSlotCount());
+        for (int i = 0; i < calendar.getSlotCount(); i++) {
+            slots.add(calendar.slotLabel(i));
         }
         return slots;
     }
 
     /**
      * 根据当前本地时间，判断传入的 "HH:mm-HH:mm" 时段是否已过期（结束时间 ≤ 现在）。
+     * 只解析结束时间，过期与否查 SlotClock 预先算好的掩码；已知时段下标时直接用 isSlotExpired。
      *
-     * @param timeSlot 格式 “HH:mm-HH:mm”
+     * @param timeSlot 格式 “HH:mm-HH:mm”，且起止时间都落在 SlotCalendar 的时段边界上
      * @return 如果时段结束时间 ≤ 当前时间返回 true，否则 false
      */
     public static boolean isTimeSlotExpired(String timeSlot) {
-        String[] arr = timeSlot.split("-");
-        if (arr.length != 2) {
+        SlotCalendar calendar = SlotCalendar.getDefault();
+        int end = calendar.parseRangeEnd(timeSlot);
+        if (end <= 0) {
             throw new IllegalArgumentException("Invalid timeSlot format: " + timeSlot);
         }
-        LocalTime end = LocalTime.parse(arr[1], TIME_FORMATTER);
-        LocalTime now = LocalTime.now(ZoneId.systemDefault());
-        return !now.isBefore(end); // 结束时间 ≤ 当前时间则表示已过期
+        return isSlotExpired(end - 1); // 最后一段已结束则整个时段已过期
+    }
+
+    /**
+     * 判断今天的第 slot 段是否已过期（结束时间 ≤ 现在）。
+     *
+     * @param slot 时段下标，0 ≤ slot < SlotCalendar.getSlotCount()
+     * @return 已过期返回 true
+     */
+    public static boolean isSlotExpired(int slot) {
+        return SlotClock.getInstance().isPastToday(slot);
     }
 
     /**
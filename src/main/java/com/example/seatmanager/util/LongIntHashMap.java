@@ -0,0 +1,76 @@
+package com.example.seatmanager.util;
+
+import java.util.Arrays;
+
+/**
+ * LongIntHashMap：long → int 的开放寻址哈希表（线性探测），键值都不装箱。
+ * 只支持非负的值，get() 用 -1 表示不存在；不支持删除，适合一次建好、反复查询的下标索引。
+ */
+public final class LongIntHashMap {
+
+    private static final int EMPTY = -1;
+
+    private final long[] keys;
+    private final int[] values;
+    private final int mask;
+    private int size;
+
+    /**
+     * @param expectedSize 预计的条目数；表容量取不小于其两倍的 2 的幂，装载因子不超过 0.5
+     */
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, EMPTY);
+        mask = capacity - 1;
+    }
+
+    /**
+     * 写入 key → value，key 已存在时覆盖
+     *
+     * @throws IllegalArgumentException 如果 value 为负
+     * @throws IllegalStateException    如果条目数将超过表容量的一半
+     */
+    public void put(long key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value must be non-negative: " + value);
+        }
+        int i = slot(key);
+        while (values[i] != EMPTY) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        if (size + 1 > keys.length / 2) {
+            throw new IllegalStateException("LongIntHashMap is full");
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+    }
+
+    /** @return key 对应的值；不存在时返回 -1 */
+    public int get(long key) {
+        int i = slot(key);
+        while (values[i] != EMPTY) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int slot(long key) {
+        // 混合高低位，避免连续 ID 集中在相邻槽位时探测链过长
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.seatmanager.util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * ManualClock：只在显式调用 set / advance 时才走动的时钟，用于测试与演示。
+ * 通过 SlotClock.setClock 安装后，时间变化后调用 SlotClock.tick() 即可让过期时段掩码与视图确定地前进，
+ * 不依赖真实时间或定时线程（见 bench.SlotClockCheck）。
+ */
+public final class ManualClock extends Clock {
+
+    private final ZoneId zone;
+    private volatile Instant instant;
+
+    public ManualClock(LocalDateTime start, ZoneId zone) {
+        this(start.atZone(zone).toInstant(), zone);
+    }
+
+    private ManualClock(Instant instant, ZoneId zone) {
+        this.instant = instant;
+        this.zone = zone;
+    }
+
+    /** 拨到指定本地时间 */
+    public void set(LocalDateTime time) {
+        instant = time.atZone(zone).toInstant();
+    }
+
+    /** 向前拨动 duration */
+    public void advance(Duration duration) {
+        instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return new ManualClock(instant, zone);
+    }
+
+    @Override
+    public Instant instant() {
+        return instant;
+    }
+}
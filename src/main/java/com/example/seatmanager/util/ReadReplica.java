@@ -0,0 +1,231 @@
+package com.example.seatmanager.util;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ReadReplica：本地只读副本。第二个 MariaDB4j 实例通过 binlog 复制跟随主库，由 DBUtil 统一管理。
+ *
+ * 启动流程：
+ * 1. 主库加锁（FLUSH TABLES WITH READ LOCK）后记下 binlog 位置，把 SeatManagerDB 各表整体复制到副本
+ * 2. 解锁，副本从记下的位置开始复制（CHANGE MASTER TO … ; START SLAVE）
+ * 3. 后台每 HEARTBEAT_MILLIS 向主库 replica_heartbeat 写入当前时间，再从副本读回，
+ *    二者之差即为副本延迟；延迟超过上限或副本不可用时，DBUtil 把只读查询退回主库
+ */
+final class ReadReplica {
+
+    private static final long HEARTBEAT_MILLIS = 100;
+    private static final int COPY_BATCH = 1000;
+    private static final String REPL_USER = "seatmanager_repl";
+    private static final String REPL_PASSWORD = "seatmanager_repl";
+
+    private final DB db;
+    private final String url;
+    private final ConnectionPool pool;
+    private final String primaryUrl;
+    private final ScheduledExecutorService monitor;
+    private volatile long lagMillis = Long.MAX_VALUE;
+
+    private Connection primaryBeat;
+    private Connection replicaBeat;
+
+    private ReadReplica(DB db, String url, String primaryUrl) {
+        this.db = db;
+        this.url = url;
+        this.pool = new ConnectionPool(DBUtil.withServerPrepStmts(url), DBUtil.POOL_SIZE);
+        this.primaryUrl = primaryUrl;
+        this.monitor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replica-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 启动副本实例、从主库复制初始数据并开始复制
+     *
+     * @param primaryUrl  主库 SeatManagerDB 的 JDBC URL
+     * @param primaryPort 主库端口
+     */
+    static ReadReplica start(String primaryUrl, int primaryPort) throws Exception {
+        DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+        config.setPort(0);
+        config.setDataDir(new File("embeddedDB-replica"));
+        config.addArg("--server-id=2");
+        config.addArg("--skip-slave-start");
+        DB db = DB.newEmbeddedDB(config.build());
+        db.start();
+
+        ReadReplica replica = new ReadReplica(db, db.getConfiguration().getURL("SeatManagerDB"), primaryUrl);
+        replica.seed(db.getConfiguration().getURL(""), primaryPort);
+        replica.monitor.scheduleWithFixedDelay(replica::heartbeat, 0, HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+        return replica;
+    }
+
+    /** 最近一次测得的副本延迟（毫秒）；副本不可用时为 Long.MAX_VALUE */
+    long getLagMillis() {
+        return lagMillis;
+    }
+
+    /** 从副本连接池借出一个连接 */
+    Connection getConnection() throws SQLException {
+        return pool.borrow();
+    }
+
+    void stop() {
+        monitor.shutdownNow();
+        closeQuietly(primaryBeat);
+        closeQuietly(replicaBeat);
+        pool.close();
+        try {
+            db.stop();
+        } catch (Exception e) {
+            System.err.println("[ReadReplica] 停止副本失败: " + e);
+        }
+    }
+
+    // ---------------------------------------------------------------- 初始化
+
+    private void seed(String replicaServerUrl, int primaryPort) throws SQLException {
+        try (Connection primary = DriverManager.getConnection(primaryUrl, "root", "");
+             Connection replica = DriverManager.getConnection(replicaServerUrl, "root", "");
+             Statement ps = primary.createStatement();
+             Statement rs = replica.createStatement()) {
+            ps.execute("CREATE USER IF NOT EXISTS '" + REPL_USER + "'@'%' IDENTIFIED BY '" + REPL_PASSWORD + "'");
+            ps.execute("GRANT REPLICATION SLAVE ON *.* TO '" + REPL_USER + "'@'%'");
+
+            rs.execute("STOP SLAVE");
+            rs.execute("RESET SLAVE ALL");
+            rs.execute("SET FOREIGN_KEY_CHECKS = 0");
+            rs.execute("DROP DATABASE IF EXISTS SeatManagerDB");
+            rs.execute("CREATE DATABASE SeatManagerDB");
+            rs.execute("USE SeatManagerDB");
+
+            String logFile;
+            long logPos;
+            ps.execute("FLUSH TABLES WITH READ LOCK");
+            try {
+                try (ResultSet status = ps.executeQuery("SHOW MASTER STATUS")) {
+                    if (!status.next()) {
+                        throw new SQLException("主库未开启 binlog");
+                    }
+                    logFile = status.getString("File");
+                    logPos = status.getLong("Position");
+                }
+                for (String table : listTables(primary)) {
+                    try (ResultSet ddl = ps.executeQuery("SHOW CREATE TABLE `" + table + "`")) {
+                        ddl.next();
+                        rs.execute(ddl.getString(2));
+                    }
+                    copyRows(primary, replica, table);
+                }
+            } finally {
+                ps.execute("UNLOCK TABLES");
+            }
+
+            rs.execute("SET FOREIGN_KEY_CHECKS = 1");
+            rs.execute("CHANGE MASTER TO MASTER_HOST = '127.0.0.1', MASTER_PORT = " + primaryPort
+                    + ", MASTER_USER = '" + REPL_USER + "', MASTER_PASSWORD = '" + REPL_PASSWORD + "'"
+                    + ", MASTER_LOG_FILE = '" + logFile + "', MASTER_LOG_POS = " + logPos);
+            rs.execute("START SLAVE");
+        }
+    }
+
+    private static List<String> listTables(Connection primary) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        String sql = "SELECT table_name FROM information_schema.tables " +
+                "WHERE table_schema = 'SeatManagerDB' AND table_type = 'BASE TABLE'";
+        try (Statement stmt = primary.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                tables.add(rs.getString(1));
+            }
+        }
+        return tables;
+    }
+
+    private static void copyRows(Connection primary, Connection replica, String table) throws SQLException {
+        try (Statement select = primary.createStatement();
+             ResultSet rs = select.executeQuery("SELECT * FROM `" + table + "`")) {
+            ResultSetMetaData meta = rs.getMetaData();
+            int columns = meta.getColumnCount();
+            StringBuilder sql = new StringBuilder("INSERT INTO `").append(table).append("` VALUES (");
+            for (int i = 1; i <= columns; i++) {
+                sql.append(i == 1 ? "?" : ", ?");
+            }
+            sql.append(')');
+            try (PreparedStatement insert = replica.prepareStatement(sql.toString())) {
+                int pending = 0;
+                while (rs.next()) {
+                    for (int i = 1; i <= columns; i++) {
+                        insert.setObject(i, rs.getObject(i));
+                    }
+                    insert.addBatch();
+                    if (++pending == COPY_BATCH) {
+                        insert.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    insert.executeBatch();
+                }
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- 延迟监测
+
+    private void heartbeat() {
+        try {
+            if (primaryBeat == null) {
+                primaryBeat = DriverManager.getConnection(primaryUrl, "root", "");
+            }
+            if (replicaBeat == null) {
+                replicaBeat = DriverManager.getConnection(url, "root", "");
+            }
+            long now = System.currentTimeMillis();
+            try (PreparedStatement ps = primaryBeat.prepareStatement(
+                    "INSERT INTO replica_heartbeat (id, beat_millis) VALUES (1, ?) " +
+                            "ON DUPLICATE KEY UPDATE beat_millis = VALUES(beat_millis)")) {
+                ps.setLong(1, now);
+                ps.executeUpdate();
+            }
+            try (Statement stmt = replicaBeat.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT beat_millis FROM replica_heartbeat WHERE id = 1")) {
+                // 刚写入的心跳可能尚未应用，读到的是上一条；延迟因此最多被高估一个心跳间隔
+                lagMillis = rs.next() ? Math.max(0, System.currentTimeMillis() - rs.getLong(1)) : Long.MAX_VALUE;
+            }
+        } catch (SQLException e) {
+            lagMillis = Long.MAX_VALUE;
+            closeQuietly(primaryBeat);
+            closeQuietly(replicaBeat);
+            primaryBeat = null;
+            replicaBeat = null;
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        if (conn == null) {
+            return;
+        }
+        try {
+            conn.close();
+        } catch (SQLException ignored) {
+            // 关闭失败不影响后续重连
+        }
+    }
+}
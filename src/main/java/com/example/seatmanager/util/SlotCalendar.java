@@ -0,0 +1,197 @@
+package com.example.seatmanager.util;
+
+import java.time.LocalTime;
+
+/**
+ * SlotCalendar：全系统统一的时段定义（开馆时间、每段分钟数、时段个数）。
+ * 位图第 i 位对应 [开馆时间 + i * 每段分钟数, 开馆时间 + (i + 1) * 每段分钟数)。
+ *
+ * 默认配置为 07:00 开馆、每段 5 分钟、共 192 段（07:00–23:00），
+ * 可通过系统属性 seatmanager.slot.opening / seatmanager.slot.minutes / seatmanager.slot.count 调整。
+ *
+ * 所有“HH:mm”“HH:mm-HH:mm”标签在构造时预先生成并 intern，
+ * 合并区间标签在第一次使用时生成后缓存；解析标签为 O(1)，不分配对象、不使用正则。
+ */
+public final class SlotCalendar {
+
+    /** BINARY(24) 位图最多能容纳的时段数 */
+    public static final int MAX_SLOTS = 192;
+
+    private static final SlotCalendar DEFAULT = new SlotCalendar(
+            LocalTime.parse(System.getProperty("seatmanager.slot.opening", "07:00")),
+            Integer.getInteger("seatmanager.slot.minutes", 5),
+            Integer.getInteger("seatmanager.slot.count", MAX_SLOTS));
+
+    private final int openingMinute;
+    private final int slotMinutes;
+    private final int slotCount;
+
+    // boundaryLabels[b] = 第 b 个边界的 "HH:mm"，b ∈ [0, slotCount]
+    private final String[] boundaryLabels;
+    // slotLabels[i] = 第 i 段的 "HH:mm-HH:mm"
+    private final String[] slotLabels;
+    // rangeLabels[start * (slotCount + 1) + end] = 合并区间 [start, end) 的 "HH:mm-HH:mm"，按需填充
+    private final String[] rangeLabels;
+
+    /**
+     * @param openingTime 开馆时间（第 0 段的起点）
+     * @param slotMinutes 每段分钟数
+     * @param slotCount   时段个数，不超过 192
+     */
+    public SlotCalendar(LocalTime openingTime, int slotMinutes, int slotCount) {
+        if (slotMinutes <= 0 || slotCount <= 0 || slotCount > MAX_SLOTS) {
+            throw new IllegalArgumentException("slotMinutes must be positive and slotCount in [1, " + MAX_SLOTS + "]");
+        }
+        int opening = openingTime.getHour() * 60 + openingTime.getMinute();
+        if (opening + slotMinutes * slotCount > 24 * 60) {
+            throw new IllegalArgumentException("slot calendar must end before 24:00");
+        }
+        this.openingMinute = opening;
+        this.slotMinutes = slotMinutes;
+        this.slotCount = slotCount;
+
+        this.boundaryLabels = new String[slotCount + 1];
+        for (int b = 0; b <= slotCount; b++) {
+            boundaryLabels[b] = formatMinuteOfDay(opening + b * slotMinutes).intern();
+        }
+        this.slotLabels = new String[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slotLabels[i] = (boundaryLabels[i] + "-" + boundaryLabels[i + 1]).intern();
+        }
+        this.rangeLabels = new String[(slotCount + 1) * (slotCount + 1)];
+    }
+
+    /** 全局默认时段定义 */
+    public static SlotCalendar getDefault() {
+        return DEFAULT;
+    }
+
+    public int getSlotCount() {
+        return slotCount;
+    }
+    public int getSlotMinutes() {
+        return slotMinutes;
+    }
+    public LocalTime getOpeningTime() {
+        return LocalTime.of(openingMinute / 60, openingMinute % 60);
+    }
+    /** 第 boundary 个边界对应的“一天中的分钟数” */
+    public int boundaryMinuteOfDay(int boundary) {
+        return openingMinute + boundary * slotMinutes;
+    }
+
+    /** 第 slot 段的标签 "HH:mm-HH:mm" */
+    public String slotLabel(int slot) {
+        return slotLabels[slot];
+    }
+
+    /** 第 boundary 个边界的标签 "HH:mm" */
+    public String boundaryLabel(int boundary) {
+        return boundaryLabels[boundary];
+    }
+
+    /**
+     * 合并区间 [start, end) 的标签 "HH:mm-HH:mm"
+     *
+     * @param start 起始时段（包含）
+     * @param end   结束时段（不包含）
+     */
+    public String rangeLabel(int start, int end) {
+        if (start < 0 || end > slotCount || start >= end) {
+            throw new IllegalArgumentException("invalid slot range [" + start + ", " + end + ")");
+        }
+        if (end == start + 1) {
+            return slotLabels[start];
+        }
+        int key = start * (slotCount + 1) + end;
+        String label = rangeLabels[key];
+        if (label == null) {
+            // 并发下可能重复生成同一标签，intern 保证结果一致，无需加锁
+            label = (boundaryLabels[start] + "-" + boundaryLabels[end]).intern();
+            rangeLabels[key] = label;
+        }
+        return label;
+    }
+
+    /**
+     * 将单个时段标签 "HH:mm-HH:mm" 解析为时段下标
+     *
+     * @return 时段下标；格式不合法、不在日历内或跨度不是一段时返回 -1
+     */
+    public int parseSlot(CharSequence label) {
+        int start = parseRangeStart(label);
+        if (start < 0) return -1;
+        return parseRangeEnd(label) == start + 1 ? start : -1;
+    }
+
+    /**
+     * 解析区间标签 "HH:mm-HH:mm" 的起始时段（包含）
+     *
+     * @return 起始时段下标；格式不合法或不在日历内返回 -1
+     */
+    public int parseRangeStart(CharSequence label) {
+        if (!isRangeShape(label)) return -1;
+        int boundary = toBoundary(parseMinuteOfDay(label, 0));
+        return boundary < slotCount ? boundary : -1;
+    }
+
+    /**
+     * 解析区间标签 "HH:mm-HH:mm" 的结束时段（不包含）
+     *
+     * @return 结束边界下标 ∈ [1, slotCount]；格式不合法或不在日历内返回 -1
+     */
+    public int parseRangeEnd(CharSequence label) {
+        if (!isRangeShape(label)) return -1;
+        int boundary = toBoundary(parseMinuteOfDay(label, 6));
+        return boundary > 0 ? boundary : -1;
+    }
+
+    /**
+     * 一天中的某分钟落在第几段
+     *
+     * @return 时段下标；开馆前返回 -1，闭馆后返回 slotCount
+     */
+    public int slotAtMinuteOfDay(int minuteOfDay) {
+        if (minuteOfDay < openingMinute) return -1;
+        return Math.min(slotCount, (minuteOfDay - openingMinute) / slotMinutes);
+    }
+
+    /** 将“一天中的分钟数”换算为边界下标；不在边界上或超出日历返回 -1 */
+    private int toBoundary(int minuteOfDay) {
+        if (minuteOfDay < 0) return -1;
+        int offset = minuteOfDay - openingMinute;
+        if (offset < 0 || offset % slotMinutes != 0) return -1;
+        int boundary = offset / slotMinutes;
+        return boundary <= slotCount ? boundary : -1;
+    }
+
+    private static boolean isRangeShape(CharSequence s) {
+        return s != null && s.length() == 11 && s.charAt(2) == ':' && s.charAt(5) == '-' && s.charAt(8) == ':';
+    }
+
+    /** 解析从 offset 开始的 "HH:mm"，返回一天中的分钟数；非法返回 -1 */
+    private static int parseMinuteOfDay(CharSequence s, int offset) {
+        int h1 = digit(s.charAt(offset));
+        int h2 = digit(s.charAt(offset + 1));
+        int m1 = digit(s.charAt(offset + 3));
+        int m2 = digit(s.charAt(offset + 4));
+        if ((h1 | h2 | m1 | m2) < 0) return -1;
+        int hour = h1 * 10 + h2;
+        int minute = m1 * 10 + m2;
+        if (hour > 24 || minute > 59 || (hour == 24 && minute != 0)) return -1;
+        return hour * 60 + minute;
+    }
+
+    private static int digit(char c) {
+        return c >= '0' && c <= '9' ? c - '0' : -1;
+    }
+
+    private static String formatMinuteOfDay(int minuteOfDay) {
+        int hour = minuteOfDay / 60;
+        int minute = minuteOfDay % 60;
+        return new String(new char[] {
+                (char) ('0' + hour / 10), (char) ('0' + hour % 10), ':',
+                (char) ('0' + minute / 10), (char) ('0' + minute % 10)
+        });
+    }
+}
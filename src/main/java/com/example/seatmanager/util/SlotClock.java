@@ -0,0 +1,203 @@
+package com.example.seatmanager.util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SlotClock：全系统统一的“现在”（单例），以及按默认 SlotCalendar 预先算好的当天“已过期时段”掩码。
+ *
+ * 掩码为 long[3]，结束时间 ≤ 现在的时段置 1，与 OccupancyCache 的占用掩码布局相同，
+ * 因此把当天的可用情况与之合并只需一次按位或（等价于对可用位图做一次按位与）。
+ * 掩码只在时段边界变化：start() 启动的定时线程在每个边界（以及零点换日）醒来重新计算，并通知订阅方，
+ * 打开的视图据此在边界上刷新，而不是轮询。
+ *
+ * 时间来源默认是系统时钟；测试可通过 setClock 安装 ManualClock，拨动后调用 tick() 即可确定地推进。
+ */
+public final class SlotClock {
+
+    /** 订阅接口：过期时段掩码变化时调用（在定时线程或调用 tick 的线程上） */
+    @FunctionalInterface
+    public interface Listener {
+        void onSlotBoundary(LocalDate today, long[] pastMask);
+    }
+
+    private static final long[] NONE = new long[BitmapUtil.MASK_WORDS];
+    private static final long[] ALL = BitmapUtil.rangeMask(0, SlotCalendar.MAX_SLOTS);
+    // 定时线程在边界之后稍晚醒来，避免因计时误差在边界之前重新计算
+    private static final long WAKE_SLACK_MILLIS = 5;
+
+    /** 某一天的过期时段掩码，整体替换 */
+    private static final class State {
+        final long epochDay;
+        final int passedSlots;
+        final long[] mask;
+
+        State(long epochDay, int passedSlots, long[] mask) {
+            this.epochDay = epochDay;
+            this.passedSlots = passedSlots;
+            this.mask = mask;
+        }
+    }
+
+    private static final SlotClock instance = new SlotClock();
+
+    private final SlotCalendar calendar = SlotCalendar.getDefault();
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Clock clock = Clock.systemDefaultZone();
+    private volatile State state;
+    private ScheduledExecutorService scheduler;
+
+    private SlotClock() {
+        state = compute();
+    }
+
+    public static SlotClock getInstance() {
+        return instance;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    /** 更换时间来源（测试用），并立即按新时间重新计算 */
+    public void setClock(Clock clock) {
+        this.clock = clock;
+        tick();
+    }
+
+    public LocalDate today() {
+        return LocalDate.now(clock);
+    }
+
+    public LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    /**
+     * 指定日期的过期时段掩码：今天为预先算好的掩码，过去的日期全部过期，将来的日期没有过期时段
+     *
+     * @return long[3]（共享数组，不得修改）
+     */
+    public long[] pastMask(LocalDate date) {
+        State s = current();
+        long day = date.toEpochDay();
+        if (day == s.epochDay) return s.mask;
+        return day < s.epochDay ? ALL : NONE;
+    }
+
+    /** 指定日期的第 slot 段是否已经结束 */
+    public boolean isPast(LocalDate date, int slot) {
+        return (pastMask(date)[slot >>> 6] & (1L << (slot & 63))) != 0;
+    }
+
+    /** 今天的第 slot 段是否已经结束 */
+    public boolean isPastToday(int slot) {
+        return isPast(today(), slot);
+    }
+
+    public void subscribe(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void unsubscribe(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 按当前时钟重新计算；掩码有变化（跨过时段边界或换日）时通知订阅方
+     *
+     * @return 是否有变化
+     */
+    public boolean tick() {
+        State next;
+        synchronized (this) {
+            State prev = state;
+            next = compute();
+            if (prev != null && prev.epochDay == next.epochDay && prev.passedSlots == next.passedSlots) {
+                return false;
+            }
+            state = next;
+        }
+        LocalDate today = LocalDate.ofEpochDay(next.epochDay);
+        for (Listener listener : listeners) {
+            try {
+                listener.onSlotBoundary(today, next.mask);
+            } catch (RuntimeException e) {
+                System.err.println("[SlotClock] listener failed: " + e);
+            }
+        }
+        return true;
+    }
+
+    /** 启动边界定时线程 */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "slot-clock");
+            t.setDaemon(true);
+            return t;
+        });
+        tick();
+        scheduleNext();
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private synchronized void scheduleNext() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.schedule(() -> {
+            tick();
+            scheduleNext();
+        }, millisUntilNextBoundary() + WAKE_SLACK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /** 距下一个时段边界的毫秒数；今天的边界都已过去时为距零点的毫秒数 */
+    private long millisUntilNextBoundary() {
+        LocalDateTime now = now();
+        LocalDateTime next = now.toLocalDate().plusDays(1).atStartOfDay();
+        int minute = now.getHour() * 60 + now.getMinute();
+        for (int b = 0; b <= calendar.getSlotCount(); b++) {
+            int boundary = calendar.boundaryMinuteOfDay(b);
+            if (boundary > minute) {
+                next = now.toLocalDate().atStartOfDay().plusMinutes(boundary);
+                break;
+            }
+        }
+        return Math.max(0, Duration.between(now, next).toMillis());
+    }
+
+    /** 当前时钟下的状态；跨日后尚未 tick 时按需重新计算 */
+    private State current() {
+        State s = state;
+        if (s.epochDay != LocalDate.now(clock).toEpochDay()) {
+            tick();
+            s = state;
+        }
+        return s;
+    }
+
+    /** 结束时间 ≤ 现在的时段个数 k，掩码为 [0, k)；闭馆后整天过期 */
+    private State compute() {
+        LocalDateTime now = now();
+        int minute = now.getHour() * 60 + now.getMinute();
+        int passed = calendar.slotAtMinuteOfDay(minute);
+        int k = Math.max(0, Math.min(passed, calendar.getSlotCount()));
+        long[] mask = k == 0 ? NONE : k == calendar.getSlotCount() ? ALL : BitmapUtil.rangeMask(0, k);
+        return new State(now.toLocalDate().toEpochDay(), k, mask);
+    }
+}
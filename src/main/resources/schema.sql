@@ -87,13 +87,62 @@ CREATE TABLE IF NOT EXISTS usage_record (
   record_date     DATE           NOT NULL,                            -- 预约日期
   signed          BOOLEAN        NOT NULL DEFAULT FALSE,              -- 是否签到
   time_bitmap     BINARY(24)     NOT NULL,                            -- 192 段空闲/占用位图
+  start_slot      SMALLINT       NULL,                                -- 占用区间起点（包含），NULL 表示待回填
+  end_slot        SMALLINT       NULL,                                -- 占用区间终点（不包含）
   FOREIGN KEY (student_id) REFERENCES student(student_id)
     ON DELETE CASCADE ON UPDATE CASCADE,
   FOREIGN KEY (seat_id) REFERENCES seat(seat_id)
     ON DELETE CASCADE ON UPDATE CASCADE,
-  INDEX idx_usage_date_seat (record_date, seat_id)
+  INDEX idx_usage_date_seat (record_date, seat_id),
+  INDEX idx_usage_seat_date_start (seat_id, record_date, start_slot)
 );
 -- 记录谁在何时预约哪个座位，以及签到状态与 192 段时间位图 :contentReference[oaicite:6]{index=6}
+-- start_slot/end_slot 与 time_bitmap 并存：冲突检测可直接用区间谓词在库内完成
+-- 旧库升级：补充区间列与索引（新库中为空操作），已有记录由 IntervalMigrationService 回填
+ALTER TABLE usage_record ADD COLUMN IF NOT EXISTS start_slot SMALLINT NULL;
+ALTER TABLE usage_record ADD COLUMN IF NOT EXISTS end_slot SMALLINT NULL;
+CREATE INDEX IF NOT EXISTS idx_usage_seat_date_start ON usage_record (seat_id, record_date, start_slot);
+
+-- 9. 预约引擎落库进度（engine_checkpoint）
+CREATE TABLE IF NOT EXISTS engine_checkpoint (
+  engine_id       VARCHAR(32)    PRIMARY KEY,                         -- 引擎实例标识
+  last_seq        BIGINT         NOT NULL                             -- 已写入 usage_record 的最后一条日志序号
+);
+-- 与批量写入 usage_record 在同一事务中更新，崩溃后只需重放序号更大的日志
+
+-- 10. 自习室按天汇总（room_day_stats）
+CREATE TABLE IF NOT EXISTS room_day_stats (
+  room_id         INT            NOT NULL,                            -- 自习室
+  stat_date       DATE           NOT NULL,                            -- 日期
+  reservations    INT            NOT NULL DEFAULT 0,                  -- 预约条数
+  reserved_slots  INT            NOT NULL DEFAULT 0,                  -- 被预约的“座位 × 时段”数
+  signed_slots    INT            NOT NULL DEFAULT 0,                  -- 已签到的“座位 × 时段”数
+  closed_slots    INT            NOT NULL DEFAULT 0,                  -- 被事件关闭的时段数
+  PRIMARY KEY (room_id, stat_date),
+  FOREIGN KEY (room_id) REFERENCES study_room(room_id)
+    ON DELETE CASCADE ON UPDATE CASCADE
+);
+
+-- 11. 自习室按小时汇总（room_hour_stats）
+CREATE TABLE IF NOT EXISTS room_hour_stats (
+  room_id         INT            NOT NULL,                            -- 自习室
+  stat_date       DATE           NOT NULL,                            -- 日期
+  hour            TINYINT        NOT NULL,                            -- 小时（0–23）
+  reserved_slots  INT            NOT NULL DEFAULT 0,
+  signed_slots    INT            NOT NULL DEFAULT 0,
+  closed_slots    INT            NOT NULL DEFAULT 0,
+  PRIMARY KEY (room_id, stat_date, hour),
+  FOREIGN KEY (room_id) REFERENCES study_room(room_id)
+    ON DELETE CASCADE ON UPDATE CASCADE
+);
+-- 两张汇总表由 RollupService 随预约/取消/签到/事件增量更新，每晚对前一天重新计算并校对
+
+-- 12. 只读副本心跳（replica_heartbeat）
+CREATE TABLE IF NOT EXISTS replica_heartbeat (
+  id              TINYINT        PRIMARY KEY,                         -- 固定为 1
+  beat_millis     BIGINT         NOT NULL                             -- 主库写入时的时间（毫秒）
+);
+-- 启用只读副本时由 DBUtil 定时写入主库，从副本读回的值与当前时间之差即为复制延迟
 
 -- 4. 预装学生数据（前 27 名）
 INSERT INTO student(student_id, name, photo_path, violation_count, email) VALUES
@@ -1336,82 +1385,9 @@ INSERT INTO seat(room_id, x_coord, y_coord, near_window, near_door, near_socket)
   (40,  34,  92, 0, 0, 0), (40,  42,  92, 0, 0, 0), (40,  50,  92, 0, 0, 0), (40,  58,  92, 0, 0, 0), (40,  66,  92, 0, 0, 0), (40,  74,  92, 0, 0, 0),
   (40,  34, 100, 0, 0, 0), (40,  42, 100, 0, 0, 0), (40,  50, 100, 0, 0, 0), (40,  58, 100, 0, 0, 0), (40,  66, 100, 0, 0, 0), (40,  74, 100, 0, 0, 0);
 -- -------------------------------------------------------
--- 房间 41–50 手动式“半自动”插入：基于中心坐标和设施布局
--- 直接复制粘贴到 schema.sql 中即可
+-- 房间 41–50：座位由 SeatLayoutGenerator 在启动时生成（LifecycleService.startUp），
+-- 按 room_id 与中心坐标排成行列网格并计算 near_*，一个事务内多行 INSERT 写入
 -- -------------------------------------------------------
-DELIMITER //
-CREATE PROCEDURE seedSeats41to50()
-BEGIN
-  DECLARE rid INT;
-  DECLARE cx INT;
-  DECLARE cy INT;
-  DECLARE rows INT;
-  DECLARE cols INT;
-  DECLARE startX INT;
-  DECLARE startY INT;
-  DECLARE i INT;
-  DECLARE j INT;
-  DECLARE sx INT;
-  DECLARE sy INT;
-  -- 游标遍历房间41–50
-  DECLARE cur CURSOR FOR 
-    SELECT room_id, x_coord, y_coord 
-      FROM study_room 
-     WHERE room_id BETWEEN 41 AND 50 
-     ORDER BY room_id;
-  DECLARE CONTINUE HANDLER FOR NOT FOUND SET rid = -1;
-
-  OPEN cur;
-  read_loop: LOOP
-    FETCH cur INTO rid, cx, cy;
-    IF rid = -1 THEN 
-      LEAVE read_loop;
-    END IF;
-    -- 用 room_id 生成“随机”行列数（3–6）
-    SET rows = MOD(rid*7,4) + 3;
-    SET cols = MOD(rid*11,4) + 3;
-    -- 计算网格起点
-    SET startX = cx - ((cols-1)*8)/2;
-    SET startY = cy - ((rows-1)*8)/2;
-
-    SET i = 0;
-    WHILE i < rows DO
-      SET j = 0;
-      WHILE j < cols DO
-        SET sx = startX + j*8;
-        SET sy = startY + i*8;
-        -- 插入并计算 near_*
-        INSERT INTO seat(room_id, x_coord, y_coord, near_window, near_door, near_socket)
-        SELECT 
-          rid, sx, sy,
-          IF(EXISTS(
-            SELECT 1 FROM facility f 
-             WHERE f.room_id=rid AND f.type='WINDOW'
-               AND POW(f.x_coord-sx,2)+POW(f.y_coord-sy,2)<=25
-          ),1,0),
-          IF(EXISTS(
-            SELECT 1 FROM facility f 
-             WHERE f.room_id=rid AND f.type='DOOR'
-               AND POW(f.x_coord-sx,2)+POW(f.y_coord-sy,2)<=25
-          ),1,0),
-          IF(EXISTS(
-            SELECT 1 FROM facility f 
-             WHERE f.room_id=rid AND f.type='SOCKET'
-               AND POW(f.x_coord-sx,2)+POW(f.y_coord-sy,2)<=25
-          ),1,0);
-        SET j = j + 1;
-      END WHILE;
-      SET i = i + 1;
-    END WHILE;
-  END LOOP;
-  CLOSE cur;
-END;
-//
-DELIMITER ;
-
--- 调用并删除存储过程
-CALL seedSeats41to50();
-DROP PROCEDURE seedSeats41to50;
 -- ------------------------------------------------------------------
 -- 8. 手动预装 usage_record 表（50 条，房间 1–3，2025-05-01 全天 07:00–07:29）
 -- ------------------------------------------------------------------